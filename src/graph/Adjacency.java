@@ -0,0 +1,99 @@
+package graph;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage backend for the adjacency structure of a Graph. Every vertex is
+ * given a dense int id in the range [0, size()). Ids are stable until a
+ * vertex is removed, at which point the vertex with the highest id may take
+ * over the id of the removed vertex.
+ *
+ * @author Albin Hjalmas.
+ * @param <V> The type of the vertices.
+ */
+interface Adjacency<V> extends Serializable {
+
+    /**
+     * Adds a vertex without any edges.
+     *
+     * @param v the vertex to add.
+     * @return true if the vertex was added, false if it was already present.
+     */
+    boolean addV(V v);
+
+    /**
+     * Removes a vertex and all edges connected to it.
+     *
+     * @param v the vertex to remove.
+     * @return the number of removed edges or -1 if v was not present.
+     */
+    int removeV(V v);
+
+    /**
+     * Gets the id of a vertex.
+     *
+     * @param v the vertex.
+     * @return the id of v or -1 if v is not present.
+     */
+    int id(V v);
+
+    /**
+     * Gets the vertex with the specified id.
+     *
+     * @param id the id.
+     * @return the vertex.
+     */
+    V vertex(int id);
+
+    /**
+     * @return the number of vertices.
+     */
+    int size();
+
+    /**
+     * Adds an edge between the vertices with id a and b.
+     *
+     * @precondition !containsE(a, b)
+     */
+    void addE(int a, int b);
+
+    /**
+     * Removes the edge between the vertices with id a and b.
+     *
+     * @return true if the edge was removed else false.
+     */
+    boolean removeE(int a, int b);
+
+    /**
+     * Checks for an edge between the vertices with id a and b.
+     *
+     * @return true if there is an edge else false.
+     */
+    boolean containsE(int a, int b);
+
+    /**
+     * @param id the vertex id.
+     * @return the number of edges connected to the vertex.
+     */
+    int degree(int id);
+
+    /**
+     * @param id the vertex id.
+     * @param i index in the range [0, degree(id)).
+     * @return the id of the i:th adjacent vertex.
+     */
+    int adj(int id, int i);
+
+    /**
+     * @param v the vertex.
+     * @return a list of vertices adjacent to v or null if v is not present.
+     */
+    ArrayList<V> getAdj(V v);
+
+    /**
+     * @return all vertices in insertion order.
+     */
+    List<V> getVertices();
+}
@@ -0,0 +1,268 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Adjacency storage that keeps all edges in one primitive int pool. Each
+ * vertex owns a block [start, start + cap) of the pool where the ids of its
+ * neighbours are stored. A block that runs full is moved to the end of the
+ * pool with twice the capacity, and the pool is compacted once more than
+ * half of it is unused. The lists returned by getAdj are copies.
+ *
+ * @author Albin Hjalmas.
+ * @param <V> The type of the vertices.
+ */
+class CompactAdjacency<V> implements Adjacency<V> {
+
+    private static final int INIT_VERTICES = 8;
+    private static final int INIT_BLOCK = 2;
+
+    private final ST<V, Integer> ids; // Vertex to id.
+    private Object[] verts; // Id to vertex.
+    private int[] start; // Start of each vertex block in the pool.
+    private int[] deg; // Number of neighbours of each vertex.
+    private int[] cap; // Capacity of each vertex block.
+    private int[] pool; // Neighbour ids of all vertices.
+    private int poolTop; // First unused index at the end of the pool.
+    private int garbage; // Number of pool entries not owned by any block.
+    private int n; // Number of vertices.
+
+    /**
+     * Constructor.
+     */
+    CompactAdjacency() {
+        ids = new ST<>();
+        verts = new Object[INIT_VERTICES];
+        start = new int[INIT_VERTICES];
+        deg = new int[INIT_VERTICES];
+        cap = new int[INIT_VERTICES];
+        pool = new int[INIT_VERTICES * INIT_BLOCK];
+    }
+
+    @Override
+    public boolean addV(V v) {
+        if (ids.contains(v)) {
+            return false;
+        }
+
+        if (n == verts.length) {
+            int len = 2 * n;
+            verts = Arrays.copyOf(verts, len);
+            start = Arrays.copyOf(start, len);
+            deg = Arrays.copyOf(deg, len);
+            cap = Arrays.copyOf(cap, len);
+        }
+
+        // The block is allocated when the first edge is added.
+        verts[n] = v;
+        start[n] = poolTop;
+        deg[n] = 0;
+        cap[n] = 0;
+        ids.add(v, n);
+        n++;
+        return true;
+    }
+
+    @Override
+    public int removeV(V v) {
+        Integer boxed = ids.remove(v);
+        if (boxed == null) {
+            return -1;
+        }
+        int id = boxed;
+
+        // Remove all edges connected to v. A self-loop is listed twice in
+        // the block of v but is only one edge.
+        int loops = 0;
+        for (int i = start[id]; i < start[id] + deg[id]; i++) {
+            if (pool[i] != id) {
+                removeFromBlock(pool[i], id);
+            } else {
+                loops++;
+            }
+        }
+        int removed = deg[id] - loops / 2;
+        garbage += cap[id];
+
+        // Let the last vertex take over the id of v.
+        int last = n - 1;
+        if (id != last) {
+            verts[id] = verts[last];
+            start[id] = start[last];
+            deg[id] = deg[last];
+            cap[id] = cap[last];
+            ids.add(vertex(id), id);
+
+            // Renumber the moved vertex in the blocks of its neighbours.
+            for (int i = start[id]; i < start[id] + deg[id]; i++) {
+                int w = pool[i] == last ? id : pool[i];
+                if (w == id) {
+                    pool[i] = id;
+                    continue;
+                }
+                for (int j = start[w]; j < start[w] + deg[w]; j++) {
+                    if (pool[j] == last) {
+                        pool[j] = id;
+                    }
+                }
+            }
+        }
+        verts[last] = null;
+        n--;
+
+        if (2 * garbage > poolTop) {
+            compact();
+        }
+        return removed;
+    }
+
+    @Override
+    public int id(V v) {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // verts only holds vertices of type V.
+    public V vertex(int id) {
+        return (V) verts[id];
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public void addE(int a, int b) {
+        append(a, b);
+        append(b, a);
+    }
+
+    @Override
+    public boolean removeE(int a, int b) {
+        if (!removeFromBlock(a, b)) {
+            return false;
+        }
+        removeFromBlock(b, a);
+        return true;
+    }
+
+    @Override
+    public boolean containsE(int a, int b) {
+        // Scan the shorter of the two blocks.
+        if (deg[b] < deg[a]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+
+        for (int i = start[a]; i < start[a] + deg[a]; i++) {
+            if (pool[i] == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int degree(int id) {
+        return deg[id];
+    }
+
+    @Override
+    public int adj(int id, int i) {
+        return pool[start[id] + i];
+    }
+
+    @Override
+    public ArrayList<V> getAdj(V v) {
+        Integer id = ids.get(v);
+        if (id == null) {
+            return null;
+        }
+
+        ArrayList<V> a = new ArrayList<>(deg[id]);
+        for (int i = start[id]; i < start[id] + deg[id]; i++) {
+            a.add(vertex(pool[i]));
+        }
+        return a;
+    }
+
+    @Override
+    public List<V> getVertices() {
+        return ids.getKeys();
+    }
+
+    /**
+     * Appends w to the block of vertex id, moving the block if it is full.
+     */
+    private void append(int id, int w) {
+        if (deg[id] == cap[id]) {
+            int newCap = Math.max(INIT_BLOCK, 2 * cap[id]);
+
+            if (start[id] + cap[id] == poolTop) {
+                // The block is last in the pool and can grow in place.
+                ensurePool(poolTop + newCap - cap[id]);
+                poolTop += newCap - cap[id];
+            } else {
+                if (2 * (garbage + cap[id]) > poolTop) {
+                    compact();
+                }
+                ensurePool(poolTop + newCap);
+                System.arraycopy(pool, start[id], pool, poolTop, deg[id]);
+                garbage += cap[id];
+                start[id] = poolTop;
+                poolTop += newCap;
+            }
+            cap[id] = newCap;
+        }
+
+        pool[start[id] + deg[id]++] = w;
+    }
+
+    /**
+     * Removes w from the block of vertex id, keeping the order of the
+     * remaining neighbours.
+     *
+     * @return true if w was found else false.
+     */
+    private boolean removeFromBlock(int id, int w) {
+        int s = start[id];
+        for (int i = s; i < s + deg[id]; i++) {
+            if (pool[i] == w) {
+                System.arraycopy(pool, i + 1, pool, i, s + deg[id] - i - 1);
+                deg[id]--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes sure that the pool can hold at least size entries.
+     */
+    private void ensurePool(int size) {
+        if (size > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(size, 2 * pool.length));
+        }
+    }
+
+    /**
+     * Moves all blocks to the front of a new pool, dropping unused entries.
+     */
+    private void compact() {
+        int[] newPool = new int[Math.max(INIT_BLOCK, 2 * (poolTop - garbage))];
+        int top = 0;
+        for (int id = 0; id < n; id++) {
+            System.arraycopy(pool, start[id], newPool, top, deg[id]);
+            start[id] = top;
+            top += cap[id];
+        }
+        pool = newPool;
+        poolTop = top;
+        garbage = 0;
+    }
+}
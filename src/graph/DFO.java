@@ -1,57 +1,180 @@
 package graph;
 
+import java.util.Arrays;
+
 /**
  * Perform an operation on each Vertex in a graph. The operation to perform is
  * defined by extending this class and implementing the operation method.
  *
+ * The traversals use an explicit stack instead of recursion and mark visited
+ * vertices in an epoch stamped array that is reused between runs, so running
+ * the same DFO repeatedly does not allocate unless the graph has grown. The
+ * graph must not be modified while a traversal is running.
+ *
  * @author Albin Hjalmas.
  * @param <V> the type of the vertices contained within the graph.
  */
 public abstract class DFO<V> {
 
-    private ST<V, Boolean> marked; // Symbol table containing the marked state of the vertices.
-    private Graph<V> graph;
+    private final Graph<V> graph;
+    private int[] stamp; // A vertex id is marked if stamp[id] == epoch.
+    private int epoch; // Stamp of the current run.
+    private int[] stack; // Vertex ids, used as stack in dfs and queue in bfs.
+    private int[] edge; // Next adjacency index of each vertex on the stack.
 
     public DFO(Graph<V> g) {
         graph = g;
+        stamp = new int[0];
+        stack = new int[0];
+        edge = new int[0];
+        epoch = 0;
     }
 
     /**
-     * Run the operation on all vertices in the graph.
+     * Run the operation on all vertices in the graph in depth first order.
+     * Every connected component is visited.
      */
     public void run() {
-        // Create marked table.
-        marked = new ST<>();
-        for (V v : graph.getVertices()) {
-            marked.add(v, Boolean.FALSE);
+        begin();
+        for (int id = 0; id < graph.getV(); id++) {
+            if (stamp[id] != epoch) {
+                dfs(id);
+            }
         }
+    }
 
-        // Start the depth first search.
-        dfs(graph, graph.getVertices().get(0));
+    /**
+     * Run the operation on all vertices in the graph in breadth first order.
+     * Every connected component is visited.
+     */
+    public void runBfs() {
+        begin();
+        for (int id = 0; id < graph.getV(); id++) {
+            if (stamp[id] != epoch) {
+                bfs(id);
+            }
+        }
     }
 
     /**
-     * Perform depth first search on the graph.
+     * Run the operation in depth first order on the vertices connected to
+     * start.
      *
-     * @param g
-     * @param vertex
-     * @param a
-     */
-    private void dfs(Graph<V> g, V vertex) {
-        // Mark current vertex.
-        marked.remove(vertex);
-        marked.add(vertex, Boolean.TRUE);
-        // Execute the operation on the vertex.
-        operation(vertex);
-        for (V v : g.getAdj(vertex)) {
-            // Check if current vertex has been visited,
+     * @param start the vertex to start from.
+     * @return false if start is not contained in the graph else true.
+     */
+    public boolean runFrom(V start) {
+        int id = graph.id(start);
+        if (id < 0) {
+            return false;
+        }
+
+        begin();
+        dfs(id);
+        return true;
+    }
+
+    /**
+     * Run the operation in breadth first order on the vertices connected to
+     * start.
+     *
+     * @param start the vertex to start from.
+     * @return false if start is not contained in the graph else true.
+     */
+    public boolean runBfsFrom(V start) {
+        int id = graph.id(start);
+        if (id < 0) {
+            return false;
+        }
+
+        begin();
+        bfs(id);
+        return true;
+    }
+
+    /**
+     * Starts a new run. Advances the epoch and grows the work arrays if the
+     * graph has grown since the last run.
+     */
+    private void begin() {
+        int n = graph.getV();
+        if (stamp.length < n) {
+            int len = Math.max(n, 2 * stamp.length);
+            stamp = new int[len];
+            stack = new int[len];
+            edge = new int[len];
+            epoch = 0;
+        }
+
+        epoch++;
+        if (epoch == 0) { // Wrapped around, clear all old stamps.
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Perform depth first search from the vertex with the specified id.
+     *
+     * @param root the id to start from.
+     */
+    private void dfs(int root) {
+        visit(root);
+        stack[0] = root;
+        edge[0] = 0;
+        int sp = 1;
+
+        while (sp > 0) {
+            int v = stack[sp - 1];
+            if (edge[sp - 1] == graph.deg(v)) {
+                sp--;
+                continue;
+            }
+
+            // Check if the next adjacent vertex has been visited,
             // if not: visit it, perform operation and mark it.
-            if (marked.get(v) == false) {
-                dfs(g, v);
+            int w = graph.adjId(v, edge[sp - 1]++);
+            if (stamp[w] != epoch) {
+                visit(w);
+                stack[sp] = w;
+                edge[sp] = 0;
+                sp++;
+            }
+        }
+    }
+
+    /**
+     * Perform breadth first search from the vertex with the specified id.
+     *
+     * @param root the id to start from.
+     */
+    private void bfs(int root) {
+        visit(root);
+        stack[0] = root;
+        int head = 0;
+        int tail = 1;
+
+        // Every vertex is enqueued at most once so no wrap around is needed.
+        while (head < tail) {
+            int v = stack[head++];
+            for (int i = 0; i < graph.deg(v); i++) {
+                int w = graph.adjId(v, i);
+                if (stamp[w] != epoch) {
+                    visit(w);
+                    stack[tail++] = w;
+                }
             }
         }
     }
 
+    /**
+     * Marks the vertex with the specified id and executes the operation on it.
+     */
+    private void visit(int id) {
+        stamp[id] = epoch;
+        operation(graph.vertex(id));
+    }
+
     /**
      * The operation to perform on each vertex.
      *
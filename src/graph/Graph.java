@@ -2,6 +2,7 @@ package graph;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A undirected graph.
@@ -11,35 +12,72 @@ import java.util.ArrayList;
  */
 public class Graph<V> implements Serializable {
 
-    private ST<V, ArrayList<V>> adj; // Adjacency lists.
+    /**
+     * The available storage backends.
+     * LISTS keeps one list of adjacent vertices per vertex.
+     * COMPACT gives each vertex a dense int id and keeps all edges in
+     * primitive int arrays.
+     */
+    public enum Backend {
+        LISTS, COMPACT
+    }
+
+    private static Backend defaultBackend = Backend.COMPACT;
+
+    private Adjacency<V> adj; // Adjacency storage.
     private int edges; // Number of edges
 
     /**
-     * Constructor.
+     * Constructor. Uses the default backend.
      */
     public Graph() {
-        // Create symbol table for holding vertices and 
-        // accompanying adjacency lists.
-        adj = new ST<>();
-        edges = 0;
+        this(defaultBackend);
     }
 
     /**
      * Constructor.
      *
+     * @param backend the storage backend to use.
+     */
+    public Graph(Backend backend) {
+        if (backend == Backend.LISTS) {
+            adj = new ListAdjacency<>();
+        } else {
+            adj = new CompactAdjacency<>();
+        }
+        edges = 0;
+    }
+
+    /**
+     * Constructor. Uses the default backend.
+     *
      * @param vertices argument-list with the default vertices.
      */
     public Graph(V... vertices) {
-        // Create symbol table for holding vertices and 
-        // accompanying adjacency lists.
-        adj = new ST<>();
+        this(defaultBackend);
 
-        // Add vertices and create adjacency lists.
+        // Add vertices.
         for (V vertex : vertices) {
-            adj.add(vertex, new ArrayList<>());
+            adj.addV(vertex);
         }
+    }
 
-        edges = 0;
+    /**
+     * Sets the backend used by graphs created without an explicit backend.
+     *
+     * @param backend the new default backend.
+     */
+    public static void setDefaultBackend(Backend backend) {
+        defaultBackend = backend;
+    }
+
+    /**
+     * Gets the backend used by graphs created without an explicit backend.
+     *
+     * @return the default backend.
+     */
+    public static Backend getDefaultBackend() {
+        return defaultBackend;
     }
 
     /**
@@ -48,7 +86,8 @@ public class Graph<V> implements Serializable {
      * @param v the v to add to this graph.
      */
     public void addV(V v) {
-        adj.add(v, new ArrayList<>());
+        // Adding an existing vertex must not discard its edges.
+        adj.addV(v);
     }
 
     /**
@@ -58,20 +97,13 @@ public class Graph<V> implements Serializable {
      * @return true if successful else false.
      */
     public boolean removeV(V v) {
-        // Remove all edges connected to v
-        ArrayList<V> a = adj.get(v);
-        if (a == null) {
+        // Remove all edges connected to v and finally v itself.
+        int removed = adj.removeV(v);
+        if (removed < 0) {
             return false;
         }
 
-        for (V v2 : a) {
-            ArrayList<V> b = adj.get(v2);
-            b.remove(v);
-            edges--;
-        }
-
-        // Finally remove v.
-        adj.remove(v);
+        edges -= removed;
         return true;
     }
 
@@ -84,16 +116,18 @@ public class Graph<V> implements Serializable {
      * @precondition this.containsV(v1) && this.containsV(v2)
      */
     public boolean addE(V v1, V v2) {
+        int a = adj.id(v1);
+        int b = adj.id(v2);
+
         // First check if this graph
         // contains an edge between v1 and v2.
         // We do not allow parallell edges.
-        if (containsE(v1, v2) || !(containsV(v1) && containsV(v2))) {
+        if (a < 0 || b < 0 || adj.containsE(a, b)) {
             return false;
         }
 
         // Add to adjacency lists.
-        adj.get(v1).add(v2);
-        adj.get(v2).add(v1);
+        adj.addE(a, b);
         edges++;
         return true;
     }
@@ -107,15 +141,15 @@ public class Graph<V> implements Serializable {
      * @precondition this.containsE(v1, v2)
      */
     public boolean removeE(V v1, V v2) {
-        // First check if this graph even 
+        int a = adj.id(v1);
+        int b = adj.id(v2);
+
+        // First check if this graph even
         // contains an edge between v1 and v2.
-        if (!containsE(v1, v2)) {
+        if (a < 0 || b < 0 || !adj.removeE(a, b)) {
             return false;
         }
 
-        // Remove from eachothers adjacency lists.
-        adj.get(v1).remove(v2);
-        adj.get(v2).remove(v1);
         edges--;
         return true;
     }
@@ -127,12 +161,7 @@ public class Graph<V> implements Serializable {
      * @return true if v is contained within this graph else false.
      */
     public boolean containsV(V v) {
-        for (V vertex : adj.getKeys()) {
-            if (vertex.equals(v)) {
-                return true;
-            }
-        }
-        return false;
+        return adj.id(v) >= 0;
     }
 
     /**
@@ -143,22 +172,12 @@ public class Graph<V> implements Serializable {
      * @return true if the graph contains the specified edge else false.
      */
     public boolean containsE(V v1, V v2) {
-        // First check if it contains both vertices
-        if (!(containsV(v1) && containsV(v2))) {
-            return false;
-        }
+        int a = adj.id(v1);
+        int b = adj.id(v2);
 
-        // Now check if it contains an edge between v1 and v2
-        // Do this by iterating over v1's adjacency list. If v2 is in 
-        // v1's adjacency list it means that there is an edge between
-        // v1 and v2.
-        for (V v : adj.get(v1)) {
-            if (v.equals(v2)) {
-                return true;
-            }
-        }
-
-        return false;
+        // First check if it contains both vertices
+        // and then if there is an edge between them.
+        return a >= 0 && b >= 0 && adj.containsE(a, b);
     }
 
     /**
@@ -180,20 +199,52 @@ public class Graph<V> implements Serializable {
     }
 
     /**
-     * Get a list of vertices adjacent to v.
+     * Get a list of vertices adjacent to v. With the LISTS backend the
+     * returned list is live, with the COMPACT backend it is a copy.
      *
      * @param v the vertex.
      * @return a list of vertices adjacent to v.
      */
     public ArrayList<V> getAdj(V v) {
-        return adj.get(v);
+        return adj.getAdj(v);
     }
-    
+
+    /**
+     * Gets the number of edges connected to v.
+     *
+     * @param v the vertex.
+     * @return the degree of v or -1 if v is not contained in this graph.
+     */
+    public int degree(V v) {
+        int id = adj.id(v);
+        return id < 0 ? -1 : adj.degree(id);
+    }
+
     /**
      * Return all vertices belonging to this graph.
      * @return a list of all vertices.
      */
-    public ArrayList<V> getVertices() {
-        return adj.getKeys();
+    public List<V> getVertices() {
+        return adj.getVertices();
+    }
+
+    // Dense id access used by the traversal and analysis classes in this
+    // package. Ids are in the range [0, getV()) and may change when a vertex
+    // is removed.
+
+    int id(V v) {
+        return adj.id(v);
+    }
+
+    V vertex(int id) {
+        return adj.vertex(id);
+    }
+
+    int deg(int id) {
+        return adj.degree(id);
+    }
+
+    int adjId(int id, int i) {
+        return adj.adj(id, i);
     }
 }
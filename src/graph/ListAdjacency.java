@@ -0,0 +1,129 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adjacency storage that keeps one list of neighbours per vertex. The lists
+ * returned by getAdj are live and reflect later changes to the graph.
+ *
+ * @author Albin Hjalmas.
+ * @param <V> The type of the vertices.
+ */
+class ListAdjacency<V> implements Adjacency<V> {
+
+    private final ST<V, Integer> ids; // Vertex to id.
+    private final ArrayList<V> verts; // Id to vertex.
+    private final ArrayList<ArrayList<V>> lists; // Id to adjacency list.
+
+    /**
+     * Constructor.
+     */
+    ListAdjacency() {
+        ids = new ST<>();
+        verts = new ArrayList<>();
+        lists = new ArrayList<>();
+    }
+
+    @Override
+    public boolean addV(V v) {
+        if (ids.contains(v)) {
+            return false;
+        }
+
+        ids.add(v, verts.size());
+        verts.add(v);
+        lists.add(new ArrayList<>());
+        return true;
+    }
+
+    @Override
+    public int removeV(V v) {
+        Integer id = ids.remove(v);
+        if (id == null) {
+            return -1;
+        }
+
+        // Remove all edges connected to v. A self-loop is listed twice in
+        // the list of v but is only one edge.
+        ArrayList<V> a = lists.get(id);
+        int loops = 0;
+        for (V v2 : a) {
+            if (!v2.equals(v)) {
+                lists.get(ids.get(v2)).remove(v);
+            } else {
+                loops++;
+            }
+        }
+        int removed = a.size() - loops / 2;
+
+        // Let the last vertex take over the id of v.
+        int last = verts.size() - 1;
+        if (id != last) {
+            V moved = verts.get(last);
+            verts.set(id, moved);
+            lists.set(id, lists.get(last));
+            ids.add(moved, id);
+        }
+        verts.remove(last);
+        lists.remove(last);
+        return removed;
+    }
+
+    @Override
+    public int id(V v) {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public V vertex(int id) {
+        return verts.get(id);
+    }
+
+    @Override
+    public int size() {
+        return verts.size();
+    }
+
+    @Override
+    public void addE(int a, int b) {
+        lists.get(a).add(verts.get(b));
+        lists.get(b).add(verts.get(a));
+    }
+
+    @Override
+    public boolean removeE(int a, int b) {
+        if (!lists.get(a).remove(verts.get(b))) {
+            return false;
+        }
+        lists.get(b).remove(verts.get(a));
+        return true;
+    }
+
+    @Override
+    public boolean containsE(int a, int b) {
+        return lists.get(a).contains(verts.get(b));
+    }
+
+    @Override
+    public int degree(int id) {
+        return lists.get(id).size();
+    }
+
+    @Override
+    public int adj(int id, int i) {
+        return ids.get(lists.get(id).get(i));
+    }
+
+    @Override
+    public ArrayList<V> getAdj(V v) {
+        Integer id = ids.get(v);
+        return id == null ? null : lists.get(id);
+    }
+
+    @Override
+    public List<V> getVertices() {
+        return ids.getKeys();
+    }
+}
@@ -1,11 +1,19 @@
 package graph;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 /**
- * Symbol table implementation.
+ * Symbol table implementation. Uses open addressing with linear probing so
+ * that lookups, insertions and removals run in constant time. The insertion
+ * order of the keys is kept in a doubly linked list threaded through the
+ * slots.
  *
  * @author Albin Hjalmas.
  * @param <K> The type of the keys in this symbol table.
@@ -13,27 +21,105 @@ import java.util.Iterator;
  */
 public class ST<K, V> implements Iterable, Serializable {
 
-    private final ArrayList<K> keys;
-    private final ArrayList<V> vals;
+    private static final int INIT_CAPACITY = 16; // Must be a power of two.
+    private static final int NIL = -1;
+
+    private final boolean identity; // Compare keys by reference instead of equals.
+    private transient Object[] keys; // Keys stored in the hash slots.
+    private transient Object[] vals; // Values stored in the hash slots.
+    private transient int[] prev, next; // Insertion order links between slots.
+    private transient int head, tail; // First and last slot in insertion order.
+    private transient int n; // Number of key-value pairs.
+    private transient List<K> keyView; // Cached insertion ordered keys.
+    private transient List<V> valView; // Cached insertion ordered values.
 
     /**
      * Constructor.
      */
     public ST() {
-        keys = new ArrayList<>();
-        vals = new ArrayList<>();
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param identity if true keys are compared by reference and hashed with
+     * System.identityHashCode, else equals and hashCode are used.
+     */
+    public ST(boolean identity) {
+        this.identity = identity;
+        init(INIT_CAPACITY);
     }
 
     /**
-     * Adds a key with a corresponding value.
+     * Constructor for a table that will hold a known number of keys, so
+     * that it does not have to grow while they are added.
+     *
+     * @param identity see ST(boolean).
+     * @param expected the number of keys expected.
+     */
+    public ST(boolean identity, int expected) {
+        this.identity = identity;
+        init(capacityFor(expected));
+    }
+
+    /**
+     * Allocates empty slot arrays of the specified capacity.
+     *
+     * @param capacity the number of slots, must be a power of two.
+     */
+    private void init(int capacity) {
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        head = NIL;
+        tail = NIL;
+        n = 0;
+        keyView = null;
+        valView = null;
+    }
+
+    /**
+     * Adds a key with a corresponding value. If the key already exists its
+     * value is replaced.
      *
      * @param key the key.
      * @param val the value coupled to the key.
      * @precondition key != null && val != null
      */
     public void add(K key, V val) {
-        keys.add(key);
-        vals.add(val);
+        // Keep the load factor below 1/2.
+        if (2 * (n + 1) > keys.length) {
+            resize(2 * keys.length);
+        }
+
+        int i = hash(key);
+        while (keys[i] != null) {
+            if (same(keys[i], key)) {
+                vals[i] = val;
+                valView = null;
+                return;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+
+        keys[i] = key;
+        vals[i] = val;
+
+        // Link the new slot last in insertion order.
+        prev[i] = tail;
+        next[i] = NIL;
+        if (tail == NIL) {
+            head = i;
+        } else {
+            next[tail] = i;
+        }
+        tail = i;
+
+        n++;
+        keyView = null;
+        valView = null;
     }
 
     /**
@@ -44,30 +130,62 @@ public class ST<K, V> implements Iterable, Serializable {
      * @precondition key != null
      */
     public V get(K key) {
-        for (int i = 0; i < keys.size(); i++) {
-            if (keys.get(i).equals(key)) {
-                return vals.get(i);
-            }
-        }
+        int i = slotOf(key);
+        return i == NIL ? null : val(i);
+    }
 
-        return null;
+    /**
+     * Checks if this symbol table contains the provided key.
+     *
+     * @param key the key.
+     * @return true if the key is present else false.
+     */
+    public boolean contains(K key) {
+        return slotOf(key) != NIL;
     }
 
     /**
      * Removes the key and value corresponding to the provided key.
      *
      * @param key the key.
-     * @return true if item was successfully deleted.
+     * @return the removed value or null if the key was not present.
      */
     public V remove(K key) {
-        for (int i = 0; i < keys.size(); i++) {
-            if (keys.get(i).equals(key)) {
-                keys.remove(i);
-                return vals.remove(i);
+        int i = slotOf(key);
+        if (i == NIL) {
+            return null;
+        }
+
+        V val = val(i);
+        unlink(i);
+        keys[i] = null;
+        vals[i] = null;
+        n--;
+
+        // Backward shift the following cluster so that no tombstones are needed.
+        int mask = keys.length - 1;
+        int j = (i + 1) & mask;
+        while (keys[j] != null) {
+            int h = hash(key(j));
+            // Move the entry at j into the hole if its home slot
+            // does not lie cyclically in (i, j].
+            if (((j - h) & mask) >= ((j - i) & mask)) {
+                move(j, i);
+                i = j;
             }
+            j = (j + 1) & mask;
         }
 
-        return null;
+        keyView = null;
+        valView = null;
+        return val;
+    }
+
+    /**
+     * Removes all key-value pairs from this symbol table.
+     */
+    public void clear() {
+        init(INIT_CAPACITY);
     }
 
     /**
@@ -76,7 +194,7 @@ public class ST<K, V> implements Iterable, Serializable {
      * @return
      */
     public int size() {
-        return keys.size();
+        return n;
     }
 
     /**
@@ -85,7 +203,7 @@ public class ST<K, V> implements Iterable, Serializable {
      * @return
      */
     public Iterator<K> keyIterator() {
-        return keys.iterator();
+        return getKeys().iterator();
     }
 
     /**
@@ -94,24 +212,193 @@ public class ST<K, V> implements Iterable, Serializable {
      */
     @Override
     public Iterator<V> iterator() {
-        return vals.iterator();
+        return getValues().iterator();
     }
 
     /**
-     * Get the keys contained within this symbol table.
+     * Get the keys contained within this symbol table in insertion order. The
+     * returned list can not be modified and is shared by all callers until
+     * the next modification of this table, copy it to change it.
      *
      * @return the keys.
      */
-    public ArrayList<K> getKeys() {
-        return keys;
+    public List<K> getKeys() {
+        if (keyView == null) {
+            ArrayList<K> list = new ArrayList<>(n);
+            for (int i = head; i != NIL; i = next[i]) {
+                list.add(key(i));
+            }
+            keyView = Collections.unmodifiableList(list);
+        }
+        return keyView;
     }
 
     /**
-     * Get the values contained within this symbol table.
+     * Get the values contained within this symbol table in insertion order.
+     * The returned list can not be modified and is shared by all callers
+     * until the next modification of this table, copy it to change it.
      *
      * @return the values.
      */
-    public ArrayList<V> getValues() {
-        return vals;
+    public List<V> getValues() {
+        if (valView == null) {
+            ArrayList<V> list = new ArrayList<>(n);
+            for (int i = head; i != NIL; i = next[i]) {
+                list.add(val(i));
+            }
+            valView = Collections.unmodifiableList(list);
+        }
+        return valView;
+    }
+
+    // The slot arrays hold only keys of type K and values of type V.
+
+    @SuppressWarnings("unchecked")
+    private K key(int slot) {
+        return (K) keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V val(int slot) {
+        return (V) vals[slot];
+    }
+
+    /**
+     * Finds the slot holding the provided key.
+     *
+     * @param key the key.
+     * @return the slot index or NIL if the key is not present.
+     */
+    private int slotOf(K key) {
+        if (key == null) {
+            return NIL;
+        }
+
+        int i = hash(key);
+        while (keys[i] != null) {
+            if (same(keys[i], key)) {
+                return i;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        return NIL;
+    }
+
+    /**
+     * Computes the home slot of a key.
+     *
+     * @param key the key.
+     * @return the home slot.
+     */
+    private int hash(K key) {
+        int h = identity ? System.identityHashCode(key) : key.hashCode();
+        h ^= (h >>> 16); // Spread the high bits into the low bits.
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Compares a stored key with a provided key.
+     */
+    private boolean same(Object stored, K key) {
+        return stored == key || (!identity && stored.equals(key));
+    }
+
+    /**
+     * Moves the entry in slot from into the empty slot to, keeping the
+     * insertion order links intact.
+     */
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        vals[to] = vals[from];
+        prev[to] = prev[from];
+        next[to] = next[from];
+
+        if (prev[to] == NIL) {
+            head = to;
+        } else {
+            next[prev[to]] = to;
+        }
+
+        if (next[to] == NIL) {
+            tail = to;
+        } else {
+            prev[next[to]] = to;
+        }
+
+        keys[from] = null;
+        vals[from] = null;
+    }
+
+    /**
+     * Unlinks slot i from the insertion order list.
+     */
+    private void unlink(int i) {
+        if (prev[i] == NIL) {
+            head = next[i];
+        } else {
+            next[prev[i]] = next[i];
+        }
+
+        if (next[i] == NIL) {
+            tail = prev[i];
+        } else {
+            prev[next[i]] = prev[i];
+        }
+    }
+
+    /**
+     * Rehashes all entries into a table of the specified capacity, keeping
+     * the insertion order.
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int[] oldNext = next;
+        int oldHead = head;
+
+        init(capacity);
+        for (int i = oldHead; i != NIL; i = oldNext[i]) {
+            add((K) oldKeys[i], (V) oldVals[i]);
+        }
+    }
+
+    /**
+     * Gets the capacity that keeps the load factor below 1/2 with size
+     * keys.
+     */
+    private static int capacityFor(int size) {
+        int capacity = INIT_CAPACITY;
+        while (2 * (size + 1) > capacity) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Writes the key-value pairs in insertion order. The slot layout is not
+     * written since identity hash codes do not survive serialization.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(n);
+        for (int i = head; i != NIL; i = next[i]) {
+            out.writeObject(keys[i]);
+            out.writeObject(vals[i]);
+        }
+    }
+
+    /**
+     * Reads the key-value pairs and rebuilds the hash slots.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int size = in.readInt();
+        init(capacityFor(size));
+        for (int i = 0; i < size; i++) {
+            add((K) in.readObject(), (V) in.readObject());
+        }
     }
 }
@@ -0,0 +1,178 @@
+package graph;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Union-find (disjoint sets) over arbitrary elements. Uses union by size and
+ * path halving, so all operations run in near constant amortized time.
+ *
+ * Elements can be flagged as terminals. The number of islands is the number
+ * of sets that contain at least one terminal, sets made up of non terminal
+ * elements only are not counted as islands.
+ *
+ * Elements can not be removed. Clear the structure and add the remaining
+ * elements again instead.
+ *
+ * @author Albin Hjalmas.
+ * @param <V> the type of the elements.
+ */
+public class UF<V> implements Serializable {
+
+    private static final int INIT_CAPACITY = 8;
+
+    private final ST<V, Integer> ids; // Element to id.
+    private int[] parent; // Parent id of each id, roots are their own parent.
+    private int[] size; // Number of elements in the set of each root.
+    private int[] terminals; // Number of terminals in the set of each root.
+    private int n; // Number of elements.
+    private int count; // Number of sets.
+    private int islands; // Number of sets containing at least one terminal.
+
+    /**
+     * Constructor.
+     */
+    public UF() {
+        ids = new ST<>();
+        clear();
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear() {
+        ids.clear();
+        parent = new int[INIT_CAPACITY];
+        size = new int[INIT_CAPACITY];
+        terminals = new int[INIT_CAPACITY];
+        n = 0;
+        count = 0;
+        islands = 0;
+    }
+
+    /**
+     * Adds an element as a set of its own. Nothing happens if the element is
+     * already present.
+     *
+     * @param v the element.
+     * @param terminal true if the element is a terminal.
+     * @return true if the element was added else false.
+     */
+    public boolean add(V v, boolean terminal) {
+        if (ids.contains(v)) {
+            return false;
+        }
+
+        if (n == parent.length) {
+            parent = Arrays.copyOf(parent, 2 * n);
+            size = Arrays.copyOf(size, 2 * n);
+            terminals = Arrays.copyOf(terminals, 2 * n);
+        }
+
+        ids.add(v, n);
+        parent[n] = n;
+        size[n] = 1;
+        terminals[n] = terminal ? 1 : 0;
+        n++;
+        count++;
+        if (terminal) {
+            islands++;
+        }
+        return true;
+    }
+
+    /**
+     * Merges the sets containing a and b.
+     *
+     * @param a first element.
+     * @param b second element.
+     * @return true if two different sets were merged else false.
+     */
+    public boolean union(V a, V b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra < 0 || rb < 0 || ra == rb) {
+            return false;
+        }
+
+        // Hang the smaller tree below the larger one.
+        if (size[ra] < size[rb]) {
+            int tmp = ra;
+            ra = rb;
+            rb = tmp;
+        }
+
+        if (terminals[ra] > 0 && terminals[rb] > 0) {
+            islands--;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        terminals[ra] += terminals[rb];
+        count--;
+        return true;
+    }
+
+    /**
+     * Finds the representative of the set containing v. The representative
+     * of a set only changes when the set is merged with another set.
+     *
+     * @param v the element.
+     * @return the id of the representative or -1 if v is not present.
+     */
+    public int find(V v) {
+        Integer id = ids.get(v);
+        if (id == null) {
+            return -1;
+        }
+
+        int i = id;
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // Path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Checks if a and b are in the same set.
+     *
+     * @param a first element.
+     * @param b second element.
+     * @return true if both are present and in the same set else false.
+     */
+    public boolean connected(V a, V b) {
+        int ra = find(a);
+        return ra >= 0 && ra == find(b);
+    }
+
+    /**
+     * Checks if v has been added.
+     *
+     * @param v the element.
+     * @return true if v is present else false.
+     */
+    public boolean contains(V v) {
+        return ids.contains(v);
+    }
+
+    /**
+     * @return the number of elements.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return the number of sets.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the number of sets containing at least one terminal.
+     */
+    public int islands() {
+        return islands;
+    }
+}
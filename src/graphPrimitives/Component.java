@@ -5,6 +5,7 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
 
 /**
@@ -90,4 +91,12 @@ public interface Component extends Serializable {
      * @return a padded version of this components outline.
      */
     Shape getPaddedOutline(double padding);
+    
+    /**
+     * Gets the bounding box of the padded outline of this component.
+     * @param padding the amount of padding in perpendicular direction to
+     * the component outline.
+     * @return a rectangle enclosing getPaddedOutline(padding).
+     */
+    Rectangle2D getPaddedBounds(double padding);
 }
@@ -2,6 +2,7 @@
 package graphPrimitives;
 
 import java.util.ArrayList;
+import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
 /**
@@ -10,6 +11,7 @@ import javax.swing.event.ChangeListener;
  */
 public abstract class Vertex implements Component {
     private ArrayList<ChangeListener> listeners; // observers
+    private transient ArrayList<ChangeListener> viewListeners; // observers that are not saved
     private boolean selectionState;
     
     /**
@@ -45,6 +47,43 @@ public abstract class Vertex implements Component {
         return listeners;
     }
     
+    /**
+     * Add a listener that is not saved together with this vertex. Used by
+     * indices and caches that are rebuilt after loading a project.
+     * @param l 
+     */
+    public void addViewListener(ChangeListener l) {
+        if (viewListeners == null) {
+            viewListeners = new ArrayList<>();
+        }
+        viewListeners.add(l);
+    }
+    
+    /**
+     * Remove the specified view listener from this vertex.
+     * @param l the listener to remove.
+     * @return true if successful else false.
+     */
+    public boolean removeViewListener(ChangeListener l) {
+        return viewListeners != null && viewListeners.remove(l);
+    }
+    
+    /**
+     * Notifies all listeners that this vertex has changed.
+     */
+    protected void fireStateChanged() {
+        ChangeEvent e = new ChangeEvent(this);
+        for (ChangeListener l : listeners) {
+            l.stateChanged(e);
+        }
+        
+        if (viewListeners != null) {
+            for (ChangeListener l : viewListeners) {
+                l.stateChanged(e);
+            }
+        }
+    }
+    
     @Override
     public void setSelected(boolean state) {
         selectionState = state;
@@ -0,0 +1,476 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks many projects from the command line, without a user interface.
+ *
+ * <pre>
+ * java pcbEditor.BatchRunner [-o dir] [-j files] [-p threads] [-b text|csv|json] project...
+ * </pre>
+ *
+ * A project is a .pcb file, a directory whose .pcb files are all checked, a
+ * glob such as boards/**.pcb, or @list for a file that lists one project per
+ * line. Every project is read, checked against its design rules and for
+ * unrouted nets, and its BOM is made. The results are written next to the
+ * project, or into the directory given by -o, as name.drc.json and
+ * name.bom.txt, and a summary with the time of every step is printed. The
+ * BOM is written as text unless -b asks for name.bom.csv or name.bom.json.
+ *
+ * Up to -j projects are read and written at once, by default twice the
+ * number of processors since reading is mostly waiting for the disk. The
+ * design rule checks share a pool of -p threads, by default one per
+ * processor, and at most -p checks run at once.
+ *
+ * The exit status is 0 if all projects pass, 1 if any project has
+ * violations or unrouted nets, and 2 if a project could not be read or the
+ * arguments are wrong.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class BatchRunner {
+
+    // Exit statuses
+    public static final int PASSED = 0;
+    public static final int FAILED = 1;
+    public static final int ERROR = 2;
+
+    private final File outDir; // Where the reports go, null for next to the project.
+    private final BomWriter bom; // Writes the BOM of every project.
+    private final String bomSuffix; // File suffix of the BOM.
+    private final ExecutorService files; // Reads the projects and writes the reports.
+    private final ForkJoinPool checks; // Runs the design rule checks.
+    private final Semaphore cpu; // Bounds the checks that run at once.
+
+    /**
+     * The outcome of one project.
+     */
+    static final class Result {
+
+        final File file;
+        String project;
+        int parts, nets;
+        List<Violation> violations;
+        List<Net> unrouted;
+        long loadNanos, drcNanos, bomNanos;
+        Exception error; // Null if the project was checked.
+
+        Result(File file) {
+            this.file = file;
+        }
+
+        boolean passed() {
+            return error == null && violations.isEmpty() && unrouted.isEmpty();
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param outDir the directory of the reports, null to write them next
+     * to the projects.
+     * @param jobs the number of projects read and written at once.
+     * @param threads the number of threads of the design rule checks.
+     */
+    public BatchRunner(File outDir, int jobs, int threads) {
+        this(outDir, jobs, threads, BomWriter.Format.TEXT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param outDir the directory of the reports, null to write them next
+     * to the projects.
+     * @param jobs the number of projects read and written at once.
+     * @param threads the number of threads of the design rule checks.
+     * @param bomFormat the layout of the BOM.
+     */
+    public BatchRunner(File outDir, int jobs, int threads, BomWriter.Format bomFormat) {
+        this.outDir = outDir;
+        bom = new BomWriter(bomFormat, false);
+        bomSuffix = ".bom." + (bomFormat == BomWriter.Format.TEXT ? "txt"
+                : bomFormat.name().toLowerCase(Locale.ROOT));
+        files = Executors.newFixedThreadPool(jobs, (Runnable r) -> {
+            Thread t = new Thread(r, "Batch runner");
+            t.setDaemon(true);
+            return t;
+        });
+        checks = new ForkJoinPool(threads);
+        cpu = new Semaphore(threads);
+    }
+
+    /**
+     * Runs the batch runner and exits with its status.
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the batch runner.
+     *
+     * @param args the command line arguments.
+     * @param out receives the summary.
+     * @param err receives usage and file errors.
+     * @return the exit status.
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        File outDir = null;
+        int jobs = 2 * cores;
+        int threads = cores;
+        BomWriter.Format bomFormat = BomWriter.Format.TEXT;
+        ArrayList<File> projects = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o":
+                        outDir = new File(args[++i]);
+                        break;
+                    case "-j":
+                        jobs = Integer.parseInt(args[++i]);
+                        break;
+                    case "-p":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-b":
+                        bomFormat = BomWriter.Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                        break;
+                    default:
+                        expand(args[i], projects);
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex) {
+            return usage(err);
+        } catch (IOException ex) {
+            err.println(ex.getMessage());
+            return ERROR;
+        }
+        if (projects.isEmpty() || jobs < 1 || threads < 1) {
+            return usage(err);
+        }
+        if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs()) {
+            err.println("Unable to create " + outDir);
+            return ERROR;
+        }
+
+        BatchRunner runner = new BatchRunner(outDir, jobs, threads, bomFormat);
+        try {
+            long start = System.nanoTime();
+            List<Result> results = runner.check(projects);
+            summarize(results, System.nanoTime() - start, out);
+
+            int status = PASSED;
+            for (Result r : results) {
+                if (r.error != null) {
+                    err.println(r.file + ": " + r.error);
+                    status = ERROR;
+                } else if (!r.passed() && status == PASSED) {
+                    status = FAILED;
+                }
+            }
+            return status;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ERROR;
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    /**
+     * Checks projects and writes their reports.
+     *
+     * @param projects the project files.
+     * @return the results, in the order of projects.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    List<Result> check(List<File> projects) throws InterruptedException {
+        ArrayList<Future<Result>> pending = new ArrayList<>();
+        for (File file : projects) {
+            pending.add(files.submit(() -> check(file)));
+        }
+
+        ArrayList<Result> results = new ArrayList<>();
+        for (Future<Result> f : pending) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause()); // check catches all.
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stops the threads of this runner.
+     */
+    public void shutdown() {
+        files.shutdown();
+        checks.shutdown();
+    }
+
+    /**
+     * Checks one project and writes its reports.
+     */
+    private Result check(File file) {
+        Result r = new Result(file);
+        try {
+            long t0 = System.nanoTime();
+            Board board = ProjectCodec.readBoard(file);
+            r.project = board.getProjectName();
+            r.parts = board.getParts().size();
+            r.nets = board.getNets().size();
+            long t1 = System.nanoTime();
+            r.loadNanos = t1 - t0;
+
+            cpu.acquire();
+            try {
+                r.violations = board.createChecker().run(checks, null);
+                r.unrouted = board.getUnroutedNets();
+            } finally {
+                cpu.release();
+            }
+            long t2 = System.nanoTime();
+            r.drcNanos = t2 - t1;
+
+            try (Writer w = Files.newBufferedWriter(report(file, bomSuffix).toPath(),
+                    StandardCharsets.UTF_8)) {
+                bom.write(board.getParts(), r.project, new Date(), w);
+            }
+            r.bomNanos = System.nanoTime() - t2;
+
+            try (Writer w = Files.newBufferedWriter(report(file, ".drc.json").toPath(),
+                    StandardCharsets.UTF_8)) {
+                writeReport(r, w);
+            }
+        } catch (IOException | RuntimeException ex) {
+            r.error = ex;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            r.error = ex;
+        }
+        return r;
+    }
+
+    /**
+     * Gets the file of a report on a project.
+     */
+    private File report(File project, String suffix) {
+        String name = project.getName();
+        if (name.endsWith(".pcb")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        File dir = outDir != null ? outDir : project.getAbsoluteFile().getParentFile();
+        return new File(dir, name + suffix);
+    }
+
+    /**
+     * Writes the design rule report of a project as JSON.
+     */
+    private static void writeReport(Result r, Writer w) throws IOException {
+        w.write("{\n");
+        w.write("  \"file\": " + quote(r.file.getPath()) + ",\n");
+        w.write("  \"project\": " + quote(r.project) + ",\n");
+        w.write("  \"parts\": " + r.parts + ",\n");
+        w.write("  \"nets\": " + r.nets + ",\n");
+        w.write("  \"unroutedNets\": [");
+        for (int i = 0; i < r.unrouted.size(); i++) {
+            w.write((i == 0 ? "" : ", ") + quote(r.unrouted.get(i).getName()));
+        }
+        w.write("],\n");
+        w.write("  \"violations\": [");
+        for (int i = 0; i < r.violations.size(); i++) {
+            Violation v = r.violations.get(i);
+            Rectangle2D region = v.getRegion();
+            w.write(i == 0 ? "\n" : ",\n");
+            w.write("    {\"a\": " + component(v.getA())
+                    + ", \"b\": " + component(v.getB())
+                    + ", \"clearance\": " + v.getClearance()
+                    + ", \"region\": [" + region.getX() + ", " + region.getY()
+                    + ", " + region.getWidth() + ", " + region.getHeight() + "]}");
+        }
+        w.write(r.violations.isEmpty() ? "],\n" : "\n  ],\n");
+        w.write("  \"loadMs\": " + millis(r.loadNanos) + ",\n");
+        w.write("  \"drcMs\": " + millis(r.drcNanos) + ",\n");
+        w.write("  \"bomMs\": " + millis(r.bomNanos) + "\n");
+        w.write("}\n");
+    }
+
+    private static String component(Component c) {
+        return "{\"kind\": " + quote(Violation.kind(c)) + ", \"name\": "
+                + quote(c.toString()) + "}";
+    }
+
+    /**
+     * Quotes a string for JSON.
+     *
+     * @param s the string, may be null.
+     * @return the quoted string, or null.
+     */
+    static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Prints one line per project and the totals.
+     */
+    private static void summarize(List<Result> results, long wallNanos, PrintStream out) {
+        out.println(String.format("%-40s %7s %6s %8s %8s %8s %8s  %s", "Project",
+                "Parts", "DRC", "Unrouted", "Load ms", "DRC ms", "BOM ms", "Status"));
+        int failed = 0;
+        int errors = 0;
+        for (Result r : results) {
+            if (r.error != null) {
+                errors++;
+                out.println(String.format("%-40s %7s %6s %8s %8s %8s %8s  %s",
+                        r.file.getName(), "-", "-", "-", "-", "-", "-", "ERROR"));
+                continue;
+            }
+            if (!r.passed()) {
+                failed++;
+            }
+            out.println(String.format("%-40s %7d %6d %8d %8d %8d %8d  %s",
+                    r.file.getName(), r.parts, r.violations.size(), r.unrouted.size(),
+                    millis(r.loadNanos), millis(r.drcNanos), millis(r.bomNanos),
+                    r.passed() ? "PASSED" : "FAILED"));
+        }
+        out.println(String.format("%d projects, %d passed, %d failed, %d errors in %d ms",
+                results.size(), results.size() - failed - errors, failed, errors,
+                millis(wallNanos)));
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1000000;
+    }
+
+    /**
+     * Adds the project files named by one argument.
+     */
+    private static void expand(String arg, List<File> projects) throws IOException {
+        if (arg.startsWith("@")) {
+            for (String line : Files.readAllLines(Paths.get(arg.substring(1)))) {
+                if (!line.trim().isEmpty()) {
+                    expand(line.trim(), projects);
+                }
+            }
+            return;
+        }
+
+        File file = new File(arg);
+        if (file.isDirectory()) {
+            projects.addAll(find(file.toPath(), FileSystems.getDefault()
+                    .getPathMatcher("glob:**.pcb")));
+        } else if (isGlob(arg)) {
+            // Walk from the directory before the first wildcard.
+            int cut = Math.max(arg.lastIndexOf('/', firstWildcard(arg)),
+                    arg.lastIndexOf(File.separatorChar, firstWildcard(arg))) + 1;
+            Path base = Paths.get(cut == 0 ? "." : arg.substring(0, cut));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher(
+                    "glob:" + arg.substring(cut));
+            List<File> found = find(base, (Path p) -> matcher.matches(base.relativize(p)));
+            if (found.isEmpty()) {
+                throw new IOException("No projects match " + arg);
+            }
+            projects.addAll(found);
+        } else if (file.isFile()) {
+            projects.add(file);
+        } else {
+            throw new IOException("No such project " + arg);
+        }
+    }
+
+    /**
+     * Finds the files below a directory that match, in name order.
+     */
+    private static List<File> find(Path dir, PathMatcher matcher) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter((Path p) -> Files.isRegularFile(p) && matcher.matches(p))
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isGlob(String arg) {
+        return firstWildcard(arg) >= 0;
+    }
+
+    private static int firstWildcard(String arg) {
+        for (int i = 0; i < arg.length(); i++) {
+            if ("*?[{".indexOf(arg.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int usage(PrintStream err) {
+        err.println("Usage: java pcbEditor.BatchRunner [-o dir] [-j files] [-p threads]"
+                + " [-b text|csv|json] project...");
+        err.println("A project is a .pcb file, a directory, a glob or @list.");
+        return ERROR;
+    }
+}
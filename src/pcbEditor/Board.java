@@ -0,0 +1,326 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.Serializable;
+import java.util.ArrayList;
+import pcbPart.Part;
+
+/**
+ * The parts, nets, grid and default settings of a project, without any user
+ * interface. A board can be loaded, checked, saved and rendered without
+ * Swing, and is shown and edited on screen by a DesignArea.
+ *
+ * A board is not thread safe. It is edited by one thread at a time, the
+ * event dispatch thread while it is shown, and other threads work on a
+ * ProjectSnapshot or a DesignRuleChecker loaded from it.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class Board implements Serializable {
+
+    private String projName;
+    private Grid grid; // The grid of the board.
+    private ArrayList<Part> parts; // The parts on the board.
+    private ArrayList<Net> nets; // The nets on the board.
+    private transient SpatialIndex index; // Hit test index, built on first use.
+    private transient EditJournal journal; // Records the edits, null when off.
+    private transient long journalId; // Journal that continues the saved project, 0 if none.
+
+    // Default settings in millimetres.
+    private double traceWidth, ringDiam, holeDiam, compSpacing;
+
+    // Side of one cell in the hit test index, 2.54 mm.
+    private static final double INDEX_CELL_SIZE = 127;
+
+    /**
+     * Constructor.
+     *
+     * @param projName the name of the project.
+     * @param width the width of the board in world units.
+     * @param height the height of the board in world units.
+     */
+    public Board(String projName, int width, int height) {
+        this(projName, new Grid(0.254, Color.BLACK, Color.GRAY, width, height));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param projName the name of the project.
+     * @param grid the grid, sets the size of the board.
+     */
+    Board(String projName, Grid grid) {
+        this(projName, grid, new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * Constructor for a loaded project. The hit test index is built when it
+     * is first used.
+     *
+     * @param projName the name of the project.
+     * @param grid the grid, sets the size of the board.
+     * @param parts the parts on the board.
+     * @param nets the nets on the board.
+     */
+    Board(String projName, Grid grid, ArrayList<Part> parts, ArrayList<Net> nets) {
+        this.projName = projName;
+        this.grid = grid;
+        this.parts = parts;
+        this.nets = nets;
+        traceWidth = 0.254;
+        ringDiam = 1.5;
+        holeDiam = 0.8;
+        compSpacing = 0.254;
+    }
+
+    /**
+     * Adds a part to the board.
+     *
+     * @param part the part to add.
+     */
+    public void addPart(Part part) {
+        parts.add(part);
+        getIndex().addPart(part);
+    }
+
+    /**
+     * Removes a part from the board. The pads of the part should be removed
+     * from their nets first.
+     *
+     * @param part the part to remove.
+     * @return true if successful else false.
+     */
+    public boolean removePart(Part part) {
+        if (!parts.remove(part)) {
+            return false;
+        }
+
+        getIndex().removePart(part);
+        return true;
+    }
+
+    /**
+     * Adds a net to the board.
+     *
+     * @param net the net to add.
+     */
+    public void addNet(Net net) {
+        nets.add(net);
+        getIndex().addNet(net);
+        if (journal != null) {
+            journal.netAdded(net);
+        }
+    }
+
+    /**
+     * Removes a net from the board.
+     *
+     * @param net the net to remove.
+     * @return true if successful else false.
+     */
+    public boolean removeNet(Net net) {
+        if (!nets.remove(net)) {
+            return false;
+        }
+
+        getIndex().removeNet(net);
+        if (journal != null) {
+            journal.netRemoved(net);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the parts on the board.
+     *
+     * @return the parts.
+     */
+    public ArrayList<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Gets the nets of the board.
+     *
+     * @return the nets.
+     */
+    public ArrayList<Net> getNets() {
+        return nets;
+    }
+
+    /**
+     * Gets the grid of the board.
+     *
+     * @return the grid.
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Sets the project name.
+     *
+     * @param name the new name.
+     */
+    public void setProjectName(String name) {
+        projName = name;
+    }
+
+    /**
+     * Gets the project name.
+     *
+     * @return the name.
+     */
+    public String getProjectName() {
+        return projName;
+    }
+
+    /**
+     * Gets the hit test index, building it if the board was just created or
+     * loaded. The index follows the edits of the board.
+     *
+     * @return the spatial index over all parts, pads and segments.
+     */
+    public SpatialIndex getIndex() {
+        if (index == null) {
+            index = new SpatialIndex(INDEX_CELL_SIZE);
+            for (Part part : parts) {
+                index.addPart(part);
+            }
+            for (Net net : nets) {
+                index.addNet(net);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Finds the parts, pads and segments that touch an area.
+     *
+     * @param area the area in world units.
+     * @return the components.
+     */
+    public ArrayList<Component> query(Rectangle2D area) {
+        return getIndex().query(area);
+    }
+
+    /**
+     * Gets the nets whose visible pads are not all joined by segments.
+     *
+     * @return the nets that are not fully routed.
+     */
+    public ArrayList<Net> getUnroutedNets() {
+        ArrayList<Net> unrouted = new ArrayList<>();
+        for (Net net : nets) {
+            if (!net.isFullyRouted()) {
+                unrouted.add(net);
+            }
+        }
+        return unrouted;
+    }
+
+    /**
+     * Checks if every net on the board is fully routed.
+     *
+     * @return true if all nets are fully routed else false.
+     */
+    public boolean isFullyRouted() {
+        for (Net net : nets) {
+            if (!net.isFullyRouted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the board into a design rule checker for the component spacing
+     * of the board. The checker can then be run on any thread.
+     *
+     * @return the loaded checker.
+     */
+    public DesignRuleChecker createChecker() {
+        DesignRuleChecker checker = new DesignRuleChecker(getSpacing());
+        checker.load(parts, nets);
+        return checker;
+    }
+
+    /**
+     * Gets the minimum spacing between components.
+     *
+     * @return the spacing in world units.
+     */
+    public double getSpacing() {
+        return compSpacing * Grid.UNITS_PER_MM;
+    }
+
+    /**
+     * Gets the width of new traces.
+     *
+     * @return the width in world units.
+     */
+    public double getTraceWidth() {
+        return traceWidth * Grid.UNITS_PER_MM;
+    }
+
+    /**
+     * Gets the default settings in millimetres.
+     *
+     * @return the trace width, ring diameter, hole diameter and component
+     * spacing.
+     */
+    double[] getDefaults() {
+        return new double[]{traceWidth, ringDiam, holeDiam, compSpacing};
+    }
+
+    /**
+     * Sets the default settings in millimetres.
+     *
+     * @param traceWidth the width of new traces.
+     * @param ringDiam the annular ring diameter of new pads.
+     * @param holeDiam the hole diameter of new pads.
+     * @param compSpacing the minimum spacing between components.
+     */
+    void setDefaults(double traceWidth, double ringDiam, double holeDiam,
+            double compSpacing) {
+        this.traceWidth = traceWidth;
+        this.ringDiam = ringDiam;
+        this.holeDiam = holeDiam;
+        this.compSpacing = compSpacing;
+    }
+
+    /**
+     * Sets the journal that records the edits of the board.
+     *
+     * @param journal the journal, null to stop recording.
+     */
+    void setJournal(EditJournal journal) {
+        if (this.journal != null) {
+            getIndex().removeIndexListener(this.journal);
+        }
+        this.journal = journal;
+        if (journal != null) {
+            getIndex().addIndexListener(journal);
+        }
+    }
+
+    /**
+     * Gets the journal that continues the saved project.
+     *
+     * @return the id of the journal, 0 if none.
+     */
+    long getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * Sets the journal that continues the saved project.
+     *
+     * @param id the id of the journal, 0 if none.
+     */
+    void setJournalId(long id) {
+        journalId = id;
+    }
+}
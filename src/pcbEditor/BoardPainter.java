@@ -0,0 +1,129 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+
+/**
+ * Paints the static content of a board: the grid, the segments of the nets,
+ * the pads and the parts. Used both by the design area and by the headless
+ * board renderer, so that the board looks the same on screen and in
+ * exported images.
+ *
+ * Painting only reads the components, so several threads may paint the same
+ * board at once as long as nothing is edited meanwhile.
+ *
+ * @author Albin Hjalmas.
+ */
+final class BoardPainter {
+
+    // Scale below which the board is drawn in less detail.
+    static final double COARSE_SCALE = 0.25;
+
+    // Line of one pixel whatever the scale.
+    static final Stroke HAIRLINE = new BasicStroke(0);
+
+    private BoardPainter() {
+    }
+
+    /**
+     * Checks if the board is drawn in less detail at a scale.
+     *
+     * @param scale the number of pixels per world unit.
+     * @return true if the board is drawn in less detail.
+     */
+    static boolean isCoarse(double scale) {
+        return scale < COARSE_SCALE;
+    }
+
+    /**
+     * Paints the grid and the specified components, segments first, then
+     * pads and parts on top.
+     *
+     * @param g the graphics to paint on, in world units.
+     * @param grid the grid.
+     * @param area the area to paint in world units.
+     * @param scale the number of pixels per world unit.
+     * @param comps the components inside area.
+     */
+    static void paint(Graphics2D g, Grid grid, Rectangle area, double scale,
+            Iterable<Component> comps) {
+        grid.paint(g, area, scale);
+
+        // Draw connection nets, segments first.
+        ArrayList<Segment> segs = new ArrayList<>();
+        for (Component c : comps) {
+            if (c instanceof Segment) {
+                segs.add((Segment) c);
+            }
+        }
+        boolean coarse = isCoarse(scale);
+        Stroke stroke = g.getStroke();
+        if (coarse) {
+            g.setStroke(HAIRLINE);
+        }
+        for (SegmentBatch batch : SegmentBatch.build(segs)) {
+            if (coarse) {
+                batch.drawCenterLines(g);
+            } else {
+                batch.draw(g);
+            }
+        }
+        g.setStroke(stroke);
+
+        for (Component c : comps) {
+            if (c instanceof Pad) {
+                draw(g, c, scale);
+            }
+        }
+
+        // Draw components
+        for (Component c : comps) {
+            if (c instanceof Part) {
+                draw(g, c, scale);
+            }
+        }
+    }
+
+    /**
+     * Draws a component. When zoomed out the component is drawn in less
+     * detail: pads as points, segments as hairlines and parts as their
+     * outline box without the footprint.
+     *
+     * @param g the graphics to draw on, in world units.
+     * @param c the component.
+     * @param scale the number of pixels per world unit.
+     */
+    static void draw(Graphics2D g, Component c, double scale) {
+        if (!isCoarse(scale)) {
+            c.draw(g);
+            return;
+        }
+
+        Stroke stroke = g.getStroke();
+        g.setStroke(HAIRLINE);
+        if (c instanceof Segment) {
+            g.setColor(c.getColor());
+            g.draw(((Segment) c).getLine());
+        } else if (c instanceof Part) {
+            g.setColor(Color.YELLOW);
+            g.draw(((Part) c).getOutline());
+        } else if (c instanceof Pad && ((Pad) c).getVisible()) {
+            // A square of two pixels.
+            Rectangle2D b = c.getPaddedBounds(0);
+            double r = 1 / scale;
+            g.setColor(c.getColor());
+            g.fill(new Rectangle2D.Double(b.getCenterX() - r, b.getCenterY() - r,
+                    2 * r, 2 * r));
+        }
+        g.setStroke(stroke);
+    }
+}
@@ -0,0 +1,243 @@
+package pcbEditor;
+
+import graph.ST;
+import graphPrimitives.Component;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+
+/**
+ * Renders a board to an image without a design area on screen, for example
+ * to export thumbnails. Works with java.awt.headless=true.
+ *
+ * The image is split into square tiles that are painted on a thread pool,
+ * each into its own image, and then copied into the final image. The
+ * components are sorted into the tiles they touch when the renderer is
+ * created, so the board must not be edited while it is being rendered.
+ *
+ * @author Albin Hjalmas.
+ */
+public class BoardRenderer {
+
+    /**
+     * The default side of one tile in pixels.
+     */
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    private final Grid grid; // The grid of the board.
+    private final double scale; // Pixels per world unit.
+    private final int tileSize; // Side of one tile in pixels.
+    private final int width, height; // Size of the image in pixels.
+    private final int cols, rows; // Number of tiles.
+    private final ArrayList<ArrayList<Component>> tiles; // Components per tile, row by row.
+
+    /**
+     * Constructor.
+     *
+     * @param area the design area to render.
+     * @param scale the number of pixels per world unit.
+     */
+    public BoardRenderer(DesignArea area, double scale) {
+        this(area.getBoard(), scale);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param board the board to render.
+     * @param scale the number of pixels per world unit.
+     */
+    public BoardRenderer(Board board, double scale) {
+        this(board.getGrid(), board.getParts(), board.getNets(), scale,
+                DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param grid the grid of the board.
+     * @param parts the parts on the board.
+     * @param nets the nets on the board.
+     * @param scale the number of pixels per world unit.
+     * @param tileSize the side of one tile in pixels.
+     */
+    public BoardRenderer(Grid grid, List<Part> parts, List<Net> nets,
+            double scale, int tileSize) {
+        if (scale <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("scale and tileSize must be positive");
+        }
+
+        this.grid = grid;
+        this.scale = scale;
+        this.tileSize = tileSize;
+        width = Math.max(1, (int) Math.ceil(grid.getWidth() * scale));
+        height = Math.max(1, (int) Math.ceil(grid.getHeight() * scale));
+        cols = (width + tileSize - 1) / tileSize;
+        rows = (height + tileSize - 1) / tileSize;
+
+        tiles = new ArrayList<>(cols * rows);
+        for (int i = 0; i < cols * rows; i++) {
+            tiles.add(new ArrayList<Component>());
+        }
+
+        // Pads are shared by parts and nets, add every component once.
+        ST<Component, Boolean> comps = new ST<>(true);
+        for (Part part : parts) {
+            comps.add(part, Boolean.TRUE);
+            for (Pad pad : part.getFootprint().getPads()) {
+                comps.add(pad, Boolean.TRUE);
+            }
+        }
+        for (Net net : nets) {
+            for (Pad pad : net.getPads()) {
+                comps.add(pad, Boolean.TRUE);
+            }
+            for (Segment seg : net.getSegments()) {
+                comps.add(seg, Boolean.TRUE);
+            }
+        }
+        for (Component c : comps.getKeys()) {
+            sort(c);
+        }
+    }
+
+    /**
+     * Gets the width of the rendered image.
+     *
+     * @return the width in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the rendered image.
+     *
+     * @return the height in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Renders the board.
+     *
+     * @param pool the threads that paint the tiles.
+     * @return the image of the board.
+     * @throws InterruptedException if interrupted while waiting for the
+     * tiles.
+     */
+    public BufferedImage render(ExecutorService pool) throws InterruptedException {
+        ArrayList<Future<BufferedImage>> futures = new ArrayList<>(tiles.size());
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                final int x = col;
+                final int y = row;
+                futures.add(pool.submit(new Callable<BufferedImage>() {
+                    @Override
+                    public BufferedImage call() {
+                        return renderTile(x, y);
+                    }
+                }));
+            }
+        }
+
+        // Stitch the tiles together
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                BufferedImage tile = futures.get(i).get();
+                img.getRaster().setRect((i % cols) * tileSize, (i / cols) * tileSize,
+                        tile.getRaster());
+            }
+        } catch (ExecutionException ex) {
+            for (Future<BufferedImage> f : futures) {
+                f.cancel(true);
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+        return img;
+    }
+
+    /**
+     * Renders the board and writes it to a PNG file.
+     *
+     * @param file the file to write.
+     * @param pool the threads that paint the tiles.
+     * @throws IOException if the file could not be written.
+     * @throws InterruptedException if interrupted while waiting for the
+     * tiles.
+     */
+    public void write(File file, ExecutorService pool)
+            throws IOException, InterruptedException {
+        if (!ImageIO.write(render(pool), "png", file)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    /**
+     * Paints one tile.
+     *
+     * @param col the column of the tile.
+     * @param row the row of the tile.
+     * @return the image of the tile.
+     */
+    private BufferedImage renderTile(int col, int row) {
+        int x = col * tileSize;
+        int y = row * tileSize;
+        int w = Math.min(tileSize, width - x);
+        int h = Math.min(tileSize, height - y);
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g = img.createGraphics();
+        g.setClip(0, 0, w, h);
+        g.translate(-x, -y);
+        g.scale(scale, scale);
+
+        // The area of the tile in world units, rounded outwards.
+        int wx0 = (int) Math.floor(x / scale);
+        int wy0 = (int) Math.floor(y / scale);
+        int wx1 = (int) Math.ceil((x + w) / scale);
+        int wy1 = (int) Math.ceil((y + h) / scale);
+        Rectangle area = new Rectangle(wx0, wy0, wx1 - wx0, wy1 - wy0);
+
+        BoardPainter.paint(g, grid, area, scale, tiles.get(row * cols + col));
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Adds a component to the tiles it touches.
+     */
+    private void sort(Component c) {
+        // Grown to cover the outlines and the points of coarse pads.
+        Rectangle2D b = c.getPaddedBounds(1 + 2 / scale);
+        int col0 = Math.max(0, (int) Math.floor(b.getMinX() * scale / tileSize));
+        int row0 = Math.max(0, (int) Math.floor(b.getMinY() * scale / tileSize));
+        int col1 = Math.min(cols - 1, (int) Math.floor(b.getMaxX() * scale / tileSize));
+        int row1 = Math.min(rows - 1, (int) Math.floor(b.getMaxY() * scale / tileSize));
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                tiles.get(row * cols + col).add(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package pcbEditor;
+
+import graph.ST;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ * Writes the BOM - "Bill Of Materials" - of a board, without any user
+ * interface.
+ *
+ * The parts are grouped into lines in one pass over the board, by their id
+ * and optionally by their footprint: the number of pads, the size of the
+ * outline and the hole diameters. Every line lists the names of its parts
+ * as reference designators. The lines are kept in the order their first
+ * part was placed, and are written straight to the writer as text, CSV or
+ * JSON.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class BomWriter {
+
+    /**
+     * The layouts a BOM can be written in.
+     */
+    public enum Format {
+
+        /**
+         * The text shown by the BOM dialog.
+         */
+        TEXT,
+        /**
+         * One row per line, with a header row.
+         */
+        CSV,
+        /**
+         * An object with the project and an array of lines.
+         */
+        JSON
+    }
+
+    // Text layout
+    private static final String DELIMITER = "***************************************************";
+    private static final String DELIMITER2 = "---------------------------------------------------";
+    private static final String DELIMITER3 = "--                                               --";
+
+    private final Format format; // The layout to write.
+    private final boolean byFootprint; // Parts with other footprints get their own lines.
+
+    /**
+     * One line of the BOM.
+     */
+    private static final class Line {
+
+        final Part first; // The part that started the line.
+        final ArrayList<Part> parts = new ArrayList<>(); // All parts of the line.
+        Line next; // Line of the same id with another footprint.
+
+        Line(Part first) {
+            this.first = first;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param format the layout to write.
+     * @param byFootprint true to put parts with the same id but other
+     * footprints on separate lines.
+     */
+    public BomWriter(Format format, boolean byFootprint) {
+        this.format = format;
+        this.byFootprint = byFootprint;
+    }
+
+    /**
+     * Writes the BOM of a board.
+     *
+     * @param parts the parts on the board.
+     * @param projName the name of the project.
+     * @param date the date the BOM was made.
+     * @param out the writer to write to, it is not closed.
+     * @throws IOException if out could not be written.
+     */
+    public void write(List<Part> parts, String projName, Date date, Writer out)
+            throws IOException {
+        ArrayList<Line> lines = group(parts);
+        switch (format) {
+            case TEXT:
+                writeText(lines, parts.size(), projName, date, out);
+                break;
+            case CSV:
+                writeCsv(lines, out);
+                break;
+            case JSON:
+                writeJson(lines, parts.size(), projName, date, out);
+                break;
+        }
+    }
+
+    /**
+     * Sorts the parts into lines.
+     */
+    private ArrayList<Line> group(List<Part> parts) {
+        ST<String, Line> byId = new ST<>();
+        ArrayList<Line> lines = new ArrayList<>();
+        for (Part part : parts) {
+            Line line = byId.get(part.getId());
+            if (line == null) {
+                line = new Line(part);
+                byId.add(part.getId(), line);
+                lines.add(line);
+            } else if (byFootprint) {
+                while (!sameFootprint(line.first, part)) {
+                    if (line.next == null) {
+                        line.next = new Line(part);
+                        lines.add(line.next);
+                    }
+                    line = line.next;
+                }
+            }
+            line.parts.add(part);
+        }
+        return lines;
+    }
+
+    /**
+     * Checks if two parts have the same number of pads, the same outline,
+     * in any rotation, and the same holes.
+     */
+    private static boolean sameFootprint(Part a, Part b) {
+        ArrayList<Pad> pa = a.getFootprint().getPads();
+        ArrayList<Pad> pb = b.getFootprint().getPads();
+        if (pa.size() != pb.size()) {
+            return false;
+        }
+        double aw = a.getOutline().getWidth(), ah = a.getOutline().getHeight();
+        double bw = b.getOutline().getWidth(), bh = b.getOutline().getHeight();
+        if (!(aw == bw && ah == bh) && !(aw == bh && ah == bw)) {
+            return false;
+        }
+        for (int i = 0; i < pa.size(); i++) {
+            if (hole(pa.get(i)) != hole(pb.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double hole(Pad pad) {
+        return pad instanceof ThPad ? ((ThPad) pad).getHoleDiam() : 0;
+    }
+
+    private void writeText(ArrayList<Line> lines, int count, String projName,
+            Date date, Writer out) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(DELIMITER).append('\n');
+        ws(sb, (DELIMITER.length() - projName.length()) / 2 - 1);
+        sb.append('~').append(projName).append("~\n");
+        sb.append("Date: ").append(date).append('\n');
+        sb.append("Total number of parts: ").append(count).append('\n');
+        sb.append(DELIMITER).append('\n');
+        sb.append(String.format("%-40s %10s\n", "Part ID", "Qty"));
+        sb.append(DELIMITER2).append('\n');
+        flush(sb, out);
+
+        for (Line l : lines) {
+            String qty = Integer.toString(l.parts.size());
+            sb.append(l.first.getId());
+            ws(sb, 40 - sb.length());
+            ws(sb, 51 - sb.length() - qty.length());
+            sb.append(qty).append('\n');
+            if (byFootprint) {
+                sb.append("  ").append(footprint(l.first)).append('\n');
+            }
+            sb.append("  ");
+            for (int i = 0; i < l.parts.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(l.parts.get(i).getName());
+            }
+            sb.append('\n');
+            sb.append(DELIMITER3).append('\n');
+            flush(sb, out);
+        }
+
+        out.write(DELIMITER);
+    }
+
+    private void writeCsv(ArrayList<Line> lines, Writer out) throws IOException {
+        out.write(byFootprint ? "Part ID,Footprint,Qty,References\r\n"
+                : "Part ID,Qty,References\r\n");
+        StringBuilder sb = new StringBuilder();
+        StringBuilder refs = new StringBuilder();
+        for (Line l : lines) {
+            csv(sb, l.first.getId());
+            sb.append(',');
+            if (byFootprint) {
+                csv(sb, footprint(l.first));
+                sb.append(',');
+            }
+            sb.append(l.parts.size()).append(',');
+            refs.setLength(0);
+            for (int i = 0; i < l.parts.size(); i++) {
+                if (i > 0) {
+                    refs.append(' ');
+                }
+                refs.append(l.parts.get(i).getName());
+            }
+            csv(sb, refs);
+            sb.append("\r\n");
+            flush(sb, out);
+        }
+    }
+
+    private void writeJson(ArrayList<Line> lines, int count, String projName,
+            Date date, Writer out) throws IOException {
+        out.write("{\n");
+        out.write("  \"project\": " + BatchRunner.quote(projName) + ",\n");
+        out.write("  \"date\": " + BatchRunner.quote(date.toInstant().toString()) + ",\n");
+        out.write("  \"parts\": " + count + ",\n");
+        out.write("  \"lines\": [");
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < lines.size(); k++) {
+            Line l = lines.get(k);
+            sb.append(k == 0 ? "\n" : ",\n");
+            sb.append("    {\"id\": ").append(BatchRunner.quote(l.first.getId()));
+            if (byFootprint) {
+                sb.append(", \"footprint\": ").append(BatchRunner.quote(footprint(l.first)));
+            }
+            sb.append(", \"qty\": ").append(l.parts.size()).append(", \"references\": [");
+            for (int i = 0; i < l.parts.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(BatchRunner.quote(l.parts.get(i).getName()));
+            }
+            sb.append("]}");
+            flush(sb, out);
+        }
+        out.write(lines.isEmpty() ? "]\n" : "\n  ]\n");
+        out.write("}\n");
+    }
+
+    /**
+     * Describes the footprint of a part in millimetres.
+     */
+    private static String footprint(Part part) {
+        ArrayList<Pad> pads = part.getFootprint().getPads();
+        double w = part.getOutline().getWidth();
+        double h = part.getOutline().getHeight();
+        StringBuilder sb = new StringBuilder();
+        sb.append(pads.size()).append(" pads, ").append(mm(Math.max(w, h)))
+                .append(" x ").append(mm(Math.min(w, h))).append(" mm");
+        double[] holes = new double[pads.size()];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = hole(pads.get(i));
+        }
+        Arrays.sort(holes);
+        String sep = ", holes ";
+        for (int i = 0; i < holes.length; i++) {
+            if (i == 0 || holes[i] != holes[i - 1]) {
+                sb.append(sep).append(mm(holes[i]));
+                sep = "/";
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String mm(double units) {
+        return String.format("%.2f", units / Grid.UNITS_PER_MM);
+    }
+
+    /**
+     * Appends a CSV field, quoted if it has to be.
+     */
+    private static void csv(StringBuilder sb, CharSequence s) {
+        if (s == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Writes a finished line and empties the builder.
+     */
+    private static void flush(StringBuilder sb, Writer out) throws IOException {
+        out.append(sb);
+        sb.setLength(0);
+    }
+
+    /**
+     * Appends whitespace.
+     *
+     * @param amount the number of "space" characters to append.
+     */
+    private static void ws(StringBuilder sb, int amount) {
+        for (int i = 0; i < amount; i++) {
+            sb.append(' ');
+        }
+    }
+}
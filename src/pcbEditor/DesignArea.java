@@ -1,12 +1,13 @@
 package pcbEditor;
 
+import graph.ST;
 import graphPrimitives.Component;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
-import java.awt.Shape;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
@@ -14,13 +15,24 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
-import java.awt.geom.Area;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.event.ChangeListener;
 import pcbPart.Part;
 import pcbPrimitives.Pad;
 import pcbPrimitives.Segment;
@@ -29,8 +41,12 @@ import ui.DefaultSettingsDialog;
 import ui.NetManager;
 import ui.SelectedSettingsDialog;
 import ui.BomSaver;
+import ui.DrcResults;
 
 /**
+ * Shows a Board and lets the user edit it with the mouse and keyboard. The
+ * board holds the project, this component only holds the view: the zoom,
+ * the selection, the cursor state and the cached tiles.
  *
  * @author Albin Hjalmas.
  */
@@ -39,26 +55,31 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
     // Observers that observe the current coordinate that the cursor is located at.
     private transient ArrayList<CoordinateListener> coordListeners;
     
-    private String projName;
-    private Grid grid; // The grid on this designarea.
-    private ArrayList<Part> parts; // The parts on this designarea.
-    private ArrayList<Net> nets;
+    private Board board; // The board shown on this designarea.
+    private transient IndexListener repainter; // Repaints what the index reports.
+    private transient Violation shownViolation; // Violation highlighted by the DRC results.
+    private transient IncrementalDrc liveDrc; // Live design rule check, null when off.
+    private transient TileCache tiles; // Cached static content, built on first paint.
+    private transient ST<Component, Boolean> floating; // Components drawn on top of the tiles.
+    private transient Rectangle damage; // Area to repaint after an event, null if none.
+    private transient AffineTransform view; // World to screen transform.
+    private transient boolean loading; // Only a preview is shown, editing is off.
 
     // Routing and selection variables
-    private ArrayList<Pad> selectedPads; // Currently selected pads.
-    private ArrayList<Segment> selectedSegments; // Currently selected segments.
-    private ArrayList<Part> selectedParts; // Currently selected components.
-    private Pad prevPad; // Previously attached pad
-    private Pad currPad; // Currently attached pad
-    private boolean isPadAttached; // Only true when currPad contains a viable pad
-    private Point2D.Double moveOrigin; // Point pressed when initiating a drag
-    private Component currPart; // Currently attached component, used when placing component
+    private transient ArrayList<Pad> selectedPads; // Currently selected pads.
+    private transient ArrayList<Segment> selectedSegments; // Currently selected segments.
+    private transient ArrayList<Part> selectedParts; // Currently selected components.
+    private transient Pad prevPad; // Previously attached pad
+    private transient Pad currPad; // Currently attached pad
+    private transient boolean isPadAttached; // Only true when currPad contains a viable pad
+    private transient Point2D.Double moveOrigin; // Point pressed when initiating a drag
+    private transient Component currPart; // Currently attached component, used when placing component
 
     // Cursor states
     public static final int CURSOR_NORMAL = 0; // Cursor can select and edit settings
     public static final int CURSOR_MOVE = 1; // Cursor cam move part around by pressing and dragging
     public static final int CURSOR_ROUTE = 2; // Cursor can connect pads belonging to the same net
-    private int cursorState; // Currently selected cursor state.
+    private transient int cursorState; // Currently selected cursor state.
 
     // Keycodes
     public static final int KEY_CTRL = 17;
@@ -66,10 +87,20 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
     public static final int KEY_DEL = 127;
 
     // Key press state variables
-    private boolean ctrlPressed;
+    private transient boolean ctrlPressed;
 
-    // Default settings
-    private double traceWidth, ringDiam, holeDiam, compSpacing;
+    // Side of one cached tile in pixels and the number of tiles kept.
+    private static final int TILE_SIZE = 256;
+    private static final int MAX_TILES = 256;
+
+    // Margin around damaged areas in world units, covers the fat outline of
+    // selected parts.
+    private static final int DAMAGE_MARGIN = 3;
+
+    // Zoom limits and the zoom step of one wheel notch.
+    private static final double MIN_ZOOM = 0.02;
+    private static final double MAX_ZOOM = 8;
+    private static final double ZOOM_STEP = 1.25;
 
     /**
      * Constructor.
@@ -78,7 +109,16 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
      * @param height The height of this design area in pixels.
      */
     public DesignArea(String projName, int width, int height) {
-        grid = new Grid(0.254, Color.BLACK, Color.GRAY, width, height);
+        this(new Board(projName, width, height));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param board the board to show and edit.
+     */
+    public DesignArea(Board board) {
+        this.board = board;
         cursorState = 0;
         coordListeners = new ArrayList<>();
         selectedPads = new ArrayList<>();
@@ -87,16 +127,10 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
         isPadAttached = false;
         ctrlPressed = false;
         moveOrigin = new Point2D.Double(0, 0);
-        parts = new ArrayList<>();
-        nets = new ArrayList<>();
-        traceWidth = 0.254;
-        ringDiam = 1.5;
-        holeDiam = 0.8;
-        compSpacing = 0.254;
-        this.projName = projName;
 
         // Set the size of this component
-        super.setPreferredSize(new Dimension(width, height));
+        Grid grid = board.getGrid();
+        super.setPreferredSize(new Dimension(grid.getWidth(), grid.getHeight()));
 
         // Add mouseListeners
         super.addMouseListener(new MouseAdapter() {
@@ -122,6 +156,22 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 mouseMovedImpl(e);
             }
         });
+
+        super.addMouseWheelListener(new MouseAdapter() {
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                mouseWheelMovedImpl(e);
+            }
+        });
+    }
+
+    /**
+     * Gets the board shown on this designarea.
+     *
+     * @return the board.
+     */
+    public Board getBoard() {
+        return board;
     }
 
     /**
@@ -177,38 +227,398 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
         return cursorState;
     }
 
+    /**
+     * Gets the zoom of this designarea.
+     *
+     * @return the number of pixels per world unit.
+     */
+    public double getZoom() {
+        return getView().getScaleX();
+    }
+
+    /**
+     * Sets the zoom and keeps the centre of the visible area in place.
+     *
+     * @param zoom the number of pixels per world unit, 1 shows the board at
+     * its actual size.
+     */
+    public void setZoom(double zoom) {
+        Rectangle r = getViewport().getViewRect();
+        setZoom(zoom, new Point(r.x + r.width / 2, r.y + r.height / 2));
+    }
+
+    /**
+     * Sets the zoom and keeps the point of the board under anchor in place.
+     * The board is panned by scrolling the viewport.
+     *
+     * @param zoom the number of pixels per world unit.
+     * @param anchor a point on this designarea.
+     */
+    public void setZoom(double zoom, Point anchor) {
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        if (zoom == getZoom()) {
+            return;
+        }
+
+        JViewport viewport = getViewport();
+        Point pos = viewport.getViewPosition();
+        Point2D.Double w = toWorld(anchor);
+
+        view = AffineTransform.getScaleInstance(zoom, zoom);
+        if (tiles != null) {
+            tiles.invalidateAll();
+        }
+        revalidate();
+        viewport.getParent().validate();
+
+        // Scroll so that the anchor ends up where it was in the viewport.
+        Dimension size = viewport.getViewSize();
+        Dimension extent = viewport.getExtentSize();
+        int x = (int) Math.round(w.x * zoom) - (anchor.x - pos.x);
+        int y = (int) Math.round(w.y * zoom) - (anchor.y - pos.y);
+        x = Math.max(0, Math.min(x, size.width - extent.width));
+        y = Math.max(0, Math.min(y, size.height - extent.height));
+        viewport.setViewPosition(new Point(x, y));
+        repaint();
+    }
+
+    /**
+     * Gets the size of the board at the current zoom.
+     *
+     * @return the preferred size.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        double zoom = getZoom();
+        Grid grid = board.getGrid();
+        return new Dimension((int) Math.ceil(grid.getWidth() * zoom),
+                (int) Math.ceil(grid.getHeight() * zoom));
+    }
+
+    /**
+     * Zooms in one step.
+     */
+    public void zoomIn() {
+        setZoom(getZoom() * ZOOM_STEP);
+    }
+
+    /**
+     * Zooms out one step.
+     */
+    public void zoomOut() {
+        setZoom(getZoom() / ZOOM_STEP);
+    }
+
+    /**
+     * Gets the world to screen transform, a scale by the zoom.
+     */
+    private AffineTransform getView() {
+        if (view == null) {
+            view = new AffineTransform();
+        }
+        return view;
+    }
+
+    /**
+     * Transforms a point on this designarea to world units.
+     */
+    private Point2D.Double toWorld(Point p) {
+        double zoom = getZoom();
+        return new Point2D.Double(p.x / zoom, p.y / zoom);
+    }
+
+    /**
+     * Transforms an area on this designarea to world units.
+     */
+    private Rectangle2D toWorld(Rectangle r) {
+        double zoom = getZoom();
+        return new Rectangle2D.Double(r.x / zoom, r.y / zoom,
+                r.width / zoom, r.height / zoom);
+    }
+
+    /**
+     * Gets the pixels on this designarea covered by an area in world units.
+     */
+    private Rectangle toScreen(Rectangle2D r) {
+        return getView().createTransformedShape(r).getBounds();
+    }
+
+    /**
+     * Gets the viewport this designarea is shown in.
+     */
+    private JViewport getViewport() {
+        return (JViewport) getParent().getParent();
+    }
+
     /**
      * Places a part onto this designarea.
      *
      * @param part the part to place.
      */
     public void placePart(Part part) {
-        if (cursorState != CURSOR_NORMAL) {
+        if (cursorState != CURSOR_NORMAL || loading) {
             return;
         }
         
         currPart = part;
-        parts.add(part);
+        board.addPart(part);
+    }
+
+    /**
+     * Adds a part to the board without attaching it to the cursor.
+     *
+     * @param part the part to add.
+     */
+    public void addPart(Part part) {
+        board.addPart(part);
+    }
+
+    /**
+     * Adds a net to the board.
+     *
+     * @param net the net to add.
+     */
+    public void addNet(Net net) {
+        board.addNet(net);
+    }
+
+    /**
+     * Removes a net from the board.
+     *
+     * @param net the net to remove.
+     * @return true if successful else false.
+     */
+    public boolean removeNet(Net net) {
+        return board.removeNet(net);
+    }
+
+    /**
+     * Removes a part from the board. The pads of the part should be removed
+     * from their nets first.
+     *
+     * @param part the part to remove.
+     * @return true if successful else false.
+     */
+    public boolean removePart(Part part) {
+        return board.removePart(part);
+    }
+
+    /**
+     * Gets the parts placed on the board.
+     *
+     * @return the parts.
+     */
+    public ArrayList<Part> getParts() {
+        return board.getParts();
+    }
+
+    /**
+     * Gets the nets of the board.
+     *
+     * @return the nets.
+     */
+    public ArrayList<Net> getNets() {
+        return board.getNets();
+    }
+
+    /**
+     * Gets the grid of the board.
+     *
+     * @return the grid.
+     */
+    public Grid getGrid() {
+        return board.getGrid();
+    }
+
+    /**
+     * Sets the journal that records the edits of the board.
+     *
+     * @param journal the journal, null to stop recording.
+     */
+    void setJournal(EditJournal journal) {
+        board.setJournal(journal);
+    }
+
+    /**
+     * Gets the journal that continues the saved project.
+     *
+     * @return the id of the journal, 0 if none.
+     */
+    long getJournalId() {
+        return board.getJournalId();
+    }
+
+    /**
+     * Sets the journal that continues the saved project.
+     *
+     * @param id the id of the journal, 0 if none.
+     */
+    void setJournalId(long id) {
+        board.setJournalId(id);
+    }
+
+    /**
+     * Shows this designarea as a preview that can not be edited until
+     * finishLoading is called.
+     */
+    void startLoading() {
+        loading = true;
+    }
+
+    /**
+     * Replaces the preview with the whole project and allows editing.
+     *
+     * @param loaded the whole project.
+     */
+    void finishLoading(Board loaded) {
+        board = loaded;
+        selectedPads.clear();
+        selectedSegments.clear();
+        selectedParts.clear();
+        damage = null;
+
+        // Everything that followed the preview is built again.
+        repainter = null;
+        tiles = null;
+        floating = null;
+        if (liveDrc != null) {
+            liveDrc.dispose();
+            liveDrc = new IncrementalDrc(getIndex(), board.getSpacing());
+        }
+        loading = false;
+        repaint();
+    }
+
+    /**
+     * Checks if only a preview of the project is shown.
+     *
+     * @return true while the project is being loaded.
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Returns the hit test index of the board, and starts repainting the
+     * changes it reports.
+     *
+     * @return the spatial index over all parts, pads and segments.
+     */
+    private SpatialIndex getIndex() {
+        SpatialIndex index = board.getIndex();
+        if (repainter == null) {
+            // Everything the index reports has to be painted again.
+            repainter = new IndexListener() {
+                @Override
+                public void componentAdded(Component c, Rectangle2D bounds) {
+                    damage(bounds);
+                }
+
+                @Override
+                public void componentChanged(Component c) {
+                }
+
+                @Override
+                public void componentMoved(Component c, Rectangle2D oldBounds,
+                        Rectangle2D newBounds) {
+                    damage(oldBounds);
+                    damage(newBounds);
+                }
+
+                @Override
+                public void componentRemoved(Component c, Rectangle2D bounds) {
+                    damage(bounds);
+                }
+            };
+            index.addIndexListener(repainter);
+        }
+        return index;
+    }
+
+    /**
+     * Adds an area to the area that is repainted after the current event.
+     *
+     * @param r the changed area in world units.
+     */
+    private void damage(Rectangle2D r) {
+        if (r == null || r.isEmpty()) {
+            return;
+        }
+
+        Rectangle b = toScreen(new Rectangle2D.Double(r.getX() - DAMAGE_MARGIN,
+                r.getY() - DAMAGE_MARGIN, r.getWidth() + 2 * DAMAGE_MARGIN,
+                r.getHeight() + 2 * DAMAGE_MARGIN));
+        b.grow(1, 1);
+        if (damage == null) {
+            damage = b;
+        } else {
+            damage.add(b);
+        }
+    }
+
+    /**
+     * Adds the area of a component whose look has changed without moving,
+     * such as a selection toggle.
+     *
+     * @param c the changed component.
+     */
+    private void damage(Component c) {
+        damage(c.getPaddedBounds(0));
+    }
+
+    /**
+     * Adds the area of all segments and pads of a net.
+     *
+     * @param net the changed net.
+     */
+    private void damage(Net net) {
+        for (Segment seg : net.getSegments()) {
+            damage(seg);
+        }
+        for (Pad pad : net.getPads()) {
+            damage(pad);
+        }
+    }
+
+    /**
+     * Repaints the area changed by the current event. Moves are reported by
+     * the index, so the index is caught up with first.
+     */
+    private void repaintDamage() {
+        getIndex().flush();
+        if (liveDrc != null) {
+            damage(liveDrc.takeChangedRegion());
+        }
+        if (damage != null) {
+            repaint(damage);
+            damage = null;
+        }
     }
 
     /**
      * Shows the default settings associated with this designArea.
      */
     public void showDefaultSettingsDialog() {
+        double[] d = board.getDefaults();
         DefaultSettingsDialog defaultSettings = new DefaultSettingsDialog(null, true,
-                traceWidth, ringDiam, holeDiam, compSpacing);
+                d[0], d[1], d[2], d[3]);
         defaultSettings.setLocationRelativeTo(null);
         defaultSettings.setVisible(true);
-        traceWidth = defaultSettings.getTraceWidth();
-        ringDiam = defaultSettings.getRingDiam();
-        holeDiam = defaultSettings.getHoleDiam();
-        compSpacing = defaultSettings.getCompSpacing();
+        setDefaults(defaultSettings.getTraceWidth(), defaultSettings.getRingDiam(),
+                defaultSettings.getHoleDiam(), defaultSettings.getCompSpacing());
+        if (liveDrc != null) {
+            repaint();
+        }
     }
 
     /**
      * Shows the selected settings dialog.
      */
     public void showSelectedSettingsDialog() {
+        if (loading) {
+            return;
+        }
+
         SelectedSettingsDialog selectedSettings = new SelectedSettingsDialog(null, true);
         selectedSettings.setLocationRelativeTo(null);
         selectedSettings.setVisible(true);
@@ -221,26 +631,31 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 && selectedSettings.getHoleDiam() > 0) {
             for (Pad pad : selectedPads) {
                 if (pad instanceof ThPad) {
-                    ((ThPad) pad).setRingDiam(selectedSettings.getRingDiam() * 50);
-                    ((ThPad) pad).setHoleDiam(selectedSettings.getHoleDiam() * 50);
+                    ((ThPad) pad).setRingDiam(selectedSettings.getRingDiam() * Grid.UNITS_PER_MM);
+                    ((ThPad) pad).setHoleDiam(selectedSettings.getHoleDiam() * Grid.UNITS_PER_MM);
                 }
             }
         }
         
         if (selectedSettings.getTraceWidth() > 0) {
             for (Segment seg : selectedSegments) {
-                seg.setWidth(selectedSettings.getTraceWidth() * 50);
+                seg.setWidth(selectedSettings.getTraceWidth() * Grid.UNITS_PER_MM);
+                getIndex().update(seg);
             }
         }
         
-        repaint();
+        repaintDamage();
     }
 
     /**
      * Displays the netmanager.
      */
     public void showNetManager() {
-        NetManager nm = new NetManager(parts, nets);
+        if (loading) {
+            return;
+        }
+
+        NetManager nm = new NetManager(this);
         nm.setLocationRelativeTo(null);
         nm.setVisible(true);
     }
@@ -250,161 +665,146 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
      */
     public void saveBOM() {
         BomSaver bs = new BomSaver();
-        bs.createBom(parts, projName);
+        bs.createBom(board.getParts(), board.getProjectName());
         bs.setLocationRelativeTo(null);
         bs.setVisible(true);
     }
 
     /**
-     * Checks the specified component distance spacing. P.S. Very nasty looking
-     * code, did not have the time to "Divide and conquer"
+     * Gets the nets whose visible pads are not all joined by segments.
+     *
+     * @return the nets that are not fully routed.
+     */
+    public ArrayList<Net> getUnroutedNets() {
+        return board.getUnroutedNets();
+    }
+
+    /**
+     * Checks if every net on this designarea is fully routed.
+     *
+     * @return true if all nets are fully routed else false.
+     */
+    public boolean isFullyRouted() {
+        return board.isFullyRouted();
+    }
+
+    /**
+     * Checks the specified component distance spacing. The check runs in the
+     * background and the violations are listed in a results window when it
+     * is done.
      */
     public void runDesignRuleCheck() {
-        
-        boolean wasError = false;
-
-        // Look for parts that are to close together
-        ArrayList<Part> currParts = new ArrayList<>(parts);
-        while (!currParts.isEmpty()) {
-            Part currPart = currParts.remove(0);
-            for (Part part : currParts) {
-                if (isOverlapping(currPart.getPaddedOutline(compSpacing * 50),
-                        part.getPaddedOutline(0))) {
-                    wasError = true;
-                    part.setSelected(true);
-                    currPart.setSelected(true);
-                    selectedParts.add(part);
-                    selectedParts.add(currPart);
-                    repaint();
-                    JOptionPane.showMessageDialog(null, "Design rule violation detected!\n"
-                            + "Part: " + currPart.toString() + " And Part: " + part.toString(),
-                            " is to close together", JOptionPane.WARNING_MESSAGE);
-                    part.setSelected(false);
-                    currPart.setSelected(false);
-                    selectedParts.remove(part);
-                    selectedParts.remove(currPart);
-                }
-            }
-        }
+        final DesignRuleChecker checker = board.createChecker();
 
-        // Look for segments and pads that are spaced to close together
-        ArrayList<Net> currNets = new ArrayList<>(nets);
-        while (!currNets.isEmpty()) {
-            Net currNet = currNets.remove(0);
-            ArrayList<Pad> currPads = new ArrayList<>(currNet.getPads());
-            ArrayList<Segment> currSegments = new ArrayList<>(currNet.getSegments());
-            while (!currSegments.isEmpty()) {
-                Segment currSeg = currSegments.remove(0);
-                for (Net net : currNets) {
-                    for (Pad pad : net.getPads()) {
-                        if (!pad.getVisible()) {
-                            continue;
-                        }
-                        if (isOverlapping(currSeg.getPaddedOutline(compSpacing * 50),
-                                pad.getPaddedOutline(0.0))) {
-                            wasError = true;
-                            pad.setSelected(true);
-                            currSeg.setSelected(true);
-                            selectedPads.add(pad);
-                            selectedSegments.add(currSeg);
-                            repaint();
-                            JOptionPane.showMessageDialog(null, "Design rule violation detected!\n"
-                                    + "Segment: " + currSeg.toString() + " And Pad: " + pad.toString(),
-                                    " is to close together", JOptionPane.WARNING_MESSAGE);
-                            pad.setSelected(false);
-                            currSeg.setSelected(false);
-                            selectedPads.remove(pad);
-                            selectedSegments.remove(currSeg);
-                        }
-                    }
-                    
-                    for (Segment seg : net.getSegments()) {
-                        if (isOverlapping(currSeg.getPaddedOutline(compSpacing * 50),
-                                seg.getPaddedOutline(0.0))) {
-                            wasError = true;
-                            seg.setSelected(true);
-                            currSeg.setSelected(true);
-                            selectedSegments.add(seg);
-                            selectedSegments.add(currSeg);
-                            repaint();
-                            JOptionPane.showMessageDialog(null, "Design rule violation detected!\n"
-                                    + "Segment: " + currSeg.toString() + " And Segment: " + seg.toString(),
-                                    " is to close together", JOptionPane.WARNING_MESSAGE);
-                            seg.setSelected(false);
-                            currSeg.setSelected(false);
-                            selectedSegments.remove(seg);
-                            selectedSegments.remove(currSeg);
-                        }
+        final DrcResults results = new DrcResults(this);
+        results.setLocationRelativeTo(null);
+        results.setVisible(true);
+
+        SwingWorker<List<Violation>, Void> worker = new SwingWorker<List<Violation>, Void>() {
+            @Override
+            protected List<Violation> doInBackground() {
+                return checker.run(ForkJoinPool.commonPool(),
+                        new DesignRuleChecker.ProgressListener() {
+                    @Override
+                    public void progress(int done, int total) {
+                        setProgress(total == 0 ? 100 : (int) (100L * done / total));
                     }
-                }
+                });
             }
-            
-            while (!currPads.isEmpty()) {
-                Pad currPad = currPads.remove(0);
-                if (!currPad.getVisible()) {
-                    continue;
-                }
-                
-                for (Net net : currNets) {
-                    for (Pad pad : net.getPads()) {
-                        if (isOverlapping(currPad.getPaddedOutline(compSpacing * 50),
-                                pad.getPaddedOutline(0.0))) {
-                            wasError = true;
-                            pad.setSelected(true);
-                            currPad.setSelected(true);
-                            selectedPads.add(pad);
-                            selectedPads.add(currPad);
-                            repaint();
-                            JOptionPane.showMessageDialog(null, "Design rule violation detected!\n"
-                                    + "Pad: " + currPad.toString() + " And Pad: " + pad.toString(),
-                                    " is to close together", JOptionPane.WARNING_MESSAGE);
-                            pad.setSelected(false);
-                            currPad.setSelected(false);
-                            selectedPads.remove(pad);
-                            selectedPads.remove(currPad);
-                        }
-                    }
-                    
-                    for (Segment seg : net.getSegments()) {
-                        if (isOverlapping(currPad.getPaddedOutline(compSpacing * 50),
-                                seg.getPaddedOutline(0.0))) {
-                            wasError = true;
-                            seg.setSelected(true);
-                            currPad.setSelected(true);
-                            selectedSegments.add(seg);
-                            selectedPads.add(currPad);
-                            repaint();
-                            JOptionPane.showMessageDialog(null, "Design rule violation detected!\n"
-                                    + "Pad: " + currPad.toString() + " And Segment: " + seg.toString(),
-                                    " is to close together", JOptionPane.WARNING_MESSAGE);
-                            seg.setSelected(false);
-                            currPad.setSelected(false);
-                            selectedSegments.remove(seg);
-                            selectedPads.remove(currPad);
-                        }
-                    }
+
+            @Override
+            protected void done() {
+                try {
+                    results.setViolations(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Logger.getLogger(DesignArea.class.getName()).log(Level.SEVERE, null, ex);
                 }
             }
+        };
+
+        // Progress events are delivered on the event dispatch thread.
+        worker.addPropertyChangeListener((PropertyChangeEvent e) -> {
+            if ("progress".equals(e.getPropertyName())) {
+                results.setProgress((Integer) e.getNewValue());
+            }
+        });
+        worker.execute();
+    }
+
+    /**
+     * Turns the live design rule check on or off. While it is on, the
+     * violations are kept up to date as components are edited and are
+     * marked on the design area.
+     *
+     * @param state true to turn the live check on.
+     */
+    public void setLiveDrc(boolean state) {
+        if (state && liveDrc == null) {
+            liveDrc = new IncrementalDrc(getIndex(), board.getSpacing());
+        } else if (!state && liveDrc != null) {
+            liveDrc.dispose();
+            liveDrc = null;
         }
-        
-        if (!wasError) {
-            JOptionPane.showMessageDialog(null, "No design rule violations found!!",
-                    "DRC Check Done", JOptionPane.INFORMATION_MESSAGE);
+        repaint();
+    }
+
+    /**
+     * @return true if the live design rule check is on.
+     */
+    public boolean isLiveDrc() {
+        return liveDrc != null;
+    }
+
+    /**
+     * Highlights the components of a violation and scrolls them into view.
+     * The previously shown violation is no longer highlighted.
+     *
+     * @param v the violation to show, null to only clear the highlight.
+     */
+    public void showViolation(Violation v) {
+        if (shownViolation != null) {
+            setSelected(shownViolation.getA(), false);
+            setSelected(shownViolation.getB(), false);
+        }
+
+        shownViolation = v;
+        if (v != null) {
+            setSelected(v.getA(), true);
+            setSelected(v.getB(), true);
+            scrollRectToVisible(toScreen(v.getRegion()));
         }
+        repaintDamage();
     }
 
     /**
-     * Checks if the specified shapes a and b is overlapping eachother.
+     * Selects or unselects a component and keeps the lists of selected
+     * components up to date.
      *
-     * @param a shape a
-     * @param b shape b
-     * @return true if a and ab overlaps else false.
+     * @param c the component.
+     * @param state the new selection state.
      */
-    private boolean isOverlapping(Shape a, Shape b) {
-        Area A = new Area(a);
-        Area B = new Area(b);
-        A.intersect(B);
-        return !A.isEmpty();
+    private void setSelected(Component c, boolean state) {
+        c.setSelected(state);
+        damage(c);
+        if (c instanceof Part) {
+            if (state) {
+                selectedParts.add((Part) c);
+            } else {
+                selectedParts.remove((Part) c);
+            }
+        } else if (c instanceof Pad) {
+            if (state) {
+                selectedPads.add((Pad) c);
+            } else {
+                selectedPads.remove((Pad) c);
+            }
+        } else if (c instanceof Segment) {
+            if (state) {
+                selectedSegments.add((Segment) c);
+            } else {
+                selectedSegments.remove((Segment) c);
+            }
+        }
     }
 
     /**
@@ -413,7 +813,42 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
      * @param name the new name.
      */
     public void setProjectName(String name) {
-        projName = name;
+        board.setProjectName(name);
+    }
+
+    /**
+     * Gets the project name.
+     *
+     * @return the name.
+     */
+    public String getProjectName() {
+        return board.getProjectName();
+    }
+
+    /**
+     * Gets the default settings in millimetres.
+     *
+     * @return the trace width, ring diameter, hole diameter and component
+     * spacing.
+     */
+    double[] getDefaults() {
+        return board.getDefaults();
+    }
+
+    /**
+     * Sets the default settings in millimetres.
+     *
+     * @param traceWidth the width of new traces.
+     * @param ringDiam the annular ring diameter of new pads.
+     * @param holeDiam the hole diameter of new pads.
+     * @param compSpacing the minimum spacing between components.
+     */
+    void setDefaults(double traceWidth, double ringDiam, double holeDiam,
+            double compSpacing) {
+        board.setDefaults(traceWidth, ringDiam, holeDiam, compSpacing);
+        if (liveDrc != null) {
+            liveDrc.setSpacing(board.getSpacing());
+        }
     }
     
     @Override
@@ -425,48 +860,252 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
+        Rectangle area = getViewport().getViewRect();
+        Rectangle clip = g2.getClipBounds();
+        if (clip != null) {
+            area = area.intersection(clip);
+        }
 
-        // First paint the grid
-        grid.paint(g2, ((JViewport) getParent().getParent()).getViewRect());
+        // Catch up with the changes, this invalidates the changed tiles.
+        TileCache cache = getTiles();
+        getIndex().flush();
+        updateFloating();
 
-        // Draw connection nets.
-        for (Net n : nets) {
-            if (n.isSelected()) {
-                n.drawSelected(g2);
-            } else {
-                n.draw(g2);
+        // Copy the static content from the tiles
+        cache.paint(g2, area, getGraphicsConfiguration(), new TileCache.TilePainter() {
+            @Override
+            public void paintTile(Graphics2D g, Rectangle tile) {
+                g.transform(getView());
+                paintStatic(g, toWorld(tile).getBounds());
+            }
+        });
+
+        // The rest is drawn in world units.
+        Graphics2D gw = (Graphics2D) g2.create();
+        gw.transform(getView());
+        if (BoardPainter.isCoarse(getZoom())) {
+            gw.setStroke(BoardPainter.HAIRLINE);
+        }
+
+        // Skip everything outside the painted area, grown to cover the fat
+        // outline of selected parts.
+        Rectangle2D cull = toWorld(area);
+        double margin = DAMAGE_MARGIN + 1 / getZoom();
+        cull.setRect(cull.getX() - margin, cull.getY() - margin,
+                cull.getWidth() + 2 * margin, cull.getHeight() + 2 * margin);
+
+        // Draw the components that are being moved on top
+        for (Component c : floating.getKeys()) {
+            if (c instanceof Segment && isVisible(c, cull)) {
+                BoardPainter.draw(gw, c, getZoom());
+            }
+        }
+        for (Component c : floating.getKeys()) {
+            if (c instanceof Pad && isVisible(c, cull)) {
+                BoardPainter.draw(gw, c, getZoom());
+            }
+        }
+        for (Component c : floating.getKeys()) {
+            if (c instanceof Part && isVisible(c, cull)) {
+                BoardPainter.draw(gw, c, getZoom());
             }
         }
 
-        // Draw components
-        for (Component comp : parts) {
-            comp.draw(g2);
+        // Draw the visible parts of selected nets
+        ArrayList<Component> visible = getIndex().query(cull);
+        ArrayList<Segment> segs = new ArrayList<>();
+        for (Component c : visible) {
+            if (c instanceof Segment && ((Segment) c).getNet().isSelected()) {
+                segs.add((Segment) c);
+            }
+        }
+        for (SegmentBatch batch : SegmentBatch.build(segs)) {
+            batch.drawSelected(gw);
+        }
+        for (Component c : visible) {
+            if (c instanceof Pad && ((Pad) c).getNet() != null
+                    && ((Pad) c).getNet().isSelected()) {
+                c.drawSelected(gw);
+            }
         }
 
         // Draw selected segments
         for (Segment seg : selectedSegments) {
-            seg.drawSelected(g2);
+            if (isVisible(seg, cull)) {
+                seg.drawSelected(gw);
+            }
         }
 
         // Draw selected components
         for (Part part : selectedParts) {
-            part.drawSelected(g2);
+            if (isVisible(part, cull)) {
+                part.drawSelected(gw);
+            }
         }
 
         // Draw selected pads
         for (Pad p : selectedPads) {
-            p.drawSelected(g2);
+            if (isVisible(p, cull)) {
+                p.drawSelected(gw);
+            }
         }
-        
+
+        // Mark the violations found by the live design rule check
+        if (liveDrc != null) {
+            gw.setColor(Color.RED);
+            for (Violation v : liveDrc.getViolations()) {
+                Rectangle2D r = v.getRegion();
+                if (r.intersects(cull)) {
+                    gw.draw(r);
+                }
+            }
+        }
+        gw.dispose();
     }
-    
+
+    /**
+     * Paints the grid, nets and parts that are not being moved.
+     *
+     * @param g the graphics to paint on, in world units.
+     * @param area the area to paint in world units.
+     */
+    private void paintStatic(Graphics2D g, Rectangle area) {
+        // Only the components inside the area are drawn.
+        Rectangle cull = new Rectangle(area);
+        cull.grow(1, 1);
+        ArrayList<Component> visible = new ArrayList<>();
+        for (Component c : getIndex().query(cull)) {
+            if (!floating.contains(c)) {
+                visible.add(c);
+            }
+        }
+        BoardPainter.paint(g, board.getGrid(), area, getZoom(), visible);
+    }
+
+    /**
+     * Checks if a component is drawn inside the specified area.
+     *
+     * @param c the component.
+     * @param area the area.
+     * @return true if the bounds of c intersect area.
+     */
+    private static boolean isVisible(Component c, Rectangle2D area) {
+        return c.getPaddedBounds(0).intersects(area);
+    }
+
+    /**
+     * Gets the tile cache, creating it on first use. The tiles are
+     * invalidated by the index when components are added, moved or removed.
+     */
+    private TileCache getTiles() {
+        if (tiles == null) {
+            tiles = new TileCache(TILE_SIZE, MAX_TILES);
+            floating = new ST<>(true);
+            getIndex().addIndexListener(new IndexListener() {
+                @Override
+                public void componentAdded(Component c, Rectangle2D bounds) {
+                    tiles.invalidate(toScreen(bounds));
+                }
+
+                @Override
+                public void componentChanged(Component c) {
+                }
+
+                @Override
+                public void componentMoved(Component c, Rectangle2D oldBounds,
+                        Rectangle2D newBounds) {
+                    // Moving components are drawn on top of the tiles.
+                    if (!floating.contains(c)) {
+                        tiles.invalidate(toScreen(oldBounds));
+                        tiles.invalidate(toScreen(newBounds));
+                    }
+                }
+
+                @Override
+                public void componentRemoved(Component c, Rectangle2D bounds) {
+                    tiles.invalidate(toScreen(bounds));
+                }
+            });
+        }
+        return tiles;
+    }
+
+    /**
+     * Finds the components that are being moved: a part being placed, the
+     * end of the trace being routed and the selection while moving. These
+     * are kept out of the tiles, so the tiles under a component are
+     * invalidated when it starts or stops moving.
+     */
+    private void updateFloating() {
+        ST<Component, Boolean> now = new ST<>(true);
+        if (currPart != null) {
+            addFloating(now, currPart);
+        }
+        if (isPadAttached && currPad != null) {
+            addFloating(now, currPad);
+        }
+        if (cursorState == CURSOR_MOVE) {
+            for (Part part : selectedParts) {
+                addFloating(now, part);
+            }
+            for (Pad pad : selectedPads) {
+                addFloating(now, pad);
+            }
+            for (Segment seg : selectedSegments) {
+                addFloating(now, seg);
+            }
+        }
+
+        for (Component c : now.getKeys()) {
+            if (!floating.contains(c)) {
+                tiles.invalidate(toScreen(c.getPaddedBounds(0)));
+            }
+        }
+        for (Component c : floating.getKeys()) {
+            if (!now.contains(c)) {
+                tiles.invalidate(toScreen(c.getPaddedBounds(0)));
+            }
+        }
+        floating = now;
+    }
+
+    /**
+     * Adds a moving component and the components that move along with it.
+     */
+    private void addFloating(ST<Component, Boolean> set, Component c) {
+        set.add(c, Boolean.TRUE);
+        if (c instanceof Part) {
+            for (Pad pad : ((Part) c).getFootprint().getPads()) {
+                addFloating(set, pad);
+            }
+        } else if (c instanceof Pad) {
+            // Segments attached to a pad follow it.
+            for (ChangeListener l : ((Pad) c).getListeners()) {
+                if (l instanceof Segment) {
+                    set.add((Segment) l, Boolean.TRUE);
+                }
+            }
+        } else if (c instanceof Segment) {
+            Segment seg = (Segment) c;
+            if (((Pad) seg.getP0()).getPart() == null) {
+                set.add(seg.getP0(), Boolean.TRUE);
+            }
+            if (((Pad) seg.getP1()).getPart() == null) {
+                set.add(seg.getP1(), Boolean.TRUE);
+            }
+        }
+    }
+
     @Override
     public void keyTyped(KeyEvent e) {
     }
     
     @Override
     public void keyPressed(KeyEvent e) {
-        
+        if (loading) {
+            return;
+        }
+
         int keyCode = e.getExtendedKeyCode();
         
         switch (keyCode) {
@@ -474,6 +1113,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 ctrlPressed = true;
                 break;
             case KEY_DEL:
+                // The removed components are reported by the index.
                 for (Pad pad : selectedPads) {
                     pad.getNet().removePad(pad);
                 }
@@ -490,7 +1130,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                         }
                         
                     }
-                    parts.remove(comp);
+                    removePart((Part) comp);
                 }
                 selectedParts.clear();
                 break;
@@ -498,6 +1138,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 if (isPadAttached && cursorState == CURSOR_ROUTE) { // Abort current route.
                     currPad.getNet().removeSegment(prevPad, currPad);
                     currPad.getNet().setSelected(false);
+                    damage(currPad.getNet());
                     prevPad = null;
                     currPad = null;
                     isPadAttached = false;
@@ -505,7 +1146,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 break;
         }
         
-        repaint();
+        repaintDamage();
     }
     
     @Override
@@ -520,12 +1161,17 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
      * @param e
      */
     public void mousePressedImpl(MouseEvent e) {
-        Point2D.Double p = new Point2D.Double(e.getPoint().x, e.getPoint().y);
+        if (loading) {
+            return;
+        }
+
+        Point2D.Double p = toWorld(e.getPoint());
+        ArrayList<Component> hits = getIndex().query(p);
 
         // If right click was detected
         if (e.getButton() == MouseEvent.BUTTON3) {
-            for (Component comp : parts) {
-                if (comp.contains(new Point2D.Double(e.getX(), e.getY()))) {
+            for (Component comp : hits) {
+                if (comp instanceof Part) {
                     ((Part) comp).showContextMenu(e);
                     ActionListener al = new ActionListener() {
                         @Override
@@ -542,38 +1188,56 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
         switch (cursorState) {
             case CURSOR_ROUTE:
                 if (isPadAttached) {
-                    currPad.getNet().removeSegment(prevPad, currPad);
-                    if (currPad.getNet().contains(p)) {
-                        Component c = currPad.getNet().getUnderlyingComponent(p);
-                        if (c instanceof Pad) {
-                            currPad.getNet().addSegment(prevPad, (Pad) c,
-                                    traceWidth * 50, Color.GREEN);
-                            currPad.getNet().setSelected(false);
+                    Net net = currPad.getNet();
+                    net.removeSegment(prevPad, currPad);
+
+                    // Look for a pad or segment of the routed net under p.
+                    Pad target = null;
+                    boolean onNet = false;
+                    for (Component c : getIndex().query(p)) {
+                        if (c == currPad) {
+                            continue;
+                        }
+                        if (c instanceof Pad && ((Pad) c).getNet() == net) {
+                            target = (Pad) c;
+                            break;
+                        }
+                        if (c instanceof Segment && ((Segment) c).getNet() == net) {
+                            onNet = true;
+                        }
+                    }
+
+                    if (target != null || onNet) {
+                        if (target != null) {
+                            net.addSegment(prevPad, target,
+                                    board.getTraceWidth(), Color.GREEN);
+                            net.setSelected(false);
+                            damage(net);
                             isPadAttached = false;
                         }
                     } else {
                         currPad.getNet().addSegment(prevPad, currPad,
-                                traceWidth * 50, Color.GREEN);
+                                board.getTraceWidth(), Color.GREEN);
                         prevPad = currPad;
 
                         // Begin routing new segment
-                        currPad = new ThPad(currPad.getP(), traceWidth * 50, 0, Color.GREEN, false);
+                        currPad = new ThPad(currPad.getP(), board.getTraceWidth(), 0, Color.GREEN, false);
                         prevPad.getNet().addSegment(prevPad, currPad,
-                                traceWidth * 50, Color.GREEN);
+                                board.getTraceWidth(), Color.GREEN);
                     }
                     
                 } else {
-                    for (Net net : nets) {
-                        if (net.contains(p)) {
-                            Component c = net.getUnderlyingComponent(p);
-                            if (c instanceof Pad) {
-                                prevPad = (Pad) c;
-                                currPad = ((Pad) c).clone();
-                                currPad.setVisible(false);
-                                net.addSegment(prevPad, currPad, traceWidth * 50, Color.GREEN);
-                                net.setSelected(true);
-                                isPadAttached = true;
-                            }
+                    for (Component c : hits) {
+                        if (c instanceof Pad && ((Pad) c).getNet() != null) {
+                            Net net = ((Pad) c).getNet();
+                            prevPad = (Pad) c;
+                            currPad = ((Pad) c).clone();
+                            currPad.setVisible(false);
+                            net.addSegment(prevPad, currPad, board.getTraceWidth(), Color.GREEN);
+                            net.setSelected(true);
+                            damage(net);
+                            isPadAttached = true;
+                            break;
                         }
                     }
                 }
@@ -586,77 +1250,104 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 // Place component
                 if (currPart != null) {
                     currPart = null;
+                    repaintDamage();
                     return;
                 }
 
-                // Run through connection net
-                for (Net net : nets) {
-                    Component c = net.getUnderlyingComponent(p);
-                    
-                    if (c instanceof Pad && ((Pad) c).getPart() == null) {
+                // Pads that do not belong to a part are picked first,
+                // then segments and last parts.
+                Component c = null;
+                for (Component hit : hits) {
+                    if (hit instanceof Pad && ((Pad) hit).getPart() == null
+                            && ((Pad) hit).getNet() != null) {
+                        c = hit;
+                        break;
+                    }
+                }
+                if (c == null) {
+                    for (Component hit : hits) {
+                        if (hit instanceof Segment) {
+                            c = hit;
+                            break;
+                        }
+                    }
+                }
+                if (c == null) {
+                    for (Component hit : hits) {
+                        if (hit instanceof Part) {
+                            c = hit;
+                            break;
+                        }
+                    }
+                }
+
+                if (c != null) {
+                    if (c instanceof Pad) {
                         if (!ctrlPressed && cursorState != CURSOR_MOVE) {
                             for (Pad pad : selectedPads) { // Unselect selected pads
                                 pad.setSelected(false);
+                                damage(pad);
                             }
                             selectedPads.clear();
                         }
                         c.setSelected(true);
+                        damage(c);
                         if (selectedPads.contains((Pad) c)) { // Dont add the same pad twice
                             selectedPads.remove((Pad) c);
                         }
                         selectedPads.add((Pad) c);
-                        repaint();
+                        repaintDamage();
                         return;
                     } else if (c instanceof Segment) {
                         if (!ctrlPressed && cursorState != CURSOR_MOVE) {
                             for (Segment seg : selectedSegments) { // Unselect selected pads
                                 seg.setSelected(false);
+                                damage(seg);
                             }
                             selectedSegments.clear();
                         }
                         c.setSelected(true);
+                        damage(c);
                         if (selectedSegments.contains((Segment) c)) {
                             selectedSegments.remove((Segment) c);
                         }
                         selectedSegments.add((Segment) c);
-                        repaint();
+                        repaintDamage();
                         return;
-                    }
-                }
-
-                // Go through all parts (not pads or segments)
-                for (Part part : parts) {
-                    // Skip if component does not contain the mouse point.
-                    if (!part.contains(p)) {
-                        continue;
-                    }
-                    
-                    if (!ctrlPressed && cursorState != CURSOR_MOVE) {
-                        for (Component part1 : selectedParts) {
-                            part1.setSelected(false);
+                    } else {
+                        Part part = (Part) c;
+                        if (!ctrlPressed && cursorState != CURSOR_MOVE) {
+                            for (Component part1 : selectedParts) {
+                                part1.setSelected(false);
+                                damage(part1);
+                            }
+                            selectedParts.clear();
                         }
-                        selectedParts.clear();
-                    }
-                    part.setSelected(true);
-                    if (selectedParts.contains(part)) {
-                        selectedParts.remove(part);
+                        part.setSelected(true);
+                        damage(part);
+                        if (selectedParts.contains(part)) {
+                            selectedParts.remove(part);
+                        }
+                        selectedParts.add(part);
+                        repaintDamage();
+                        return;
                     }
-                    selectedParts.add(part);
-                    repaint();
-                    return;
                 }
 
                 // This is only reached if the mouse was pressed outside of any components
                 for (Segment seg : selectedSegments) { // Unselect selected segments
                     seg.setSelected(false);
+                    damage(seg);
                 }
                 selectedSegments.clear();
                 for (Part part : selectedParts) { // Unselect selected parts
                     part.setSelected(false);
+                    damage(part);
                 }
                 selectedParts.clear();
                 for (Pad pad : selectedPads) { // Unselect selected pads
                     pad.setSelected(false);
+                    damage(pad);
                 }
                 selectedPads.clear();
                 
@@ -666,7 +1357,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 break;
         }
         
-        repaint();
+        repaintDamage();
     }
 
     /**
@@ -681,6 +1372,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 if (isPadAttached) {
                     isPadAttached = false;
                     currPad.getNet().setSelected(false);
+                    damage(currPad.getNet());
                     currPad = null;
                     prevPad = null;
                 }
@@ -691,7 +1383,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 break;
         }
         
-        repaint();
+        repaintDamage();
     }
 
     /**
@@ -699,20 +1391,22 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
      * @param e
      */
     public void mouseDraggedImpl(MouseEvent e) {
-        Point p = e.getPoint();
-        Point2D.Double mousePos = new Point2D.Double(p.x, p.y);
+        Point2D.Double mousePos = toWorld(e.getPoint());
 
         // Notify all CoordinateListeners
         for (CoordinateListener c : coordListeners) {
-            c.CoordinateChanged(grid.p2gC(mousePos));
+            c.CoordinateChanged(board.getGrid().p2gC(mousePos));
+        }
+        if (loading) {
+            return;
         }
         
         switch (cursorState) {
             case CURSOR_ROUTE:
                 break;
             case CURSOR_MOVE:
-                Point2D.Double delta = grid.getClosestGP(mousePos);
-                Point2D.Double currPos = grid.getClosestGP(moveOrigin);
+                Point2D.Double delta = board.getGrid().getClosestGP(mousePos);
+                Point2D.Double currPos = board.getGrid().getClosestGP(moveOrigin);
                 delta.x -= currPos.x;
                 delta.y -= currPos.y;
                 moveOrigin.x += delta.x;
@@ -734,6 +1428,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                     // Should not translate a pad that belongs to a component
                     if ((((Pad) seg.getP0()).getPart() != null
                             || ((Pad) seg.getP1()).getPart() != null)) {
+                        repaintDamage();
                         return;
                     }
                     
@@ -767,7 +1462,7 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
                 break;
         }
         
-        repaint();
+        repaintDamage();
     }
 
     /**
@@ -775,31 +1470,45 @@ public final class DesignArea extends JComponent implements KeyListener, Seriali
      * @param e
      */
     public void mouseMovedImpl(MouseEvent e) {
-        Point p = e.getPoint();
-        Point2D.Double mousePos = new Point2D.Double(p.x, p.y);
+        Point2D.Double mousePos = toWorld(e.getPoint());
 
         // Notify all CoordinateListeners
         for (CoordinateListener c : coordListeners) {
-            c.CoordinateChanged(grid.p2gC(grid.getClosestGP(mousePos)));
+            c.CoordinateChanged(board.getGrid().p2gC(board.getGrid().getClosestGP(mousePos)));
         }
         
         switch (cursorState) {
             case CURSOR_ROUTE:
                 if (isPadAttached) {
-                    currPad.setP(grid.getClosestGP(mousePos));
+                    currPad.setP(board.getGrid().getClosestGP(mousePos));
                 }
                 break;
             case CURSOR_MOVE:
                 break;
             case CURSOR_NORMAL:
                 if (currPart != null) {
-                    currPart.setP(grid.getClosestGP(mousePos));
+                    currPart.setP(board.getGrid().getClosestGP(mousePos));
                 }
                 break;
             default:
                 break;
         }
         
-        repaint();
+        repaintDamage();
+    }
+
+    /**
+     * Zooms around the mouse when ctrl is held down, otherwise lets the
+     * scroll pane scroll.
+     *
+     * @param e
+     */
+    public void mouseWheelMovedImpl(MouseWheelEvent e) {
+        if (!e.isControlDown()) {
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+            return;
+        }
+
+        setZoom(getZoom() * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getPoint());
     }
 }
@@ -0,0 +1,444 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import pcbPart.Part;
+import pcbPrimitives.Geometry;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+import pcbPrimitives.ThPad;
+
+/**
+ * Checks the spacing between parts and between the copper of different nets.
+ *
+ * The geometry of all components is copied when the checker is loaded. The
+ * check itself only reads the copies, so it can run on a background thread
+ * while the user keeps editing.
+ *
+ * The check runs in two phases. The broad phase sorts the padded bounding
+ * boxes of all components along the x axis and sweeps over them, so only
+ * pairs whose boxes overlap become candidates. The narrow phase splits the
+ * candidates over a fork join pool and tests them with exact analytic
+ * distances from the Geometry kernel for pads (circles), segments (capsules)
+ * and part outlines (rectangles). Other shapes fall back to intersecting
+ * their padded outlines as Areas.
+ *
+ * @author Albin Hjalmas.
+ */
+public class DesignRuleChecker {
+
+    /**
+     * Receives the progress of a running check.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called from the worker threads each time a batch of candidate
+         * pairs has been checked.
+         *
+         * @param done number of checked candidate pairs.
+         * @param total total number of candidate pairs.
+         */
+        void progress(int done, int total);
+    }
+
+    // Kinds of geometry
+    private static final int PART = 0;
+    private static final int PAD = 1;
+    private static final int SEGMENT = 2;
+    private static final int OTHER = 3;
+
+    // Number of candidate pairs checked by one task without forking.
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * A copy of the geometry of a component taking part in the check.
+     */
+    private static final class Item {
+
+        final Component c;
+        final int net; // Index of the net of the component, -1 for parts.
+        final int kind;
+        final Rectangle2D bounds; // Bounding box of the component.
+        double x0, y0, x1, y1; // Pad centre, segment ends or outline corners.
+        double r; // Ring radius of a pad or half width of a segment.
+        Shape shape; // Outline of components of kind OTHER.
+        double[] frame; // Center, half sides, cos and sin of a rotated part.
+
+        Item(Component c, int net) {
+            this.c = c;
+            this.net = net;
+            bounds = c.getPaddedBounds(0);
+
+            if (c instanceof ThPad) {
+                kind = PAD;
+                ThPad pad = (ThPad) c;
+                x0 = pad.getCenterX();
+                y0 = pad.getCenterY();
+                r = pad.getRingDiam() / 2;
+            } else if (c instanceof Segment) {
+                kind = SEGMENT;
+                Segment seg = (Segment) c;
+                Line2D line = seg.getLine();
+                x0 = line.getX1();
+                y0 = line.getY1();
+                x1 = line.getX2();
+                y1 = line.getY2();
+                r = seg.getWidth() / 2;
+            } else if (c instanceof Part) {
+                kind = PART;
+                Part part = (Part) c;
+                Rectangle2D ol = part.getOutline();
+                x0 = ol.getMinX();
+                y0 = ol.getMinY();
+                x1 = ol.getMaxX();
+                y1 = ol.getMaxY();
+                if (!part.isAligned()) {
+                    AffineTransform at = part.getTransform();
+                    frame = new double[]{at.getTranslateX(), at.getTranslateY(),
+                        part.getWidth() / 2, part.getHeight() / 2,
+                        at.getScaleX(), at.getShearY()};
+                }
+            } else {
+                kind = OTHER;
+                shape = c.getPaddedOutline(0);
+            }
+        }
+    }
+
+    private final double spacing; // The minimum allowed spacing.
+    private Item[] items; // Loaded components.
+
+    /**
+     * Constructor.
+     *
+     * @param spacing the minimum allowed spacing between components.
+     */
+    public DesignRuleChecker(double spacing) {
+        this.spacing = spacing;
+        items = new Item[0];
+    }
+
+    /**
+     * @return the minimum allowed spacing.
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Copies the geometry of the components to check. Must be called from
+     * the thread that owns the components, usually the event dispatch
+     * thread.
+     *
+     * @param parts the parts to check against each other.
+     * @param nets the nets whose copper to check against each other.
+     */
+    public void load(ArrayList<Part> parts, ArrayList<Net> nets) {
+        ArrayList<Item> loaded = new ArrayList<>();
+        for (Part part : parts) {
+            loaded.add(new Item(part, -1));
+        }
+        for (int i = 0; i < nets.size(); i++) {
+            for (Segment seg : nets.get(i).getSegments()) {
+                loaded.add(new Item(seg, i));
+            }
+            for (Pad pad : nets.get(i).getPads()) {
+                if (pad.getVisible()) {
+                    loaded.add(new Item(pad, i));
+                }
+            }
+        }
+        items = loaded.toArray(new Item[loaded.size()]);
+    }
+
+    /**
+     * Loads the components and checks them in the common fork join pool.
+     *
+     * @param parts the parts to check against each other.
+     * @param nets the nets whose copper to check against each other.
+     * @return the violations found.
+     */
+    public List<Violation> check(ArrayList<Part> parts, ArrayList<Net> nets) {
+        load(parts, nets);
+        return run(ForkJoinPool.commonPool(), null);
+    }
+
+    /**
+     * Checks the loaded components. Safe to call from any thread.
+     *
+     * @param pool the pool to run the narrow phase in.
+     * @param listener receives the progress, may be null.
+     * @return an unmodifiable list of the violations found.
+     */
+    public List<Violation> run(ForkJoinPool pool, ProgressListener listener) {
+        int[] pairs = broadPhase();
+        int total = pairs.length / 2;
+        if (listener != null) {
+            listener.progress(0, total);
+        }
+
+        ArrayList<Violation> violations = pool.invoke(
+                new NarrowPhase(pairs, 0, total, new AtomicInteger(), listener));
+        return Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * Sweeps the padded bounding boxes along the x axis.
+     *
+     * @return the indices of the candidate pairs, two per pair.
+     */
+    private int[] broadPhase() {
+        // Pad every box by half the spacing so that two boxes overlap
+        // whenever the components may be closer than the spacing.
+        final double pad = spacing / 2 + 1;
+        Integer[] order = new Integer[items.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(items[a].bounds.getMinX(), items[b].bounds.getMinX());
+            }
+        });
+
+        int[] pairs = new int[64];
+        int n = 0;
+        for (int i = 0; i < order.length; i++) {
+            Item a = items[order[i]];
+            double maxX = a.bounds.getMaxX() + 2 * pad;
+            for (int j = i + 1; j < order.length && items[order[j]].bounds.getMinX() <= maxX; j++) {
+                Item b = items[order[j]];
+                if (b.bounds.getMinY() > a.bounds.getMaxY() + 2 * pad
+                        || b.bounds.getMaxY() < a.bounds.getMinY() - 2 * pad
+                        || !isChecked(a, b)) {
+                    continue;
+                }
+
+                if (n + 2 > pairs.length) {
+                    pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+                }
+                pairs[n++] = order[i];
+                pairs[n++] = order[j];
+            }
+        }
+        return Arrays.copyOf(pairs, n);
+    }
+
+    /**
+     * Checks a range of candidate pairs, splitting it when it is too large.
+     */
+    private final class NarrowPhase extends RecursiveTask<ArrayList<Violation>> {
+
+        private final int[] pairs;
+        private final int lo, hi; // Range of pairs to check.
+        private final AtomicInteger done; // Pairs checked by all tasks.
+        private final ProgressListener listener;
+
+        NarrowPhase(int[] pairs, int lo, int hi, AtomicInteger done, ProgressListener listener) {
+            this.pairs = pairs;
+            this.lo = lo;
+            this.hi = hi;
+            this.done = done;
+            this.listener = listener;
+        }
+
+        @Override
+        protected ArrayList<Violation> compute() {
+            if (hi - lo > BATCH_SIZE) {
+                int mid = (lo + hi) >>> 1;
+                NarrowPhase left = new NarrowPhase(pairs, lo, mid, done, listener);
+                NarrowPhase right = new NarrowPhase(pairs, mid, hi, done, listener);
+                right.fork();
+
+                // Keep the order of the candidates in the result.
+                ArrayList<Violation> result = left.compute();
+                result.addAll(right.join());
+                return result;
+            }
+
+            ArrayList<Violation> result = new ArrayList<>();
+            for (int i = lo; i < hi; i++) {
+                Item a = items[pairs[2 * i]];
+                Item b = items[pairs[2 * i + 1]];
+                double clearance = clearance(a, b);
+                if (clearance < spacing) {
+                    result.add(new Violation(a.c, b.c,
+                            a.bounds.createUnion(b.bounds), clearance));
+                }
+            }
+
+            int d = done.addAndGet(hi - lo);
+            if (listener != null) {
+                listener.progress(d, pairs.length / 2);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Checks a single pair of components against each other.
+     *
+     * @param a first component.
+     * @param b second component.
+     * @return the violation, or null if the spacing is kept or the pair is
+     * not subject to the design rules.
+     */
+    Violation check(Component a, Component b) {
+        if (!isChecked(a, b)) {
+            return null;
+        }
+
+        Item ia = new Item(a, -1);
+        Item ib = new Item(b, -1);
+        double clearance = clearance(ia, ib);
+        if (clearance < spacing) {
+            return new Violation(a, b, ia.bounds.createUnion(ib.bounds), clearance);
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a pair of components is subject to the design rules. Parts
+     * are checked against parts and visible pads and segments against those
+     * of other nets.
+     *
+     * @param a first component.
+     * @param b second component.
+     * @return true if the spacing between a and b is to be checked.
+     */
+    static boolean isChecked(Component a, Component b) {
+        if (a instanceof Part || b instanceof Part) {
+            return a instanceof Part && b instanceof Part;
+        }
+
+        Net na = netOf(a);
+        Net nb = netOf(b);
+        return na != null && nb != null && na != nb;
+    }
+
+    /**
+     * Gets the net of a pad or segment.
+     *
+     * @return the net or null if c is not checked as copper.
+     */
+    private static Net netOf(Component c) {
+        if (c instanceof Pad) {
+            return ((Pad) c).getVisible() ? ((Pad) c).getNet() : null;
+        } else if (c instanceof Segment) {
+            return ((Segment) c).getNet();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a pair of loaded components is subject to the design rules.
+     */
+    private static boolean isChecked(Item a, Item b) {
+        if (a.net < 0 || b.net < 0) {
+            return a.net < 0 && b.net < 0;
+        }
+        return a.net != b.net;
+    }
+
+    /**
+     * Measures the clearance between two components.
+     *
+     * @param a first component.
+     * @param b second component.
+     * @return the clearance, 0 if a and b overlap.
+     */
+    private double clearance(Item a, Item b) {
+        // Order the pair so that only one of each mixed case is needed.
+        if (a.kind > b.kind) {
+            Item tmp = a;
+            a = b;
+            b = tmp;
+        }
+
+        if (a.kind == PAD && b.kind == PAD) {
+            return Geometry.circleCircleClearance(a.x0, a.y0, a.r, b.x0, b.y0, b.r);
+        } else if (a.kind == PAD && b.kind == SEGMENT) {
+            return Geometry.circleCapsuleClearance(a.x0, a.y0, a.r,
+                    b.x0, b.y0, b.x1, b.y1, b.r);
+        } else if (a.kind == SEGMENT && b.kind == SEGMENT) {
+            return Geometry.capsuleCapsuleClearance(a.x0, a.y0, a.x1, a.y1, a.r,
+                    b.x0, b.y0, b.x1, b.y1, b.r);
+        } else if (a.kind == PART && b.kind == PART) {
+            // The outlines are lines of width 1, only the outlines count.
+            if (a.frame == null && b.frame == null) {
+                return Math.max(0, Geometry.rectOutlineDist(a.x0, a.y0, a.x1, a.y1,
+                        b.x0, b.y0, b.x1, b.y1) - 1);
+            }
+            double[] fa = frame(a);
+            double[] fb = frame(b);
+            return Math.max(0, Geometry.rectOutlineDist(
+                    fa[0], fa[1], fa[2], fa[3], fa[4], fa[5],
+                    fb[0], fb[1], fb[2], fb[3], fb[4], fb[5]) - 1);
+        }
+
+        // No exact distance, only tell if the spacing is kept.
+        Area A = new Area(shape(a, spacing));
+        A.intersect(new Area(shape(b, 0)));
+        return A.isEmpty() ? Double.POSITIVE_INFINITY : 0;
+    }
+
+    /**
+     * Gets the outline of a loaded part as a rotated rectangle.
+     */
+    private static double[] frame(Item it) {
+        if (it.frame != null) {
+            return it.frame;
+        }
+        return new double[]{(it.x0 + it.x1) / 2, (it.y0 + it.y1) / 2,
+            (it.x1 - it.x0) / 2, (it.y1 - it.y0) / 2, 1, 0};
+    }
+
+    /**
+     * Gets the outline of a loaded component grown by padding.
+     */
+    private static Shape shape(Item it, double padding) {
+        switch (it.kind) {
+            case PAD:
+                return Geometry.circleOutline(it.x0, it.y0, it.r + padding);
+            case SEGMENT:
+                return Geometry.capsuleOutline(it.x0, it.y0, it.x1, it.y1, it.r + padding);
+            case PART:
+                if (it.frame != null) {
+                    double[] f = it.frame;
+                    AffineTransform at = new AffineTransform(f[4], f[5], -f[5], f[4], f[0], f[1]);
+                    return at.createTransformedShape(Geometry.frameOutline(
+                            new Rectangle2D.Double(-f[2], -f[3], 2 * f[2], 2 * f[3]),
+                            padding + 0.5));
+                }
+                return Geometry.frameOutline(new Rectangle2D.Double(it.x0, it.y0,
+                        it.x1 - it.x0, it.y1 - it.y0), padding + 0.5);
+            default:
+                if (padding == 0) {
+                    return it.shape;
+                }
+
+                // The stroke is only the band around the outline, the
+                // component itself is inside it.
+                Area grown = new Area(it.shape);
+                grown.add(new Area(new BasicStroke((float) (padding * 2),
+                        BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND)
+                        .createStrokedShape(it.shape)));
+                return grown;
+        }
+    }
+}
@@ -0,0 +1,1013 @@
+package pcbEditor;
+
+import graph.ST;
+import graphPrimitives.Component;
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.swing.Timer;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+import pcbPrimitives.ThPad;
+
+/**
+ * An append-only journal of the edits of a project, so that a crash only
+ * loses the edits of the last fraction of a second.
+ *
+ * The journal records nets added and removed, parts placed, moved, rotated
+ * and removed, pads added to and removed from nets and segments added and
+ * removed. Records are collected on the event dispatch thread and committed
+ * in groups at most COMMIT_DELAY milliseconds after an edit, by a background
+ * thread that appends them to the journal file and forces it to disk. A
+ * moved part or pad is recorded once per commit, with its position at the
+ * time of the commit, so the cost of the journal follows the number of edits
+ * and not the size of the board.
+ *
+ * A journal continues the project file that names it. Pads, parts and nets
+ * are referred to by their number in the saved project and new ones get the
+ * next free numbers. A checkpoint saves the project naming a new journal and
+ * ends the current journal with a NEXT record, so if the save never finishes
+ * the new journal still follows from the old one. Opening a project replays
+ * the journals that follow it and saves the result in the background. A
+ * project without a journal is not written when it is opened, it gets its
+ * journal at the first edit or save.
+ *
+ * A journal file starts with the magic bytes "PCBJ", a version and the id of
+ * the journal, followed by commits. Every commit is the length of its
+ * records, the records and a CRC-32 of the records, and a commit that was
+ * cut short by a crash is ignored.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class EditJournal implements IndexListener, NetListener {
+
+    private static final int MAGIC = 0x5043424A; // "PCBJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 13; // Magic, version and id.
+
+    // Longest time in milliseconds between an edit and its commit.
+    private static final int COMMIT_DELAY = 250;
+
+    // Time to wait for pending commits when the application exits.
+    private static final long EXIT_TIMEOUT_SECONDS = 5;
+
+    // Record tags.
+    private static final int NET_ADDED = 1;
+    private static final int NET_REMOVED = 2;
+    private static final int PAD_CREATED = 3;
+    private static final int PART_ADDED = 4;
+    private static final int PART_REMOVED = 5;
+    private static final int PART_MOVED = 6;
+    private static final int PAD_ADDED = 7;
+    private static final int PAD_REMOVED = 8;
+    private static final int PAD_MOVED = 9;
+    private static final int SEGMENT_ADDED = 10;
+    private static final int SEGMENT_REMOVED = 11;
+    private static final int NEXT = 12;
+    private static final int PART_ROTATED = 13;
+
+    // Appends the commits of all journals in order.
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            (Runnable r) -> {
+                Thread t = new Thread(r, "Edit journal");
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                WRITER.submit(() -> {
+                }).get(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                // The commits that are not written are lost.
+            }
+        }));
+    }
+
+    private final DesignArea area; // The journaled design area.
+    private final File file; // The project file.
+    private final ProjectSaver saver; // Writes the checkpoints.
+    private ST<Pad, Integer> pads; // Number by pad.
+    private final ST<Part, Integer> parts; // Number by part.
+    private final ST<Net, Integer> nets; // Number by net.
+    private int nextPart, nextNet; // Next free numbers.
+    private final ST<Part, Boolean> movedParts; // Parts to record at the commit.
+    private final ST<Pad, Boolean> movedPads; // Pads to record at the commit.
+    private final Records records; // Records of the next commit.
+    private final Timer timer; // Commits the records.
+    private Log log; // The current journal, null before the first checkpoint.
+    private final ArrayList<File> retired; // Journals saved by a pending checkpoint.
+
+    /**
+     * Constructor. Starts recording the edits of a design area.
+     *
+     * @param area the design area.
+     * @param file the project file.
+     * @param saver writes the checkpoints.
+     * @param pads the numbers of the pads in the saved project.
+     * @param log the current journal, null if none.
+     */
+    private EditJournal(DesignArea area, File file, ProjectSaver saver,
+            ST<Pad, Integer> pads, Log log) {
+        this.area = area;
+        this.file = file;
+        this.saver = saver;
+        this.pads = pads;
+        this.log = log;
+        parts = new ST<>(true);
+        nets = new ST<>(true);
+        movedParts = new ST<>(true);
+        movedPads = new ST<>(true);
+        records = new Records();
+        retired = new ArrayList<>();
+        timer = new Timer(COMMIT_DELAY, e -> commit());
+        timer.setRepeats(false);
+        number();
+
+        area.setJournal(this);
+        for (Net net : area.getNets()) {
+            net.addNetListener(this);
+        }
+    }
+
+    /**
+     * Starts a journal for a project that has not been saved with one.
+     * Nothing is written until the first edit is committed, which makes
+     * the first checkpoint instead, or until checkpoint is called. Must be
+     * called on the event dispatch thread.
+     *
+     * @param area the design area of the project.
+     * @param file the project file.
+     * @param saver writes the checkpoints.
+     * @return the journal.
+     */
+    public static EditJournal create(DesignArea area, File file, ProjectSaver saver) {
+        return new EditJournal(area, file, saver, new ST<Pad, Integer>(true), null);
+    }
+
+    /**
+     * Opens a project and replays the journals that follow it. If any edits
+     * were replayed, the project is saved in the background. A project
+     * without a journal is started as by create. Must be called on the
+     * event dispatch thread.
+     *
+     * @param file the project file.
+     * @param saver writes the checkpoints.
+     * @return the journal, the design area is found with getDesignArea.
+     * @throws IOException if the project or a journal could not be read.
+     */
+    public static EditJournal open(File file, ProjectSaver saver) throws IOException {
+        return open(ProjectCodec.read(file), file, saver);
+    }
+
+    /**
+     * Replays the journals that follow a project that has been read. If any
+     * edits were replayed, the project is saved in the background. A
+     * project without a journal is started as by create, so opening it does
+     * not write it. Must be called on the event dispatch thread.
+     *
+     * @param area the design area of the project, read whole.
+     * @param file the project file.
+     * @param saver writes the checkpoints.
+     * @return the journal.
+     * @throws IOException if a journal could not be read.
+     */
+    public static EditJournal open(DesignArea area, File file, ProjectSaver saver)
+            throws IOException {
+        long id = area.getJournalId();
+        if (id == 0) {
+            return create(area, file, saver);
+        }
+
+        int replayed = 0;
+        ArrayList<File> chain = new ArrayList<>();
+        ProjectSnapshot base = snapshot(area);
+        Replay replay;
+        while (true) {
+            File journal = journalFile(file, id);
+            replay = new Replay(area, base);
+            if (!journal.exists()) {
+                break;
+            }
+            chain.add(journal);
+            long next = replay.run(Files.readAllBytes(journal.toPath()), id);
+            replayed += replay.records;
+            if (next == 0) {
+                break;
+            }
+            id = next;
+            area.setJournalId(id);
+            base = snapshot(area);
+        }
+
+        // Further edits are appended to the last journal.
+        Log log = new Log(journalFile(file, id));
+        final long valid = replay.valid;
+        final long logId = id;
+        WRITER.execute(() -> log.open(logId, valid));
+
+        EditJournal journal = new EditJournal(area, file, saver, base.padNumbers, log);
+        if (replayed > 0) {
+            chain.remove(log.file);
+            journal.retired.addAll(chain);
+            journal.checkpoint(null);
+        }
+        return journal;
+    }
+
+    /**
+     * Gets the journaled design area.
+     *
+     * @return the design area.
+     */
+    public DesignArea getDesignArea() {
+        return area;
+    }
+
+    /**
+     * Saves the project in the background and starts a new journal that
+     * follows the save. The journals before it are deleted when the save is
+     * written. Must be called on the event dispatch thread.
+     *
+     * @param listener notified when the project is saved, may be null.
+     * @return the pending save.
+     */
+    public Future<Void> checkpoint(final ProjectSaver.SaveListener listener) {
+        final long id = newId();
+        long previous = area.getJournalId();
+        area.setJournalId(id);
+        final ProjectSnapshot snapshot;
+        try {
+            snapshot = ProjectSnapshot.of(area);
+        } catch (IllegalArgumentException ex) {
+            area.setJournalId(previous);
+            return ProjectSaver.failed(file, new IOException(ex.getMessage(), ex),
+                    listener);
+        }
+
+        // End the current journal with a link to the new one.
+        if (log != null) {
+            records.tag(NEXT);
+            records.fixed(id);
+            commit();
+            final Log old = log;
+            WRITER.execute(old::close);
+            retired.add(old.file);
+        }
+        pads = snapshot.padNumbers;
+        number();
+        final Log next = new Log(journalFile(file, id));
+        WRITER.execute(() -> next.open(id, 0));
+        log = next;
+
+        final ArrayList<File> saved = new ArrayList<>(retired);
+        return saver.save(snapshot, file, new ProjectSaver.SaveListener() {
+            @Override
+            public void saved(File f) {
+                retired.removeAll(saved);
+                WRITER.execute(() -> {
+                    for (File journal : saved) {
+                        journal.delete();
+                    }
+                });
+                if (listener != null) {
+                    listener.saved(f);
+                }
+            }
+
+            @Override
+            public void failed(File f, IOException ex) {
+                if (listener != null) {
+                    listener.failed(f, ex);
+                } else {
+                    Logger.getLogger(EditJournal.class.getName()).log(Level.WARNING,
+                            "Checkpoint of " + f + " failed", ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Commits the recorded edits and stops recording. The journal is kept
+     * and replayed when the project is opened again.
+     */
+    public void close() {
+        commit();
+        detach();
+        if (log != null) {
+            WRITER.execute(log::close);
+            log = null;
+        }
+    }
+
+    /**
+     * Stops recording and deletes the edits made since the last checkpoint.
+     */
+    public void discard() {
+        records.reset();
+        movedParts.clear();
+        movedPads.clear();
+        detach();
+        if (log != null) {
+            final Log discarded = log;
+            WRITER.execute(() -> {
+                discarded.close();
+                discarded.file.delete();
+            });
+            log = null;
+        }
+    }
+
+    /**
+     * Waits until all commits have been written.
+     *
+     * @param timeout the longest time to wait.
+     * @param unit the unit of timeout.
+     * @return true if all commits are written, false if the time ran out.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            WRITER.submit(() -> {
+            }).get(timeout, unit);
+            return true;
+        } catch (ExecutionException ex) {
+            return true; // The marker does nothing.
+        } catch (TimeoutException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the journal file that follows a project.
+     *
+     * @param project the project file.
+     * @param id the id of the journal.
+     * @return the journal file.
+     */
+    static File journalFile(File project, long id) {
+        return new File(project.getAbsoluteFile().getParentFile(),
+                project.getName() + "." + Long.toHexString(id) + ".journal");
+    }
+
+    /**
+     * Called when a net is added to the design area.
+     *
+     * @param net the added net.
+     */
+    void netAdded(Net net) {
+        int n = nextNet++;
+        nets.add(net, n);
+        records.tag(NET_ADDED);
+        records.varint(n);
+        records.string(net.getName());
+        for (Pad pad : net.getPads()) {
+            padAdded(net, pad);
+        }
+        for (Segment seg : net.getSegments()) {
+            segmentAdded(net, seg);
+        }
+        net.addNetListener(this);
+        schedule();
+    }
+
+    /**
+     * Called when a net is removed from the design area.
+     *
+     * @param net the removed net.
+     */
+    void netRemoved(Net net) {
+        Integer n = nets.get(net);
+        net.removeNetListener(this);
+        if (n != null) {
+            records.tag(NET_REMOVED);
+            records.varint(n);
+            schedule();
+        }
+    }
+
+    @Override
+    public void componentAdded(Component c, Rectangle2D bounds) {
+        if (!(c instanceof Part) || parts.contains((Part) c)) {
+            return;
+        }
+
+        Part part = (Part) c;
+        ArrayList<Pad> fpPads = part.getFootprint().getPads();
+        int[] numbers = new int[fpPads.size()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = pad(fpPads.get(i));
+        }
+        int n = nextPart++;
+        parts.add(part, n);
+        Point2D.Double center = part.getFootprint().getP();
+        Rectangle2D ol = part.getOutline();
+        records.tag(PART_ADDED);
+        records.varint(n);
+        records.string(part.getId());
+        records.string(part.getName());
+        records.number(center.x);
+        records.number(center.y);
+        records.number(ol.getWidth());
+        records.number(ol.getHeight());
+        records.varint(numbers.length);
+        for (int number : numbers) {
+            records.varint(number);
+        }
+        schedule();
+    }
+
+    @Override
+    public void componentChanged(Component c) {
+        if (c instanceof Pad && pads.contains((Pad) c)) {
+            movedPads.add((Pad) c, true);
+            schedule();
+        } else if (c instanceof Part && parts.contains((Part) c)) {
+            movedParts.add((Part) c, true);
+            schedule();
+        }
+    }
+
+    @Override
+    public void componentMoved(Component c, Rectangle2D oldBounds, Rectangle2D newBounds) {
+        // Moves are recorded when they are committed.
+    }
+
+    @Override
+    public void componentRemoved(Component c, Rectangle2D bounds) {
+        if (!(c instanceof Part)) {
+            return;
+        }
+
+        Integer n = parts.get((Part) c);
+        if (n != null) {
+            movedParts.remove((Part) c);
+            records.tag(PART_REMOVED);
+            records.varint(n);
+            schedule();
+        }
+    }
+
+    @Override
+    public void padAdded(Net net, Pad pad) {
+        Integer n = nets.get(net);
+        if (n == null) {
+            return;
+        }
+
+        int p = pad(pad);
+        records.tag(PAD_ADDED);
+        records.varint(n);
+        records.varint(p);
+        schedule();
+    }
+
+    @Override
+    public void padRemoved(Net net, Pad pad) {
+        Integer n = nets.get(net);
+        Integer p = pads.get(pad);
+        if (n == null || p == null) {
+            return;
+        }
+
+        records.tag(PAD_REMOVED);
+        records.varint(n);
+        records.varint(p);
+        schedule();
+    }
+
+    @Override
+    public void segmentAdded(Net net, Segment seg) {
+        Integer n = nets.get(net);
+        if (n == null) {
+            return;
+        }
+
+        int p0 = pad((Pad) seg.getP0());
+        int p1 = pad((Pad) seg.getP1());
+        records.tag(SEGMENT_ADDED);
+        records.varint(n);
+        records.varint(p0);
+        records.varint(p1);
+        records.number(seg.getWidth());
+        records.fixed(seg.getColor().getRGB());
+        schedule();
+    }
+
+    @Override
+    public void segmentRemoved(Net net, Segment seg) {
+        Integer n = nets.get(net);
+        Integer p0 = pads.get((Pad) seg.getP0());
+        Integer p1 = pads.get((Pad) seg.getP1());
+        if (n == null || p0 == null || p1 == null) {
+            return;
+        }
+
+        records.tag(SEGMENT_REMOVED);
+        records.varint(n);
+        records.varint(p0);
+        records.varint(p1);
+        schedule();
+    }
+
+    /**
+     * Records the moved parts and pads and hands the records to the writer.
+     */
+    void commit() {
+        timer.stop();
+        for (Part part : movedParts.getKeys()) {
+            Point2D.Double center = part.getFootprint().getP();
+            Rectangle2D ol = part.getOutline();
+            records.tag(PART_MOVED);
+            records.varint(parts.get(part));
+            records.number(center.x);
+            records.number(center.y);
+            records.number(ol.getWidth());
+            records.number(ol.getHeight());
+            records.tag(PART_ROTATED);
+            records.varint(parts.get(part));
+            records.number(part.getAngle());
+            records.number(part.getWidth());
+            records.number(part.getHeight());
+        }
+        movedParts.clear();
+        for (Pad pad : movedPads.getKeys()) {
+            ThPad p = (ThPad) pad;
+            records.tag(PAD_MOVED);
+            records.varint(pads.get(pad));
+            records.number(p.getCenterX());
+            records.number(p.getCenterY());
+        }
+        movedPads.clear();
+
+        if (records.size() == 0) {
+            return;
+        }
+        if (log == null) {
+            // The first edit of a project without a journal. The checkpoint
+            // saves the project with the edit in it and starts the journal.
+            records.reset();
+            checkpoint(null);
+            return;
+        }
+        final byte[] commit = records.commit();
+        final Log target = log;
+        WRITER.execute(() -> target.append(commit));
+    }
+
+    /**
+     * Starts the timer of the next commit unless it is already running.
+     */
+    private void schedule() {
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Numbers the parts and nets in the order of the design area.
+     */
+    private void number() {
+        parts.clear();
+        nets.clear();
+        for (Part part : area.getParts()) {
+            parts.add(part, parts.size());
+        }
+        for (Net net : area.getNets()) {
+            nets.add(net, nets.size());
+        }
+        nextPart = parts.size();
+        nextNet = nets.size();
+    }
+
+    /**
+     * Gets the number of a pad, recording the pad first if it is new.
+     */
+    private int pad(Pad pad) {
+        Integer n = pads.get(pad);
+        if (n != null) {
+            return n;
+        }
+
+        ThPad p = (ThPad) pad;
+        n = pads.size();
+        pads.add(pad, n);
+        records.tag(PAD_CREATED);
+        records.varint(n);
+        records.number(p.getCenterX());
+        records.number(p.getCenterY());
+        records.number(p.getRingDiam());
+        records.number(p.getHoleDiam());
+        records.fixed(p.getColor().getRGB());
+        records.varint(p.getVisible() ? 1 : 0);
+        records.string(p.getName());
+        return n;
+    }
+
+    /**
+     * Stops listening to the design area.
+     */
+    private void detach() {
+        timer.stop();
+        area.setJournal(null);
+        for (Net net : area.getNets()) {
+            net.removeNetListener(this);
+        }
+    }
+
+    /**
+     * Gets a new journal id, never 0.
+     */
+    private static long newId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Takes a snapshot of a replayed design area for its pad numbers.
+     */
+    private static ProjectSnapshot snapshot(DesignArea area) throws IOException {
+        try {
+            return ProjectSnapshot.of(area);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * A journal file, opened, written and closed on the writer thread. A
+     * journal that fails to write stops writing.
+     */
+    private static final class Log {
+
+        final File file;
+        private FileChannel channel; // Null when closed or failed.
+
+        Log(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Opens the journal, keeping the first valid bytes or writing a new
+         * header if there are none.
+         */
+        void open(long id, long valid) {
+            try {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                channel.truncate(valid);
+                channel.position(valid);
+                if (valid == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).put((byte) VERSION).putLong(id).flip();
+                    write(header);
+                }
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        /**
+         * Appends one commit and forces it to disk.
+         */
+        void append(byte[] commit) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                write(ByteBuffer.wrap(commit));
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                Logger.getLogger(EditJournal.class.getName()).log(Level.WARNING, null, ex);
+            }
+            channel = null;
+        }
+
+        private void write(ByteBuffer b) throws IOException {
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+            channel.force(false);
+        }
+
+        private void fail(IOException ex) {
+            Logger.getLogger(EditJournal.class.getName()).log(Level.SEVERE,
+                    "Edits are no longer journaled to " + file, ex);
+            close();
+        }
+    }
+
+    /**
+     * The records of one commit. A byte array stream that can not fail.
+     */
+    private static final class Records extends ByteArrayOutputStream {
+
+        void tag(int tag) {
+            write(tag);
+        }
+
+        /**
+         * Writes a non negative number in 7 bit groups, the lowest group
+         * first.
+         */
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        void fixed(int v) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                write(v >>> shift);
+            }
+        }
+
+        void fixed(long v) {
+            fixed((int) (v >>> 32));
+            fixed((int) v);
+        }
+
+        void number(double d) {
+            fixed(Double.doubleToLongBits(d));
+        }
+
+        /**
+         * Writes the length of a string plus one, 0 for null, and its UTF-8
+         * bytes.
+         */
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            varint(b.length + 1);
+            write(b, 0, b.length);
+        }
+
+        /**
+         * Gets the records framed as a commit and starts a new one.
+         */
+        byte[] commit() {
+            CRC32 crc = new CRC32();
+            crc.update(buf, 0, count);
+            ByteBuffer b = ByteBuffer.allocate(count + 8);
+            b.putInt(count).put(buf, 0, count).putInt((int) crc.getValue());
+            reset();
+            return b.array();
+        }
+    }
+
+    /**
+     * Replays one journal onto a design area.
+     */
+    private static final class Replay {
+
+        private final DesignArea area;
+        private final ArrayList<Pad> pads; // Pad by number.
+        private final ArrayList<Part> parts; // Part by number.
+        private final ArrayList<Net> nets; // Net by number.
+        int records; // Number of replayed records.
+        long valid; // Length of the journal up to the last whole commit.
+
+        Replay(DesignArea area, ProjectSnapshot base) {
+            this.area = area;
+            pads = new ArrayList<>(base.padNumbers.getKeys());
+            parts = new ArrayList<>(area.getParts());
+            nets = new ArrayList<>(area.getNets());
+        }
+
+        /**
+         * Replays the whole commits of a journal.
+         *
+         * @return the id of the next journal, 0 if none.
+         */
+        long run(byte[] journal, long id) throws IOException {
+            if (journal.length < HEADER_SIZE) {
+                return 0; // Cut short before the header was written.
+            }
+            ByteBuffer in = ByteBuffer.wrap(journal);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not an edit journal");
+            }
+            if (in.get() > VERSION) {
+                throw new IOException("Unsupported journal version");
+            }
+            if (in.getLong() != id) {
+                throw new IOException("Journal of another project");
+            }
+            valid = in.position();
+
+            long next = 0;
+            while (in.remaining() >= 8) {
+                int length = in.getInt();
+                if (length < 0 || in.remaining() < length + 4) {
+                    break;
+                }
+                int start = in.position();
+                CRC32 crc = new CRC32();
+                crc.update(journal, start, length);
+                if ((int) crc.getValue() != in.getInt(start + length)) {
+                    break;
+                }
+
+                ByteBuffer commit = ByteBuffer.wrap(journal, start, length);
+                try {
+                    while (commit.hasRemaining()) {
+                        long n = record(commit);
+                        if (n != 0) {
+                            next = n;
+                        }
+                        records++;
+                    }
+                } catch (RuntimeException ex) {
+                    throw new IOException("Malformed journal record", ex);
+                }
+                in.position(start + length + 4);
+                valid = in.position();
+            }
+            return next;
+        }
+
+        /**
+         * Replays one record.
+         *
+         * @return the id of the next journal for a NEXT record, else 0.
+         */
+        private long record(ByteBuffer in) throws IOException {
+            int tag = in.get();
+            switch (tag) {
+                case NET_ADDED: {
+                    int n = varint(in);
+                    Net net = new Net(string(in));
+                    add(nets, n, net);
+                    area.addNet(net);
+                    break;
+                }
+                case NET_REMOVED:
+                    area.removeNet(get(nets, varint(in)));
+                    break;
+                case PAD_CREATED: {
+                    int n = varint(in);
+                    Point2D.Double p = new Point2D.Double(in.getDouble(), in.getDouble());
+                    double ring = in.getDouble();
+                    double hole = in.getDouble();
+                    Color color = new Color(in.getInt(), true);
+                    Pad pad = new ThPad(p, ring, hole, color, varint(in) != 0);
+                    pad.setName(string(in));
+                    add(pads, n, pad);
+                    break;
+                }
+                case PART_ADDED: {
+                    int n = varint(in);
+                    String id = string(in);
+                    String name = string(in);
+                    Point2D.Double c = new Point2D.Double(in.getDouble(), in.getDouble());
+                    double width = in.getDouble();
+                    double height = in.getDouble();
+                    Pad[] fpPads = new Pad[varint(in)];
+                    for (int i = 0; i < fpPads.length; i++) {
+                        fpPads[i] = get(pads, varint(in));
+                    }
+                    Part part = new Part(id, name, new Footprint(c, fpPads), width, height);
+                    add(parts, n, part);
+                    area.addPart(part);
+                    break;
+                }
+                case PART_REMOVED:
+                    area.removePart(get(parts, varint(in)));
+                    break;
+                case PART_MOVED: {
+                    Part part = get(parts, varint(in));
+                    Point2D.Double c = part.getFootprint().getP();
+                    part.translate(new Point2D.Double(in.getDouble() - c.x,
+                            in.getDouble() - c.y));
+                    double width = in.getDouble();
+                    in.getDouble(); // The height follows from the width.
+                    Rectangle2D ol = part.getOutline();
+                    if (width != ol.getWidth() && width == ol.getHeight()) {
+                        part.rot90(true); // The pads are moved by their own records.
+                    }
+                    break;
+                }
+                case PART_ROTATED: {
+                    Part part = get(parts, varint(in));
+                    double angle = in.getDouble();
+                    double width = in.getDouble();
+                    part.setRotation(angle, width, in.getDouble());
+                    break;
+                }
+                case PAD_ADDED: {
+                    Net net = get(nets, varint(in));
+                    net.addPad(get(pads, varint(in)));
+                    break;
+                }
+                case PAD_REMOVED: {
+                    Net net = get(nets, varint(in));
+                    net.removePad(get(pads, varint(in)));
+                    break;
+                }
+                case PAD_MOVED: {
+                    Pad pad = get(pads, varint(in));
+                    pad.setP(new Point2D.Double(in.getDouble(), in.getDouble()));
+                    break;
+                }
+                case SEGMENT_ADDED: {
+                    Net net = get(nets, varint(in));
+                    Pad p0 = get(pads, varint(in));
+                    Pad p1 = get(pads, varint(in));
+                    double width = in.getDouble();
+                    net.addSegment(p0, p1, width, new Color(in.getInt(), true));
+                    break;
+                }
+                case SEGMENT_REMOVED: {
+                    Net net = get(nets, varint(in));
+                    Pad p0 = get(pads, varint(in));
+                    net.removeSegment(p0, get(pads, varint(in)));
+                    break;
+                }
+                case NEXT:
+                    return in.getLong();
+                default:
+                    throw new IOException("Unknown journal record " + tag);
+            }
+            return 0;
+        }
+
+        private static <T> T get(ArrayList<T> list, int n) throws IOException {
+            if (n >= list.size()) {
+                throw new IOException("Bad journal number " + n);
+            }
+            return list.get(n);
+        }
+
+        private static <T> void add(ArrayList<T> list, int n, T item) throws IOException {
+            if (n != list.size()) {
+                throw new IOException("Bad journal number " + n);
+            }
+            list.add(item);
+        }
+
+        private static int varint(ByteBuffer in) throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.get() & 0xFF;
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (v > Integer.MAX_VALUE) {
+                        break;
+                    }
+                    return (int) v;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private static String string(ByteBuffer in) throws IOException {
+            int length = varint(in);
+            if (length == 0) {
+                return null;
+            }
+            byte[] b = new byte[length - 1];
+            in.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -5,8 +5,11 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.Stroke;
+import java.awt.TexturePaint;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.Serializable;
 
 /**
@@ -17,11 +20,28 @@ import java.io.Serializable;
  */
 public class Grid implements Serializable {
 
+    /**
+     * World units per millimetre. One unit is one pixel when the design area
+     * is not zoomed.
+     */
+    public static final double UNITS_PER_MM = 50;
+
+    // Grid markers closer than this many pixels on screen are not drawn.
+    private static final double MIN_MARKER_SPACING = 6;
+
+    // Smallest side of the grid texture in pixels.
+    private static final double MIN_TEXTURE_SIZE = 64;
+
+    private static final Stroke ORIGIN_STROKE = new BasicStroke(1f,
+            BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
     private final int width, height; // The width and height of this grid.
     private final double spacing; // The distance between grid lines.
     private final Color background, lineColor; // Colors of the grid.
     private final Point2D.Double o; // Origin relative to parent.
-    private transient Stroke defStroke;
+    private transient TexturePaint texture; // Background with markers, may be null.
+    private transient double textureScale; // Scale the texture was rendered for.
+    private transient Line2D[] origin; // Lines of the origin marker.
 
     /**
      * Constructor.
@@ -45,35 +65,138 @@ public class Grid implements Serializable {
     }
 
     public void paint(Graphics2D g, Rectangle view) {
-        g.setBackground(background);
+        paint(g, view, 1);
+    }
 
-        // Clear background
-        g.clearRect(view.x, view.y, view.width, view.height);
+    /**
+     * Gets the distance between the grid markers.
+     *
+     * @return the spacing in millimetres.
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Gets the background color.
+     *
+     * @return the color.
+     */
+    public Color getBackground() {
+        return background;
+    }
 
-        // Get the lower left corner of the view with regards to the discrete
-        // gridpoints. 
-        Point2D.Double wp = getClosestGP(view.x, view.y + view.height);
-        wp = p2g(wp);
+    /**
+     * Gets the color of the grid markers.
+     *
+     * @return the color.
+     */
+    public Color getLineColor() {
+        return lineColor;
+    }
 
-        // draw grid line markers
-        g.setColor(lineColor);
-        for (double x = wp.x; x < (wp.x + view.width); x += (spacing * 50.0)) {
-            for (double y = wp.y; y < (wp.y + view.height); y += (spacing * 50.0)) {
-                g.draw(new Line2D.Double(g2p(x - 2, y), g2p(x + 2, y)));
-                g.draw(new Line2D.Double(g2p(x, y - 2), g2p(x, y + 2)));
-            }
+    /**
+     * Gets the width of this grid in world units.
+     *
+     * @return the width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of this grid in world units.
+     *
+     * @return the height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Paints the part of the grid inside view. The grid markers are left
+     * out when they would be too close to each other on screen. Several
+     * threads may paint the same grid at once.
+     *
+     * @param g the graphics to paint on, in world units.
+     * @param view the area to paint in world units.
+     * @param scale the number of pixels per world unit.
+     */
+    public void paint(Graphics2D g, Rectangle view, double scale) {
+        if (spacing * UNITS_PER_MM * scale >= MIN_MARKER_SPACING) {
+            // Background and markers in one go.
+            g.setPaint(getTexture(scale));
+            g.fill(view);
+        } else {
+            g.setBackground(background);
+            g.clearRect(view.x, view.y, view.width, view.height);
         }
 
         // Draw origin
-        defStroke = g.getStroke();
-        BasicStroke stroke = new BasicStroke(1f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-        g.setStroke(stroke);
+        Line2D[] origin = getOrigin();
+        Stroke defStroke = g.getStroke();
+        g.setStroke(ORIGIN_STROKE);
         g.setColor(Color.WHITE);
-        g.draw(new Line2D.Double(g2p(-5, 0), g2p(5, 0)));
-        g.draw(new Line2D.Double(g2p(0, -5), g2p(0, 5)));
+        g.draw(origin[0]);
+        g.draw(origin[1]);
         g.setStroke(defStroke);
     }
 
+    /**
+     * Gets the lines of the origin marker.
+     */
+    private synchronized Line2D[] getOrigin() {
+        if (origin == null) {
+            origin = new Line2D[]{
+                new Line2D.Double(g2p(-5, 0), g2p(5, 0)),
+                new Line2D.Double(g2p(0, -5), g2p(0, 5))
+            };
+        }
+        return origin;
+    }
+
+    /**
+     * Gets the texture that paints the background and the markers, rendered
+     * for the specified scale. The texture is only rendered again when the
+     * scale changes.
+     */
+    private synchronized TexturePaint getTexture(double scale) {
+        if (texture != null && textureScale == scale) {
+            return texture;
+        }
+
+        // A texture of whole pixels that holds a whole number of cells.
+        double step = spacing * UNITS_PER_MM;
+        int cells = (int) Math.ceil(MIN_TEXTURE_SIZE / (step * scale));
+        double size = cells * step;
+        int px = (int) Math.round(size * scale);
+
+        BufferedImage img = new BufferedImage(px, px, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.scale(px / size, px / size);
+        g.setColor(background);
+        g.fill(new Rectangle2D.Double(0, 0, size, size));
+
+        // The markers sit in the middle of the cells, so none is cut by the
+        // edge of the texture.
+        g.setColor(lineColor);
+        for (int i = 0; i < cells; i++) {
+            for (int j = 0; j < cells; j++) {
+                double x = (i + 0.5) * step;
+                double y = (j + 0.5) * step;
+                g.draw(new Line2D.Double(x - 2, y, x + 2, y));
+                g.draw(new Line2D.Double(x, y - 2, x, y + 2));
+            }
+        }
+        g.dispose();
+
+        // Align a marker with the origin.
+        texture = new TexturePaint(img, new Rectangle2D.Double(
+                o.x - step / 2, o.y - step / 2, size, size));
+        textureScale = scale;
+        return texture;
+    }
+
     /**
      * Returns the closest grid point to p. Returns a point on the parent that
      * corresponds to the grid point closest to p.
@@ -85,8 +208,8 @@ public class Grid implements Serializable {
     public Point2D.Double getClosestGP(Point2D.Double p) {
         Point2D.Double pg = p2g(p);
 
-        int x = (int) (Math.round(pg.x / (spacing * 50)) * 50 * spacing);
-        int y = (int) (Math.round(pg.y / (spacing * 50)) * 50 * spacing);
+        int x = (int) (Math.round(pg.x / (spacing * UNITS_PER_MM)) * UNITS_PER_MM * spacing);
+        int y = (int) (Math.round(pg.y / (spacing * UNITS_PER_MM)) * UNITS_PER_MM * spacing);
 
         return g2p(x, y);
     }
@@ -102,8 +225,8 @@ public class Grid implements Serializable {
     public Point2D.Double getClosestGP(double x, double y) {
         Point2D.Double pg = p2g(x, y);
 
-        int nx = (int) (Math.round(pg.x / (spacing * 50)) * 50 * spacing);
-        int ny = (int) (Math.round(pg.y / (spacing * 50)) * 50 * spacing);
+        int nx = (int) (Math.round(pg.x / (spacing * UNITS_PER_MM)) * UNITS_PER_MM * spacing);
+        int ny = (int) (Math.round(pg.y / (spacing * UNITS_PER_MM)) * UNITS_PER_MM * spacing);
 
         return g2p(nx, ny);
     }
@@ -136,7 +259,7 @@ public class Grid implements Serializable {
      * @return corresponding point in grid coordinate system.
      */
     public Point2D.Double p2gC(Point2D.Double p) {
-        return new Point2D.Double((p.x - o.x) / 50.0, (o.y - p.y) / 50.0);
+        return new Point2D.Double((p.x - o.x) / UNITS_PER_MM, (o.y - p.y) / UNITS_PER_MM);
     }
 
     /**
@@ -0,0 +1,233 @@
+package pcbEditor;
+
+import graph.ST;
+import graphPrimitives.Component;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the design rule violations of a design area up to date while it is
+ * being edited.
+ *
+ * The checker listens to the spatial index of the design area. Every added or
+ * changed component is marked as dirty, and before the violations are read
+ * the dirty components are checked again against the components found near
+ * them in the index. Moving one part therefore only costs a few index
+ * lookups instead of a check of the whole board.
+ *
+ * @author Albin Hjalmas.
+ */
+public class IncrementalDrc implements IndexListener {
+
+    private final SpatialIndex index; // Index of the checked design area.
+    private DesignRuleChecker checker; // Measures the pairs.
+    private final ST<Component, ArrayList<Violation>> violations; // Per component.
+    private final ST<Component, Boolean> dirty; // Components to check again.
+    private final ST<Component, Boolean> done; // Components checked in this flush.
+    private int count; // Number of violations.
+    private Rectangle2D changed; // Regions of violations found or fixed, may be null.
+
+    /**
+     * Constructor. Checks all components in the index.
+     *
+     * @param index the index of the design area to check.
+     * @param spacing the minimum allowed spacing between components.
+     */
+    public IncrementalDrc(SpatialIndex index, double spacing) {
+        this.index = index;
+        checker = new DesignRuleChecker(spacing);
+        violations = new ST<>(true);
+        dirty = new ST<>(true);
+        done = new ST<>(true);
+        count = 0;
+
+        for (Component c : index.getComponents()) {
+            dirty.add(c, Boolean.TRUE);
+        }
+        index.addIndexListener(this);
+    }
+
+    /**
+     * Stops following the index.
+     */
+    public void dispose() {
+        index.removeIndexListener(this);
+    }
+
+    /**
+     * Sets the minimum allowed spacing and checks all components again.
+     *
+     * @param spacing the new spacing.
+     */
+    public void setSpacing(double spacing) {
+        if (spacing == checker.getSpacing()) {
+            return;
+        }
+
+        checker = new DesignRuleChecker(spacing);
+        violations.clear();
+        count = 0;
+        for (Component c : index.getComponents()) {
+            dirty.add(c, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Gets the current violations.
+     *
+     * @return an unmodifiable list of the violations.
+     */
+    public List<Violation> getViolations() {
+        flush();
+        ArrayList<Violation> result = new ArrayList<>(count);
+        for (Component c : violations.getKeys()) {
+            for (Violation v : violations.get(c)) {
+                if (v.getA() == c) { // Every violation is stored at both ends.
+                    result.add(v);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets the number of current violations.
+     *
+     * @return the number of violations.
+     */
+    public int getViolationCount() {
+        flush();
+        return count;
+    }
+
+    /**
+     * Checks if a component currently violates the design rules.
+     *
+     * @param c the component.
+     * @return true if c is too close to another component else false.
+     */
+    public boolean isViolating(Component c) {
+        flush();
+        return violations.contains(c);
+    }
+
+    /**
+     * Gets the area covered by the violations that were found or fixed since
+     * the last call, and starts collecting a new area.
+     *
+     * @return the changed area, null if no violation has changed.
+     */
+    public Rectangle2D takeChangedRegion() {
+        flush();
+        Rectangle2D r = changed;
+        changed = null;
+        return r;
+    }
+
+    @Override
+    public void componentAdded(Component c, Rectangle2D bounds) {
+        dirty.add(c, Boolean.TRUE);
+    }
+
+    @Override
+    public void componentChanged(Component c) {
+        dirty.add(c, Boolean.TRUE);
+    }
+
+    @Override
+    public void componentMoved(Component c, Rectangle2D oldBounds, Rectangle2D newBounds) {
+    }
+
+    @Override
+    public void componentRemoved(Component c, Rectangle2D bounds) {
+        dirty.remove(c);
+        clear(c);
+    }
+
+    /**
+     * Checks all dirty components again.
+     */
+    private void flush() {
+        if (dirty.size() == 0) {
+            return;
+        }
+
+        ArrayList<Component> changed = new ArrayList<>(dirty.getKeys());
+        dirty.clear();
+
+        // Drop all old violations first, so a pair where both ends changed
+        // is only found once.
+        for (Component c : changed) {
+            clear(c);
+        }
+
+        // Parts are outlined by lines of width 1.
+        double padding = checker.getSpacing() + 1;
+        for (Component c : changed) {
+            for (Component other : index.query(c.getPaddedBounds(padding))) {
+                // Pairs with an already checked component are known.
+                if (other == c || done.contains(other)) {
+                    continue;
+                }
+
+                Violation v = checker.check(c, other);
+                if (v != null) {
+                    store(c, v);
+                    store(other, v);
+                    addChanged(v);
+                    count++;
+                }
+            }
+            done.add(c, Boolean.TRUE);
+        }
+        done.clear();
+    }
+
+    /**
+     * Removes all violations that involve c.
+     */
+    private void clear(Component c) {
+        ArrayList<Violation> list = violations.remove(c);
+        if (list == null) {
+            return;
+        }
+
+        for (Violation v : list) {
+            Component other = v.getA() == c ? v.getB() : v.getA();
+            ArrayList<Violation> otherList = violations.get(other);
+            if (otherList != null) {
+                otherList.remove(v);
+                if (otherList.isEmpty()) {
+                    violations.remove(other);
+                }
+            }
+            addChanged(v);
+            count--;
+        }
+    }
+
+    /**
+     * Adds the region of a found or fixed violation to the changed area.
+     */
+    private void addChanged(Violation v) {
+        if (changed == null) {
+            changed = v.getRegion();
+        } else {
+            changed.add(v.getRegion());
+        }
+    }
+
+    /**
+     * Stores a violation at one of its components.
+     */
+    private void store(Component c, Violation v) {
+        ArrayList<Violation> list = violations.get(c);
+        if (list == null) {
+            list = new ArrayList<>();
+            violations.add(c, list);
+        }
+        list.add(v);
+    }
+}
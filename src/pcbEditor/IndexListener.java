@@ -0,0 +1,18 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * An interface to enable classes to be notified when components are added
+ * to, changed in or removed from a SpatialIndex. componentChanged is called
+ * as soon as a component changes, componentMoved when the index catches up
+ * with the change and knows the new bounds.
+ * @author Albin Hjalmas.
+ */
+public interface IndexListener {
+    public void componentAdded(Component c, Rectangle2D bounds);
+    public void componentChanged(Component c);
+    public void componentMoved(Component c, Rectangle2D oldBounds, Rectangle2D newBounds);
+    public void componentRemoved(Component c, Rectangle2D bounds);
+}
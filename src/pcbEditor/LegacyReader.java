@@ -0,0 +1,286 @@
+package pcbEditor;
+
+import graph.ST;
+import java.awt.Color;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.ArrayList;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ * Reads projects saved by the first version of the editor, which wrote its
+ * DesignArea with Java serialization.
+ *
+ * The classes of that version have changed since, so the stream cannot be
+ * read back into them. Every class of the old model is instead read into a
+ * stand-in class below, with the same serialized fields and the
+ * serialVersionUID that the old class had, and the board is built from
+ * their field values. The Swing state of the old design area is read and
+ * dropped.
+ *
+ * @author Albin Hjalmas.
+ */
+final class LegacyReader {
+
+    // Stand-ins by the name of the class they stand in for.
+    private static final ST<String, Class<?>> STAND_INS = new ST<>();
+
+    static {
+        STAND_INS.add("pcbEditor.DesignArea", OldArea.class);
+        STAND_INS.add("pcbEditor.Grid", OldGrid.class);
+        STAND_INS.add("pcbEditor.Net", OldNet.class);
+        STAND_INS.add("pcbPart.Part", OldPart.class);
+        STAND_INS.add("pcbPart.Footprint", OldFootprint.class);
+        STAND_INS.add("graphPrimitives.Vertex", OldVertex.class);
+        STAND_INS.add("pcbPrimitives.Pad", OldPad.class);
+        STAND_INS.add("pcbPrimitives.ThPad", OldThPad.class);
+        STAND_INS.add("pcbPrimitives.Segment", OldSegment.class);
+        STAND_INS.add("graph.Graph", OldGraph.class);
+        STAND_INS.add("graph.ST", OldST.class);
+    }
+
+    private final ST<OldThPad, Pad> pads = new ST<>(); // Pads read so far.
+
+    private LegacyReader() {
+    }
+
+    /**
+     * Reads the board of a serialized design area.
+     *
+     * @param in the stream to read.
+     * @return the board.
+     * @throws IOException if the stream could not be read or is not a
+     * project of the first version.
+     */
+    static Board read(InputStream in) throws IOException {
+        try {
+            Object area = new Input(in).readObject();
+            if (!(area instanceof OldArea)) {
+                throw new IOException("Not a PCB project");
+            }
+            return new LegacyReader().board((OldArea) area);
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Not a PCB project", ex);
+        }
+    }
+
+    /**
+     * Builds the board of an old design area.
+     */
+    private Board board(OldArea area) throws IOException {
+        OldGrid g = area.grid;
+        Grid grid = new Grid(g.spacing, g.background, g.lineColor, g.width, g.height);
+
+        ArrayList<Part> parts = new ArrayList<>(area.parts.size());
+        for (Object o : area.parts) {
+            parts.add(part((OldPart) o));
+        }
+
+        ArrayList<Net> nets = new ArrayList<>(area.nets.size());
+        for (Object o : area.nets) {
+            nets.add(net((OldNet) o));
+        }
+
+        Board board = new Board(area.projName, grid, parts, nets);
+        board.setDefaults(area.traceWidth, area.ringDiam, area.holeDiam, area.compSpacing);
+        return board;
+    }
+
+    private Part part(OldPart old) {
+        ArrayList<?> oldPads = old.fp.pads;
+        Pad[] fpPads = new Pad[oldPads.size()];
+        for (int i = 0; i < fpPads.length; i++) {
+            fpPads[i] = pad((OldThPad) oldPads.get(i));
+        }
+        Point2D.Double c = old.fp.center;
+        Part part = new Part(old.partId, old.name,
+                new Footprint(new Point2D.Double(c.x, c.y), fpPads), old.width, old.height);
+
+        // The old rot90 only swapped the sides of the outline, so a part
+        // with swapped sides was turned a quarter, either way.
+        if (old.width != old.height && old.ol.width == old.height
+                && old.ol.height == old.width) {
+            part.setRotation(Math.PI / 2, old.width, old.height);
+        }
+        return part;
+    }
+
+    private Net net(OldNet old) throws IOException {
+        Net net = new Net(old.name);
+        for (Object o : old.graph.adj.keys) {
+            net.addPad(pad((OldThPad) o));
+        }
+        for (Object o : old.segs) {
+            OldSegment seg = (OldSegment) o;
+            if (!net.addSegment(pad((OldThPad) seg.p0), pad((OldThPad) seg.p1),
+                    seg.width, seg.color)) {
+                throw new IOException("Segment between pads of other nets");
+            }
+        }
+        return net;
+    }
+
+    /**
+     * Gets the pad made for an old pad, making it the first time.
+     */
+    private Pad pad(OldThPad old) {
+        Pad pad = pads.get(old);
+        if (pad == null) {
+            // Moving a pad only moved its circles, p is where it was made.
+            Ellipse2D.Double ring = old.ring;
+            pad = new ThPad(new Point2D.Double(ring.x + ring.width / 2, ring.y + ring.width / 2),
+                    ring.width, old.hole.width, old.color, old.visible);
+            pad.setName(old.name);
+            pads.add(old, pad);
+        }
+        return pad;
+    }
+
+    /**
+     * Reads the classes of the old model into their stand-ins.
+     */
+    private static final class Input extends ObjectInputStream {
+
+        Input(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor()
+                throws IOException, ClassNotFoundException {
+            ObjectStreamClass desc = super.readClassDescriptor();
+            Class<?> standIn = STAND_INS.get(desc.getName());
+            if (standIn == null) {
+                return desc;
+            }
+
+            // The stand-in is only laid out like the first version.
+            ObjectStreamClass local = ObjectStreamClass.lookup(standIn);
+            if (desc.getSerialVersionUID() != local.getSerialVersionUID()) {
+                throw new InvalidClassException(desc.getName(),
+                        "Not saved by the first version");
+            }
+            return local;
+        }
+    }
+
+    // The stand-ins. Every serialized field of the old classes must be
+    // here, with the same name and, for primitive fields, the same type.
+
+    private static final class OldArea implements Serializable {
+
+        private static final long serialVersionUID = 520230119688539458L;
+
+        private double compSpacing, holeDiam, ringDiam, traceWidth;
+        private boolean ctrlPressed, isPadAttached;
+        private int cursorState;
+        private Object currPad, currPart, prevPad, moveOrigin;
+        private Object selectedPads, selectedParts, selectedSegments;
+        private OldGrid grid;
+        private ArrayList<?> nets, parts;
+        private String projName;
+    }
+
+    private static final class OldGrid implements Serializable {
+
+        private static final long serialVersionUID = 586755642953588089L;
+
+        private int width, height;
+        private double spacing;
+        private Color background, lineColor;
+        private Object o;
+    }
+
+    private static final class OldNet implements Serializable {
+
+        private static final long serialVersionUID = -2326783012320512567L;
+
+        private boolean selected;
+        private OldGraph graph;
+        private String name;
+        private ArrayList<?> segs;
+    }
+
+    private static final class OldGraph implements Serializable {
+
+        private static final long serialVersionUID = -9130456616571894195L;
+
+        private int edges;
+        private OldST adj;
+    }
+
+    private static final class OldST implements Serializable {
+
+        private static final long serialVersionUID = -7126982465552477564L;
+
+        private ArrayList<?> keys, vals;
+    }
+
+    private static final class OldPart implements Serializable {
+
+        private static final long serialVersionUID = 6801546058461939807L;
+
+        private double width, height;
+        private boolean selected;
+        private Object actionListeners, s;
+        private OldFootprint fp;
+        private String name, partId;
+        private Rectangle2D.Double ol;
+    }
+
+    private static final class OldFootprint implements Serializable {
+
+        private static final long serialVersionUID = -1604789975532060856L;
+
+        private boolean selected;
+        private Point2D.Double center;
+        private ArrayList<?> pads;
+    }
+
+    private static class OldVertex implements Serializable {
+
+        private static final long serialVersionUID = -2681407777411460583L;
+
+        private boolean selectionState;
+        private Object listeners;
+    }
+
+    private static class OldPad extends OldVertex {
+
+        private static final long serialVersionUID = 7928958705527673807L;
+
+        String name; // Read through OldThPad.
+        private Object part;
+    }
+
+    private static final class OldThPad extends OldPad {
+
+        private static final long serialVersionUID = 643287500858924265L;
+
+        private boolean visible;
+        private Color color;
+        private Ellipse2D.Double ring, hole;
+        private Object net;
+        private Point2D.Double p;
+    }
+
+    private static final class OldSegment implements Serializable {
+
+        private static final long serialVersionUID = -5607132442828799132L;
+
+        private boolean selectionState;
+        private double width;
+        private Color color;
+        private Object line, net, p0, p1;
+    }
+}
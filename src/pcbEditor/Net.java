@@ -7,7 +7,9 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -19,6 +21,11 @@ public final class Net implements graphPrimitives.Component {
     private ArrayList<Segment> segs; // Copper trace segments.
     private String name;
     private boolean selected; // The selection state of this net.
+    private transient ArrayList<NetListener> netListeners; // Observers of this net.
+    private transient UF<Pad> islands; // Connectivity index, null when stale.
+    private transient DFO<Pad> translator; // Reused traversal for translate.
+    private transient Point2D.Double translateDelta; // Delta of the current translate.
+    private transient ArrayList<SegmentBatch> batches; // Segments to draw, null when stale.
 
     /**
      * Constructor.
@@ -66,6 +73,30 @@ public final class Net implements graphPrimitives.Component {
         this.name = name;
     }
 
+    /**
+     * Add a NetListener. A NetListener is notified when pads or segments are
+     * added to or removed from this net.
+     *
+     * @param l the listener to add.
+     */
+    public void addNetListener(NetListener l) {
+        if (netListeners == null) {
+            netListeners = new ArrayList<>();
+        }
+
+        netListeners.add(l);
+    }
+
+    /**
+     * Removes one NetListener from this net.
+     *
+     * @param l the listener to remove.
+     * @return true if successful else false.
+     */
+    public boolean removeNetListener(NetListener l) {
+        return netListeners != null && netListeners.remove(l);
+    }
+
     /**
      * Add a trace segment between to pads.
      *
@@ -82,6 +113,7 @@ public final class Net implements graphPrimitives.Component {
 
         if (p0Net == null) {
             p0.setNet(this);
+            p0Net = this;
         }
 
         if (p1Net == null) {
@@ -94,33 +126,34 @@ public final class Net implements graphPrimitives.Component {
             return false;
         }
 
-        // Graph contains p0 but not p1.
-        if (graph.containsV(p0) && !graph.containsV(p1)) {
-            graph.addV(p1);
-
-            // Graph contains p1 but not p0.    
-        } else if (graph.containsV(p1) && !graph.containsV(p0)) {
-            graph.addV(p1);
-
-            // Graph contains neither p1 nor p0. 
-        } else if (!graph.containsV(p0) && !graph.containsV(p1)) {
-            graph.addV(p1);
-            graph.addV(p0);
-        }
+        // Add the pads that are not yet in the graph.
+        graph.addV(p0);
+        graph.addV(p1);
 
         // Add edge between p0 and p1.
         graph.addE(p0, p1);
+        if (islands != null) {
+            islands.add(p0, p0.getVisible());
+            islands.add(p1, p1.getVisible());
+            islands.union(p0, p1);
+        }
 
         // Add segment between p0 and p1.
+        // The segment listens for changes in p0 and p1 by itself.
         Segment seg = new Segment(p0, p1, width, color);
         seg.setNet(this);
 
-        // Let segment listen for changes in p0 and p1
-        p0.addListener(seg);
-        p1.addListener(seg);
-
         // Add segment to this net.
         segs.add(seg);
+        batches = null;
+
+        if (netListeners != null) {
+            for (NetListener l : netListeners) {
+                l.padAdded(this, p0);
+                l.padAdded(this, p1);
+                l.segmentAdded(this, seg);
+            }
+        }
 
         return true;
     }
@@ -133,15 +166,23 @@ public final class Net implements graphPrimitives.Component {
      * @return true if successful else false.
      */
     public boolean removeSegment(Pad p0, Pad p1) {
+        Segment seg = findSegment(p0, p1);
+        return seg != null && removeSegment(seg, null);
+    }
+
+    /**
+     * Finds the segment between two pads.
+     *
+     * @return the segment, or null if there is none.
+     */
+    private Segment findSegment(Pad p0, Pad p1) {
         for (Segment seg : segs) {
             if (seg.getP0().equals(p0) && seg.getP1().equals(p1)
                     || seg.getP0().equals(p1) && seg.getP1().equals(p0)) {
-                removeSegment(seg);
-                return true;
+                return seg;
             }
         }
-
-        return false;
+        return null;
     }
 
     /**
@@ -151,7 +192,19 @@ public final class Net implements graphPrimitives.Component {
      * @return true if successful else false.
      */
     public boolean removeSegment(Segment seg) {
+        return removeSegment(seg, null);
+    }
 
+    /**
+     * Removes a segment. Invisible ends that are left unconnected are
+     * removed too, except the pad that removePad is removing, which it
+     * removes and notifies about itself.
+     *
+     * @param seg the segment to remove.
+     * @param removing the pad being removed by removePad, or null.
+     * @return true if successful else false.
+     */
+    private boolean removeSegment(Segment seg, Pad removing) {
         Pad p0 = (Pad) seg.getP0();
         Pad p1 = (Pad) seg.getP1();
 
@@ -163,17 +216,27 @@ public final class Net implements graphPrimitives.Component {
         p0.removeListener(seg);
         p1.removeListener(seg);
 
+        segs.remove(seg);
+        batches = null;
+        islands = null; // Rebuilt on the next connectivity query.
+        if (netListeners != null) {
+            for (NetListener l : netListeners) {
+                l.segmentRemoved(this, seg);
+            }
+        }
+
         // Check if p0 is invisible pad and not connected to anything
-        if (!p0.getVisible() && graph.getAdj(p0).isEmpty()) {
+        if (p0 != removing && !p0.getVisible() && graph.degree(p0) == 0) {
             graph.removeV(p0);
+            firePadRemoved(p0);
         }
 
-        // Check if p0 is invisible pad and not connected to anything
-        if (!p1.getVisible() && graph.getAdj(p1).isEmpty()) {
+        // Check if p1 is invisible pad and not connected to anything
+        if (p1 != removing && p1 != p0 && !p1.getVisible() && graph.degree(p1) == 0) {
             graph.removeV(p1);
+            firePadRemoved(p1);
         }
 
-        segs.remove(seg);
         return true;
     }
 
@@ -185,6 +248,28 @@ public final class Net implements graphPrimitives.Component {
     public ArrayList<Segment> getSegments() {
         return segs;
     }
+
+    /**
+     * Called by a segment of this net when it has moved or changed width or
+     * color.
+     *
+     * @param seg the changed segment.
+     */
+    public void segmentChanged(Segment seg) {
+        batches = null;
+    }
+
+    /**
+     * Gets the segments of this net grouped by width and color.
+     *
+     * @return the batches, rebuilt after the segments have changed.
+     */
+    public ArrayList<SegmentBatch> getBatches() {
+        if (batches == null) {
+            batches = SegmentBatch.build(segs);
+        }
+        return batches;
+    }
     
     /**
      * Adds a pad to this net.
@@ -194,6 +279,15 @@ public final class Net implements graphPrimitives.Component {
     public void addPad(Pad pad) {
         pad.setNet(this);
         graph.addV(pad);
+        if (islands != null) {
+            islands.add(pad, pad.getVisible());
+        }
+
+        if (netListeners != null) {
+            for (NetListener l : netListeners) {
+                l.padAdded(this, pad);
+            }
+        }
     }
 
     /**
@@ -209,19 +303,100 @@ public final class Net implements graphPrimitives.Component {
 
         ArrayList<Pad> adj = (ArrayList) graph.getAdj(pad).clone();
         for (Pad cPad : adj) {
-            removeSegment(pad, cPad);
+            Segment seg = findSegment(pad, cPad);
+            if (seg != null) {
+                removeSegment(seg, pad);
+            }
         }
         graph.removeV(pad);
         pad.setNet(null);
+        islands = null; // Rebuilt on the next connectivity query.
+        firePadRemoved(pad);
         return true;
     }
 
+    /**
+     * Notifies all NetListeners that a pad has been removed.
+     *
+     * @param pad the removed pad.
+     */
+    private void firePadRemoved(Pad pad) {
+        if (netListeners != null) {
+            for (NetListener l : netListeners) {
+                l.padRemoved(this, pad);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of unrouted islands in this net. An island is a group of
+     * visible pads that are joined by segments. A fully routed net has at
+     * most one island.
+     *
+     * @return the number of islands.
+     */
+    public int getIslandCount() {
+        return connectivity().islands();
+    }
+
+    /**
+     * Checks if all visible pads of this net are joined by segments.
+     *
+     * @return true if this net is fully routed else false.
+     */
+    public boolean isFullyRouted() {
+        return connectivity().islands() <= 1;
+    }
+
+    /**
+     * Gets the island that the specified pad belongs to. Two pads belong to
+     * the same island if they have the same island number. Island numbers
+     * are only valid until this net is modified.
+     *
+     * @param pad the pad.
+     * @return the island number or -1 if the pad is not in this net.
+     */
+    public int getIsland(Pad pad) {
+        return connectivity().find(pad);
+    }
+
+    /**
+     * Checks if two pads are joined by segments.
+     *
+     * @param p0 first pad.
+     * @param p1 second pad.
+     * @return true if both pads are in this net and connected else false.
+     */
+    public boolean isConnected(Pad p0, Pad p1) {
+        return connectivity().connected(p0, p1);
+    }
+
+    /**
+     * Returns the connectivity index of this net. The index is kept up to
+     * date while pads and segments are added and rebuilt from the segments
+     * after a removal.
+     *
+     * @return the connectivity index.
+     */
+    private UF<Pad> connectivity() {
+        if (islands == null) {
+            islands = new UF<>();
+            for (Pad pad : graph.getVertices()) {
+                islands.add(pad, pad.getVisible());
+            }
+            for (Segment seg : segs) {
+                islands.union((Pad) seg.getP0(), (Pad) seg.getP1());
+            }
+        }
+        return islands;
+    }
+
     /**
      * Returns all the pads connected to this net.
      *
      * @return pads connected to this net.
      */
-    public ArrayList<Pad> getPads() {
+    public List<Pad> getPads() {
         return graph.getVertices();
     }
 
@@ -238,8 +413,8 @@ public final class Net implements graphPrimitives.Component {
     @Override
     public void draw(Graphics2D g) {
         // Draw segments first
-        for (Segment seg : segs) {
-            seg.draw(g);
+        for (SegmentBatch batch : getBatches()) {
+            batch.draw(g);
         }
 
         // Draw all pads that are visible
@@ -253,8 +428,8 @@ public final class Net implements graphPrimitives.Component {
     @Override
     public void drawSelected(Graphics2D g) {
         // Draw segments first
-        for (Segment seg : segs) {
-            seg.drawSelected(g);
+        for (SegmentBatch batch : getBatches()) {
+            batch.drawSelected(g);
         }
 
         // Draw all pads that are visible
@@ -269,13 +444,17 @@ public final class Net implements graphPrimitives.Component {
     public void translate(Point2D.Double delta) {
         // Translate pads
         // Will also translate segments due to observer pattern.
-        new DFO<Pad>(graph) {
-            @Override
-            public void operation(Pad pad) {
-                pad.translate(delta);
-            }
+        if (translator == null) {
+            translator = new DFO<Pad>(graph) {
+                @Override
+                public void operation(Pad pad) {
+                    pad.translate(translateDelta);
+                }
+            };
+        }
 
-        }.run();
+        translateDelta = delta;
+        translator.run();
     }
 
     @Override
@@ -336,6 +515,28 @@ public final class Net implements graphPrimitives.Component {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    @Override
+    public Rectangle2D getPaddedBounds(double padding) {
+        Rectangle2D bounds = null;
+        for (Segment seg : segs) {
+            if (bounds == null) {
+                bounds = seg.getPaddedBounds(padding);
+            } else {
+                bounds.add(seg.getPaddedBounds(padding));
+            }
+        }
+
+        for (Pad pad : graph.getVertices()) {
+            if (bounds == null) {
+                bounds = pad.getPaddedBounds(padding);
+            } else {
+                bounds.add(pad.getPaddedBounds(padding));
+            }
+        }
+
+        return bounds == null ? new Rectangle2D.Double() : bounds;
+    }
+
     @Override
     public Point2D.Double getP() {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
@@ -0,0 +1,16 @@
+package pcbEditor;
+
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+
+/**
+ * An interface to enable classes to be notified when pads or segments
+ * are added to or removed from a Net.
+ * @author Albin Hjalmas.
+ */
+public interface NetListener {
+    public void padAdded(Net net, Pad pad);
+    public void padRemoved(Net net, Pad pad);
+    public void segmentAdded(Net net, Segment seg);
+    public void segmentRemoved(Net net, Segment seg);
+}
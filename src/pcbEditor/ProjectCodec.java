@@ -0,0 +1,1176 @@
+package pcbEditor;
+
+import graph.ST;
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ * Reads and writes projects in the binary .pcb format.
+ *
+ * A file starts with the magic bytes "PCB" 0x1A and a version number,
+ * followed by sections. Every section is a tag byte, the length of its
+ * content and the content, and the file ends with an empty END section.
+ * Readers skip sections they do not know. Strings and colors are stored
+ * once in tables at the front and referred to by index, and every index and
+ * count is a varint. Coordinates and sizes are stored as varints in
+ * hundredths of a world unit, coordinates as the difference to the previous
+ * one in the same section. Values that are not a whole number of hundredths
+ * are stored as plain doubles instead, so nothing is rounded. A pad stores
+ * its color and whether it is visible in one varint, and a segment stores
+ * its second pad as the difference to the first.
+ *
+ * Parts are stored with the bounds of their outline. The rotated parts are
+ * listed again in a ROTATIONS section with their angle and the size of
+ * their outline before rotation, which older readers skip.
+ *
+ * A project that is being edited with an EditJournal names the journal
+ * that continues it in a JOURNAL section.
+ *
+ * The INDEX section at the end lets the ProjectLoader read the records in
+ * view without reading the rest. Apart from the lists of the tiles it is
+ * stored with fixed size ints and longs, so every entry can be addressed
+ * directly. It holds restart points into the record sections, the offset
+ * of a record and the coordinates that the next record is a difference to,
+ * at every 16th pad, part and segment and at every net. Then follows a
+ * grid of tiles over the board: a directory with the offset of every tile,
+ * row by row, and the lists of the parts and segments touching each tile.
+ *
+ * Projects saved by the first version as serialized DesignAreas are still
+ * read, see LegacyReader, and are written in the binary format when they
+ * are saved again.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class ProjectCodec {
+
+    /**
+     * The version written by this codec.
+     */
+    public static final int VERSION = 1;
+
+    static final int MAGIC = 0x5043421A; // "PCB" and ^Z.
+    static final int LEGACY_MAGIC = 0xACED; // Java serialization.
+
+    // Section tags, in the order they are written.
+    static final int END = 0;
+    static final int STRINGS = 1;
+    static final int COLORS = 2;
+    static final int PROJECT = 3;
+    static final int PADS = 4;
+    static final int PARTS = 5;
+    static final int NETS = 6;
+    static final int SEGMENTS = 7;
+    static final int JOURNAL = 8;
+    static final int ROTATIONS = 10;
+    static final int INDEX = 11; // 9 was an index without a directory.
+
+    // Records between two restart points of the index, for the pads and
+    // for the parts and segments. Every net record is a restart point.
+    static final int PAD_RESTART = 16;
+    static final int RECORD_RESTART = 16;
+
+    // Side of the tiles of the index in world units, at least 25.4 mm and
+    // at most MAX_TILES tiles along a side of the board.
+    private static final int MIN_TILE = 1270;
+    private static final int MAX_TILES = 64;
+
+    // Pad flags, stored below the index of the color of the pad.
+    private static final int PAD_VISIBLE = 1;
+
+    // Coordinates are stored in hundredths of a world unit, up to this size.
+    private static final double COORD_SCALE = 100;
+    private static final long MAX_COORD = 1L << 52;
+
+    // Axis of a coordinate, sizes are not stored as differences.
+    static final int X = 0;
+    static final int Y = 1;
+    static final int SIZE = -1;
+
+    private ProjectCodec() {
+    }
+
+    /**
+     * Reads a project, either in the binary format or in the old serialized
+     * format.
+     *
+     * @param file the file to read.
+     * @return the design area of the project.
+     * @throws IOException if the file could not be read or is not a
+     * project.
+     */
+    public static DesignArea read(File file) throws IOException {
+        return new DesignArea(readBoard(file));
+    }
+
+    /**
+     * Reads the board of a project without creating a design area, either
+     * in the binary format or in the old serialized format.
+     *
+     * @param file the file to read.
+     * @return the board of the project.
+     * @throws IOException if the file could not be read or is not a
+     * project.
+     */
+    public static Board readBoard(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return readBoard(in);
+        }
+    }
+
+    /**
+     * Reads a project, either in the binary format or in the old serialized
+     * format.
+     *
+     * @param in the stream to read, must support mark.
+     * @return the design area of the project.
+     * @throws IOException if the stream could not be read or is not a
+     * project.
+     */
+    public static DesignArea read(InputStream in) throws IOException {
+        return new DesignArea(readBoard(in));
+    }
+
+    /**
+     * Reads the board of a project without creating a design area, either
+     * in the binary format or in the old serialized format.
+     *
+     * @param in the stream to read, must support mark.
+     * @return the board of the project.
+     * @throws IOException if the stream could not be read or is not a
+     * project.
+     */
+    public static Board readBoard(InputStream in) throws IOException {
+        in.mark(2);
+        int magic = (in.read() << 8) | in.read();
+        in.reset();
+        if (magic == LEGACY_MAGIC) {
+            return LegacyReader.read(in);
+        }
+
+        DataInputStream din = new DataInputStream(in);
+        if (din.readInt() != MAGIC) {
+            throw new IOException("Not a PCB project");
+        }
+        int version = readVarint(din);
+        if (version > VERSION) {
+            throw new IOException("Unsupported project version " + version);
+        }
+        return new Reader().read(din);
+    }
+
+    /**
+     * Writes a project in the binary format.
+     *
+     * @param area the design area of the project.
+     * @param file the file to write.
+     * @throws IOException if the file could not be written.
+     */
+    public static void write(DesignArea area, File file) throws IOException {
+        write(area.getBoard(), file);
+    }
+
+    /**
+     * Writes the board of a project in the binary format.
+     *
+     * @param board the board of the project.
+     * @param file the file to write.
+     * @throws IOException if the file could not be written.
+     */
+    public static void write(Board board, File file) throws IOException {
+        write(snapshot(board), file);
+    }
+
+    /**
+     * Writes a project in the binary format.
+     *
+     * @param area the design area of the project.
+     * @param out the stream to write to.
+     * @throws IOException if the stream could not be written.
+     */
+    public static void write(DesignArea area, OutputStream out) throws IOException {
+        write(area.getBoard(), out);
+    }
+
+    /**
+     * Writes the board of a project in the binary format.
+     *
+     * @param board the board of the project.
+     * @param out the stream to write to.
+     * @throws IOException if the stream could not be written.
+     */
+    public static void write(Board board, OutputStream out) throws IOException {
+        write(snapshot(board), out);
+    }
+
+    /**
+     * Writes a snapshot of a project in the binary format. The snapshot is
+     * first written to a temporary file next to the file, which then
+     * replaces the file, so the file is never left half written.
+     *
+     * @param snapshot the snapshot of the project.
+     * @param file the file to write.
+     * @throws IOException if the file could not be written.
+     */
+    public static void write(ProjectSnapshot snapshot, File file) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(),
+                target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(tmp), 1 << 16)) {
+                write(snapshot, out);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writes a snapshot of a project in the binary format.
+     *
+     * @param snapshot the snapshot of the project.
+     * @param out the stream to write to.
+     * @throws IOException if the stream could not be written.
+     */
+    public static void write(ProjectSnapshot snapshot, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        writeVarint(dout, VERSION);
+        new Writer().write(snapshot, dout);
+        dout.flush();
+    }
+
+    /**
+     * Checks if a file is in the old serialized format.
+     *
+     * @param file the file to check.
+     * @return true if the file has to be migrated.
+     * @throws IOException if the file could not be read.
+     */
+    public static boolean isLegacy(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return ((in.read() << 8) | in.read()) == LEGACY_MAGIC;
+        }
+    }
+
+    /**
+     * Rewrites a file in the old serialized format in the binary format.
+     *
+     * @param file the file to migrate.
+     * @return true if the file was migrated, false if it already was in the
+     * binary format.
+     * @throws IOException if the file could not be read or written.
+     */
+    public static boolean migrate(File file) throws IOException {
+        if (!isLegacy(file)) {
+            return false;
+        }
+        write(read(file), file);
+        return true;
+    }
+
+    /**
+     * Takes a snapshot of a project to write.
+     */
+    private static ProjectSnapshot snapshot(Board board) throws IOException {
+        try {
+            return ProjectSnapshot.of(board);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Writes a non negative number in 7 bit groups, the lowest group first.
+     */
+    static void writeVarint(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    /**
+     * Reads a number written by writeVarint.
+     */
+    static long readVarlong(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads an index or a count written by writeVarint.
+     */
+    static int readVarint(DataInput in) throws IOException {
+        long v = readVarlong(in);
+        if (v > Integer.MAX_VALUE) {
+            throw new IOException("Malformed varint");
+        }
+        return (int) v;
+    }
+
+    /**
+     * Writes the sections of one project.
+     *
+     * All sections are encoded into one buffer, and written from it to the
+     * stream with their headers once the tables are known, so no section is
+     * copied on the way.
+     */
+    private static final class Writer {
+
+        private final ST<String, Integer> strings = new ST<>(); // Index by string.
+        private final ST<Integer, Integer> colors = new ST<>(); // Index by ARGB.
+        private final long[] last = new long[2]; // Previous coordinates of the section.
+        private final OutBuffer buf = new OutBuffer();
+        private final DataOutputStream out = new DataOutputStream(buf);
+
+        // Content of each section in buf, the number of records of the
+        // record sections and -1 for the others. Start is -1 for sections
+        // that are not written.
+        private final int[] start = new int[INDEX + 1];
+        private final int[] end = new int[INDEX + 1];
+        private final int[] count = new int[INDEX + 1];
+        private int mark; // End of the last section.
+
+        // Restart points of the record sections.
+        private final Restarts padRestarts = new Restarts(PAD_RESTART, true);
+        private final Restarts partRestarts = new Restarts(RECORD_RESTART, true);
+        private final Restarts netRestarts = new Restarts(1, false);
+        private final Restarts segRestarts = new Restarts(RECORD_RESTART, false);
+
+        Writer() {
+            Arrays.fill(start, -1);
+        }
+
+        void write(ProjectSnapshot snap, DataOutputStream dout) throws IOException {
+            // The tables are only known when the other sections are done.
+            project(snap);
+            pads(snap);
+            parts(snap);
+            nets(snap);
+            segments(snap);
+            rotations(snap);
+            if (snap.journalId != 0) {
+                out.writeLong(snap.journalId);
+                close(JOURNAL, -1);
+            }
+            index(snap);
+            for (String s : strings.getKeys()) {
+                out.writeUTF(s);
+            }
+            close(STRINGS, strings.size());
+            for (Integer argb : colors.getKeys()) {
+                out.writeInt(argb);
+            }
+            close(COLORS, colors.size());
+
+            for (int tag : new int[]{STRINGS, COLORS, PROJECT, PADS, PARTS, NETS,
+                SEGMENTS, ROTATIONS, JOURNAL, INDEX}) {
+                if (start[tag] >= 0) {
+                    int length = end[tag] - start[tag];
+                    writeVarint(dout, tag);
+                    if (count[tag] < 0) {
+                        writeVarint(dout, length);
+                    } else {
+                        writeVarint(dout, varintSize(count[tag]) + length);
+                        writeVarint(dout, count[tag]);
+                    }
+                    buf.writeTo(dout, start[tag], end[tag]);
+                }
+            }
+            writeVarint(dout, END);
+            writeVarint(dout, 0);
+        }
+
+        private void project(ProjectSnapshot snap) throws IOException {
+            string(snap.name);
+            out.writeInt(snap.width);
+            out.writeInt(snap.height);
+            out.writeDouble(snap.spacing);
+            color(snap.background);
+            color(snap.lineColor);
+            for (double d : snap.defaults) {
+                out.writeDouble(d);
+            }
+            close(PROJECT, -1);
+        }
+
+        private void pads(ProjectSnapshot snap) throws IOException {
+            for (int i = 0; i < snap.padX.length; i++) {
+                if (i % PAD_RESTART == 0) {
+                    padRestarts.add(offset(), last);
+                }
+                coord(snap.padX[i], X);
+                coord(snap.padY[i], Y);
+                coord(snap.padRing[i], SIZE);
+                coord(snap.padHole[i], SIZE);
+                buf.varint(colorIndex(snap.padColor[i]) << 1
+                        | (snap.padVisible[i] ? PAD_VISIBLE : 0));
+                string(snap.padName[i]);
+            }
+            close(PADS, snap.padX.length);
+        }
+
+        private void parts(ProjectSnapshot snap) throws IOException {
+            for (int i = 0; i < snap.partId.length; i++) {
+                if (i % RECORD_RESTART == 0) {
+                    partRestarts.add(offset(), last);
+                }
+                string(snap.partId[i]);
+                string(snap.partName[i]);
+                coord(snap.partX[i], X);
+                coord(snap.partY[i], Y);
+                coord(snap.partWidth[i], SIZE);
+                coord(snap.partHeight[i], SIZE);
+                indices(snap.partPads, snap.partStart[i], snap.partStart[i + 1]);
+            }
+            close(PARTS, snap.partId.length);
+        }
+
+        private void nets(ProjectSnapshot snap) {
+            for (int i = 0; i < snap.netName.length; i++) {
+                netRestarts.add(offset(), last);
+                string(snap.netName[i]);
+                indices(snap.netPads, snap.netStart[i], snap.netStart[i + 1]);
+            }
+            close(NETS, snap.netName.length);
+        }
+
+        private void segments(ProjectSnapshot snap) throws IOException {
+            for (int i = 0; i < snap.segNet.length; i++) {
+                if (i % RECORD_RESTART == 0) {
+                    segRestarts.add(offset(), last);
+                }
+                buf.varint(snap.segNet[i]);
+                buf.varint(snap.segP0[i]);
+                long d = snap.segP1[i] - snap.segP0[i];
+                buf.varint((d << 1) ^ (d >> 63));
+                coord(snap.segWidth[i], SIZE);
+                color(snap.segColor[i]);
+            }
+            close(SEGMENTS, snap.segNet.length);
+        }
+
+        private void rotations(ProjectSnapshot snap) throws IOException {
+            int n = 0;
+            for (int i = 0; i < snap.partAngle.length; i++) {
+                if (snap.partAngle[i] != 0) {
+                    buf.varint(i);
+                    out.writeDouble(snap.partAngle[i]);
+                    coord(snap.partBaseWidth[i], SIZE);
+                    coord(snap.partBaseHeight[i], SIZE);
+                    n++;
+                }
+            }
+            if (n > 0) {
+                close(ROTATIONS, n);
+            }
+        }
+
+        private void index(ProjectSnapshot snap) throws IOException {
+            int tile = Math.max(MIN_TILE,
+                    (Math.max(snap.width, snap.height) + MAX_TILES - 1) / MAX_TILES);
+            int cols = snap.width / tile + 1;
+            int rows = snap.height / tile + 1;
+
+            // Tiles touched by the parts, with their pads.
+            int n = snap.partId.length;
+            int[] partRange = new int[4 * n];
+            for (int i = 0; i < n; i++) {
+                double minX = snap.partX[i] - snap.partWidth[i] / 2;
+                double minY = snap.partY[i] - snap.partHeight[i] / 2;
+                double maxX = snap.partX[i] + snap.partWidth[i] / 2;
+                double maxY = snap.partY[i] + snap.partHeight[i] / 2;
+                for (int k = snap.partStart[i]; k < snap.partStart[i + 1]; k++) {
+                    int p = snap.partPads[k];
+                    double r = snap.padRing[p] / 2;
+                    minX = Math.min(minX, snap.padX[p] - r);
+                    minY = Math.min(minY, snap.padY[p] - r);
+                    maxX = Math.max(maxX, snap.padX[p] + r);
+                    maxY = Math.max(maxY, snap.padY[p] + r);
+                }
+                range(partRange, i, minX, minY, maxX, maxY, tile, cols, rows);
+            }
+
+            // Tiles touched by the segments.
+            int s = snap.segNet.length;
+            int[] segRange = new int[4 * s];
+            for (int i = 0; i < s; i++) {
+                int a = snap.segP0[i];
+                int b = snap.segP1[i];
+                double r = snap.segWidth[i] / 2;
+                range(segRange, i, Math.min(snap.padX[a], snap.padX[b]) - r,
+                        Math.min(snap.padY[a], snap.padY[b]) - r,
+                        Math.max(snap.padX[a], snap.padX[b]) + r,
+                        Math.max(snap.padY[a], snap.padY[b]) + r, tile, cols, rows);
+            }
+
+            int[] partStart = new int[cols * rows + 1];
+            int[] partTiles = bucket(partRange, n, cols, partStart);
+            int[] segStart = new int[cols * rows + 1];
+            int[] segTiles = bucket(segRange, s, cols, segStart);
+
+            out.writeInt(tile);
+            out.writeInt(cols);
+            out.writeInt(rows);
+            padRestarts.write(out);
+            partRestarts.write(out);
+            netRestarts.write(out);
+            segRestarts.write(out);
+
+            // The directory holds the offset of every tile in the lists and
+            // the end of the last one, so the tiles in view of a row are
+            // read in one piece.
+            int offset = 0;
+            for (int t = 0; t < cols * rows; t++) {
+                out.writeInt(offset);
+                offset += size(partTiles, partStart[t], partStart[t + 1])
+                        + size(segTiles, segStart[t], segStart[t + 1]);
+            }
+            out.writeInt(offset);
+            for (int t = 0; t < cols * rows; t++) {
+                numbers(partTiles, partStart[t], partStart[t + 1]);
+                numbers(segTiles, segStart[t], segStart[t + 1]);
+            }
+            close(INDEX, -1);
+        }
+
+        /**
+         * Stores the tiles covered by a bounding box as x0, y0, x1, y1 at
+         * range[4 * i].
+         */
+        private static void range(int[] range, int i, double minX, double minY,
+                double maxX, double maxY, int tile, int cols, int rows) {
+            range[4 * i] = clamp(minX / tile, cols);
+            range[4 * i + 1] = clamp(minY / tile, rows);
+            range[4 * i + 2] = clamp(maxX / tile, cols);
+            range[4 * i + 3] = clamp(maxY / tile, rows);
+        }
+
+        /**
+         * Gets the tile a coordinate in tiles falls in, the first or last one
+         * if it is outside the board.
+         */
+        private static int clamp(double v, int size) {
+            return v <= 0 ? 0 : v >= size - 1 ? size - 1 : (int) v;
+        }
+
+        /**
+         * Sorts the numbers 0 .. n - 1 into the tiles of their ranges. The
+         * numbers in tile t are result[start[t] .. start[t + 1]), in
+         * ascending order.
+         */
+        private static int[] bucket(int[] range, int n, int cols, int[] start) {
+            for (int i = 0; i < n; i++) {
+                for (int y = range[4 * i + 1]; y <= range[4 * i + 3]; y++) {
+                    for (int x = range[4 * i]; x <= range[4 * i + 2]; x++) {
+                        start[y * cols + x + 1]++;
+                    }
+                }
+            }
+            for (int t = 1; t < start.length; t++) {
+                start[t] += start[t - 1];
+            }
+            int[] result = new int[start[start.length - 1]];
+            int[] next = Arrays.copyOf(start, start.length - 1);
+            for (int i = 0; i < n; i++) {
+                for (int y = range[4 * i + 1]; y <= range[4 * i + 3]; y++) {
+                    for (int x = range[4 * i]; x <= range[4 * i + 2]; x++) {
+                        result[next[y * cols + x]++] = i;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Writes a count followed by the ascending numbers a[from .. to) as
+         * differences.
+         */
+        private void numbers(int[] a, int from, int to) {
+            buf.varint(to - from);
+            int prev = 0;
+            for (int i = from; i < to; i++) {
+                buf.varint(a[i] - prev);
+                prev = a[i];
+            }
+        }
+
+        /**
+         * Gets the number of bytes that numbers writes.
+         */
+        private static int size(int[] a, int from, int to) {
+            int size = varintSize(to - from);
+            int prev = 0;
+            for (int i = from; i < to; i++) {
+                size += varintSize(a[i] - prev);
+                prev = a[i];
+            }
+            return size;
+        }
+
+        /**
+         * Writes a count followed by the indices a[from .. to).
+         */
+        private void indices(int[] a, int from, int to) {
+            buf.varint(to - from);
+            for (int i = from; i < to; i++) {
+                buf.varint(a[i]);
+            }
+        }
+
+        /**
+         * Writes a coordinate along an axis, or a size.
+         */
+        private void coord(double v, int axis) throws IOException {
+            long q = Math.round(v * COORD_SCALE);
+            if (q / COORD_SCALE != v || Math.abs(q) > MAX_COORD) {
+                buf.varint(1); // Not exact, store the double.
+                out.writeDouble(v);
+                return;
+            }
+
+            long d = axis == SIZE ? q : q - last[axis];
+            buf.varint(((d << 1) ^ (d >> 63)) << 1);
+            if (axis != SIZE) {
+                last[axis] = q;
+            }
+        }
+
+        /**
+         * Writes the index of a string, 0 for null.
+         */
+        private void string(String s) {
+            if (s == null) {
+                buf.varint(0);
+                return;
+            }
+            Integer i = strings.get(s);
+            if (i == null) {
+                i = strings.size() + 1;
+                strings.add(s, i);
+            }
+            buf.varint(i);
+        }
+
+        /**
+         * Writes the index of a color.
+         */
+        private void color(int argb) {
+            buf.varint(colorIndex(argb));
+        }
+
+        /**
+         * Gets the index of a color, adding it to the table the first time.
+         */
+        private int colorIndex(int argb) {
+            Integer i = colors.get(argb);
+            if (i == null) {
+                i = colors.size();
+                colors.add(argb, i);
+            }
+            return i;
+        }
+
+        /**
+         * Gets the offset of the next record from the start of the records
+         * of the section.
+         */
+        private int offset() {
+            return buf.size() - mark;
+        }
+
+        /**
+         * Ends a section, the content is what was written since the last
+         * one ended.
+         */
+        private void close(int tag, int records) {
+            start[tag] = mark;
+            end[tag] = buf.size();
+            mark = end[tag];
+            count[tag] = records;
+            last[X] = 0;
+            last[Y] = 0;
+        }
+    }
+
+    /**
+     * The restart points of a record section: the offset of a record in
+     * the section and the coordinates it is a difference to.
+     */
+    private static final class Restarts {
+
+        private final int interval; // Records between two restart points.
+        private final boolean coords; // The section has coordinates.
+        private long[] points = new long[48]; // Offset, x and y of each point.
+        private int n; // Number of points.
+
+        Restarts(int interval, boolean coords) {
+            this.interval = interval;
+            this.coords = coords;
+        }
+
+        void add(long offset, long[] last) {
+            if (3 * n == points.length) {
+                points = Arrays.copyOf(points, points.length * 2);
+            }
+            points[3 * n] = offset;
+            points[3 * n + 1] = last[X];
+            points[3 * n + 2] = last[Y];
+            n++;
+        }
+
+        /**
+         * Writes the interval, the count and the points, the offset of each
+         * as an int followed by x and y as longs if the section has
+         * coordinates.
+         */
+        void write(DataOutput out) throws IOException {
+            out.writeInt(interval);
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                out.writeInt((int) points[3 * i]);
+                if (coords) {
+                    out.writeLong(points[3 * i + 1]);
+                    out.writeLong(points[3 * i + 2]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes that writeVarint writes.
+     */
+    static int varintSize(long v) {
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * A byte array stream for a single thread, the records are written one
+     * byte at a time.
+     */
+    private static final class OutBuffer extends ByteArrayOutputStream {
+
+        OutBuffer() {
+            super(1 << 16);
+        }
+
+        @Override
+        public void write(int b) {
+            if (count == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[count++] = (byte) b;
+        }
+
+        /**
+         * Writes a varint, see writeVarint.
+         */
+        void varint(long v) {
+            if (count + 10 > buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            while ((v & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        /**
+         * Writes the bytes from .. to of the buffer to a stream.
+         */
+        void writeTo(OutputStream out, int from, int to) throws IOException {
+            out.write(buf, from, to - from);
+        }
+    }
+
+    /**
+     * A byte array stream for a single thread, the records are read one byte
+     * at a time.
+     */
+    private static final class InBuffer extends ByteArrayInputStream {
+
+        InBuffer(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public int read() {
+            return pos < count ? buf[pos++] & 0xFF : -1;
+        }
+    }
+
+    /**
+     * Reads the sections of one project. The records of the pads, parts,
+     * nets and segments can also be read one at a time, which is how the
+     * ProjectLoader reads the records in view first.
+     */
+    static final class Reader {
+
+        /**
+         * Finds a pad or a net by its number.
+         */
+        interface Lookup<T> {
+
+            T get(int i) throws IOException;
+        }
+
+        private String[] strings;
+        private Color[] colors;
+        private Pad[] pads;
+        private Net[] nets;
+        private final ArrayList<Part> parts = new ArrayList<>();
+        final long[] last = new long[2]; // Previous coordinates of the section.
+        String name;
+        Grid grid;
+        double[] defaults;
+        long journalId;
+
+        Board read(DataInputStream din) throws IOException {
+            while (true) {
+                int tag = readVarint(din);
+                byte[] content = new byte[readVarint(din)];
+                din.readFully(content);
+                if (tag == END) {
+                    break;
+                }
+
+                section(tag, new DataInputStream(new InBuffer(content)));
+            }
+            return board();
+        }
+
+        /**
+         * Reads the content of one section.
+         */
+        void section(int tag, DataInputStream in) throws IOException {
+            last[X] = 0;
+            last[Y] = 0;
+            switch (tag) {
+                case STRINGS:
+                case COLORS:
+                case PROJECT:
+                case JOURNAL:
+                    table(tag, in);
+                    break;
+                case PADS:
+                    pads(in);
+                    break;
+                case PARTS:
+                    parts(in);
+                    break;
+                case NETS:
+                    nets(in);
+                    break;
+                case SEGMENTS:
+                    segments(in);
+                    break;
+                case ROTATIONS:
+                    rotations(in);
+                    break;
+                default: // Written by a newer version, or the index.
+                    break;
+            }
+        }
+
+        /**
+         * Gets the board of the sections read.
+         */
+        Board board() throws IOException {
+            if (grid == null) {
+                throw new IOException("Missing project section");
+            }
+
+            // The hit test index is built when the project is first shown.
+            Board board = new Board(name, grid, parts,
+                    new ArrayList<>(Arrays.asList(nets == null ? new Net[0] : nets)));
+            board.setDefaults(defaults[0], defaults[1], defaults[2], defaults[3]);
+            board.setJournalId(journalId);
+            return board;
+        }
+
+        /**
+         * Reads one of the sections that the records refer to: the strings,
+         * the colors, the project or the journal.
+         */
+        void table(int tag, DataInputStream in) throws IOException {
+            switch (tag) {
+                case STRINGS:
+                    strings = new String[readVarint(in) + 1];
+                    for (int i = 1; i < strings.length; i++) {
+                        strings[i] = in.readUTF();
+                    }
+                    break;
+                case COLORS:
+                    colors = new Color[readVarint(in)];
+                    for (int i = 0; i < colors.length; i++) {
+                        colors[i] = new Color(in.readInt(), true);
+                    }
+                    break;
+                case PROJECT:
+                    project(in);
+                    break;
+                case JOURNAL:
+                    journalId = in.readLong();
+                    break;
+            }
+        }
+
+        /**
+         * Reads one pad record.
+         */
+        ThPad readPad(DataInputStream in) throws IOException {
+            double x = coord(in, X);
+            double y = coord(in, Y);
+            double ring = coord(in, SIZE);
+            double hole = coord(in, SIZE);
+            int flags = readVarint(in);
+            ThPad pad = new ThPad(new Point2D.Double(x, y), ring, hole,
+                    color(flags >>> 1), (flags & PAD_VISIBLE) != 0);
+            pad.setName(string(in));
+            return pad;
+        }
+
+        /**
+         * Reads one part record.
+         */
+        Part readPart(DataInputStream in, Lookup<Pad> padLookup) throws IOException {
+            String id = string(in);
+            String partName = string(in);
+            double x = coord(in, X);
+            Point2D.Double c = new Point2D.Double(x, coord(in, Y));
+            double width = coord(in, SIZE);
+            double height = coord(in, SIZE);
+            Pad[] fpPads = new Pad[readVarint(in)];
+            for (int j = 0; j < fpPads.length; j++) {
+                fpPads[j] = padLookup.get(readVarint(in));
+            }
+            return new Part(id, partName, new Footprint(c, fpPads), width, height);
+        }
+
+        /**
+         * Reads the name at the start of a net record.
+         */
+        String readNetName(DataInputStream in) throws IOException {
+            return string(in);
+        }
+
+        /**
+         * Reads one segment record and adds the segment to its net.
+         */
+        void readSegment(DataInputStream in, Lookup<Net> netLookup,
+                Lookup<Pad> padLookup) throws IOException {
+            Net net = netLookup.get(readVarint(in));
+            int a = readVarint(in);
+            long d = readVarlong(in);
+            long b = a + ((d >>> 1) ^ -(d & 1));
+            if (b < 0 || b > Integer.MAX_VALUE) {
+                throw new IOException("Bad pad index " + b);
+            }
+            Pad p0 = padLookup.get(a);
+            Pad p1 = padLookup.get((int) b);
+            double width = coord(in, SIZE);
+            if (!net.addSegment(p0, p1, width, color(in))) {
+                throw new IOException("Segment between pads of other nets");
+            }
+        }
+
+        /**
+         * Skips one record of the pads, parts, nets or segments, keeping the
+         * coordinates it is a difference to up to date.
+         */
+        void skip(int tag, DataInputStream in) throws IOException {
+            switch (tag) {
+                case PADS:
+                    coord(in, X);
+                    coord(in, Y);
+                    coord(in, SIZE);
+                    coord(in, SIZE);
+                    readVarint(in); // Color and flags
+                    readVarint(in); // Name
+                    break;
+                case PARTS:
+                    readVarint(in); // Id
+                    readVarint(in); // Name
+                    coord(in, X);
+                    coord(in, Y);
+                    coord(in, SIZE);
+                    coord(in, SIZE);
+                    skipIndices(in);
+                    break;
+                case NETS:
+                    readVarint(in); // Name
+                    skipIndices(in);
+                    break;
+                case SEGMENTS:
+                    readVarint(in); // Net
+                    readVarint(in); // Pads
+                    readVarlong(in);
+                    coord(in, SIZE);
+                    readVarint(in); // Color
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not a record section " + tag);
+            }
+        }
+
+        private static void skipIndices(DataInputStream in) throws IOException {
+            int count = readVarint(in);
+            for (int i = 0; i < count; i++) {
+                readVarint(in);
+            }
+        }
+
+        private void project(DataInputStream in) throws IOException {
+            name = string(in);
+            int width = in.readInt();
+            int height = in.readInt();
+            double spacing = in.readDouble();
+            Color background = color(in);
+            Color lineColor = color(in);
+            grid = new Grid(spacing, background, lineColor, width, height);
+            defaults = new double[]{in.readDouble(), in.readDouble(),
+                in.readDouble(), in.readDouble()};
+        }
+
+        private void pads(DataInputStream in) throws IOException {
+            pads = new Pad[readVarint(in)];
+            for (int i = 0; i < pads.length; i++) {
+                pads[i] = readPad(in);
+            }
+        }
+
+        private void parts(DataInputStream in) throws IOException {
+            int count = readVarint(in);
+            for (int i = 0; i < count; i++) {
+                parts.add(readPart(in, this::pad));
+            }
+        }
+
+        private void nets(DataInputStream in) throws IOException {
+            nets = new Net[readVarint(in)];
+            for (int i = 0; i < nets.length; i++) {
+                nets[i] = new Net(readNetName(in));
+                int count = readVarint(in);
+                for (int j = 0; j < count; j++) {
+                    nets[i].addPad(pad(readVarint(in)));
+                }
+            }
+        }
+
+        private void segments(DataInputStream in) throws IOException {
+            if (nets == null) {
+                throw new IOException("Segments before nets");
+            }
+
+            int count = readVarint(in);
+            for (int i = 0; i < count; i++) {
+                readSegment(in, this::net, this::pad);
+            }
+        }
+
+        private void rotations(DataInputStream in) throws IOException {
+            int count = readVarint(in);
+            for (int i = 0; i < count; i++) {
+                int n = readVarint(in);
+                if (n >= parts.size()) {
+                    throw new IOException("Rotation of a missing part");
+                }
+                double angle = in.readDouble();
+                double width = coord(in, SIZE);
+                parts.get(n).setRotation(angle, width, coord(in, SIZE));
+            }
+        }
+
+        private double coord(DataInputStream in, int axis) throws IOException {
+            long v = readVarlong(in);
+            if ((v & 1) != 0) {
+                return in.readDouble();
+            }
+
+            long z = v >>> 1;
+            long q = (z >>> 1) ^ -(z & 1);
+            if (axis != SIZE) {
+                q += last[axis];
+                last[axis] = q;
+            }
+            return q / COORD_SCALE;
+        }
+
+        private String string(DataInputStream in) throws IOException {
+            int i = readVarint(in);
+            if (strings == null || i >= strings.length) {
+                throw new IOException("Bad string index " + i);
+            }
+            return strings[i];
+        }
+
+        private Color color(DataInputStream in) throws IOException {
+            return color(readVarint(in));
+        }
+
+        private Color color(int i) throws IOException {
+            if (colors == null || i >= colors.length) {
+                throw new IOException("Bad color index " + i);
+            }
+            return colors[i];
+        }
+
+        private Pad pad(int i) throws IOException {
+            if (pads == null || i >= pads.length) {
+                throw new IOException("Bad pad index " + i);
+            }
+            return pads[i];
+        }
+
+        private Net net(int i) throws IOException {
+            if (i >= nets.length) {
+                throw new IOException("Bad net index " + i);
+            }
+            return nets[i];
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package pcbEditor;
+
+import java.awt.geom.Rectangle2D;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingUtilities;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+
+/**
+ * Opens projects so that the board can be shown before the whole file is
+ * read: a preview first, then the rest in the background.
+ *
+ * The file is mapped into memory, and the INDEX section written by the
+ * ProjectCodec is used to read only the parts and segments that touch the
+ * view. The entries of the index are addressed directly, so the preview
+ * reads the restart points it seeks from and the tiles in view, not the
+ * whole index. It is shown at once and can not be edited. Its nets are the
+ * nets of the segments in view, with no other pads than the ends of the
+ * segments. Files without an index are read whole before they are shown.
+ *
+ * The record sections are then read from the mapping on a background
+ * thread, with the strings, colors and project that the preview read, and
+ * the preview is given the board that was read. The records in view are
+ * read again into new objects, as the ones of the preview are shown and
+ * listened to by its board, and the board is built in the order of the
+ * file so the pads, parts and nets are numbered as when it was saved.
+ *
+ * On Windows, the file stays locked until the mapping is garbage
+ * collected, so it may not be possible to save over it at once.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class ProjectLoader {
+
+    /**
+     * Observes the outcome of a load. Called on the event dispatch thread.
+     */
+    public interface LoadListener {
+
+        /**
+         * Called when the whole project has been read and can be edited.
+         *
+         * @param area the design area returned by load.
+         */
+        void loaded(DesignArea area);
+
+        /**
+         * Called when the rest of the project could not be read. The
+         * preview is left as it was.
+         *
+         * @param file the project file.
+         * @param ex the cause.
+         */
+        void failed(File file, IOException ex);
+    }
+
+    // Reads the whole projects, one at a time.
+    private static final ExecutorService READER = Executors.newSingleThreadExecutor(
+            (Runnable r) -> {
+                Thread t = new Thread(r, "Project loader");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private ProjectLoader() {
+    }
+
+    /**
+     * Opens a project. Must be called on the event dispatch thread.
+     *
+     * @param file the project file.
+     * @param view the part of the board to show first, in world units.
+     * @param listener notified when the whole project has been read.
+     * @return the design area of the project, a preview while isLoading
+     * returns true, after which it holds the board of the full read.
+     * @throws IOException if the file could not be read or is not a
+     * project.
+     */
+    public static DesignArea load(final File file, Rectangle2D view,
+            final LoadListener listener) throws IOException {
+        final MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+
+        final Preview reader = new Preview(map);
+        Board preview = reader.read(view);
+        if (preview == null) { // No index, read it all now.
+            final DesignArea whole = new DesignArea(
+                    ProjectCodec.readBoard(new BufferInput(map.duplicate())));
+            SwingUtilities.invokeLater(() -> listener.loaded(whole));
+            return whole;
+        }
+
+        final DesignArea area = new DesignArea(preview);
+        area.startLoading();
+        READER.execute(() -> {
+            try {
+                final Board whole = reader.readRest();
+                SwingUtilities.invokeLater(() -> {
+                    area.finishLoading(whole);
+                    listener.loaded(area);
+                });
+            } catch (IOException | RuntimeException ex) {
+                final IOException cause = ex instanceof IOException
+                        ? (IOException) ex : new IOException(ex);
+                SwingUtilities.invokeLater(() -> listener.failed(file, cause));
+            }
+        });
+        return area;
+    }
+
+    /**
+     * Reads the records in view, using the index of the file, and then the
+     * rest of the project.
+     */
+    private static final class Preview {
+
+        private final ByteBuffer map;
+        private final ProjectCodec.Reader reader = new ProjectCodec.Reader();
+        private final int[] start = new int[ProjectCodec.INDEX + 1]; // Of the records of a section.
+        private final int[] length = new int[ProjectCodec.INDEX + 1]; // Of a section.
+
+        // The index
+        private int tile, cols, rows;
+        private Restarts padPoints, partPoints, netPoints, segPoints;
+
+        // Records read so far.
+        private Pad[] pads;
+        private Net[] nets;
+
+        Preview(ByteBuffer map) {
+            this.map = map;
+        }
+
+        /**
+         * Reads the records in view.
+         *
+         * @return the preview, or null if the file has no index.
+         */
+        Board read(Rectangle2D view) throws IOException {
+            if (!sections()) {
+                return null;
+            }
+            for (int tag : new int[]{ProjectCodec.STRINGS, ProjectCodec.COLORS,
+                ProjectCodec.PROJECT, ProjectCodec.JOURNAL}) {
+                if (length[tag] >= 0) {
+                    reader.table(tag, section(tag));
+                }
+            }
+            if (reader.grid == null) {
+                throw new IOException("Missing project section");
+            }
+
+            int[][] inView = index(view);
+            pads = new Pad[count(ProjectCodec.PADS)];
+            nets = new Net[count(ProjectCodec.NETS)];
+
+            ArrayList<Part> parts = new ArrayList<>();
+            for (int i : inView[0]) {
+                DataInputStream in = record(ProjectCodec.PARTS, partPoints, i);
+                parts.add(reader.readPart(in, this::pad));
+            }
+            for (int i : inView[1]) {
+                DataInputStream in = record(ProjectCodec.SEGMENTS, segPoints, i);
+                reader.readSegment(in, this::net, this::pad);
+            }
+            ArrayList<Net> shown = new ArrayList<>();
+            for (Net net : nets) {
+                if (net != null) {
+                    shown.add(net);
+                }
+            }
+
+            Board board = new Board(reader.name, reader.grid, parts, shown);
+            double[] d = reader.defaults;
+            board.setDefaults(d[0], d[1], d[2], d[3]);
+            board.setJournalId(reader.journalId);
+            return board;
+        }
+
+        /**
+         * Reads the record sections after read, on any thread.
+         *
+         * @return the whole board.
+         */
+        Board readRest() throws IOException {
+            for (int tag : new int[]{ProjectCodec.PADS, ProjectCodec.PARTS,
+                ProjectCodec.NETS, ProjectCodec.SEGMENTS, ProjectCodec.ROTATIONS}) {
+                if (length[tag] >= 0) {
+                    reader.section(tag, section(tag));
+                }
+            }
+            return reader.board();
+        }
+
+        /**
+         * Finds the sections of the file.
+         *
+         * @return true if the file has an index that can be used.
+         */
+        private boolean sections() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferInput(map.duplicate()));
+            if (map.limit() < 4 || in.readInt() != ProjectCodec.MAGIC
+                    || ProjectCodec.readVarint(in) != ProjectCodec.VERSION) {
+                return false; // Old, newer or not a project, read it whole.
+            }
+
+            Arrays.fill(length, -1);
+            int pos = map.limit() - in.available();
+            while (true) {
+                ByteBuffer b = map.duplicate();
+                b.position(pos);
+                in = new DataInputStream(new BufferInput(b));
+                int tag = ProjectCodec.readVarint(in);
+                int len = ProjectCodec.readVarint(in);
+                if (tag == ProjectCodec.END) {
+                    return length[ProjectCodec.INDEX] >= 0;
+                }
+                pos = b.position();
+                if (len > map.limit() - pos) {
+                    throw new IOException("Truncated project");
+                }
+                if (tag < start.length) {
+                    start[tag] = pos;
+                    length[tag] = len;
+                }
+                pos += len;
+            }
+        }
+
+        /**
+         * Reads the index and finds the parts and segments in view.
+         *
+         * @return the ascending numbers of the parts and of the segments.
+         */
+        private int[][] index(Rectangle2D view) throws IOException {
+            int pos = start[ProjectCodec.INDEX];
+            int end = pos + length[ProjectCodec.INDEX];
+            if (end - pos < 12) {
+                throw new IOException("Malformed index");
+            }
+            tile = map.getInt(pos);
+            cols = map.getInt(pos + 4);
+            rows = map.getInt(pos + 8);
+            if (tile <= 0 || cols <= 0 || rows <= 0) {
+                throw new IOException("Malformed index");
+            }
+            padPoints = new Restarts(map, pos + 12, end, true);
+            partPoints = new Restarts(map, padPoints.end(), end, true);
+            netPoints = new Restarts(map, partPoints.end(), end, false);
+            segPoints = new Restarts(map, netPoints.end(), end, false);
+
+            // The directory, followed by the lists of the tiles.
+            int dir = segPoints.end();
+            long lists = dir + 4L * ((long) cols * rows + 1);
+            if (lists > end) {
+                throw new IOException("Malformed index");
+            }
+
+            int x0 = clamp(Math.floor(view.getMinX() / tile), cols);
+            int y0 = clamp(Math.floor(view.getMinY() / tile), rows);
+            int x1 = clamp(Math.floor(view.getMaxX() / tile), cols);
+            int y1 = clamp(Math.floor(view.getMaxY() / tile), rows);
+            Numbers partNumbers = new Numbers();
+            Numbers segNumbers = new Numbers();
+            for (int y = y0; y <= y1; y++) {
+                int from = map.getInt(dir + 4 * (y * cols + x0));
+                int to = map.getInt(dir + 4 * (y * cols + x1 + 1));
+                if (from < 0 || to < from || to > end - lists) {
+                    throw new IOException("Malformed index");
+                }
+                ByteBuffer b = map.duplicate();
+                b.position((int) lists + from);
+                b.limit((int) lists + to);
+                DataInputStream in = new DataInputStream(new BufferInput(b));
+                for (int x = x0; x <= x1; x++) {
+                    partNumbers.read(in);
+                    segNumbers.read(in);
+                }
+            }
+            return new int[][]{partNumbers.sorted(), segNumbers.sorted()};
+        }
+
+        private static int clamp(double v, int size) {
+            return (int) Math.max(0, Math.min(size - 1, v));
+        }
+
+        /**
+         * Gets a pad, reading the pads between two restart points of the
+         * index the first time one of them is needed.
+         */
+        private Pad pad(int i) throws IOException {
+            if (i < 0 || i >= pads.length) {
+                throw new IOException("Bad pad index " + i);
+            }
+            if (pads[i] == null) {
+                // A part being read goes on with its own coordinates.
+                long x = reader.last[ProjectCodec.X];
+                long y = reader.last[ProjectCodec.Y];
+                int interval = padPoints.interval;
+                int first = i / interval * interval;
+                DataInputStream in = record(ProjectCodec.PADS, padPoints, first);
+                for (int k = first; k < Math.min(pads.length, first + interval); k++) {
+                    pads[k] = reader.readPad(in);
+                }
+                reader.last[ProjectCodec.X] = x;
+                reader.last[ProjectCodec.Y] = y;
+            }
+            return pads[i];
+        }
+
+        /**
+         * Gets a net, reading its name the first time it is needed.
+         */
+        private Net net(int i) throws IOException {
+            if (i < 0 || i >= nets.length) {
+                throw new IOException("Bad net index " + i);
+            }
+            if (nets[i] == null) {
+                DataInputStream in = record(ProjectCodec.NETS, netPoints, i);
+                nets[i] = new Net(reader.readNetName(in));
+            }
+            return nets[i];
+        }
+
+        /**
+         * Gets the number of records in a section.
+         */
+        private int count(int tag) throws IOException {
+            if (length[tag] < 0) {
+                return 0;
+            }
+            return ProjectCodec.readVarint(section(tag));
+        }
+
+        /**
+         * Seeks to a record of a record section, from the restart point
+         * before it, setting the coordinates of the reader to those of the
+         * record.
+         */
+        private DataInputStream record(int tag, Restarts points, int record)
+                throws IOException {
+            int i = record / points.interval;
+            if (length[tag] < 0 || i >= points.count) {
+                throw new IOException("Bad restart point " + i);
+            }
+            DataInputStream in = section(tag);
+            ProjectCodec.readVarint(in); // The count.
+            int skip = points.offset(i);
+            if (skip < 0 || skip > in.available()) {
+                throw new IOException("Bad restart point " + i);
+            }
+            in.skipBytes(skip);
+            if (points.coords) {
+                reader.last[ProjectCodec.X] = points.coord(i, ProjectCodec.X);
+                reader.last[ProjectCodec.Y] = points.coord(i, ProjectCodec.Y);
+            }
+            for (int k = i * points.interval; k < record; k++) {
+                reader.skip(tag, in);
+            }
+            return in;
+        }
+
+        /**
+         * Gets the content of a section.
+         */
+        private DataInputStream section(int tag) {
+            ByteBuffer b = map.duplicate();
+            b.position(start[tag]);
+            b.limit(start[tag] + length[tag]);
+            return new DataInputStream(new BufferInput(b));
+        }
+    }
+
+    /**
+     * A restart table of the index, read in place: the interval, the count
+     * and the points, each an int offset followed by x and y as longs if
+     * the section has coordinates.
+     */
+    private static final class Restarts {
+
+        private final ByteBuffer map;
+        private final int at; // Position of the first point.
+        private final int width; // Bytes of one point.
+        final int interval; // Records between two points.
+        final int count; // Number of points.
+        final boolean coords; // The points hold coordinates.
+
+        Restarts(ByteBuffer map, int pos, int end, boolean coords) throws IOException {
+            this.map = map;
+            this.coords = coords;
+            width = coords ? 20 : 4;
+            at = pos + 8;
+            if (at > end) {
+                throw new IOException("Malformed index");
+            }
+            interval = map.getInt(pos);
+            count = map.getInt(pos + 4);
+            if (interval <= 0 || count < 0 || (long) count * width > end - at) {
+                throw new IOException("Malformed index");
+            }
+        }
+
+        /**
+         * Gets the position after the table.
+         */
+        int end() {
+            return at + count * width;
+        }
+
+        /**
+         * Gets the offset of the record of a point in its section.
+         */
+        int offset(int i) {
+            return map.getInt(at + i * width);
+        }
+
+        /**
+         * Gets the coordinate along an axis that the record of a point is a
+         * difference to.
+         */
+        long coord(int i, int axis) {
+            return map.getLong(at + i * width + 4 + 8 * axis);
+        }
+    }
+
+    /**
+     * The numbers found in the tiles in view.
+     */
+    private static final class Numbers {
+
+        private int[] a = new int[64];
+        private int n;
+
+        /**
+         * Reads a count followed by ascending numbers as differences.
+         */
+        void read(DataInputStream in) throws IOException {
+            int count = ProjectCodec.readVarint(in);
+            int prev = 0;
+            for (int i = 0; i < count; i++) {
+                prev += ProjectCodec.readVarint(in);
+                if (n == a.length) {
+                    a = Arrays.copyOf(a, 2 * n);
+                }
+                a[n++] = prev;
+            }
+        }
+
+        /**
+         * Gets the numbers in ascending order, without repeats.
+         */
+        int[] sorted() {
+            Arrays.sort(a, 0, n);
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (m == 0 || a[i] != a[m - 1]) {
+                    a[m++] = a[i];
+                }
+            }
+            return Arrays.copyOf(a, m);
+        }
+    }
+
+    /**
+     * A stream over the remaining bytes of a buffer.
+     */
+    private static final class BufferInput extends InputStream {
+
+        private final ByteBuffer buf;
+
+        BufferInput(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buf.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buf.remaining());
+            buf.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.max(0, Math.min(n, buf.remaining()));
+            buf.position(buf.position() + k);
+            return k;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            buf.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buf.reset();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package pcbEditor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.swing.SwingWorker;
+
+/**
+ * Saves projects in the background.
+ *
+ * A snapshot of the project is taken when the save is requested, on the
+ * thread that edits the project, and is then written by a single background
+ * thread, so the project can be edited while it is being saved. Saves are
+ * written in the order they were requested, and every save first writes a
+ * temporary file that then replaces the project file.
+ *
+ * @author Albin Hjalmas.
+ */
+public class ProjectSaver {
+
+    /**
+     * Observes the outcome of a save. Called on the event dispatch thread.
+     */
+    public interface SaveListener {
+
+        /**
+         * Called when a project has been saved.
+         *
+         * @param file the saved file.
+         */
+        void saved(File file);
+
+        /**
+         * Called when a project could not be saved. The previous content of
+         * the file is left unchanged.
+         *
+         * @param file the file that was to be saved.
+         * @param ex the cause.
+         */
+        void failed(File file, IOException ex);
+    }
+
+    // Time to wait for pending saves when the application exits.
+    private static final long EXIT_TIMEOUT_SECONDS = 30;
+
+    private final ExecutorService executor; // Writes the snapshots in order.
+
+    /**
+     * Constructor. Pending saves are finished before the application exits.
+     */
+    public ProjectSaver() {
+        executor = Executors.newSingleThreadExecutor((Runnable r) -> {
+            Thread t = new Thread(r, "Project saver");
+            t.setDaemon(true);
+            return t;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                awaitIdle(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    /**
+     * Saves a project in the background. Must be called on the thread that
+     * edits the project.
+     *
+     * @param area the design area of the project.
+     * @param file the file to write.
+     * @param listener notified when the project is saved, may be null.
+     * @return the pending save.
+     */
+    public Future<Void> save(DesignArea area, final File file,
+            final SaveListener listener) {
+        final ProjectSnapshot snapshot;
+        try {
+            snapshot = ProjectSnapshot.of(area);
+        } catch (IllegalArgumentException ex) {
+            return failed(file, new IOException(ex.getMessage(), ex), listener);
+        }
+        return save(snapshot, file, listener);
+    }
+
+    /**
+     * Saves a snapshot of a project in the background.
+     *
+     * @param snapshot the snapshot of the project.
+     * @param file the file to write.
+     * @param listener notified when the project is saved, may be null.
+     * @return the pending save.
+     */
+    public Future<Void> save(ProjectSnapshot snapshot, File file,
+            SaveListener listener) {
+        SaveTask task = new SaveTask(snapshot, file, listener);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Reports a save that failed before it was started.
+     *
+     * @param file the file that was to be saved.
+     * @param cause the cause.
+     * @param listener notified of the failure, may be null.
+     * @return the failed save.
+     */
+    static Future<Void> failed(File file, IOException cause, SaveListener listener) {
+        if (listener != null) {
+            listener.failed(file, cause);
+        }
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(cause);
+        return failed;
+    }
+
+    /**
+     * Waits until all requested saves have been written.
+     *
+     * @param timeout the longest time to wait.
+     * @param unit the unit of timeout.
+     * @return true if all saves are written, false if the time ran out.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        Future<?> marker = executor.submit(() -> {
+        });
+        try {
+            marker.get(timeout, unit);
+            return true;
+        } catch (ExecutionException ex) {
+            return true; // The marker does nothing.
+        } catch (TimeoutException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes one snapshot and reports the outcome.
+     */
+    private static final class SaveTask extends SwingWorker<Void, Void> {
+
+        private final ProjectSnapshot snapshot;
+        private final File file;
+        private final SaveListener listener; // May be null.
+
+        SaveTask(ProjectSnapshot snapshot, File file, SaveListener listener) {
+            this.snapshot = snapshot;
+            this.file = file;
+            this.listener = listener;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            ProjectCodec.write(snapshot, file);
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            if (listener == null) {
+                return;
+            }
+
+            try {
+                get();
+                listener.saved(file);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                listener.failed(file, cause instanceof IOException
+                        ? (IOException) cause : new IOException(cause));
+            }
+        }
+    }
+}
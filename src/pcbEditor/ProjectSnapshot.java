@@ -0,0 +1,222 @@
+package pcbEditor;
+
+import graph.ST;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+import pcbPrimitives.ThPad;
+
+/**
+ * A copy of the saved state of a project in plain arrays. Taking a snapshot
+ * only copies numbers and references to strings, so it is cheap enough to
+ * do on the event dispatch thread, and the snapshot can then be written on
+ * another thread while the project is being edited.
+ *
+ * Pads are numbered in the order pads of parts first, then the pads only
+ * found in nets. Parts and nets refer to their pads by number, and every
+ * segment to its net and its two pads.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class ProjectSnapshot {
+
+    // Project
+    final String name;
+    final int width, height; // Size of the grid in world units.
+    final double spacing; // Spacing of the grid in millimetres.
+    final int background, lineColor; // ARGB colors of the grid.
+    final double[] defaults; // Default settings of the design area.
+    final long journalId; // Journal that continues the project, 0 if none.
+
+    // Pads
+    final double[] padX, padY, padRing, padHole;
+    final int[] padColor;
+    final boolean[] padVisible;
+    final String[] padName;
+
+    // Parts, the pads of part i are partPads[partStart[i] .. partStart[i + 1]).
+    final String[] partId, partName;
+    final double[] partX, partY, partWidth, partHeight; // Bounds of the outline.
+    final double[] partAngle, partBaseWidth, partBaseHeight; // Rotation and size before it.
+    final int[] partStart, partPads;
+
+    // Nets, the pads of net i are netPads[netStart[i] .. netStart[i + 1]).
+    final String[] netName;
+    final int[] netStart, netPads;
+
+    // Segments
+    final int[] segNet, segP0, segP1;
+    final double[] segWidth;
+    final int[] segColor;
+
+    // The numbers of the pads, handed on to the edit journal.
+    final ST<Pad, Integer> padNumbers;
+
+    /**
+     * Takes a snapshot of a project. Must be called on the thread that
+     * edits the project.
+     *
+     * @param area the design area of the project.
+     * @return the snapshot.
+     * @throws IllegalArgumentException if the project has pads of an
+     * unsupported type.
+     */
+    public static ProjectSnapshot of(DesignArea area) {
+        return new ProjectSnapshot(area.getBoard());
+    }
+
+    /**
+     * Takes a snapshot of a board. Must be called on the thread that edits
+     * the board.
+     *
+     * @param board the board of the project.
+     * @return the snapshot.
+     * @throws IllegalArgumentException if the board has pads of an
+     * unsupported type.
+     */
+    public static ProjectSnapshot of(Board board) {
+        return new ProjectSnapshot(board);
+    }
+
+    private ProjectSnapshot(Board board) {
+        Grid grid = board.getGrid();
+        name = board.getProjectName();
+        width = grid.getWidth();
+        height = grid.getHeight();
+        spacing = grid.getSpacing();
+        background = grid.getBackground().getRGB();
+        lineColor = grid.getLineColor().getRGB();
+        defaults = board.getDefaults();
+        journalId = board.getJournalId();
+
+        ArrayList<Part> parts = board.getParts();
+        ArrayList<Net> nets = board.getNets();
+        int partPadCount = 0;
+        for (Part part : parts) {
+            partPadCount += part.getFootprint().getPads().size();
+        }
+        int netPadCount = 0;
+        int segCount = 0;
+        for (Net net : nets) {
+            netPadCount += net.getPads().size();
+            segCount += net.getSegments().size();
+        }
+
+        // Parts, numbering their pads
+        ST<Pad, Integer> pads = new ST<>(true, partPadCount + netPadCount);
+        int n = parts.size();
+        partId = new String[n];
+        partName = new String[n];
+        partX = new double[n];
+        partY = new double[n];
+        partWidth = new double[n];
+        partHeight = new double[n];
+        partAngle = new double[n];
+        partBaseWidth = new double[n];
+        partBaseHeight = new double[n];
+        partStart = new int[n + 1];
+        partPads = new int[partPadCount];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            Part part = parts.get(i);
+            Point2D.Double c = part.getFootprint().getP();
+            Rectangle2D ol = part.getOutline();
+            partId[i] = part.getId();
+            partName[i] = part.getName();
+            partX[i] = c.x;
+            partY[i] = c.y;
+            partWidth[i] = ol.getWidth();
+            partHeight[i] = ol.getHeight();
+            partAngle[i] = part.getAngle();
+            partBaseWidth[i] = part.getWidth();
+            partBaseHeight[i] = part.getHeight();
+            partStart[i] = k;
+            for (Pad pad : part.getFootprint().getPads()) {
+                partPads[k++] = number(pads, pad);
+            }
+        }
+        partStart[n] = k;
+
+        // Nets and their segments
+        n = nets.size();
+        netName = new String[n];
+        netStart = new int[n + 1];
+        netPads = new int[netPadCount];
+        segNet = new int[segCount];
+        segP0 = new int[segCount];
+        segP1 = new int[segCount];
+        segWidth = new double[segCount];
+        segColor = new int[segCount];
+        k = 0;
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            Net net = nets.get(i);
+            netName[i] = net.getName();
+            netStart[i] = k;
+            for (Pad pad : net.getPads()) {
+                netPads[k++] = number(pads, pad);
+            }
+            for (Segment seg : net.getSegments()) {
+                segNet[s] = i;
+                segP0[s] = pads.get((Pad) seg.getP0());
+                segP1[s] = pads.get((Pad) seg.getP1());
+                segWidth[s] = seg.getWidth();
+                segColor[s] = seg.getColor().getRGB();
+                s++;
+            }
+        }
+        netStart[n] = k;
+
+        // Pads
+        n = pads.size();
+        padX = new double[n];
+        padY = new double[n];
+        padRing = new double[n];
+        padHole = new double[n];
+        padColor = new int[n];
+        padVisible = new boolean[n];
+        padName = new String[n];
+        int i = 0;
+        for (Pad pad : pads.getKeys()) {
+            ThPad p = (ThPad) pad;
+            padX[i] = p.getCenterX();
+            padY[i] = p.getCenterY();
+            padRing[i] = p.getRingDiam();
+            padHole[i] = p.getHoleDiam();
+            padColor[i] = p.getColor().getRGB();
+            padVisible[i] = p.getVisible();
+            padName[i] = p.getName();
+            i++;
+        }
+        padNumbers = pads;
+    }
+
+    /**
+     * Gets the name of the project.
+     *
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of a pad, giving it the next free number if it has
+     * none yet.
+     */
+    private static int number(ST<Pad, Integer> pads, Pad pad) {
+        Integer i = pads.get(pad);
+        if (i == null) {
+            if (!(pad instanceof ThPad)) {
+                throw new IllegalArgumentException("Unsupported pad "
+                        + pad.getClass().getName());
+            }
+            i = pads.size();
+            pads.add(pad, i);
+        }
+        return i;
+    }
+}
@@ -0,0 +1,123 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import pcbPrimitives.Segment;
+import pcbPrimitives.StrokeCache;
+
+/**
+ * Segments of the same width and color collected into one path, so that they
+ * can be drawn with a single call instead of one call and two stroke changes
+ * per segment.
+ *
+ * @author Albin Hjalmas.
+ */
+public class SegmentBatch {
+
+    private final double width; // Width of the segments.
+    private final Color color; // Color of the segments.
+    private final Path2D.Double path; // Center lines of the segments.
+
+    /**
+     * Constructor.
+     *
+     * @param width the width of the segments.
+     * @param color the color of the segments.
+     */
+    public SegmentBatch(double width, Color color) {
+        this.width = width;
+        this.color = color;
+        path = new Path2D.Double();
+    }
+
+    /**
+     * Groups segments by width and color.
+     *
+     * @param segs the segments.
+     * @return one batch for each width and color.
+     */
+    public static ArrayList<SegmentBatch> build(Iterable<Segment> segs) {
+        ArrayList<SegmentBatch> batches = new ArrayList<>();
+        SegmentBatch last = null;
+        for (Segment seg : segs) {
+            // Nets have a handful of widths and colors, and segments of
+            // the same kind tend to follow each other.
+            if (last == null || !last.matches(seg)) {
+                last = null;
+                for (SegmentBatch b : batches) {
+                    if (b.matches(seg)) {
+                        last = b;
+                        break;
+                    }
+                }
+                if (last == null) {
+                    last = new SegmentBatch(seg.getWidth(), seg.getColor());
+                    batches.add(last);
+                }
+            }
+            last.add(seg);
+        }
+        return batches;
+    }
+
+    /**
+     * Adds a segment to this batch.
+     *
+     * @param seg the segment to add.
+     */
+    public void add(Segment seg) {
+        Line2D line = seg.getLine();
+        path.moveTo(line.getX1(), line.getY1());
+        path.lineTo(line.getX2(), line.getY2());
+    }
+
+    /**
+     * Draws the segments of this batch.
+     *
+     * @param g the graphics to draw on.
+     */
+    public void draw(Graphics2D g) {
+        Stroke defStroke = g.getStroke();
+        g.setStroke(StrokeCache.get(width));
+        g.setColor(color);
+        g.draw(path);
+        g.setStroke(defStroke);
+    }
+
+    /**
+     * Draws the selected version of the segments of this batch.
+     *
+     * @param g the graphics to draw on.
+     */
+    public void drawSelected(Graphics2D g) {
+        Stroke defStroke = g.getStroke();
+        g.setStroke(StrokeCache.get(width));
+        g.setColor(color.brighter());
+        g.draw(path);
+        g.setStroke(defStroke);
+        g.setColor(Color.WHITE);
+        g.draw(path);
+    }
+
+    /**
+     * Draws the center lines of the segments of this batch with the current
+     * stroke.
+     *
+     * @param g the graphics to draw on.
+     */
+    public void drawCenterLines(Graphics2D g) {
+        g.setColor(color);
+        g.draw(path);
+    }
+
+    /**
+     * Checks if a segment belongs in this batch.
+     */
+    private boolean matches(Segment seg) {
+        return seg.getWidth() == width && seg.getColor().equals(color);
+    }
+}
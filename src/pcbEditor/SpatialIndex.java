@@ -0,0 +1,590 @@
+package pcbEditor;
+
+import graph.ST;
+import graphPrimitives.Component;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+
+/**
+ * A uniform grid index over the parts, pads and segments of a design area.
+ * Every component is stored in each grid cell that its bounding box touches,
+ * so point queries only have to look at the components of one cell.
+ *
+ * The index listens for changes on all indexed pads and parts. A moved pad
+ * marks itself, its part and the segments attached to it as dirty, a
+ * rotated part marks itself and all of its pads and segments, and dirty
+ * components are re-bucketed lazily before the next query. IndexListeners
+ * are told about every added, changed and removed component.
+ *
+ * The cells are kept in a hash table keyed by primitive longs, so no key is
+ * boxed when a query or a re-bucketing looks up a cell. A rectangle query
+ * that covers more cells than are occupied walks the occupied cells instead.
+ *
+ * @author Albin Hjalmas.
+ */
+public class SpatialIndex implements ChangeListener, NetListener {
+
+    /**
+     * An indexed component together with the cells it is stored in.
+     */
+    private static final class Entry {
+
+        final Component c;
+        double minX, minY, maxX, maxY; // Bounding box when bucketed.
+        int x0, y0, x1, y1; // Cell range covered by the component.
+        boolean dirty; // Waiting to be re-bucketed.
+        int mark; // Query stamp used to report each entry once.
+
+        Entry(Component c) {
+            this.c = c;
+        }
+    }
+
+    /**
+     * Open addressing hash table from cell key to the entries of the cell.
+     * Collisions are resolved by linear probing and removals shift the
+     * following keys back, so no tombstones are needed.
+     */
+    private static final class CellTable {
+
+        private static final int INIT_CAPACITY = 64; // Power of two.
+
+        private long[] keys; // Cell keys, valid where cells is not null.
+        private ArrayList<?>[] cells; // Entries of each cell or null.
+        private int n; // Number of occupied cells.
+
+        CellTable() {
+            keys = new long[INIT_CAPACITY];
+            cells = new ArrayList<?>[INIT_CAPACITY];
+        }
+
+        int size() {
+            return n;
+        }
+
+        int capacity() {
+            return cells.length;
+        }
+
+        long key(int slot) {
+            return keys[slot];
+        }
+
+        @SuppressWarnings("unchecked") // cells only holds entry lists.
+        ArrayList<Entry> cell(int slot) {
+            return (ArrayList<Entry>) cells[slot];
+        }
+
+        ArrayList<Entry> get(long k) {
+            int mask = cells.length - 1;
+            for (int i = hash(k) & mask; cells[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == k) {
+                    return cell(i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the entries of a cell, adding an empty cell if missing.
+         */
+        ArrayList<Entry> getOrAdd(long k) {
+            int mask = cells.length - 1;
+            int i = hash(k) & mask;
+            for (; cells[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == k) {
+                    return cell(i);
+                }
+            }
+
+            ArrayList<Entry> cell = new ArrayList<>();
+            keys[i] = k;
+            cells[i] = cell;
+            if (2 * ++n > cells.length) {
+                resize(2 * cells.length);
+            }
+            return cell;
+        }
+
+        void remove(long k) {
+            int mask = cells.length - 1;
+            int i = hash(k) & mask;
+            while (cells[i] != null && keys[i] != k) {
+                i = (i + 1) & mask;
+            }
+            if (cells[i] == null) {
+                return;
+            }
+
+            // Move back the keys that probed past the freed slot.
+            cells[i] = null;
+            n--;
+            for (int j = (i + 1) & mask; cells[j] != null; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    cells[i] = cells[j];
+                    cells[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            ArrayList<?>[] oldCells = cells;
+            keys = new long[capacity];
+            cells = new ArrayList<?>[capacity];
+            int mask = capacity - 1;
+            for (int s = 0; s < oldCells.length; s++) {
+                if (oldCells[s] != null) {
+                    int i = hash(oldKeys[s]) & mask;
+                    while (cells[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[s];
+                    cells[i] = oldCells[s];
+                }
+            }
+        }
+
+        private static int hash(long k) {
+            long h = k * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private final double cellSize; // Side of one grid cell.
+    private final CellTable cells; // Cell key to entries.
+    private final ST<Component, Entry> entries; // Component to entry.
+    private final ArrayList<Entry> dirty; // Entries waiting to be re-bucketed.
+    private int queryMark; // Stamp of the current rectangle query.
+    private final ArrayList<IndexListener> listeners; // Observers of the index.
+
+    /**
+     * Constructor.
+     *
+     * @param cellSize the side of one grid cell.
+     */
+    public SpatialIndex(double cellSize) {
+        this.cellSize = cellSize;
+        cells = new CellTable();
+        entries = new ST<>(true);
+        dirty = new ArrayList<>();
+        listeners = new ArrayList<>();
+    }
+
+    /**
+     * Adds an IndexListener.
+     *
+     * @param l the listener to add.
+     */
+    public void addIndexListener(IndexListener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * Removes an IndexListener.
+     *
+     * @param l the listener to remove.
+     */
+    public void removeIndexListener(IndexListener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Adds a part and all of its pads.
+     *
+     * @param part the part to add.
+     */
+    public void addPart(Part part) {
+        if (add(part)) {
+            part.addViewListener(this);
+        }
+        for (Pad pad : part.getFootprint().getPads()) {
+            addPad(pad);
+        }
+    }
+
+    /**
+     * Removes a part and all of its pads.
+     *
+     * @param part the part to remove.
+     */
+    public void removePart(Part part) {
+        if (remove(part)) {
+            part.removeViewListener(this);
+        }
+        for (Pad pad : part.getFootprint().getPads()) {
+            removePad(pad);
+        }
+    }
+
+    /**
+     * Adds the segments and pads of a net and starts listening for changes
+     * to the net.
+     *
+     * @param net the net to add.
+     */
+    public void addNet(Net net) {
+        for (Pad pad : net.getPads()) {
+            addPad(pad);
+        }
+        for (Segment seg : net.getSegments()) {
+            add(seg);
+        }
+        net.addNetListener(this);
+    }
+
+    /**
+     * Removes the segments and the pads that do not belong to a part of a
+     * net and stops listening for changes to the net.
+     *
+     * @param net the net to remove.
+     */
+    public void removeNet(Net net) {
+        net.removeNetListener(this);
+        for (Segment seg : net.getSegments()) {
+            remove(seg);
+        }
+        for (Pad pad : net.getPads()) {
+            if (pad.getPart() == null) {
+                removePad(pad);
+            }
+        }
+    }
+
+    /**
+     * Marks a component as changed. Used for changes that do not move any
+     * pad, such as a new segment width.
+     *
+     * @param c the changed component.
+     */
+    public void update(Component c) {
+        Entry e = entries.get(c);
+        if (e == null) {
+            return;
+        }
+
+        if (!e.dirty) {
+            e.dirty = true;
+            dirty.add(e);
+        }
+        for (IndexListener l : listeners) {
+            l.componentChanged(c);
+        }
+    }
+
+    /**
+     * Finds all components that contain the specified point.
+     *
+     * @param p the point.
+     * @return the components containing p.
+     */
+    public ArrayList<Component> query(Point2D.Double p) {
+        flush();
+        ArrayList<Component> result = new ArrayList<>();
+        ArrayList<Entry> cell = cells.get(key(cell(p.x), cell(p.y)));
+        if (cell != null) {
+            for (Entry e : cell) {
+                if (e.c.contains(p)) {
+                    result.add(e.c);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds all components whose bounding box intersects the specified
+     * rectangle.
+     *
+     * @param r the rectangle.
+     * @return the components intersecting r.
+     */
+    public ArrayList<Component> query(Rectangle2D r) {
+        flush();
+        ArrayList<Component> result = new ArrayList<>();
+        queryMark++;
+        int x0 = cell(r.getMinX());
+        int y0 = cell(r.getMinY());
+        int x1 = cell(r.getMaxX());
+        int y1 = cell(r.getMaxY());
+        long range = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+        if (range > cells.size()) {
+            // Fewer cells are occupied than covered, walk the occupied ones.
+            for (int s = 0; s < cells.capacity(); s++) {
+                ArrayList<Entry> cell = cells.cell(s);
+                if (cell != null) {
+                    long k = cells.key(s);
+                    int x = (int) (k >> 32);
+                    int y = (int) k;
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        collect(cell, r, result);
+                    }
+                }
+            }
+        } else {
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    ArrayList<Entry> cell = cells.get(key(x, y));
+                    if (cell != null) {
+                        collect(cell, r, result);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the components of a cell whose bounding box intersects r and that
+     * have not been reported by the current query.
+     */
+    private void collect(ArrayList<Entry> cell, Rectangle2D r, ArrayList<Component> result) {
+        for (Entry e : cell) {
+            if (e.mark != queryMark) {
+                e.mark = queryMark;
+                if (e.minX <= r.getMaxX() && e.maxX >= r.getMinX()
+                        && e.minY <= r.getMaxY() && e.maxY >= r.getMinY()) {
+                    result.add(e.c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets all indexed components.
+     *
+     * @return a list of the components.
+     */
+    public ArrayList<Component> getComponents() {
+        return new ArrayList<>(entries.getKeys());
+    }
+
+    /**
+     * Gets the number of indexed components.
+     *
+     * @return the number of components.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Called when an indexed pad or part has changed.
+     *
+     * @param e the event.
+     */
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        if (e.getSource() instanceof Part) {
+            Part part = (Part) e.getSource();
+            update(part);
+            for (Pad pad : part.getFootprint().getPads()) {
+                padChanged(pad);
+            }
+            return;
+        }
+
+        Pad pad = (Pad) e.getSource();
+        padChanged(pad);
+        if (pad.getPart() != null) {
+            update(pad.getPart());
+        }
+    }
+
+    /**
+     * Marks a pad and the segments attached to it as changed.
+     */
+    private void padChanged(Pad pad) {
+        update(pad);
+
+        // The segments attached to a pad listen to it.
+        for (ChangeListener l : pad.getListeners()) {
+            if (l instanceof Segment) {
+                update((Segment) l);
+            }
+        }
+    }
+
+    @Override
+    public void padAdded(Net net, Pad pad) {
+        if (!addPad(pad)) {
+            update(pad); // A pad of a part has joined the net.
+        }
+    }
+
+    @Override
+    public void padRemoved(Net net, Pad pad) {
+        // Pads of parts stay until the part is removed.
+        if (pad.getPart() == null) {
+            removePad(pad);
+        } else {
+            update(pad);
+        }
+    }
+
+    @Override
+    public void segmentAdded(Net net, Segment seg) {
+        add(seg);
+    }
+
+    @Override
+    public void segmentRemoved(Net net, Segment seg) {
+        remove(seg);
+    }
+
+    /**
+     * Adds a pad and starts listening for changes to it.
+     *
+     * @return true if the pad was added, false if already indexed.
+     */
+    private boolean addPad(Pad pad) {
+        if (add(pad)) {
+            pad.addViewListener(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a pad and stops listening for changes to it.
+     */
+    private void removePad(Pad pad) {
+        if (remove(pad)) {
+            pad.removeViewListener(this);
+        }
+    }
+
+    /**
+     * Adds a component to the cells covered by its bounding box.
+     *
+     * @return true if the component was added, false if already indexed.
+     */
+    private boolean add(Component c) {
+        if (entries.contains(c)) {
+            return false;
+        }
+
+        Entry e = new Entry(c);
+        entries.add(c, e);
+        insert(e);
+        if (!listeners.isEmpty()) {
+            Rectangle2D bounds = bounds(e);
+            for (IndexListener l : listeners) {
+                l.componentAdded(c, bounds);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a component from the index.
+     *
+     * @return true if the component was removed, false if not indexed.
+     */
+    private boolean remove(Component c) {
+        Entry e = entries.remove(c);
+        if (e == null) {
+            return false;
+        }
+
+        erase(e);
+        if (e.dirty) {
+            dirty.remove(e);
+        }
+        if (!listeners.isEmpty()) {
+            Rectangle2D bounds = bounds(e);
+            for (IndexListener l : listeners) {
+                l.componentRemoved(c, bounds);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-buckets all dirty entries. Queries do this by themselves, call it
+     * directly to have the moves reported to the IndexListeners.
+     */
+    public void flush() {
+        for (Entry e : dirty) {
+            Rectangle2D old = listeners.isEmpty() ? null : bounds(e);
+            erase(e);
+            insert(e);
+            e.dirty = false;
+            if (old != null) {
+                Rectangle2D bounds = bounds(e);
+                for (IndexListener l : listeners) {
+                    l.componentMoved(e.c, old, bounds);
+                }
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Gets the bounding box an entry was bucketed with.
+     */
+    private static Rectangle2D bounds(Entry e) {
+        return new Rectangle2D.Double(e.minX, e.minY, e.maxX - e.minX, e.maxY - e.minY);
+    }
+
+    /**
+     * Stores an entry in all cells covered by its current bounding box.
+     */
+    private void insert(Entry e) {
+        Rectangle2D b = e.c.getPaddedBounds(0);
+        e.minX = b.getMinX();
+        e.minY = b.getMinY();
+        e.maxX = b.getMaxX();
+        e.maxY = b.getMaxY();
+        e.x0 = cell(e.minX);
+        e.y0 = cell(e.minY);
+        e.x1 = cell(e.maxX);
+        e.y1 = cell(e.maxY);
+        for (int x = e.x0; x <= e.x1; x++) {
+            for (int y = e.y0; y <= e.y1; y++) {
+                cells.getOrAdd(key(x, y)).add(e);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from the cells it is stored in.
+     */
+    private void erase(Entry e) {
+        for (int x = e.x0; x <= e.x1; x++) {
+            for (int y = e.y0; y <= e.y1; y++) {
+                long k = key(x, y);
+                ArrayList<Entry> cell = cells.get(k);
+                if (cell != null) {
+                    cell.remove(e);
+                    if (cell.isEmpty()) {
+                        cells.remove(k);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the cell coordinate of a coordinate.
+     */
+    private int cell(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    /**
+     * Gets the key of a cell.
+     */
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
@@ -0,0 +1,173 @@
+package pcbEditor;
+
+import graph.ST;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * Caches the static content of a design area in square image tiles. A tile
+ * is painted once and then copied to the screen on every repaint until
+ * something inside it changes and it is invalidated.
+ *
+ * @author Albin Hjalmas.
+ */
+public class TileCache {
+
+    /**
+     * Paints the content of one tile.
+     */
+    public interface TilePainter {
+
+        /**
+         * Paints the content of the specified area. The graphics are
+         * translated so that the area can be painted in the coordinates of
+         * the design area.
+         *
+         * @param g the graphics of the tile.
+         * @param area the area covered by the tile.
+         */
+        void paintTile(Graphics2D g, Rectangle area);
+    }
+
+    // Margin added around invalidated areas, covers rounding of the edges.
+    private static final int MARGIN = 2;
+
+    private final int tileSize; // Side of one tile in pixels.
+    private final int maxTiles; // Number of tiles kept at most.
+    private final ST<Long, BufferedImage> tiles; // Valid tiles by tile key.
+
+    /**
+     * Constructor.
+     *
+     * @param tileSize the side of one tile in pixels.
+     * @param maxTiles the number of tiles to keep at most.
+     */
+    public TileCache(int tileSize, int maxTiles) {
+        this.tileSize = tileSize;
+        this.maxTiles = maxTiles;
+        tiles = new ST<>();
+    }
+
+    /**
+     * Invalidates all tiles touching the specified area.
+     *
+     * @param r the changed area.
+     */
+    public void invalidate(Rectangle2D r) {
+        if (tiles.size() == 0 || r.isEmpty()) {
+            return;
+        }
+
+        int x0 = tile(r.getMinX() - MARGIN);
+        int y0 = tile(r.getMinY() - MARGIN);
+        int x1 = tile(r.getMaxX() + MARGIN);
+        int y1 = tile(r.getMaxY() + MARGIN);
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                tiles.remove(key(x, y));
+            }
+        }
+    }
+
+    /**
+     * Invalidates all tiles.
+     */
+    public void invalidateAll() {
+        tiles.clear();
+    }
+
+    /**
+     * Paints the tiles covering the specified area, painting the tiles that
+     * are not valid first.
+     *
+     * @param g the graphics to paint on.
+     * @param area the area to paint.
+     * @param gc the configuration of the screen, used to create tiles that
+     * are fast to copy. May be null.
+     * @param painter paints the content of invalid tiles.
+     */
+    public void paint(Graphics2D g, Rectangle area, GraphicsConfiguration gc,
+            TilePainter painter) {
+        int x0 = tile(area.x);
+        int y0 = tile(area.y);
+        int x1 = tile(area.x + area.width - 1);
+        int y1 = tile(area.y + area.height - 1);
+
+        int needed = (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (tiles.size() + needed > maxTiles) {
+            evict(x0, y0, x1, y1);
+        }
+
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                Long k = key(x, y);
+                BufferedImage img = tiles.get(k);
+                if (img == null) {
+                    img = render(x, y, gc, painter);
+                    tiles.add(k, img);
+                }
+                g.drawImage(img, x * tileSize, y * tileSize, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of valid tiles.
+     *
+     * @return the number of tiles.
+     */
+    public int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Paints one tile.
+     */
+    private BufferedImage render(int x, int y, GraphicsConfiguration gc,
+            TilePainter painter) {
+        BufferedImage img = gc == null
+                ? new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB)
+                : gc.createCompatibleImage(tileSize, tileSize, Transparency.OPAQUE);
+
+        Graphics2D g = img.createGraphics();
+        g.translate(-x * tileSize, -y * tileSize);
+        Rectangle area = new Rectangle(x * tileSize, y * tileSize, tileSize, tileSize);
+        g.setClip(area);
+        painter.paintTile(g, area);
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Drops the tiles outside the specified tile range.
+     */
+    private void evict(int x0, int y0, int x1, int y1) {
+        ArrayList<Long> keys = new ArrayList<>(tiles.getKeys());
+        for (Long k : keys) {
+            int x = (int) (k >> 32);
+            int y = (int) (long) k;
+            if (x < x0 || x > x1 || y < y0 || y > y1) {
+                tiles.remove(k);
+            }
+        }
+    }
+
+    /**
+     * Gets the tile coordinate of a coordinate.
+     */
+    private int tile(double v) {
+        return (int) Math.floor(v / tileSize);
+    }
+
+    /**
+     * Gets the key of a tile.
+     */
+    private static Long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
@@ -0,0 +1,92 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.geom.Rectangle2D;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+
+/**
+ * A design rule violation between two components that are spaced too close
+ * together. The geometry is captured when the violation is found, so it does
+ * not follow later edits of the components.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class Violation {
+
+    private final Component a, b; // The offending components.
+    private final Rectangle2D.Double region; // Bounds of both components.
+    private final double clearance; // Measured clearance, 0 when touching.
+
+    /**
+     * Constructor.
+     *
+     * @param a first component.
+     * @param b second component.
+     * @param region the area covered by both components.
+     * @param clearance the measured clearance between a and b.
+     */
+    public Violation(Component a, Component b, Rectangle2D region, double clearance) {
+        this.a = a;
+        this.b = b;
+        this.region = new Rectangle2D.Double(region.getX(), region.getY(),
+                region.getWidth(), region.getHeight());
+        this.clearance = clearance;
+    }
+
+    /**
+     * @return the first offending component.
+     */
+    public Component getA() {
+        return a;
+    }
+
+    /**
+     * @return the second offending component.
+     */
+    public Component getB() {
+        return b;
+    }
+
+    /**
+     * Gets the area covered by both components when the violation was found.
+     *
+     * @return a copy of the region.
+     */
+    public Rectangle2D getRegion() {
+        return (Rectangle2D) region.clone();
+    }
+
+    /**
+     * Gets the measured clearance between the components. Overlapping
+     * components have a clearance of 0.
+     *
+     * @return the clearance.
+     */
+    public double getClearance() {
+        return clearance;
+    }
+
+    @Override
+    public String toString() {
+        return kind(a) + ": " + a + " And " + kind(b) + ": " + b;
+    }
+
+    /**
+     * Gets the kind of a component as shown to the user.
+     *
+     * @param c the component.
+     * @return the kind of c.
+     */
+    public static String kind(Component c) {
+        if (c instanceof Part) {
+            return "Part";
+        } else if (c instanceof Pad) {
+            return "Pad";
+        } else if (c instanceof Segment) {
+            return "Segment";
+        }
+        return "Component";
+    }
+}
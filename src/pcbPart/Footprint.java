@@ -6,6 +6,7 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import pcbPrimitives.Pad;
@@ -121,6 +122,21 @@ public class Footprint implements Component {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    @Override
+    public Rectangle2D getPaddedBounds(double padding) {
+        Rectangle2D bounds = null;
+        for(Pad pad : pads) {
+            if(bounds == null) {
+                bounds = pad.getPaddedBounds(padding);
+            } else {
+                bounds.add(pad.getPaddedBounds(padding));
+            }
+        }
+        
+        return bounds == null ? 
+                new Rectangle2D.Double(center.x, center.y, 0, 0) : bounds;
+    }
+
     @Override
     public Point2D.Double getP() {
         return (Point2D.Double) center.clone();
@@ -0,0 +1,172 @@
+package pcbPart;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.Serializable;
+import java.util.ArrayList;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ * The pads and outline of a footprint, shared by all parts placed from it.
+ *
+ * The geometry is stored once, relative to the center of the footprint and
+ * before any rotation of the part, in primitive arrays. A placed part only
+ * refers to its template and keeps its own placement transform, and the
+ * centers of its pads are the template's transformed by the placement.
+ * Templates are immutable.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class FootprintTemplate implements Serializable {
+
+    // Largest difference between a pad and its place in the template, in
+    // world units, that still matches. Moved pads pick up rounding errors.
+    private static final double EPSILON = 1e-6;
+
+    private final double[] centers; // Pad centers relative to the footprint center, x and y.
+    private final double[] ring, hole; // Annular ring and hole diameters.
+    private final Color[] colors;
+    private final boolean[] visible;
+    private final double width, height; // Size of the outline.
+
+    private FootprintTemplate(int n, double width, double height) {
+        centers = new double[2 * n];
+        ring = new double[n];
+        hole = new double[n];
+        colors = new Color[n];
+        visible = new boolean[n];
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Makes a template of the footprint of a part, as it was before the part
+     * was rotated.
+     *
+     * @param part the part, its pads must all be through hole pads.
+     * @return the template.
+     * @throws IllegalArgumentException if part has other pads.
+     */
+    public static FootprintTemplate of(Part part) {
+        ArrayList<Pad> pads = part.getFootprint().getPads();
+        FootprintTemplate t = new FootprintTemplate(pads.size(),
+                part.getWidth(), part.getHeight());
+        Point2D.Double c = part.getFootprint().getP();
+        for (int i = 0; i < pads.size(); i++) {
+            if (!(pads.get(i) instanceof ThPad)) {
+                throw new IllegalArgumentException("Not a through hole pad: " + pads.get(i));
+            }
+            ThPad pad = (ThPad) pads.get(i);
+            t.centers[2 * i] = pad.getCenterX() - c.x;
+            t.centers[2 * i + 1] = pad.getCenterY() - c.y;
+            t.ring[i] = pad.getRingDiam();
+            t.hole[i] = pad.getHoleDiam();
+            t.colors[i] = pad.getColor();
+            t.visible[i] = pad.getVisible();
+        }
+
+        // Turn the pads back to where they were before the part was rotated.
+        AffineTransform.getRotateInstance(-part.getAngle())
+                .transform(t.centers, 0, t.centers, 0, pads.size());
+        return t;
+    }
+
+    /**
+     * Places a new part from this template.
+     *
+     * @param id the id of the part.
+     * @param name the name of the part.
+     * @param center the center of the footprint.
+     * @param angle the rotation of the part, see Part.rotate.
+     * @return the new part.
+     */
+    public Part place(String id, String name, Point2D.Double center, double angle) {
+        AffineTransform at = AffineTransform.getTranslateInstance(center.x, center.y);
+        at.rotate(angle);
+        double[] p = new double[centers.length];
+        at.transform(centers, 0, p, 0, ring.length);
+
+        Pad[] pads = new Pad[ring.length];
+        for (int i = 0; i < pads.length; i++) {
+            pads[i] = new ThPad(new Point2D.Double(p[2 * i], p[2 * i + 1]),
+                    ring[i], hole[i], colors[i], visible[i]);
+        }
+        return new Part(id, name, new Footprint(
+                new Point2D.Double(center.x, center.y), pads), this, angle);
+    }
+
+    /**
+     * Moves the pads of a part placed from this template to their places
+     * under a new placement, without telling their listeners.
+     *
+     * @param placement the placement of the part.
+     * @param pads the pads of the part.
+     */
+    void moveTo(AffineTransform placement, ArrayList<Pad> pads) {
+        double[] p = new double[centers.length];
+        placement.transform(centers, 0, p, 0, ring.length);
+        for (int i = 0; i < ring.length; i++) {
+            ((ThPad) pads.get(i)).setCenter(p[2 * i], p[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Checks if a part still has the footprint of this template, in its
+     * current placement.
+     *
+     * @param part the part.
+     * @return true if the pads and outline of part are those of this
+     * template.
+     */
+    public boolean matches(Part part) {
+        ArrayList<Pad> pads = part.getFootprint().getPads();
+        if (pads.size() != ring.length || part.getWidth() != width
+                || part.getHeight() != height) {
+            return false;
+        }
+        double[] p = new double[centers.length];
+        part.getTransform().transform(centers, 0, p, 0, ring.length);
+        for (int i = 0; i < ring.length; i++) {
+            if (!(pads.get(i) instanceof ThPad)) {
+                return false;
+            }
+            ThPad pad = (ThPad) pads.get(i);
+            if (Math.abs(pad.getCenterX() - p[2 * i]) > EPSILON
+                    || Math.abs(pad.getCenterY() - p[2 * i + 1]) > EPSILON
+                    || pad.getRingDiam() != ring[i] || pad.getHoleDiam() != hole[i]
+                    || !colors[i].equals(pad.getColor()) || visible[i] != pad.getVisible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of pads.
+     *
+     * @return the number of pads.
+     */
+    public int getPadCount() {
+        return ring.length;
+    }
+
+    /**
+     * Gets the width of the outline before any rotation.
+     *
+     * @return the width.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the outline before any rotation.
+     *
+     * @return the height.
+     */
+    public double getHeight() {
+        return height;
+    }
+}
@@ -10,11 +10,17 @@ import java.awt.Stroke;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import pcbPrimitives.Geometry;
 import pcbPrimitives.Pad;
 
 /**
@@ -25,14 +31,19 @@ public final class Part implements Component, Cloneable {
 
     // Listeners
     private ArrayList<ActionListener> actionListeners;
+    private transient ArrayList<ChangeListener> viewListeners; // Told once about every rotation.
     
     private Footprint fp;
-    private Rectangle2D.Double ol; // The outline
+    private Rectangle2D.Double ol; // Bounds of the outline
     private boolean selected;
     private transient Stroke defaultStroke;
     private String name;
     private String partId;
-    private double width, height;
+    private double width, height; // Size of the outline before rotation.
+    private double angle; // Rotation about the footprint center, see rotate.
+    private FootprintTemplate template; // Shared by the parts cloned from this.
+    private transient AffineTransform placement; // Center and rotation, made when needed.
+    private transient Path2D.Double outline; // Rotated outline, made when needed.
 
     Shape s;
 
@@ -66,6 +77,23 @@ public final class Part implements Component, Cloneable {
         this.height = height;
     }
 
+    /**
+     * Constructor of parts placed from a template.
+     *
+     * @param id the id.
+     * @param name the name.
+     * @param footprint the footprint, with pads made from template.
+     * @param template the template.
+     * @param angle the rotation of the footprint.
+     */
+    Part(String id, String name, Footprint footprint, FootprintTemplate template,
+            double angle) {
+        this(id, name, footprint, template.getWidth(), template.getHeight());
+        this.template = template;
+        this.angle = normalize(angle);
+        layOut();
+    }
+
     /**
      * Sets the name of this part.
      *
@@ -101,6 +129,116 @@ public final class Part implements Component, Cloneable {
     public Footprint getFootprint() {
         return fp;
     }
+
+    /**
+     * Gets the bounds of the outline. They are the outline itself unless
+     * the part is rotated by other than a multiple of 90 degrees.
+     *
+     * @return the rectangle outlining this part.
+     */
+    public Rectangle2D getOutline() {
+        return ol;
+    }
+
+    /**
+     * Gets the outline, rotated with the part.
+     *
+     * @return the outline.
+     */
+    public Shape getOutlineShape() {
+        if (outline == null) {
+            AffineTransform at = placement();
+            double hw = width / 2;
+            double hh = height / 2;
+            double cos = at.getScaleX();
+            double sin = at.getShearY();
+            outline = new Path2D.Double();
+            for (int i = 0; i < 4; i++) {
+                double x = Geometry.cornerX(at.getTranslateX(), hw, hh, cos, sin, i);
+                double y = Geometry.cornerY(at.getTranslateY(), hw, hh, cos, sin, i);
+                if (i == 0) {
+                    outline.moveTo(x, y);
+                } else {
+                    outline.lineTo(x, y);
+                }
+            }
+            outline.closePath();
+        }
+        return outline;
+    }
+
+    /**
+     * Gets the placement of this part, the transform from the template of
+     * its footprint to the board.
+     *
+     * @return a copy of the transform.
+     */
+    public AffineTransform getTransform() {
+        return new AffineTransform(placement());
+    }
+
+    /**
+     * Gets the placement, made once per move or rotation.
+     */
+    private AffineTransform placement() {
+        if (placement == null) {
+            Point2D.Double c = fp.getP();
+            placement = AffineTransform.getTranslateInstance(c.x, c.y);
+            placement.rotate(angle);
+        }
+        return placement;
+    }
+
+    /**
+     * Checks if this part is rotated by a multiple of 90 degrees, so that
+     * the outline is its own bounds.
+     *
+     * @return true if the outline is axis aligned.
+     */
+    public boolean isAligned() {
+        return (placement().getType() & AffineTransform.TYPE_GENERAL_ROTATION) == 0;
+    }
+
+    /**
+     * Gets the width of the outline before the part was rotated.
+     *
+     * @return the width.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the outline before the part was rotated.
+     *
+     * @return the height.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the rotation of this part.
+     *
+     * @return the angle in radians, from 0 to 2 pi, see rotate.
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Gets the template that the parts cloned from this part are placed
+     * from. It is made on the first call, and again if the pads of this
+     * part have been changed since.
+     *
+     * @return the template.
+     */
+    public FootprintTemplate getTemplate() {
+        if (template == null || !template.matches(this)) {
+            template = FootprintTemplate.of(this);
+        }
+        return template;
+    }
     
     /**
      * Add an actionlistener.
@@ -119,6 +257,29 @@ public final class Part implements Component, Cloneable {
     public void removeActionListener(ActionListener listener) {
         actionListeners.remove(listener);
     }
+
+    /**
+     * Adds a listener that is told once about every rotation of this part,
+     * after all of its pads have moved. It is not saved with the part.
+     *
+     * @param l the listener.
+     */
+    public void addViewListener(ChangeListener l) {
+        if (viewListeners == null) {
+            viewListeners = new ArrayList<>();
+        }
+        viewListeners.add(l);
+    }
+
+    /**
+     * Removes the specified view listener from this part.
+     *
+     * @param l the listener to remove.
+     * @return true if successful else false.
+     */
+    public boolean removeViewListener(ChangeListener l) {
+        return viewListeners != null && viewListeners.remove(l);
+    }
     
     /**
      * Rotate part 90 degrees.
@@ -127,32 +288,111 @@ public final class Part implements Component, Cloneable {
      * else it will be rotated 90 degrees counterclockwise.
      */
     public void rot90(boolean clockwise) {
-        if (clockwise) {
-            for (Pad pad : fp.getPads()) {
-                pad.translate(new Point2D.Double(
-                        fp.getP().x - fp.getP().y + pad.getP().y - pad.getP().x,
-                        fp.getP().x + fp.getP().y - pad.getP().x - pad.getP().y
-                ));
+        rotate(clockwise ? -Math.PI / 2 : Math.PI / 2);
+    }
+
+    /**
+     * Rotates this part about the center of its footprint. The angle turns
+     * the x axis towards the y axis, as an AffineTransform, so rot90(true)
+     * is rotate(-Math.PI / 2).
+     *
+     * The pads are placed from the template of the footprint, so turns do
+     * not add up rounding errors, and the listeners of the pads and of this
+     * part are told once when all pads have moved.
+     *
+     * @param theta the angle to rotate by, in radians.
+     */
+    public void rotate(double theta) {
+        FootprintTemplate t = getTemplate();
+        angle = normalize(angle + theta);
+        placement = null;
+        t.moveTo(placement(), fp.getPads());
+        layOut();
+        fireStateChanged();
+    }
+
+    /**
+     * Sets the rotation of a part whose pads are already in place, as when
+     * the part is read. The pads are not moved.
+     *
+     * @param angle the rotation, see rotate.
+     * @param width the width of the outline before rotation.
+     * @param height the height of the outline before rotation.
+     */
+    public void setRotation(double angle, double width, double height) {
+        this.angle = normalize(angle);
+        this.width = width;
+        this.height = height;
+        placement = null;
+        layOut();
+        fireStateChanged();
+    }
+
+    /**
+     * Brings an angle into 0 to 2 pi, and onto a multiple of 90 degrees if
+     * it is that but for rounding, so quarter turns stay exact.
+     */
+    private static double normalize(double angle) {
+        double a = angle % (2 * Math.PI);
+        if (a < 0) {
+            a += 2 * Math.PI;
+        }
+        double quarters = Math.rint(a / (Math.PI / 2));
+        if (Math.abs(a - quarters * (Math.PI / 2)) < 1e-12) {
+            a = quarters == 4 ? 0 : quarters * (Math.PI / 2);
+        }
+        return a;
+    }
+
+    /**
+     * Makes the bounds of the outline from the placement.
+     */
+    private void layOut() {
+        AffineTransform at = placement();
+        double cos = Math.abs(at.getScaleX());
+        double sin = Math.abs(at.getShearY());
+        double ex = cos * width / 2 + sin * height / 2;
+        double ey = sin * width / 2 + cos * height / 2;
+        ol = new Rectangle2D.Double(at.getTranslateX() - ex, at.getTranslateY() - ey,
+                2 * ex, 2 * ey);
+        outline = null;
+    }
+
+    /**
+     * Tells the segments at the pads and the view listeners that this part
+     * has changed.
+     */
+    private void fireStateChanged() {
+        ChangeEvent e = new ChangeEvent(this);
+        for (Pad pad : fp.getPads()) {
+            for (ChangeListener l : pad.getListeners()) {
+                l.stateChanged(e);
             }
-        } else {
-            for (Pad pad : fp.getPads()) {
-                pad.translate(new Point2D.Double(
-                        fp.getP().x + fp.getP().y - pad.getP().x - pad.getP().y,
-                        fp.getP().y - fp.getP().x + pad.getP().x - pad.getP().y
-                ));
+        }
+        if (viewListeners != null) {
+            for (ChangeListener l : viewListeners) {
+                l.stateChanged(e);
             }
         }
+    }
 
-        // Change the outline
-        double width1 = ol.width;
-        ol.width = ol.height;
-        ol.height = width1;
+    /**
+     * Tells the action listeners that this part was changed from its
+     * context menu.
+     */
+    private void fireActionPerformed(ActionEvent e) {
+        for (ActionListener listener : actionListeners) {
+            if (listener == null) {
+                continue;
+            }
 
-        ol = new Rectangle2D.Double(
-                fp.getP().x - ol.width / 2,
-                fp.getP().y - ol.height / 2,
-                ol.width, ol.height
-        );
+            EventQueue.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    listener.actionPerformed(e);
+                }
+            });
+        }
     }
 
     /**
@@ -166,18 +406,7 @@ public final class Part implements Component, Cloneable {
             @Override
             public void actionPerformed(ActionEvent e) {
                 rot90(true);
-                for(ActionListener listener : actionListeners) {
-                    if (listener == null) {
-                        continue;
-                    }
-                    
-                    EventQueue.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            listener.actionPerformed(e);
-                        }
-                    });
-                }
+                fireActionPerformed(e);
             }
         });
         
@@ -185,22 +414,30 @@ public final class Part implements Component, Cloneable {
         
         ccw.addActionListener((ActionEvent e) -> {
             rot90(false);
-            for(ActionListener listener : actionListeners) {
-                if (listener == null) {
-                        continue;
-                    }
-                    
-                    EventQueue.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            listener.actionPerformed(e);
-                        }
-                    });
+            fireActionPerformed(e);
+        });
+        
+        JMenuItem any = new JMenuItem("Rotate...");
+        
+        any.addActionListener((ActionEvent e) -> {
+            String deg = JOptionPane.showInputDialog(evt.getComponent(),
+                    "Degrees clockwise:", "Rotate " + getName(),
+                    JOptionPane.QUESTION_MESSAGE);
+            if (deg == null) {
+                return;
+            }
+            try {
+                rotate(-Math.toRadians(Double.parseDouble(deg.trim())));
+                fireActionPerformed(e);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(evt.getComponent(), "\"" + deg
+                        + "\" is not a number!", "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
         
         m.add(cw);
         m.add(ccw);
+        m.add(any);
 
         // Show the context menu
         m.show(evt.getComponent(), evt.getX(), evt.getY());
@@ -221,7 +458,7 @@ public final class Part implements Component, Cloneable {
     public void draw(Graphics2D g) {
         fp.draw(g);
         g.setColor(Color.yellow);
-        g.draw(ol);
+        g.draw(isAligned() ? ol : getOutlineShape());
     }
 
     @Override
@@ -235,7 +472,7 @@ public final class Part implements Component, Cloneable {
                 4f, BasicStroke.CAP_ROUND,
                 BasicStroke.JOIN_ROUND
         ));
-        g.draw(ol);
+        g.draw(isAligned() ? ol : getOutlineShape());
 
         g.setStroke(defaultStroke);
     }
@@ -244,12 +481,20 @@ public final class Part implements Component, Cloneable {
     public void translate(Point2D.Double delta) {
         ol.x += delta.x;
         ol.y += delta.y;
+        placement = null;
+        outline = null;
         fp.translate(delta);
     }
 
     @Override
     public boolean contains(Point2D.Double p) {
-        return ol.contains(p);
+        if (isAligned()) {
+            return Geometry.rectContains(ol.x, ol.y, ol.x + ol.width, ol.y + ol.height,
+                    p.x, p.y);
+        }
+        AffineTransform at = placement();
+        return Geometry.rectContains(at.getTranslateX(), at.getTranslateY(),
+                width / 2, height / 2, at.getScaleX(), at.getShearY(), p.x, p.y);
     }
 
     @Override
@@ -269,13 +514,25 @@ public final class Part implements Component, Cloneable {
 
     @Override
     public Shape getPaddedOutline(double padding) {
-        BasicStroke stroke = new BasicStroke(
-                (float) (padding * 2 + 1),
-                BasicStroke.CAP_ROUND,
-                BasicStroke.JOIN_ROUND
-        );
+        // The outline is a line of width 1.
+        if (isAligned()) {
+            return Geometry.frameOutline(ol, padding + 0.5);
+        }
+        AffineTransform at = AffineTransform.getRotateInstance(angle,
+                placement().getTranslateX(), placement().getTranslateY());
+        return at.createTransformedShape(Geometry.frameOutline(new Rectangle2D.Double(
+                placement().getTranslateX() - width / 2,
+                placement().getTranslateY() - height / 2, width, height), padding + 0.5));
+    }
 
-        return stroke.createStrokedShape(ol);
+    @Override
+    public Rectangle2D getPaddedBounds(double padding) {
+        // The outline is stroked with a width of padding * 2 + 1.
+        Rectangle2D bounds = new Rectangle2D.Double(
+                ol.x - padding - 0.5, ol.y - padding - 0.5,
+                ol.width + padding * 2 + 1, ol.height + padding * 2 + 1);
+        bounds.add(fp.getPaddedBounds(padding));
+        return bounds;
     }
 
     @Override
@@ -296,19 +553,6 @@ public final class Part implements Component, Cloneable {
 
     @Override
     public Object clone() throws CloneNotSupportedException {
-        ArrayList<Pad> pads = new ArrayList<>();
-        for (Pad pad : fp.getPads()) {
-            pads.add(pad.clone());
-        }
-
-        Pad[] padAr = new Pad[pads.size()];
-
-        for (int i = 0; i < pads.size(); i++) {
-            padAr[i] = pads.get(i);
-        }
-
-        return new Part(partId, name,
-                new Footprint(new Point2D.Double(fp.getP().x, fp.getP().y), padAr),
-                width, height);
+        return getTemplate().place(partId, name, fp.getP(), angle);
     }
 }
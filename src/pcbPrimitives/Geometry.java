@@ -0,0 +1,287 @@
+package pcbPrimitives;
+
+import java.awt.Shape;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+
+/**
+ * Geometry of the primitive shapes that make up a board: circles (pad
+ * rings), capsules (segments, a line with round caps) and rectangles (part
+ * outlines), either axis aligned or rotated.
+ *
+ * All shapes are given as plain doubles and the distance, containment and
+ * clearance queries do not allocate. Only the outline methods create Shapes,
+ * for drawing and for the rare cases that need java.awt.geom.
+ *
+ * A rotated rectangle is given by its centre (cx, cy), its half width and
+ * half height (hw, hh) and the cosine and sine of its rotation.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class Geometry {
+
+    private Geometry() {
+    }
+
+    // ------------------------------------------------------------ Distances
+
+    /**
+     * Squared distance between the point (px, py) and the line segment
+     * (x0, y0) - (x1, y1).
+     */
+    public static double pointSegmentDistSq(double px, double py,
+            double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double len2 = dx * dx + dy * dy;
+        double t = 0;
+        if (len2 > 0) {
+            t = ((px - x0) * dx + (py - y0) * dy) / len2;
+            t = Math.max(0, Math.min(1, t));
+        }
+
+        double ex = x0 + t * dx - px;
+        double ey = y0 + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Distance between the point (px, py) and the line segment (x0, y0) -
+     * (x1, y1).
+     */
+    public static double pointSegmentDist(double px, double py,
+            double x0, double y0, double x1, double y1) {
+        return Math.sqrt(pointSegmentDistSq(px, py, x0, y0, x1, y1));
+    }
+
+    /**
+     * Distance between the line segments (ax0, ay0) - (ax1, ay1) and
+     * (bx0, by0) - (bx1, by1).
+     */
+    public static double segmentSegmentDist(double ax0, double ay0, double ax1, double ay1,
+            double bx0, double by0, double bx1, double by1) {
+        if (segmentsCross(ax0, ay0, ax1, ay1, bx0, by0, bx1, by1)) {
+            return 0;
+        }
+
+        // Without a crossing the closest pair involves an endpoint.
+        return Math.sqrt(Math.min(
+                Math.min(pointSegmentDistSq(ax0, ay0, bx0, by0, bx1, by1),
+                        pointSegmentDistSq(ax1, ay1, bx0, by0, bx1, by1)),
+                Math.min(pointSegmentDistSq(bx0, by0, ax0, ay0, ax1, ay1),
+                        pointSegmentDistSq(bx1, by1, ax0, ay0, ax1, ay1))));
+    }
+
+    /**
+     * Checks if two line segments cross each other.
+     */
+    public static boolean segmentsCross(double ax0, double ay0, double ax1, double ay1,
+            double bx0, double by0, double bx1, double by1) {
+        double d1 = cross(bx1 - bx0, by1 - by0, ax0 - bx0, ay0 - by0);
+        double d2 = cross(bx1 - bx0, by1 - by0, ax1 - bx0, ay1 - by0);
+        double d3 = cross(ax1 - ax0, ay1 - ay0, bx0 - ax0, by0 - ay0);
+        double d4 = cross(ax1 - ax0, ay1 - ay0, bx1 - ax0, by1 - ay0);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0))
+                && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    private static double cross(double x0, double y0, double x1, double y1) {
+        return x0 * y1 - y0 * x1;
+    }
+
+    // ---------------------------------------------------------- Containment
+
+    /**
+     * Checks if the circle with centre (cx, cy) and radius r contains the
+     * point (px, py).
+     */
+    public static boolean circleContains(double cx, double cy, double r,
+            double px, double py) {
+        double dx = px - cx;
+        double dy = py - cy;
+        return dx * dx + dy * dy <= r * r;
+    }
+
+    /**
+     * Checks if the capsule around (x0, y0) - (x1, y1) with radius r contains
+     * the point (px, py).
+     */
+    public static boolean capsuleContains(double x0, double y0, double x1, double y1,
+            double r, double px, double py) {
+        return pointSegmentDistSq(px, py, x0, y0, x1, y1) <= r * r;
+    }
+
+    /**
+     * Checks if the axis aligned rectangle (x0, y0) - (x1, y1) contains the
+     * point (px, py).
+     */
+    public static boolean rectContains(double x0, double y0, double x1, double y1,
+            double px, double py) {
+        return px >= x0 && px <= x1 && py >= y0 && py <= y1;
+    }
+
+    /**
+     * Checks if the rotated rectangle contains the point (px, py).
+     */
+    public static boolean rectContains(double cx, double cy, double hw, double hh,
+            double cos, double sin, double px, double py) {
+        // Rotate the point into the frame of the rectangle.
+        double dx = px - cx;
+        double dy = py - cy;
+        double u = dx * cos + dy * sin;
+        double v = -dx * sin + dy * cos;
+        return Math.abs(u) <= hw && Math.abs(v) <= hh;
+    }
+
+    // ----------------------------------------------------------- Clearance
+
+    /**
+     * Clearance between two circles, 0 if they overlap.
+     */
+    public static double circleCircleClearance(double ax, double ay, double ar,
+            double bx, double by, double br) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        return Math.max(0, Math.sqrt(dx * dx + dy * dy) - ar - br);
+    }
+
+    /**
+     * Clearance between a circle and a capsule, 0 if they overlap.
+     */
+    public static double circleCapsuleClearance(double cx, double cy, double cr,
+            double x0, double y0, double x1, double y1, double r) {
+        return Math.max(0, pointSegmentDist(cx, cy, x0, y0, x1, y1) - cr - r);
+    }
+
+    /**
+     * Clearance between two capsules, 0 if they overlap.
+     */
+    public static double capsuleCapsuleClearance(
+            double ax0, double ay0, double ax1, double ay1, double ar,
+            double bx0, double by0, double bx1, double by1, double br) {
+        return Math.max(0, segmentSegmentDist(ax0, ay0, ax1, ay1,
+                bx0, by0, bx1, by1) - ar - br);
+    }
+
+    /**
+     * Distance between the outlines of the axis aligned rectangles
+     * (ax0, ay0) - (ax1, ay1) and (bx0, by0) - (bx1, by1). The outlines are
+     * lines of no width, so the distance is 0 only where they cross, and a
+     * rectangle inside the other is as far away as its closest side.
+     */
+    public static double rectOutlineDist(double ax0, double ay0, double ax1, double ay1,
+            double bx0, double by0, double bx1, double by1) {
+        double dx = Math.max(0, Math.max(bx0 - ax1, ax0 - bx1));
+        double dy = Math.max(0, Math.max(by0 - ay1, ay0 - by1));
+        if (dx > 0 || dy > 0) {
+            return Math.sqrt(dx * dx + dy * dy); // Disjoint rectangles.
+        }
+
+        if (bx0 > ax0 && bx1 < ax1 && by0 > ay0 && by1 < ay1) { // b inside a
+            return Math.min(Math.min(bx0 - ax0, ax1 - bx1), Math.min(by0 - ay0, ay1 - by1));
+        } else if (ax0 > bx0 && ax1 < bx1 && ay0 > by0 && ay1 < by1) { // a inside b
+            return Math.min(Math.min(ax0 - bx0, bx1 - ax1), Math.min(ay0 - by0, by1 - ay1));
+        }
+        return 0; // The outlines cross.
+    }
+
+    /**
+     * Distance between the outlines of two rotated rectangles, see
+     * rectOutlineDist for the axis aligned case.
+     */
+    public static double rectOutlineDist(
+            double acx, double acy, double ahw, double ahh, double acos, double asin,
+            double bcx, double bcy, double bhw, double bhh, double bcos, double bsin) {
+        // The closest points of two outlines are always on a pair of sides.
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < 4; i++) {
+            double ax0 = cornerX(acx, ahw, ahh, acos, asin, i);
+            double ay0 = cornerY(acy, ahw, ahh, acos, asin, i);
+            double ax1 = cornerX(acx, ahw, ahh, acos, asin, i + 1);
+            double ay1 = cornerY(acy, ahw, ahh, acos, asin, i + 1);
+            for (int j = 0; j < 4; j++) {
+                double d = segmentSegmentDist(ax0, ay0, ax1, ay1,
+                        cornerX(bcx, bhw, bhh, bcos, bsin, j),
+                        cornerY(bcy, bhw, bhh, bcos, bsin, j),
+                        cornerX(bcx, bhw, bhh, bcos, bsin, j + 1),
+                        cornerY(bcy, bhw, bhh, bcos, bsin, j + 1));
+                if (d < min) {
+                    min = d;
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Gets the x coordinate of corner i, counted modulo 4, of a rotated
+     * rectangle.
+     */
+    public static double cornerX(double cx, double hw, double hh,
+            double cos, double sin, int i) {
+        double u = ((i + 1) & 2) == 0 ? -hw : hw;
+        double v = (i & 2) == 0 ? -hh : hh;
+        return cx + u * cos - v * sin;
+    }
+
+    /**
+     * Gets the y coordinate of corner i, counted modulo 4, of a rotated
+     * rectangle.
+     */
+    public static double cornerY(double cy, double hw, double hh,
+            double cos, double sin, int i) {
+        double u = ((i + 1) & 2) == 0 ? -hw : hw;
+        double v = (i & 2) == 0 ? -hh : hh;
+        return cy + u * sin + v * cos;
+    }
+
+    // ------------------------------------------------------------ Outlines
+
+    /**
+     * Gets the outline of a circle.
+     */
+    public static Shape circleOutline(double cx, double cy, double r) {
+        return new Ellipse2D.Double(cx - r, cy - r, 2 * r, 2 * r);
+    }
+
+    /**
+     * Gets the outline of a capsule, the same area as a line of width 2 * r
+     * with round caps.
+     */
+    public static Shape capsuleOutline(double x0, double y0, double x1, double y1, double r) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double len = Math.sqrt(dx * dx + dy * dy);
+        if (len == 0) {
+            return circleOutline(x0, y0, r);
+        }
+
+        // Arc2D measures angles counter clockwise with y pointing up. The
+        // cap at the far end starts a quarter turn before the direction.
+        double a = Math.toDegrees(Math.atan2(-dy, dx)) + 90;
+        Path2D.Double path = new Path2D.Double();
+        path.append(new Arc2D.Double(x1 - r, y1 - r, 2 * r, 2 * r, a, -180, Arc2D.OPEN), false);
+        path.append(new Arc2D.Double(x0 - r, y0 - r, 2 * r, 2 * r, a + 180, -180, Arc2D.OPEN), true);
+        path.closePath();
+        return path;
+    }
+
+    /**
+     * Gets the outline of the frame of width 2 * r around the sides of an
+     * axis aligned rectangle, the same area as the rectangle drawn with a
+     * line of width 2 * r and round joins.
+     */
+    public static Shape frameOutline(Rectangle2D rect, double r) {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        path.append(new RoundRectangle2D.Double(rect.getX() - r, rect.getY() - r,
+                rect.getWidth() + 2 * r, rect.getHeight() + 2 * r, 2 * r, 2 * r), false);
+        if (rect.getWidth() > 2 * r && rect.getHeight() > 2 * r) {
+            path.append(new Rectangle2D.Double(rect.getX() + r, rect.getY() + r,
+                    rect.getWidth() - 2 * r, rect.getHeight() - 2 * r), false);
+        }
+        return path;
+    }
+}
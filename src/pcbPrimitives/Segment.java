@@ -3,13 +3,13 @@ package pcbPrimitives;
 
 import graphPrimitives.Component;
 import graphPrimitives.Vertex;
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -87,6 +87,24 @@ public class Segment implements Component, ChangeListener, Serializable {
      */
     public void setWidth(double width) {
         this.width = width;
+        fireChanged();
+    }
+    
+    /**
+     * Gets the center line of this segment. The line is kept up to date 
+     * when the endpoints move and must not be modified.
+     * @return the center line.
+     */
+    public Line2D getLine() {
+        return line;
+    }
+    
+    /**
+     * Gets the width of this segment.
+     * @return the width.
+     */
+    public double getWidth() {
+        return width;
     }
     
     @Override
@@ -102,8 +120,7 @@ public class Segment implements Component, ChangeListener, Serializable {
     @Override
     public void draw(Graphics2D g) {
         defStroke = g.getStroke();
-        g.setStroke(new BasicStroke((float) width, BasicStroke.CAP_ROUND, 
-                BasicStroke.JOIN_ROUND));
+        g.setStroke(StrokeCache.get(width));
         g.setColor(color);
         g.draw(line);
         g.setStroke(defStroke);
@@ -112,8 +129,7 @@ public class Segment implements Component, ChangeListener, Serializable {
     @Override
     public void drawSelected(Graphics2D g) {       
         defStroke = g.getStroke();
-        g.setStroke(new BasicStroke((float) width, BasicStroke.CAP_ROUND, 
-                BasicStroke.JOIN_ROUND));
+        g.setStroke(StrokeCache.get(width));
         g.setColor(color.brighter());
         g.draw(line);
         g.setStroke(defStroke);
@@ -129,13 +145,14 @@ public class Segment implements Component, ChangeListener, Serializable {
 
     @Override
     public boolean contains(Point2D.Double p) {
-        return new BasicStroke((float)width, BasicStroke.CAP_ROUND, 
-                BasicStroke.JOIN_ROUND).createStrokedShape(line).contains(p);
+        return Geometry.capsuleContains(line.x1, line.y1, line.x2, line.y2, 
+                width / 2, p.x, p.y);
     }
 
     @Override
     public void setColor(Color color) {
         this.color = color;
+        fireChanged();
     }
 
     @Override
@@ -150,6 +167,16 @@ public class Segment implements Component, ChangeListener, Serializable {
     @Override
     public void stateChanged(ChangeEvent e) {
         line.setLine(p0.getP(), p1.getP());
+        fireChanged();
+    }
+
+    /**
+     * Tells the net of this segment that the segment has changed.
+     */
+    private void fireChanged() {
+        if (net != null) {
+            net.segmentChanged(this);
+        }
     }
 
     @Override
@@ -171,9 +198,18 @@ public class Segment implements Component, ChangeListener, Serializable {
 
     @Override
     public Shape getPaddedOutline(double padding) {
-        BasicStroke stroke = new BasicStroke((float) (width + padding * 2), 
-                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-        return stroke.createStrokedShape(line);
+        return Geometry.capsuleOutline(line.x1, line.y1, line.x2, line.y2, 
+                width / 2 + padding);
+    }
+
+    @Override
+    public Rectangle2D getPaddedBounds(double padding) {
+        double r = width / 2 + padding;
+        double x0 = Math.min(line.x1, line.x2) - r;
+        double y0 = Math.min(line.y1, line.y2) - r;
+        return new Rectangle2D.Double(x0, y0, 
+                Math.abs(line.x2 - line.x1) + 2 * r, 
+                Math.abs(line.y2 - line.y1) + 2 * r);
     }
 
     @Override
@@ -0,0 +1,36 @@
+package pcbPrimitives;
+
+import graph.ST;
+import java.awt.BasicStroke;
+
+/**
+ * Shared strokes for drawing traces, one per width. Strokes are immutable,
+ * so the same instance can be used by all segments of the same width instead
+ * of creating a new stroke on every draw.
+ *
+ * @author Albin Hjalmas.
+ */
+public final class StrokeCache {
+
+    private static final ST<Double, BasicStroke> STROKES = new ST<>(); // By width.
+
+    private StrokeCache() {
+    }
+
+    /**
+     * Gets the stroke for a trace of the specified width, with round caps and
+     * joins.
+     *
+     * @param width the width of the trace.
+     * @return the shared stroke.
+     */
+    public static synchronized BasicStroke get(double width) {
+        BasicStroke stroke = STROKES.get(width);
+        if (stroke == null) {
+            stroke = new BasicStroke((float) width, BasicStroke.CAP_ROUND,
+                    BasicStroke.JOIN_ROUND);
+            STROKES.add(width, stroke);
+        }
+        return stroke;
+    }
+}
@@ -6,8 +6,7 @@ import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Point2D;
-import javax.swing.event.ChangeEvent;
-import javax.swing.event.ChangeListener;
+import java.awt.geom.Rectangle2D;
 import pcbEditor.Net;
 
 /**
@@ -19,9 +18,9 @@ public final class ThPad extends Pad {
     private Net net; // A reference to the net that this pad belongs to.
     private boolean visible; // The visibility state of this component
     private Color color;
-    private Ellipse2D.Double ring; // Annular ring
-    private Ellipse2D.Double hole; // Hole
-    private Point2D.Double p;
+    private double x, y; // Center
+    private double ringDiam; // Annular ring diameter
+    private double holeDiam; // Hole diameter
     
     /**
      * Constructor.
@@ -33,13 +32,10 @@ public final class ThPad extends Pad {
      */
     public ThPad(Point2D.Double p, 
             double ringDiam, double holeDiam, Color color, boolean visible) {
-        this.p = p;
-        ring = new Ellipse2D.Double(p.x - ringDiam/2, p.y - ringDiam/2, 
-                ringDiam, ringDiam);
-        
-        hole = new Ellipse2D.Double(p.x - holeDiam/2, p.y - holeDiam/2, 
-                holeDiam, holeDiam);
-        
+        x = p.x;
+        y = p.y;
+        this.ringDiam = ringDiam;
+        this.holeDiam = holeDiam;
         this.color = color;
         this.visible = visible;
     }
@@ -49,8 +45,40 @@ public final class ThPad extends Pad {
      * @param diam the new diameter.
      */
     public void setRingDiam(double diam) {
-        ring = new Ellipse2D.Double(p.x - diam/2, p.y - diam/2, 
-                diam, diam);
+        ringDiam = diam;
+        fireStateChanged();
+    }
+    
+    /**
+     * Gets the x coordinate of the center of this pad.
+     * @return center x.
+     */
+    public double getCenterX() {
+        return x;
+    }
+    
+    /**
+     * Gets the y coordinate of the center of this pad.
+     * @return center y.
+     */
+    public double getCenterY() {
+        return y;
+    }
+    
+    /**
+     * Gets the annular ring diameter of this pad.
+     * @return the ring diameter.
+     */
+    public double getRingDiam() {
+        return ringDiam;
+    }
+    
+    /**
+     * Gets the hole diameter of this pad.
+     * @return the hole diameter.
+     */
+    public double getHoleDiam() {
+        return holeDiam;
     }
     
     /**
@@ -58,8 +86,8 @@ public final class ThPad extends Pad {
      * @param diam the new diameter.
      */
     public void setHoleDiam(double diam) {
-        hole = new Ellipse2D.Double(p.x - diam/2, p.y - diam/2, 
-                diam, diam);
+        holeDiam = diam;
+        fireStateChanged();
     }
     
     /**
@@ -102,25 +130,37 @@ public final class ThPad extends Pad {
     public void draw(Graphics2D g) {
         if(!visible) return;
         g.setColor(color);
-        g.fill(ring);
+        g.fill(circle(ringDiam));
         g.setColor(Color.BLACK);
-        g.fill(hole);
+        g.fill(circle(holeDiam));
     }
 
     @Override
     public void drawSelected(Graphics2D g) {
         if(!visible) return;
+        Ellipse2D ring = circle(ringDiam);
         g.setColor(color.brighter());
         g.fill(ring);
         g.setColor(Color.BLACK);
-        g.fill(hole);
+        g.fill(circle(holeDiam));
         g.setColor(Color.WHITE);
         g.draw(ring);
     }
+    
+    /**
+     * Makes a circle around the center of this pad. The shapes are only
+     * made when drawn, so that a pad is no more than its center and
+     * diameters.
+     * @param diam the diameter.
+     * @return the circle.
+     */
+    private Ellipse2D circle(double diam) {
+        return new Ellipse2D.Double(x - diam/2, y - diam/2, diam, diam);
+    }
 
     @Override
     public boolean contains(Point2D.Double p) {
-        return ring.contains(p);
+        return Geometry.circleContains(x, y, ringDiam/2, p.x, p.y);
     }
 
     @Override
@@ -135,14 +175,10 @@ public final class ThPad extends Pad {
 
     @Override
     public void translate(Point2D.Double delta) {
-        ring.x += delta.x;
-        ring.y += delta.y;
-        hole.x += delta.x;
-        hole.y += delta.y;
+        x += delta.x;
+        y += delta.y;
         
-        for(ChangeListener l : getListeners()) {
-            l.stateChanged(new ChangeEvent(this));
-        }
+        fireStateChanged();
     }
     
     /**
@@ -151,19 +187,26 @@ public final class ThPad extends Pad {
      */
     @Override
     public Point2D.Double getP() {
-        return new Point2D.Double(ring.x + ring.width/2, ring.y + ring.width/2);
+        return new Point2D.Double(x, y);
+    }
+    
+    /**
+     * Moves the center of this pad without telling the listeners. Used by
+     * Part to move all of its pads before it tells the listeners once.
+     * @param x the new center x.
+     * @param y the new center y.
+     */
+    public void setCenter(double x, double y) {
+        this.x = x;
+        this.y = y;
     }
     
     @Override
     public void setP(Point2D.Double p) {
-        ring.x = p.x - ring.getHeight()/2;
-        ring.y = p.y - ring.getHeight()/2;
-        hole.x = p.x - hole.getHeight()/2;
-        hole.y = p.y - hole.getHeight()/2;
+        x = p.x;
+        y = p.y;
         
-        for(ChangeListener l : getListeners()) {
-            l.stateChanged(new ChangeEvent(this));
-        }
+        fireStateChanged();
     }
     
     @Override
@@ -177,13 +220,17 @@ public final class ThPad extends Pad {
     
     @Override
     public Pad clone() {
-        return new ThPad(getP(), ring.getHeight(), hole.getHeight(), 
-                color, visible);
+        return new ThPad(getP(), ringDiam, holeDiam, color, visible);
     }
 
     @Override
     public Shape getPaddedOutline(double padding) {
-        return new Ellipse2D.Double(ring.x, ring.y, 
-                ring.height + padding * 2, ring.width + padding * 2);
+        return Geometry.circleOutline(x, y, ringDiam/2 + padding);
+    }
+
+    @Override
+    public Rectangle2D getPaddedBounds(double padding) {
+        return new Rectangle2D.Double(x - ringDiam/2 - padding, y - ringDiam/2 - padding, 
+                ringDiam + padding * 2, ringDiam + padding * 2);
     }
 }
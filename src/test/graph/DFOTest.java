@@ -5,6 +5,10 @@
  */
 package graph;
 
+import java.util.ArrayList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
 /**
  *
  * @author Albin Hjalmas.
@@ -34,4 +38,95 @@ public class DFOTest {
             }  
         }.run();
     }
+
+    /**
+     * Test that run visits every vertex once, also in disconnected graphs,
+     * and that the same DFO can be run repeatedly.
+     */
+    @Test
+    public void testRunDisconnected() {
+        System.out.println("runDisconnected");
+        Graph<String> g = new Graph<>("v1", "v2", "v3", "v4", "v5");
+        g.addE("v1", "v2");
+        g.addE("v4", "v5");
+        
+        ArrayList<String> visited = new ArrayList<>();
+        DFO<String> dfo = new DFO<String>(g) {
+            @Override
+            public void operation(String vertex) {
+                visited.add(vertex);
+            }
+        };
+        
+        for (int i = 0; i < 3; i++) {
+            visited.clear();
+            dfo.run();
+            assertEquals(5, visited.size());
+            for (String v : g.getVertices()) {
+                assertTrue(visited.contains(v));
+            }
+        }
+        
+        visited.clear();
+        dfo.runBfs();
+        assertEquals(5, visited.size());
+    }
+
+    /**
+     * Test of the component restricted traversals.
+     */
+    @Test
+    public void testRunFrom() {
+        System.out.println("runFrom");
+        Graph<String> g = new Graph<>("v1", "v2", "v3", "v4", "v5");
+        g.addE("v1", "v2");
+        g.addE("v2", "v3");
+        g.addE("v4", "v5");
+        
+        ArrayList<String> visited = new ArrayList<>();
+        DFO<String> dfo = new DFO<String>(g) {
+            @Override
+            public void operation(String vertex) {
+                visited.add(vertex);
+            }
+        };
+        
+        assertTrue(dfo.runFrom("v3"));
+        assertEquals(3, visited.size());
+        assertEquals("v3", visited.get(0));
+        assertFalse(visited.contains("v4"));
+        
+        visited.clear();
+        assertTrue(dfo.runBfsFrom("v5"));
+        assertEquals(2, visited.size());
+        
+        visited.clear();
+        assertFalse(dfo.runFrom("v6"));
+        assertTrue(visited.isEmpty());
+    }
+
+    /**
+     * Test that a long path does not overflow the stack.
+     */
+    @Test
+    public void testLongPath() {
+        System.out.println("longPath");
+        Graph<Integer> g = new Graph<>();
+        int n = 200000;
+        for (int i = 0; i < n; i++) {
+            g.addV(i);
+            if (i > 0) {
+                g.addE(i - 1, i);
+            }
+        }
+        
+        int[] cnt = new int[1];
+        new DFO<Integer>(g) {
+            @Override
+            public void operation(Integer vertex) {
+                cnt[0]++;
+            }
+        }.run();
+        assertEquals(n, cnt[0]);
+    }
 }
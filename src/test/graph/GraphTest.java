@@ -6,6 +6,7 @@
 package graph;
 
 import java.util.ArrayList;
+import java.util.Random;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -169,4 +170,87 @@ public class GraphTest {
         // with a non existing edge
         assertEquals(false, instance.containsE(v1, "v4"));
     }
+    /**
+     * Test that the LISTS and COMPACT backends agree on a random sequence of
+     * operations.
+     */
+    @Test
+    public void testBackendsAgree() {
+        System.out.println("backendsAgree");
+        Graph<String> lists = new Graph<>(Graph.Backend.LISTS);
+        Graph<String> compact = new Graph<>(Graph.Backend.COMPACT);
+        Random rnd = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            String v1 = "v" + rnd.nextInt(60);
+            String v2 = "v" + rnd.nextInt(60);
+            switch (rnd.nextInt(5)) {
+                case 0:
+                    lists.addV(v1);
+                    compact.addV(v1);
+                    break;
+                case 1:
+                    assertEquals(lists.removeV(v1), compact.removeV(v1));
+                    break;
+                case 2:
+                    // v1 and v2 may be the same vertex, giving a self-loop.
+                    assertEquals(lists.addE(v1, v2), compact.addE(v1, v2));
+                    break;
+                case 3:
+                    assertEquals(lists.removeE(v1, v2), compact.removeE(v1, v2));
+                    break;
+                default:
+                    assertEquals(lists.containsE(v1, v2), compact.containsE(v1, v2));
+                    break;
+            }
+            assertEquals(lists.getV(), compact.getV());
+            assertEquals(lists.getE(), compact.getE());
+            assertEquals(2 * compact.getE(), degreeSum(compact));
+        }
+
+        assertEquals(lists.getVertices(), compact.getVertices());
+        for (String v : lists.getVertices()) {
+            assertEquals(lists.getAdj(v), compact.getAdj(v));
+            assertEquals(lists.degree(v), compact.degree(v));
+        }
+    }
+
+    /**
+     * Test of removeV method on a vertex with a self-loop, for both backends.
+     */
+    @Test
+    public void testRemoveVSelfLoop() {
+        System.out.println("removeVSelfLoop");
+        for (Graph.Backend backend : Graph.Backend.values()) {
+            Graph<String> g = new Graph<>(backend);
+            g.addV("v1");
+            g.addV("v2");
+            g.addV("v3");
+            g.addE("v1", "v1");
+            g.addE("v1", "v2");
+            g.addE("v3", "v3");
+            assertEquals(3, g.getE());
+            assertEquals(3, g.degree("v1"));
+
+            // Only the self-loop of v3 is left.
+            assertTrue(g.removeV("v1"));
+            assertEquals(1, g.getE());
+            assertEquals(0, g.degree("v2"));
+            assertEquals(2, g.degree("v3"));
+            assertEquals(2 * g.getE(), degreeSum(g));
+
+            assertTrue(g.removeE("v3", "v3"));
+            assertEquals(0, g.getE());
+            assertEquals(0, g.degree("v3"));
+        }
+    }
+
+    private static int degreeSum(Graph<String> g) {
+        int sum = 0;
+        for (String v : g.getVertices()) {
+            sum += g.degree(v);
+        }
+        return sum;
+    }
+    
 }
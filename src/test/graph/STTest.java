@@ -1,6 +1,7 @@
 
 package graph;
 
+import java.util.Arrays;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -87,4 +88,108 @@ public class STTest {
         assertEquals(1, instance.size());
     }
     
+    /**
+     * Test that getKeys and getValues keep insertion order after removals.
+     */
+    @Test
+    public void testInsertionOrder() {
+        System.out.println("insertionOrder");
+
+        for (int i = 0; i < 100; i++) {
+            instance.add("k" + i, "v" + i);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            assertEquals("v" + i, instance.remove("k" + i));
+        }
+
+        int j = 0;
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 == 0) {
+                assertEquals(null, instance.get("k" + i));
+                continue;
+            }
+            assertEquals("k" + i, instance.getKeys().get(j));
+            assertEquals("v" + i, instance.getValues().get(j));
+            assertEquals("v" + i, instance.get("k" + i));
+            j++;
+        }
+        assertEquals(j, instance.size());
+    }
+
+    /**
+     * Test that adding an existing key replaces its value.
+     */
+    @Test
+    public void testReplace() {
+        System.out.println("replace");
+
+        instance.add(key, val);
+        instance.add(key, "Value2");
+
+        assertEquals(1, instance.size());
+        assertEquals("Value2", instance.get(key));
+    }
+
+    /**
+     * Test of identity comparison of keys.
+     */
+    @Test
+    public void testIdentity() {
+        System.out.println("identity");
+
+        ST<String, String> st = new ST<>(true);
+        String k1 = new String(key);
+        String k2 = new String(key);
+        st.add(k1, "a");
+        st.add(k2, "b");
+
+        assertEquals(2, st.size());
+        assertEquals("a", st.get(k1));
+        assertEquals("b", st.get(k2));
+        assertEquals(false, st.contains(key));
+    }
+
+    /**
+     * Test of getKeys and getValues methods, the lists are read only.
+     */
+    @Test
+    public void testViewsReadOnly() {
+        System.out.println("viewsReadOnly");
+
+        ST<String, Integer> st = new ST<>();
+        st.add("a", 1);
+        st.add("b", 2);
+        try {
+            st.getKeys().remove(0);
+            fail("Keys modified");
+        } catch (UnsupportedOperationException ex) {
+        }
+        try {
+            st.getValues().clear();
+            fail("Values modified");
+        } catch (UnsupportedOperationException ex) {
+        }
+
+        assertEquals(Arrays.asList("a", "b"), st.getKeys());
+        st.add("c", 3);
+        assertEquals(Arrays.asList(1, 2, 3), st.getValues());
+    }
+
+    /**
+     * Test of a table made for an expected number of keys.
+     */
+    @Test
+    public void testExpected() {
+        System.out.println("expected");
+
+        ST<Integer, Integer> st = new ST<>(false, 3);
+        for (int i = 0; i < 100; i++) {
+            st.add(i, 2 * i);
+        }
+
+        assertEquals(100, st.size());
+        assertEquals(Integer.valueOf(198), st.get(99));
+        assertEquals(Integer.valueOf(0), st.getKeys().get(0));
+    }
+    
 }
@@ -0,0 +1,67 @@
+
+package graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class UFTest {
+    
+    UF<String> instance;
+    
+    @Before
+    public void setUp() {
+        instance = new UF<>();
+    }
+
+    /**
+     * Test of union and connected methods, of class UF.
+     */
+    @Test
+    public void testUnion() {
+        System.out.println("union");
+        instance.add("a", true);
+        instance.add("b", true);
+        instance.add("c", true);
+        assertEquals(3, instance.count());
+        
+        assertEquals(true, instance.union("a", "b"));
+        assertEquals(false, instance.union("b", "a"));
+        assertEquals(true, instance.connected("a", "b"));
+        assertEquals(false, instance.connected("a", "c"));
+        assertEquals(2, instance.count());
+        
+        // Try with non-existing element.
+        assertEquals(false, instance.union("a", "N/A"));
+        assertEquals(false, instance.connected("a", "N/A"));
+        assertEquals(-1, instance.find("N/A"));
+    }
+
+    /**
+     * Test of islands method, of class UF.
+     */
+    @Test
+    public void testIslands() {
+        System.out.println("islands");
+        instance.add("p1", true);
+        instance.add("p2", true);
+        instance.add("via1", false);
+        instance.add("via2", false);
+        assertEquals(2, instance.islands());
+        
+        // Joining terminals with non terminals does not change the islands.
+        instance.union("p1", "via1");
+        instance.union("via2", "p2");
+        assertEquals(2, instance.islands());
+        
+        // Joining two islands does.
+        instance.union("via1", "via2");
+        assertEquals(1, instance.islands());
+        assertEquals(1, instance.count());
+        assertEquals(instance.find("p1"), instance.find("p2"));
+    }
+}
@@ -0,0 +1,125 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class BatchRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File boards, reports;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        boards = folder.newFolder("boards");
+        reports = new File(folder.getRoot(), "reports");
+
+        // Clean boards, and one with overlapping parts.
+        for (int i = 0; i < 5; i++) {
+            Board board = new Board("clean" + i, 5000, 5000);
+            board.addPart(part(100));
+            board.addPart(part(1000));
+            ProjectCodec.write(board, new File(boards, "clean" + i + ".pcb"));
+        }
+        Board board = new Board("overlap", 5000, 5000);
+        board.addPart(part(100));
+        board.addPart(part(150));
+        ProjectCodec.write(board, new File(boards, "overlap.pcb"));
+    }
+
+    /**
+     * Test of run method, of class BatchRunner.
+     */
+    @Test
+    public void testRun() throws Exception {
+        System.out.println("run");
+        assertEquals(BatchRunner.PASSED, run("-o", reports.getPath(), "-j", "3", "-p", "2",
+                boards.getPath() + File.separator + "clean*.pcb"));
+        assertEquals(10, reports.list().length);
+
+        String bom = new String(Files.readAllBytes(new File(reports, "clean3.bom.txt").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(bom.contains("~clean3~"));
+        assertTrue(bom.contains("Total number of parts: 2"));
+        String drc = new String(Files.readAllBytes(new File(reports, "clean3.drc.json").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(drc.contains("\"violations\": []"));
+        assertTrue(out.toString().contains("5 projects, 5 passed, 0 failed, 0 errors"));
+    }
+
+    /**
+     * Test of run method with violations, of class BatchRunner.
+     */
+    @Test
+    public void testRunFails() throws Exception {
+        System.out.println("runFails");
+        assertEquals(BatchRunner.FAILED, run(boards.getPath()));
+
+        // The reports are written next to the projects.
+        String drc = new String(Files.readAllBytes(new File(boards, "overlap.drc.json").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(drc.contains("\"kind\": \"Part\""));
+        assertTrue(out.toString().contains("6 projects, 5 passed, 1 failed, 0 errors"));
+
+        assertEquals(BatchRunner.FAILED, run("-o", reports.getPath(), "-b", "csv", boards.getPath()));
+        String bom = new String(Files.readAllBytes(new File(reports, "overlap.bom.csv").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(bom.contains("R,2,Resistor Resistor\r\n"));
+    }
+
+    /**
+     * Test of run method with a project that can not be read, of class
+     * BatchRunner.
+     */
+    @Test
+    public void testRunError() throws Exception {
+        System.out.println("runError");
+        File list = folder.newFile("list.txt");
+        File broken = new File(boards, "broken.pcb");
+        Files.write(broken.toPath(), new byte[]{1, 2, 3});
+        Files.write(list.toPath(), (new File(boards, "clean0.pcb") + "\n" + broken + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(BatchRunner.ERROR, run("@" + list));
+        assertTrue(out.toString().contains("2 projects, 1 passed, 0 failed, 1 errors"));
+        assertTrue(err.toString().contains("broken.pcb"));
+
+        assertEquals(BatchRunner.ERROR, run("-j"));
+        assertEquals(BatchRunner.ERROR, run("-b", "xml", boards.getPath()));
+        assertEquals(BatchRunner.ERROR, run(new File(boards, "missing.pcb").getPath()));
+    }
+
+    private int run(String... args) {
+        out.reset();
+        err.reset();
+        return BatchRunner.run(args, new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private static Part part(double x) {
+        Pad a = new ThPad(new Point2D.Double(x, 200), 75, 40, Color.RED, true);
+        Pad b = new ThPad(new Point2D.Double(x + 100, 200), 75, 40, Color.RED, true);
+        return new Part("R", "Resistor", new Footprint(
+                new Point2D.Double(x + 50, 200), a, b), 180, 100);
+    }
+}
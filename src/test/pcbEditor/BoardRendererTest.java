@@ -0,0 +1,75 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class BoardRendererTest {
+
+    Grid grid;
+    ArrayList<Part> parts;
+    ArrayList<Net> nets;
+    ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        grid = new Grid(1, Color.DARK_GRAY, Color.GRAY, 1000, 700);
+        parts = new ArrayList<>();
+        nets = new ArrayList<>();
+        Net net = new Net("net");
+        for (int i = 0; i < 4; i++) {
+            Pad a = new ThPad(new Point2D.Double(100 + i * 200, 200), 75, 40, Color.RED, true);
+            Pad b = new ThPad(new Point2D.Double(200 + i * 200, 200), 75, 40, Color.RED, true);
+            parts.add(new Part("R" + i, "R", new Footprint(
+                    new Point2D.Double(150 + i * 200, 200), a, b), 180, 100));
+            net.addPad(b);
+            Pad c = new ThPad(new Point2D.Double(200 + i * 200, 500), 75, 40, Color.RED, true);
+            net.addPad(c);
+            net.addSegment(b, c, 20, Color.GREEN);
+        }
+        nets.add(net);
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Test of render method, of class BoardRenderer.
+     */
+    @Test
+    public void testRender() throws InterruptedException {
+        System.out.println("render");
+        for (double scale : new double[]{1, 0.5, 0.1}) {
+            BufferedImage tiled = new BoardRenderer(grid, parts, nets, scale, 64).render(pool);
+            BufferedImage whole = new BoardRenderer(grid, parts, nets, scale, 4096).render(pool);
+            assertEquals((int) Math.ceil(1000 * scale), tiled.getWidth());
+            assertEquals((int) Math.ceil(700 * scale), tiled.getHeight());
+
+            // The tiles are stitched without seams.
+            assertTrue(Arrays.equals(pixels(whole), pixels(tiled)));
+        }
+    }
+
+    private static int[] pixels(BufferedImage img) {
+        return img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+    }
+}
@@ -0,0 +1,113 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class BoardTest {
+
+    Board instance;
+    Part a, b;
+    Net net;
+
+    @Before
+    public void setUp() {
+        instance = new Board("board", 5000, 5000);
+        a = part(100);
+        b = part(1000);
+        instance.addPart(a);
+        instance.addPart(b);
+        net = new Net("GND");
+        instance.addNet(net);
+        net.addPad(a.getFootprint().getPads().get(0));
+        net.addPad(b.getFootprint().getPads().get(0));
+    }
+
+    /**
+     * Test of query method, of class Board.
+     */
+    @Test
+    public void testQuery() {
+        System.out.println("query");
+        List<Component> hits = instance.query(new Rectangle2D.Double(50, 150, 100, 100));
+        assertTrue(hits.contains(a));
+        assertFalse(hits.contains(b));
+
+        // The index follows the edits of the board.
+        b.translate(new Point2D.Double(-850, 0));
+        assertTrue(instance.query(new Rectangle2D.Double(50, 150, 100, 100)).contains(b));
+        instance.removePart(a);
+        assertFalse(instance.query(new Rectangle2D.Double(50, 150, 100, 100)).contains(a));
+        assertEquals(1, instance.getParts().size());
+    }
+
+    /**
+     * Test of getUnroutedNets method, of class Board.
+     */
+    @Test
+    public void testGetUnroutedNets() {
+        System.out.println("getUnroutedNets");
+        assertFalse(instance.isFullyRouted());
+        assertEquals(1, instance.getUnroutedNets().size());
+
+        net.addSegment(a.getFootprint().getPads().get(0),
+                b.getFootprint().getPads().get(0), 12.7, Color.GREEN);
+        assertTrue(instance.isFullyRouted());
+        assertTrue(instance.getUnroutedNets().isEmpty());
+
+        assertTrue(instance.removeNet(net));
+        assertFalse(instance.removeNet(net));
+    }
+
+    /**
+     * Test of createChecker method, of class Board.
+     */
+    @Test
+    public void testCreateChecker() {
+        System.out.println("createChecker");
+        assertTrue(instance.createChecker().run(ForkJoinPool.commonPool(), null).isEmpty());
+
+        // Overlapping parts violate the spacing.
+        b.translate(new Point2D.Double(-850, 0));
+        assertFalse(instance.createChecker().run(ForkJoinPool.commonPool(), null).isEmpty());
+    }
+
+    /**
+     * Test of saving and reading a board, of class Board.
+     */
+    @Test
+    public void testReadBoard() throws Exception {
+        System.out.println("readBoard");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProjectCodec.write(instance, out);
+        Board read = ProjectCodec.readBoard(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals("board", read.getProjectName());
+        assertEquals(2, read.getParts().size());
+        assertEquals(2, read.getNets().get(0).getPads().size());
+        assertEquals(instance.getSpacing(), read.getSpacing(), 0);
+    }
+
+    private static Part part(double x) {
+        Pad a = new ThPad(new Point2D.Double(x, 200), 75, 40, Color.RED, true);
+        Pad b = new ThPad(new Point2D.Double(x + 100, 200), 75, 40, Color.RED, true);
+        return new Part("R", "Resistor", new Footprint(
+                new Point2D.Double(x + 50, 200), a, b), 180, 100);
+    }
+}
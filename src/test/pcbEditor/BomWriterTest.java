@@ -0,0 +1,98 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class BomWriterTest {
+
+    ArrayList<Part> parts;
+    Date date = new Date(0);
+
+    @Before
+    public void setUp() {
+        parts = new ArrayList<>();
+        parts.add(part("R 10k", "R1", 100, 40));
+        parts.add(part("C 100n", "C1", 400, 40));
+        parts.add(part("R 10k", "R2", 700, 40));
+        parts.add(part("R 10k", "R3", 1000, 60)); // Larger holes.
+    }
+
+    /**
+     * Test of write method in the text layout, of class BomWriter.
+     */
+    @Test
+    public void testWriteText() throws Exception {
+        System.out.println("writeText");
+        StringWriter out = new StringWriter();
+        new BomWriter(BomWriter.Format.TEXT, false).write(parts, "board", date, out);
+        String bom = out.toString();
+        assertTrue(bom.contains("~board~"));
+        assertTrue(bom.contains("Total number of parts: 4"));
+        assertTrue(bom.contains(String.format("%-40s %10s\n", "R 10k", "3")));
+        assertTrue(bom.indexOf("R 10k") < bom.indexOf("C 100n"));
+        assertTrue(bom.contains("  R1, R2, R3\n"));
+    }
+
+    /**
+     * Test of write method in the CSV layout, of class BomWriter.
+     */
+    @Test
+    public void testWriteCsv() throws Exception {
+        System.out.println("writeCsv");
+        parts.add(part("LED, \"red\"", "D1", 1300, 40));
+        StringWriter out = new StringWriter();
+        new BomWriter(BomWriter.Format.CSV, false).write(parts, "board", date, out);
+        assertEquals("Part ID,Qty,References\r\n"
+                + "R 10k,3,R1 R2 R3\r\n"
+                + "C 100n,1,C1\r\n"
+                + "\"LED, \"\"red\"\"\",1,D1\r\n", out.toString());
+
+        // The footprints split R3 from the other resistors.
+        out = new StringWriter();
+        new BomWriter(BomWriter.Format.CSV, true).write(parts, "board", date, out);
+        String[] rows = out.toString().split("\r\n");
+        assertEquals(5, rows.length);
+        assertEquals("Part ID,Footprint,Qty,References", rows[0]);
+        assertEquals("R 10k,\"2 pads, 3.60 x 2.00 mm, holes 0.80\",2,R1 R2", rows[1]);
+        assertEquals("R 10k,\"2 pads, 3.60 x 2.00 mm, holes 1.20\",1,R3", rows[3]);
+    }
+
+    /**
+     * Test of write method in the JSON layout, of class BomWriter.
+     */
+    @Test
+    public void testWriteJson() throws Exception {
+        System.out.println("writeJson");
+        StringWriter out = new StringWriter();
+        new BomWriter(BomWriter.Format.JSON, false).write(parts, "board", date, out);
+        String bom = out.toString();
+        assertTrue(bom.contains("\"project\": \"board\""));
+        assertTrue(bom.contains("\"date\": \"1970-01-01T00:00:00Z\""));
+        assertTrue(bom.contains("{\"id\": \"R 10k\", \"qty\": 3, \"references\": [\"R1\", \"R2\", \"R3\"]}"));
+
+        out = new StringWriter();
+        new BomWriter(BomWriter.Format.JSON, false).write(new ArrayList<>(), "empty", date, out);
+        assertTrue(out.toString().contains("\"lines\": []"));
+    }
+
+    private static Part part(String id, String name, double x, double hole) {
+        Pad a = new ThPad(new Point2D.Double(x, 200), 75, hole, Color.RED, true);
+        Pad b = new ThPad(new Point2D.Double(x + 100, 200), 75, hole, Color.RED, true);
+        return new Part(id, name, new Footprint(
+                new Point2D.Double(x + 50, 200), a, b), 180, 100);
+    }
+}
@@ -0,0 +1,258 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class EditJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ProjectSaver saver = new ProjectSaver();
+    File file;
+    DesignArea area;
+    EditJournal instance;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "board.pcb");
+        area = new DesignArea("board", 5000, 5000);
+        area.addPart(part(100));
+        area.addPart(part(500));
+        Net net = new Net("GND");
+        area.addNet(net);
+        onEdt(() -> {
+            instance = EditJournal.create(area, file, saver);
+            instance.checkpoint(null);
+            net.addPad(area.getParts().get(0).getFootprint().getPads().get(0));
+        });
+        idle();
+    }
+
+    /**
+     * Test of replaying the journal after a crash, of class EditJournal.
+     */
+    @Test
+    public void testOpen() throws Exception {
+        System.out.println("open");
+        edit();
+        onEdt(() -> instance.commit());
+        idle();
+
+        // The journal is not closed, as after a crash.
+        DesignArea recovered = open();
+        assertSameProject(area, recovered);
+        idle();
+
+        // The replayed edits were saved and the old journals deleted.
+        long timeout = System.currentTimeMillis() + 10000;
+        while (folder.getRoot().list().length > 2
+                && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10); // The saves report through a timer.
+            idle();
+        }
+        assertEquals(2, folder.getRoot().list().length);
+        DesignArea saved = ProjectCodec.read(file);
+        assertSameProject(area, saved);
+    }
+
+    /**
+     * Test of opening a journal whose last commit was cut short, of class
+     * EditJournal.
+     */
+    @Test
+    public void testOpenTorn() throws Exception {
+        System.out.println("openTorn");
+        onEdt(() -> area.getParts().get(0).translate(new Point2D.Double(100, 0)));
+        onEdt(() -> instance.commit());
+        idle();
+        DesignArea expected = copy(area);
+
+        // Only the start of the next commit reaches the disk.
+        edit();
+        onEdt(() -> instance.commit());
+        idle();
+        File journal = EditJournal.journalFile(file, area.getJournalId());
+        byte[] all = java.nio.file.Files.readAllBytes(journal.toPath());
+        try (OutputStream out = new FileOutputStream(journal)) {
+            out.write(all, 0, all.length - 3);
+        }
+
+        assertSameProject(expected, open());
+    }
+
+    /**
+     * Test of discard method, of class EditJournal.
+     */
+    @Test
+    public void testDiscard() throws Exception {
+        System.out.println("discard");
+        DesignArea expected = ProjectCodec.read(file); // The last checkpoint.
+        edit();
+        onEdt(() -> instance.discard());
+        idle();
+
+        assertSameProject(expected, open());
+    }
+
+    /**
+     * Test of opening a project without a journal, of class EditJournal.
+     */
+    @Test
+    public void testOpenWithoutJournal() throws Exception {
+        System.out.println("openWithoutJournal");
+        File plain = new File(folder.getRoot(), "plain.pcb");
+        DesignArea unjournaled = copy(area);
+        unjournaled.setJournalId(0);
+        ProjectCodec.write(unjournaled, plain);
+        byte[] written = java.nio.file.Files.readAllBytes(plain.toPath());
+
+        // Opening does not write the project or start a journal file.
+        EditJournal[] opened = new EditJournal[1];
+        onEdt(() -> opened[0] = EditJournal.open(plain, saver));
+        idle(opened[0]);
+        assertArrayEquals(written, java.nio.file.Files.readAllBytes(plain.toPath()));
+        assertEquals(0, opened[0].getDesignArea().getJournalId());
+        assertEquals(3, folder.getRoot().list().length);
+
+        // The first edit saves it with a journal.
+        DesignArea edited = opened[0].getDesignArea();
+        onEdt(() -> edited.placePart(part(900)));
+        onEdt(() -> opened[0].commit());
+        idle(opened[0]);
+        assertNotEquals(0, edited.getJournalId());
+        assertSameProject(edited, ProjectCodec.read(plain));
+        assertTrue(EditJournal.journalFile(plain, edited.getJournalId()).exists());
+    }
+
+    /**
+     * Places, moves, rotates and removes parts and routes a net.
+     */
+    private void edit() throws Exception {
+        onEdt(() -> {
+            Part placed = part(900);
+            area.placePart(placed);
+            placed.translate(new Point2D.Double(0, 1000));
+            area.getParts().get(1).rot90(true);
+            area.getParts().get(1).translate(new Point2D.Double(50, 50));
+
+            Net gnd = area.getNets().get(0);
+            Pad a = gnd.getPads().get(0);
+            Pad b = area.getParts().get(1).getFootprint().getPads().get(1);
+            Pad c = placed.getFootprint().getPads().get(0);
+            gnd.addPad(b);
+            gnd.addPad(c);
+            Pad bend = new ThPad(new Point2D.Double(300, 700), 12.7, 0, Color.GREEN, false);
+            gnd.addSegment(a, bend, 12.7, Color.GREEN);
+            gnd.addSegment(bend, b, 12.7, Color.GREEN);
+            gnd.addSegment(b, c, 25.4, Color.BLUE);
+            bend.translate(new Point2D.Double(100, 0));
+            gnd.removeSegment(b, c);
+
+            Net vcc = new Net("VCC");
+            area.addNet(vcc);
+            vcc.addPad(area.getParts().get(0).getFootprint().getPads().get(1));
+            area.removeNet(new Net("missing"));
+
+            // Removed with the delete key.
+            Part removed = area.getParts().get(0);
+            for (Pad pad : removed.getFootprint().getPads()) {
+                if (pad.getNet() != null) {
+                    pad.getNet().removePad(pad);
+                }
+            }
+            area.removePart(removed);
+        });
+    }
+
+    private DesignArea open() throws Exception {
+        DesignArea[] opened = new DesignArea[1];
+        onEdt(() -> opened[0] = EditJournal.open(file, saver).getDesignArea());
+        return opened[0];
+    }
+
+    private void idle() throws Exception {
+        idle(instance);
+    }
+
+    private void idle(EditJournal journal) throws Exception {
+        assertTrue(saver.awaitIdle(10, TimeUnit.SECONDS));
+        assertTrue(journal.awaitIdle(10, TimeUnit.SECONDS));
+        // Run the listeners of the saves.
+        onEdt(() -> {
+        });
+        assertTrue(journal.awaitIdle(10, TimeUnit.SECONDS));
+    }
+
+    private static DesignArea copy(DesignArea area) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProjectCodec.write(area, out);
+        return ProjectCodec.read(new java.io.ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * Compares the saved form of two projects, apart from their journals.
+     */
+    private static void assertSameProject(DesignArea expected, DesignArea actual)
+            throws IOException {
+        long a = expected.getJournalId();
+        long b = actual.getJournalId();
+        expected.setJournalId(0);
+        actual.setJournalId(0);
+        ByteArrayOutputStream e = new ByteArrayOutputStream();
+        ByteArrayOutputStream r = new ByteArrayOutputStream();
+        ProjectCodec.write(expected, e);
+        ProjectCodec.write(actual, r);
+        expected.setJournalId(a);
+        actual.setJournalId(b);
+        assertArrayEquals(e.toByteArray(), r.toByteArray());
+    }
+
+    private interface EdtTask {
+
+        void run() throws Exception;
+    }
+
+    private static void onEdt(EdtTask task) throws Exception {
+        Exception[] failure = new Exception[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                failure[0] = ex;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private static Part part(double x) {
+        Pad a = new ThPad(new Point2D.Double(x, 200), 75, 40, Color.RED, true);
+        Pad b = new ThPad(new Point2D.Double(x + 100, 200), 75, 40, Color.RED, true);
+        a.setName("1");
+        b.setName("2");
+        return new Part("R", "Resistor", new Footprint(
+                new Point2D.Double(x + 50, 200), a, b), 180, 100);
+    }
+}
@@ -0,0 +1,220 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class NetTest {
+
+    Pad a, b, c, d;
+    Net instance;
+
+    @Before
+    public void setUp() {
+        a = pad(0, 0, true);
+        b = pad(500, 0, true);
+        c = pad(1000, 0, true);
+        d = pad(1500, 0, true);
+        instance = new Net("GND", a, b, c, d);
+    }
+
+    /**
+     * Test of getIslandCount and isFullyRouted methods, of class Net.
+     */
+    @Test
+    public void testIslandCount() {
+        System.out.println("islandCount");
+        assertEquals(4, instance.getIslandCount());
+        assertFalse(instance.isFullyRouted());
+
+        assertTrue(instance.addSegment(a, b, 12.7, Color.GREEN));
+        assertEquals(3, instance.getIslandCount());
+        assertTrue(instance.addSegment(c, d, 12.7, Color.GREEN));
+        assertEquals(2, instance.getIslandCount());
+
+        // Closing a loop does not join anything new.
+        assertTrue(instance.addSegment(b, c, 12.7, Color.GREEN));
+        assertTrue(instance.addSegment(a, d, 12.7, Color.GREEN));
+        assertEquals(1, instance.getIslandCount());
+        assertTrue(instance.isFullyRouted());
+    }
+
+    /**
+     * Test of getIsland and isConnected methods, of class Net.
+     */
+    @Test
+    public void testIsConnected() {
+        System.out.println("isConnected");
+        instance.addSegment(a, b, 12.7, Color.GREEN);
+        assertTrue(instance.isConnected(a, b));
+        assertTrue(instance.isConnected(b, a));
+        assertFalse(instance.isConnected(a, c));
+        assertEquals(instance.getIsland(a), instance.getIsland(b));
+        assertNotEquals(instance.getIsland(a), instance.getIsland(c));
+
+        // Pads of other nets are in no island.
+        Pad other = pad(0, 500, true);
+        assertEquals(-1, instance.getIsland(other));
+        assertFalse(instance.isConnected(a, other));
+    }
+
+    /**
+     * Test of rebuilding the islands after segments are removed, of class
+     * Net.
+     */
+    @Test
+    public void testRemoveSegment() {
+        System.out.println("removeSegment");
+        instance.addSegment(a, b, 12.7, Color.GREEN);
+        instance.addSegment(b, c, 12.7, Color.GREEN);
+        instance.addSegment(c, d, 12.7, Color.GREEN);
+        assertTrue(instance.isFullyRouted());
+
+        // The chain breaks in two.
+        assertTrue(instance.removeSegment(b, c));
+        assertFalse(instance.removeSegment(b, c));
+        assertEquals(2, instance.getIslandCount());
+        assertTrue(instance.isConnected(a, b));
+        assertTrue(instance.isConnected(c, d));
+        assertFalse(instance.isConnected(b, c));
+
+        // Segments added after the rebuild update the islands in place.
+        instance.addSegment(a, d, 12.7, Color.GREEN);
+        assertEquals(1, instance.getIslandCount());
+
+        // A removed pad takes its segments with it.
+        assertTrue(instance.removePad(a));
+        assertEquals(2, instance.getIslandCount());
+        assertEquals(-1, instance.getIsland(a));
+        assertNull(a.getNet());
+    }
+
+    /**
+     * Test of the notifications of removePad, of class Net.
+     */
+    @Test
+    public void testRemovePadNotifiesOnce() {
+        System.out.println("removePadNotifiesOnce");
+        Pad r0 = pad(250, 500, false);
+        Pad r1 = pad(750, 500, false);
+        instance.addSegment(a, r0, 12.7, Color.GREEN);
+        instance.addSegment(r0, r1, 12.7, Color.GREEN);
+        instance.addSegment(r1, b, 12.7, Color.GREEN);
+
+        ArrayList<Pad> removed = new ArrayList<>();
+        instance.addNetListener(new NetListener() {
+            @Override
+            public void padAdded(Net net, Pad pad) {
+            }
+
+            @Override
+            public void padRemoved(Net net, Pad pad) {
+                removed.add(pad);
+            }
+
+            @Override
+            public void segmentAdded(Net net, Segment seg) {
+            }
+
+            @Override
+            public void segmentRemoved(Net net, Segment seg) {
+            }
+        });
+
+        // A routing pad left bare by its segments is removed once.
+        assertTrue(instance.removePad(r0));
+        assertEquals(Arrays.asList(r0), removed);
+        removed.clear();
+
+        // Removing a pad drops the routing pad it leaves bare, once each.
+        assertTrue(instance.removePad(b));
+        assertEquals(Arrays.asList(r1, b), removed);
+    }
+
+    /**
+     * Test of addSegment method with routing pads, of class Net.
+     */
+    @Test
+    public void testAddSegmentRoutingPad() {
+        System.out.println("addSegmentRoutingPad");
+        Pad r0 = pad(250, 500, false);
+        Pad r1 = pad(750, 500, false);
+
+        // Routing pads join islands but are not islands of their own.
+        assertTrue(instance.addSegment(a, r0, 12.7, Color.GREEN));
+        assertEquals(4, instance.getIslandCount());
+
+        // Only the second pad is already in the net, the first one is
+        // added too.
+        assertTrue(instance.addSegment(r1, r0, 12.7, Color.GREEN));
+        assertSame(instance, r1.getNet());
+        assertTrue(instance.getPads().contains(r1));
+        Pad r2 = pad(750, 1000, false);
+        assertTrue(instance.addSegment(r2, r1, 12.7, Color.GREEN));
+        assertTrue(instance.addSegment(r2, b, 12.7, Color.GREEN));
+        assertEquals(3, instance.getIslandCount());
+        assertTrue(instance.isConnected(a, b));
+
+        // Removing the last segment of a routing pad drops the pad.
+        assertTrue(instance.removeSegment(r2, b));
+        assertTrue(instance.getPads().contains(r2));
+        assertTrue(instance.removeSegment(r2, r1));
+        assertFalse(instance.getPads().contains(r2));
+        assertEquals(4, instance.getIslandCount());
+    }
+
+    /**
+     * Test of addSegment method with a pad of another net, of class Net.
+     */
+    @Test
+    public void testAddSegmentOtherNet() {
+        System.out.println("addSegmentOtherNet");
+        Pad other = pad(0, 500, true);
+        new Net("VCC", other);
+        assertFalse(instance.addSegment(a, other, 12.7, Color.GREEN));
+        assertFalse(instance.getPads().contains(other));
+        assertEquals(4, instance.getIslandCount());
+    }
+
+    /**
+     * Test of getUnroutedNets method, of class DesignArea.
+     */
+    @Test
+    public void testGetUnroutedNets() {
+        System.out.println("getUnroutedNets");
+        DesignArea area = new DesignArea("board", 5000, 5000);
+        Net vcc = new Net("VCC", pad(0, 1000, true), pad(500, 1000, true));
+        area.addNet(instance);
+        area.addNet(vcc);
+        assertEquals(2, area.getUnroutedNets().size());
+        assertFalse(area.isFullyRouted());
+
+        vcc.addSegment(vcc.getPads().get(0), vcc.getPads().get(1), 12.7, Color.RED);
+        assertEquals(1, area.getUnroutedNets().size());
+        assertSame(instance, area.getUnroutedNets().get(0));
+
+        instance.addSegment(a, b, 12.7, Color.GREEN);
+        instance.addSegment(b, c, 12.7, Color.GREEN);
+        instance.addSegment(c, d, 12.7, Color.GREEN);
+        assertTrue(area.getUnroutedNets().isEmpty());
+        assertTrue(area.isFullyRouted());
+
+        instance.removeSegment(a, b);
+        assertEquals(1, area.getUnroutedNets().size());
+    }
+
+    private static Pad pad(double x, double y, boolean visible) {
+        return new ThPad(new Point2D.Double(x, y), 75, 40, Color.GRAY, visible);
+    }
+}
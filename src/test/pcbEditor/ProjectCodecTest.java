@@ -0,0 +1,243 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class ProjectCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    DesignArea area;
+
+    @Before
+    public void setUp() {
+        area = new DesignArea("test", 2000, 1500);
+        Net net = new Net("GND");
+        for (int i = 0; i < 3; i++) {
+            Pad a = new ThPad(new Point2D.Double(100 + i * 300, 200), 75, 40, Color.RED, true);
+            Pad b = new ThPad(new Point2D.Double(200 + i * 300, 200), 75, 40, Color.RED, true);
+            a.setName("1");
+            b.setName("2");
+            area.addPart(new Part("R" + i, "Resistor", new Footprint(
+                    new Point2D.Double(150 + i * 300, 200), a, b), 180, 100));
+            net.addPad(b);
+        }
+
+        // A routed trace with a bend on an invisible pad.
+        Pad bend = new ThPad(new Point2D.Double(200, 500), 12.7, 0, Color.GREEN, false);
+        net.addSegment(net.getPads().get(0), bend, 12.7, Color.GREEN);
+        net.addSegment(bend, net.getPads().get(1), 12.7, Color.GREEN);
+        area.addNet(net);
+        area.addNet(new Net("VCC"));
+        area.getParts().get(1).rot90(true);
+    }
+
+    /**
+     * Test of write and read methods, of class ProjectCodec.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        System.out.println("roundTrip");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProjectCodec.write(area, out);
+
+        DesignArea copy = ProjectCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertSameProject(area, copy);
+    }
+
+    /**
+     * Test of write and read methods with a part at an angle, of class
+     * ProjectCodec.
+     */
+    @Test
+    public void testRoundTripRotated() throws IOException {
+        System.out.println("roundTripRotated");
+        Part part = area.getParts().get(2);
+        part.rotate(Math.toRadians(30));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProjectCodec.write(area, out);
+
+        DesignArea copy = ProjectCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertSameProject(area, copy);
+        Part read = copy.getParts().get(2);
+        assertFalse(read.isAligned());
+        assertEquals(part.getAngle(), read.getAngle(), 0);
+        assertEquals(180, read.getWidth(), 0);
+        assertEquals(100, read.getHeight(), 0);
+        assertEquals(0, copy.getParts().get(0).getAngle(), 0);
+    }
+
+    /**
+     * Test of reading a project saved by the first version of the editor, of
+     * class ProjectCodec.
+     *
+     * legacy.pcb was saved by the first version. It has four parts, R3 of
+     * them rotated a quarter counterclockwise, a GND net routed from R1 to R2
+     * over two bends and an unrouted VCC net.
+     */
+    @Test
+    public void testReadLegacy() throws IOException {
+        System.out.println("readLegacy");
+        DesignArea legacy;
+        try (InputStream in = new BufferedInputStream(
+                getClass().getResourceAsStream("legacy.pcb"))) {
+            legacy = ProjectCodec.read(in);
+        }
+        assertEquals("legacy", legacy.getProjectName());
+        assertEquals(2000, legacy.getGrid().getWidth());
+        assertEquals(1500, legacy.getGrid().getHeight());
+        assertArrayEquals(new double[]{0.254, 1.5, 0.8, 0.254}, legacy.getDefaults(), 0);
+
+        assertEquals(4, legacy.getParts().size());
+        Part r1 = legacy.getParts().get(0);
+        assertEquals("R1", r1.getName());
+        assertEquals("resistor length 12.7mm, hole 0.8mm", r1.getId());
+        assertEquals(new Rectangle2D.Double(431.5, 138, 125, 720), r1.getOutline());
+        ThPad pad = (ThPad) r1.getFootprint().getPads().get(1);
+        assertEquals(new Point2D.Double(494, 815.5), pad.getP());
+        assertEquals(75, pad.getRingDiam(), 0);
+        assertEquals(40, pad.getHoleDiam(), 0);
+        assertSame(r1, pad.getPart());
+
+        Part r3 = legacy.getParts().get(3);
+        assertEquals("R3", r3.getName());
+        assertEquals(Math.PI / 2, r3.getAngle(), 0);
+        assertEquals(125, r3.getWidth(), 0);
+        assertEquals(720, r3.getHeight(), 0);
+        assertEquals(new Rectangle2D.Double(642, 1184.5, 720, 125), r3.getOutline());
+        assertEquals(new Point2D.Double(1319.5, 1247), r3.getFootprint().getPads().get(0).getP());
+
+        // The pads of the parts are the pads of the nets.
+        Net gnd = legacy.getNets().get(0);
+        Net vcc = legacy.getNets().get(1);
+        assertEquals("GND", gnd.getName());
+        assertEquals(5, gnd.getPads().size());
+        assertSame(pad, gnd.getPads().get(0));
+        assertSame(gnd, pad.getNet());
+        assertEquals(3, gnd.getSegments().size());
+        assertTrue(gnd.isConnected(pad, legacy.getParts().get(1).getFootprint().getPads().get(1)));
+        assertEquals(2, gnd.getIslandCount());
+        assertFalse(gnd.getPads().get(3).getVisible());
+        assertEquals(new Point2D.Double(494, 1018), gnd.getSegments().get(0).getLine().getP2());
+        assertEquals(12.7, gnd.getSegments().get(0).getWidth(), 0);
+        assertEquals("VCC", vcc.getName());
+        assertEquals(3, vcc.getIslandCount());
+        assertSame(r3, vcc.getPads().get(2).getPart());
+
+        // It is written in the binary format as it was read.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProjectCodec.write(legacy, out);
+        assertSameProject(legacy, ProjectCodec.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    /**
+     * Test of migrate method, of class ProjectCodec.
+     */
+    @Test
+    public void testMigrate() throws IOException {
+        System.out.println("migrate");
+        File file = folder.newFile("legacy.pcb");
+        try (InputStream in = getClass().getResourceAsStream("legacy.pcb")) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        assertTrue(ProjectCodec.isLegacy(file));
+        assertTrue(ProjectCodec.migrate(file));
+        assertFalse(ProjectCodec.isLegacy(file));
+        assertFalse(ProjectCodec.migrate(file));
+        assertEquals(4, ProjectCodec.read(file).getParts().size());
+    }
+
+    /**
+     * Test of reading a serialized design area of this version, of class
+     * ProjectCodec. Only projects of the first version are read.
+     */
+    @Test(expected = IOException.class)
+    public void testReadSerialized() throws IOException {
+        System.out.println("readSerialized");
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream os = new ObjectOutputStream(serialized)) {
+            os.writeObject(area);
+        }
+        ProjectCodec.read(new ByteArrayInputStream(serialized.toByteArray()));
+    }
+
+    /**
+     * Test of reading a file that is not a project, of class ProjectCodec.
+     */
+    @Test(expected = IOException.class)
+    public void testReadGarbage() throws IOException {
+        System.out.println("readGarbage");
+        ProjectCodec.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6}));
+    }
+
+    private static void assertSameProject(DesignArea expected, DesignArea actual) {
+        assertEquals(expected.getProjectName(), actual.getProjectName());
+        assertEquals(expected.getGrid().getWidth(), actual.getGrid().getWidth());
+        assertEquals(expected.getGrid().getHeight(), actual.getGrid().getHeight());
+        assertArrayEquals(expected.getDefaults(), actual.getDefaults(), 0);
+
+        assertEquals(expected.getParts().size(), actual.getParts().size());
+        for (int i = 0; i < expected.getParts().size(); i++) {
+            Part a = expected.getParts().get(i);
+            Part b = actual.getParts().get(i);
+            assertEquals(a.getId(), b.getId());
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getOutline(), b.getOutline());
+            assertEquals(a.getFootprint().getPads().size(), b.getFootprint().getPads().size());
+            for (int j = 0; j < a.getFootprint().getPads().size(); j++) {
+                Pad pa = a.getFootprint().getPads().get(j);
+                Pad pb = b.getFootprint().getPads().get(j);
+                assertEquals(pa.getP(), pb.getP());
+                assertEquals(pa.getName(), pb.getName());
+                assertSame(b, pb.getPart());
+            }
+        }
+
+        assertEquals(expected.getNets().size(), actual.getNets().size());
+        for (int i = 0; i < expected.getNets().size(); i++) {
+            Net a = expected.getNets().get(i);
+            Net b = actual.getNets().get(i);
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getPads().size(), b.getPads().size());
+            assertEquals(a.getSegments().size(), b.getSegments().size());
+            for (int j = 0; j < a.getSegments().size(); j++) {
+                Segment sa = a.getSegments().get(j);
+                Segment sb = b.getSegments().get(j);
+                assertEquals(sa.getLine().getP1(), sb.getLine().getP1());
+                assertEquals(sa.getLine().getP2(), sb.getLine().getP2());
+                assertEquals(sa.getWidth(), sb.getWidth(), 0);
+                assertEquals(sa.getColor(), sb.getColor());
+                assertSame(b, sb.getNet());
+            }
+        }
+
+        // Pads shared by parts and nets stay shared.
+        Pad shared = actual.getNets().get(0).getPads().get(0);
+        assertSame(actual.getParts().get(0).getFootprint().getPads().get(1), shared);
+    }
+}
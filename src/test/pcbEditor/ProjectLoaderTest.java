@@ -0,0 +1,190 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class ProjectLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File file;
+    DesignArea area;
+    DesignArea loaded; // Reported by the listener.
+    IOException failure; // Reported by the listener.
+    CountDownLatch reported = new CountDownLatch(1);
+
+    ProjectLoader.LoadListener listener = new ProjectLoader.LoadListener() {
+        @Override
+        public void loaded(DesignArea area) {
+            loaded = area;
+            reported.countDown();
+        }
+
+        @Override
+        public void failed(File file, IOException ex) {
+            failure = ex;
+            reported.countDown();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "board.pcb");
+
+        // A row of parts across a large board, each routed to the next.
+        area = new DesignArea("board", 50000, 50000);
+        Net net = new Net("GND");
+        area.addNet(net);
+        Pad prev = null;
+        for (int i = 0; i < 20; i++) {
+            Part part = part(200 + 2000 * i, 200 + 2000 * i);
+            area.addPart(part);
+            Pad a = part.getFootprint().getPads().get(0);
+            net.addPad(a);
+            if (prev != null) {
+                net.addSegment(prev, a, 12.7, Color.GREEN);
+            }
+            prev = part.getFootprint().getPads().get(1);
+            net.addPad(prev);
+        }
+        area.setJournalId(42);
+        ProjectCodec.write(area, file);
+    }
+
+    /**
+     * Test of load method, of class ProjectLoader.
+     */
+    @Test
+    public void testLoad() throws Exception {
+        System.out.println("load");
+        DesignArea[] preview = new DesignArea[1];
+        onEdt(() -> {
+            preview[0] = ProjectLoader.load(file,
+                    new Rectangle2D.Double(0, 0, 1000, 1000), listener);
+
+            // Only the first part and the segment leaving it are in view.
+            assertTrue(preview[0].isLoading());
+            assertEquals(1, preview[0].getParts().size());
+            assertEquals(1, preview[0].getNets().get(0).getSegments().size());
+            assertEquals(250, preview[0].getParts().get(0).getFootprint().getP().x, 0);
+            assertEquals("board", preview[0].getProjectName());
+            assertEquals(42, preview[0].getJournalId());
+        });
+
+        assertTrue(reported.await(10, TimeUnit.SECONDS));
+        assertNull(failure);
+        assertSame(preview[0], loaded);
+        onEdt(() -> assertFalse(loaded.isLoading()));
+        assertSameProject(ProjectCodec.read(file), loaded);
+    }
+
+    /**
+     * Test of load method with a view that cuts segments, of class
+     * ProjectLoader.
+     */
+    @Test
+    public void testLoadSegments() throws Exception {
+        System.out.println("loadSegments");
+        onEdt(() -> {
+            DesignArea preview = ProjectLoader.load(file,
+                    new Rectangle2D.Double(3810, 3810, 1000, 1000), listener);
+
+            // The part at 4200 and the segments to and from it.
+            assertEquals(1, preview.getParts().size());
+            assertEquals(1, preview.getNets().size());
+            assertEquals(2, preview.getNets().get(0).getSegments().size());
+        });
+
+        assertTrue(reported.await(10, TimeUnit.SECONDS));
+        assertNull(failure);
+        assertSameProject(ProjectCodec.read(file), loaded);
+    }
+
+    /**
+     * Test of load method with a project saved by the first version of the
+     * editor, which has no index, of class ProjectLoader.
+     */
+    @Test
+    public void testLoadLegacy() throws Exception {
+        System.out.println("loadLegacy");
+        try (InputStream in = getClass().getResourceAsStream("legacy.pcb")) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        onEdt(() -> {
+            DesignArea whole = ProjectLoader.load(file,
+                    new Rectangle2D.Double(0, 0, 1000, 1000), listener);
+            assertFalse(whole.isLoading());
+            assertEquals(4, whole.getParts().size());
+        });
+
+        assertTrue(reported.await(10, TimeUnit.SECONDS));
+        assertNull(failure);
+        assertEquals(4, loaded.getParts().size());
+        assertEquals(2, loaded.getNets().size());
+    }
+
+    /**
+     * Compares the saved form of two projects.
+     */
+    private static void assertSameProject(DesignArea expected, DesignArea actual)
+            throws IOException {
+        ByteArrayOutputStream e = new ByteArrayOutputStream();
+        ByteArrayOutputStream r = new ByteArrayOutputStream();
+        ProjectCodec.write(expected, e);
+        ProjectCodec.write(actual, r);
+        assertArrayEquals(e.toByteArray(), r.toByteArray());
+    }
+
+    private interface EdtTask {
+
+        void run() throws Exception;
+    }
+
+    private static void onEdt(EdtTask task) throws Exception {
+        Throwable[] failure = new Throwable[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                task.run();
+            } catch (Exception | AssertionError ex) {
+                failure[0] = ex;
+            }
+        });
+        if (failure[0] instanceof Exception) {
+            throw (Exception) failure[0];
+        } else if (failure[0] != null) {
+            throw (AssertionError) failure[0];
+        }
+    }
+
+    private static Part part(double x, double y) {
+        Pad a = new ThPad(new Point2D.Double(x, y), 75, 40, Color.RED, true);
+        Pad b = new ThPad(new Point2D.Double(x + 100, y), 75, 40, Color.RED, true);
+        return new Part("R", "Resistor", new Footprint(
+                new Point2D.Double(x + 50, y), a, b), 180, 100);
+    }
+}
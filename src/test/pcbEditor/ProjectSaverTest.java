@@ -0,0 +1,93 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import pcbPart.Footprint;
+import pcbPart.Part;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class ProjectSaverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ProjectSaver instance = new ProjectSaver();
+    IOException failure; // Reported by the listener.
+    CountDownLatch reported = new CountDownLatch(1);
+
+    ProjectSaver.SaveListener listener = new ProjectSaver.SaveListener() {
+        @Override
+        public void saved(File file) {
+            reported.countDown();
+        }
+
+        @Override
+        public void failed(File file, IOException ex) {
+            failure = ex;
+            reported.countDown();
+        }
+    };
+
+    /**
+     * Test of save method, of class ProjectSaver.
+     */
+    @Test
+    public void testSave() throws Exception {
+        System.out.println("save");
+        DesignArea area = new DesignArea("saved", 1000, 1000);
+        area.addPart(part(100));
+        File file = folder.newFile("saved.pcb");
+
+        // Edits after the save is requested are not saved.
+        instance.save(area, file, listener);
+        area.addPart(part(500));
+        area.setProjectName("edited");
+
+        assertTrue(instance.awaitIdle(10, TimeUnit.SECONDS));
+        assertTrue(reported.await(10, TimeUnit.SECONDS));
+        assertNull(failure);
+
+        DesignArea saved = ProjectCodec.read(file);
+        assertEquals("saved", saved.getProjectName());
+        assertEquals(1, saved.getParts().size());
+
+        // Only the project file is left.
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    /**
+     * Test of save method when the file can not be written, of class
+     * ProjectSaver.
+     */
+    @Test
+    public void testSaveFails() throws Exception {
+        System.out.println("saveFails");
+        DesignArea area = new DesignArea("saved", 1000, 1000);
+        File file = new File(folder.getRoot(), "missing/saved.pcb");
+
+        instance.save(area, file, listener);
+        assertTrue(reported.await(10, TimeUnit.SECONDS));
+        assertNotNull(failure);
+        assertFalse(file.exists());
+    }
+
+    private static Part part(double x) {
+        Pad a = new ThPad(new Point2D.Double(x, 200), 75, 40, Color.RED, true);
+        Pad b = new ThPad(new Point2D.Double(x + 100, 200), 75, 40, Color.RED, true);
+        return new Part("R", "Resistor", new Footprint(
+                new Point2D.Double(x + 50, 200), a, b), 180, 100);
+    }
+}
@@ -0,0 +1,47 @@
+package pcbEditor;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class SegmentBatchTest {
+
+    /**
+     * Test of build method, of class SegmentBatch.
+     */
+    @Test
+    public void testBuild() {
+        System.out.println("build");
+        Net net = new Net("net");
+        Pad[] pads = new Pad[5];
+        for (int i = 0; i < pads.length; i++) {
+            pads[i] = new ThPad(new Point2D.Double(i * 100, 0), 75, 40, Color.RED, true);
+            net.addPad(pads[i]);
+        }
+        net.addSegment(pads[0], pads[1], 10, Color.GREEN);
+        net.addSegment(pads[1], pads[2], 20, Color.GREEN);
+        net.addSegment(pads[2], pads[3], 10, Color.GREEN);
+        net.addSegment(pads[3], pads[4], 10, Color.BLUE);
+
+        ArrayList<SegmentBatch> batches = net.getBatches();
+        assertEquals(3, batches.size());
+        assertSame(batches, net.getBatches());
+
+        // Changing a segment invalidates the batches.
+        net.getSegments().get(1).setWidth(10);
+        assertNotSame(batches, net.getBatches());
+        assertEquals(2, net.getBatches().size());
+
+        batches = net.getBatches();
+        pads[0].translate(new Point2D.Double(5, 5));
+        assertNotSame(batches, net.getBatches());
+    }
+}
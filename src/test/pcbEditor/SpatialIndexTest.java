@@ -0,0 +1,79 @@
+package pcbEditor;
+
+import graphPrimitives.Component;
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class SpatialIndexTest {
+
+    SpatialIndex instance;
+    Net net;
+    List<Pad> pads;
+
+    @Before
+    public void setUp() {
+        instance = new SpatialIndex(100);
+        net = new Net("GND");
+        pads = new ArrayList<>();
+        for (int x = -20; x < 20; x++) {
+            for (int y = -20; y < 20; y++) {
+                Pad pad = new ThPad(new Point2D.Double(x * 130, y * 170), 20, 10, Color.RED, true);
+                pads.add(pad);
+                net.addPad(pad);
+            }
+        }
+        instance.addNet(net);
+    }
+
+    /**
+     * Test of query method, of class SpatialIndex.
+     */
+    @Test
+    public void testQuery() {
+        System.out.println("query");
+        assertQuery(new Rectangle2D.Double(-300, -400, 700, 500));
+        assertQuery(new Rectangle2D.Double(-1e6, -1e6, 2e6, 2e6));
+
+        // Emptied cells leave the table as other cells move into their slots.
+        for (int i = 0; i < pads.size(); i += 3) {
+            net.removePad(pads.get(i));
+        }
+        for (int i = 1; i < pads.size(); i += 3) {
+            pads.get(i).translate(new Point2D.Double(5000, 0));
+        }
+        assertQuery(new Rectangle2D.Double(-300, -400, 700, 500));
+        assertQuery(new Rectangle2D.Double(2000, -1000, 4000, 2000));
+        assertQuery(new Rectangle2D.Double(-1e6, -1e6, 2e6, 2e6));
+        for (int i = 1; i < pads.size(); i += 3) {
+            assertTrue(instance.query(pads.get(i).getP()).contains(pads.get(i)));
+        }
+    }
+
+    /**
+     * Compares a query with a scan of all indexed components.
+     */
+    private void assertQuery(Rectangle2D r) {
+        HashSet<Component> expected = new HashSet<>();
+        for (Component c : instance.getComponents()) {
+            if (c.getPaddedBounds(0).intersects(r)) {
+                expected.add(c);
+            }
+        }
+        List<Component> hits = instance.query(r);
+        assertEquals(expected.size(), hits.size());
+        assertEquals(expected, new HashSet<>(hits));
+    }
+}
@@ -0,0 +1,84 @@
+package pcbEditor;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class TileCacheTest {
+
+    TileCache instance;
+    int painted; // Number of painted tiles.
+
+    TileCache.TilePainter painter = new TileCache.TilePainter() {
+        @Override
+        public void paintTile(Graphics2D g, Rectangle area) {
+            painted++;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        instance = new TileCache(100, 16);
+        painted = 0;
+    }
+
+    /**
+     * Test of paint method, of class TileCache.
+     */
+    @Test
+    public void testPaint() {
+        System.out.println("paint");
+        Graphics2D g = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB).createGraphics();
+
+        instance.paint(g, new Rectangle(0, 0, 200, 200), null, painter);
+        assertEquals(4, painted);
+        assertEquals(4, instance.size());
+
+        // Valid tiles are not painted again.
+        instance.paint(g, new Rectangle(50, 50, 100, 100), null, painter);
+        assertEquals(4, painted);
+    }
+
+    /**
+     * Test of invalidate method, of class TileCache.
+     */
+    @Test
+    public void testInvalidate() {
+        System.out.println("invalidate");
+        Graphics2D g = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB).createGraphics();
+        instance.paint(g, new Rectangle(0, 0, 300, 300), null, painter);
+        assertEquals(9, instance.size());
+
+        // Only the tiles touching the area are dropped.
+        instance.invalidate(new Rectangle2D.Double(120, 120, 50, 50));
+        assertEquals(8, instance.size());
+        instance.paint(g, new Rectangle(0, 0, 300, 300), null, painter);
+        assertEquals(10, painted);
+
+        instance.invalidateAll();
+        assertEquals(0, instance.size());
+    }
+
+    /**
+     * Test of eviction in the paint method, of class TileCache.
+     */
+    @Test
+    public void testEvict() {
+        System.out.println("evict");
+        Graphics2D g = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB).createGraphics();
+        instance.paint(g, new Rectangle(0, 0, 400, 400), null, painter);
+        assertEquals(16, instance.size());
+
+        // Tiles outside the painted area are dropped when the cache is full.
+        instance.paint(g, new Rectangle(1000, 1000, 100, 100), null, painter);
+        assertEquals(1, instance.size());
+    }
+}
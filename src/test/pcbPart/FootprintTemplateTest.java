@@ -0,0 +1,92 @@
+package pcbPart;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPrimitives.Pad;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class FootprintTemplateTest {
+
+    Part instance;
+
+    @Before
+    public void setUp() {
+        instance = new Part("R", "R1", new Footprint(new Point2D.Double(0, 0),
+                new ThPad(new Point2D.Double(0, -300), 75, 40, Color.GRAY, true),
+                new ThPad(new Point2D.Double(0, 300), 75, 40, Color.GRAY, true)),
+                100, 700);
+    }
+
+    /**
+     * Test of place method, of class FootprintTemplate.
+     */
+    @Test
+    public void testPlace() {
+        System.out.println("place");
+        FootprintTemplate template = instance.getTemplate();
+        assertSame(template, instance.getTemplate());
+        assertEquals(2, template.getPadCount());
+
+        Part part = template.place("R", "R2", new Point2D.Double(1000, 2000), 0);
+        assertTrue(part.isAligned());
+        assertSame(template, part.getTemplate());
+        assertEquals(1000, part.getFootprint().getPads().get(0).getP().x, 0);
+        assertEquals(1700, part.getFootprint().getPads().get(0).getP().y, 0);
+        assertEquals(2300, part.getFootprint().getPads().get(1).getP().y, 0);
+        assertSame(part, part.getFootprint().getPads().get(0).getPart());
+        assertEquals(950, part.getOutline().getX(), 0);
+        assertEquals(1650, part.getOutline().getY(), 0);
+    }
+
+    /**
+     * Test of placing rotated parts, of class FootprintTemplate.
+     */
+    @Test
+    public void testPlaceRotated() throws Exception {
+        System.out.println("placeRotated");
+        FootprintTemplate template = instance.getTemplate();
+        instance.rot90(true);
+        assertEquals(3 * Math.PI / 2, instance.getAngle(), 0);
+        assertTrue(template.matches(instance));
+
+        // The clone is turned like the original, from the same template.
+        Part part = (Part) instance.clone();
+        assertSame(template, part.getTemplate());
+        assertEquals(instance.getAngle(), part.getAngle(), 0);
+        Pad a = instance.getFootprint().getPads().get(0);
+        Pad b = part.getFootprint().getPads().get(0);
+        assertEquals(a.getP().x, b.getP().x, 0);
+        assertEquals(a.getP().y, b.getP().y, 0);
+        assertEquals(instance.getOutline(), part.getOutline());
+
+        part.rot90(false);
+        assertEquals(0, part.getAngle(), 0);
+        assertEquals(100, part.getOutline().getWidth(), 0);
+    }
+
+    /**
+     * Test of matches method, of class FootprintTemplate.
+     */
+    @Test
+    public void testMatches() throws Exception {
+        System.out.println("matches");
+        FootprintTemplate template = instance.getTemplate();
+        Part part = (Part) instance.clone();
+        part.translate(new Point2D.Double(500, 500));
+        assertTrue(template.matches(part));
+
+        // A changed pad gets a template of its own.
+        ((ThPad) part.getFootprint().getPads().get(1)).setHoleDiam(60);
+        assertFalse(template.matches(part));
+        assertNotSame(template, part.getTemplate());
+        assertEquals(60, ((ThPad) ((Part) part.clone()).getFootprint()
+                .getPads().get(1)).getHoleDiam(), 0);
+    }
+}
@@ -0,0 +1,103 @@
+package pcbPart;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import javax.swing.event.ChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import pcbPrimitives.Pad;
+import pcbPrimitives.Segment;
+import pcbPrimitives.ThPad;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class PartTest {
+
+    Part instance;
+    Pad a, b;
+
+    @Before
+    public void setUp() {
+        a = new ThPad(new Point2D.Double(100, 200), 75, 40, Color.RED, true);
+        b = new ThPad(new Point2D.Double(300, 200), 75, 40, Color.RED, true);
+        instance = new Part("R", "R1", new Footprint(new Point2D.Double(200, 200), a, b),
+                300, 100);
+    }
+
+    /**
+     * Test of rotate method, of class Part.
+     */
+    @Test
+    public void testRotate() {
+        System.out.println("rotate");
+        instance.rotate(Math.toRadians(30));
+        assertFalse(instance.isAligned());
+        assertEquals(200 - 100 * Math.cos(Math.toRadians(30)), a.getP().x, 1e-9);
+        assertEquals(200 - 100 * Math.sin(Math.toRadians(30)), a.getP().y, 1e-9);
+        assertEquals(200 + 100 * Math.sin(Math.toRadians(30)), b.getP().y, 1e-9);
+
+        // The bounds hold the turned outline.
+        Rectangle2D ol = instance.getOutline();
+        Rectangle2D shape = instance.getOutlineShape().getBounds2D();
+        assertEquals(ol.getMinX(), shape.getMinX(), 1e-9);
+        assertEquals(ol.getMaxY(), shape.getMaxY(), 1e-9);
+        assertTrue(instance.contains(new Point2D.Double(300, 250)));
+        assertFalse(instance.contains(new Point2D.Double(340, 150)));
+        assertTrue(ol.contains(340, 150));
+
+        // Twelve turns of 30 degrees bring the pads back without drift.
+        for (int i = 1; i < 12; i++) {
+            instance.rotate(Math.toRadians(30));
+        }
+        assertTrue(instance.isAligned());
+        assertEquals(0, instance.getAngle(), 0);
+        assertEquals(new Point2D.Double(100, 200), a.getP());
+        assertEquals(new Rectangle2D.Double(50, 150, 300, 100), instance.getOutline());
+    }
+
+    /**
+     * Test of rot90 method, of class Part.
+     */
+    @Test
+    public void testRot90() {
+        System.out.println("rot90");
+        instance.rot90(true);
+        assertEquals(new Point2D.Double(200, 300), a.getP());
+        assertEquals(new Rectangle2D.Double(150, 50, 100, 300), instance.getOutline());
+        instance.rot90(true);
+        instance.rot90(true);
+        instance.rot90(true);
+        assertEquals(0, instance.getAngle(), 0);
+        assertEquals(new Point2D.Double(100, 200), a.getP());
+    }
+
+    /**
+     * Test of the change notification of rotate, of class Part.
+     */
+    @Test
+    public void testRotateNotifies() {
+        System.out.println("rotateNotifies");
+        Pad c = new ThPad(new Point2D.Double(500, 500), 75, 40, Color.RED, true);
+        Segment seg = new Segment(b, c, 10, Color.GREEN);
+        int[] parts = new int[1];
+        int[] pads = new int[1];
+        ChangeListener partListener = e -> parts[0]++;
+        instance.addViewListener(partListener);
+        ChangeListener padListener = e -> pads[0]++;
+        a.addViewListener(padListener);
+        b.addViewListener(padListener);
+
+        instance.rotate(Math.toRadians(45));
+        assertEquals(1, parts[0]);
+        assertEquals(0, pads[0]);
+        assertEquals(b.getP(), seg.getLine().getP1());
+
+        assertTrue(instance.removeViewListener(partListener));
+        instance.rotate(Math.toRadians(45));
+        assertEquals(1, parts[0]);
+    }
+}
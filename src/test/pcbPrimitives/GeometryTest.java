@@ -0,0 +1,109 @@
+package pcbPrimitives;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Albin Hjalmas.
+ */
+public class GeometryTest {
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * Test of the distance methods, of class Geometry.
+     */
+    @Test
+    public void testDistances() {
+        System.out.println("distances");
+        assertEquals(5, Geometry.pointSegmentDist(3, 4, 0, 0, 0, 0), EPS);
+        assertEquals(2, Geometry.pointSegmentDist(5, 2, 0, 0, 10, 0), EPS);
+        assertEquals(5, Geometry.pointSegmentDist(13, 4, 0, 0, 10, 0), EPS);
+        assertEquals(0, Geometry.segmentSegmentDist(0, 0, 10, 10, 0, 10, 10, 0), EPS);
+        assertEquals(3, Geometry.segmentSegmentDist(0, 0, 10, 0, 5, 3, 5, 10), EPS);
+        assertEquals(10, Geometry.circleCircleClearance(0, 0, 5, 20, 0, 5), EPS);
+        assertEquals(0, Geometry.circleCircleClearance(0, 0, 5, 8, 0, 5), EPS);
+        assertEquals(1, Geometry.capsuleCapsuleClearance(0, 0, 10, 0, 1, 0, 3, 10, 3, 1), EPS);
+    }
+
+    /**
+     * Test of rectOutlineDist, of class Geometry. The rotated version must
+     * agree with the axis aligned one.
+     */
+    @Test
+    public void testRectOutlineDist() {
+        System.out.println("rectOutlineDist");
+        assertEquals(5, Geometry.rectOutlineDist(0, 0, 10, 10, 15, 0, 20, 10), EPS);
+        assertEquals(2, Geometry.rectOutlineDist(0, 0, 10, 10, 2, 3, 7, 7), EPS);
+        assertEquals(0, Geometry.rectOutlineDist(0, 0, 10, 10, 5, 5, 15, 15), EPS);
+
+        Random rnd = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            double ax = rnd.nextInt(100), ay = rnd.nextInt(100);
+            double aw = 1 + rnd.nextInt(50), ah = 1 + rnd.nextInt(50);
+            double bx = rnd.nextInt(100), by = rnd.nextInt(100);
+            double bw = 1 + rnd.nextInt(50), bh = 1 + rnd.nextInt(50);
+            assertEquals(
+                    Geometry.rectOutlineDist(ax, ay, ax + aw, ay + ah, bx, by, bx + bw, by + bh),
+                    Geometry.rectOutlineDist(ax + aw / 2, ay + ah / 2, aw / 2, ah / 2, 1, 0,
+                            bx + bw / 2, by + bh / 2, bw / 2, bh / 2, 1, 0), EPS);
+        }
+    }
+
+    /**
+     * Test of rectContains, of class Geometry.
+     */
+    @Test
+    public void testRectContains() {
+        System.out.println("rectContains");
+        double c = Math.cos(Math.PI / 4), s = Math.sin(Math.PI / 4);
+        assertTrue(Geometry.rectContains(0, 0, 10, 1, c, s, 6, 6));
+        assertFalse(Geometry.rectContains(0, 0, 10, 1, c, s, 6, -6));
+        assertTrue(Geometry.rectContains(0, 0, 10, 1, 1, 0, 9, 0.5));
+        assertFalse(Geometry.rectContains(0, 0, 10, 1, 1, 0, 9, 1.5));
+    }
+
+    /**
+     * The outlines must cover the same area as the stroked shapes they
+     * replace.
+     */
+    @Test
+    public void testOutlines() {
+        System.out.println("outlines");
+        Random rnd = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            double x0 = rnd.nextInt(100), y0 = rnd.nextInt(100);
+            double x1 = rnd.nextInt(100), y1 = rnd.nextInt(100);
+            double r = 1 + rnd.nextInt(10);
+            Shape capsule = Geometry.capsuleOutline(x0, y0, x1, y1, r);
+            Shape stroked = new BasicStroke((float) (2 * r), BasicStroke.CAP_ROUND,
+                    BasicStroke.JOIN_ROUND).createStrokedShape(new Line2D.Double(x0, y0, x1, y1));
+            Rectangle2D rect = new Rectangle2D.Double(Math.min(x0, x1), Math.min(y0, y1),
+                    Math.abs(x1 - x0) + 1, Math.abs(y1 - y0) + 1);
+            Shape frame = Geometry.frameOutline(rect, r);
+            Shape strokedFrame = new BasicStroke((float) (2 * r), BasicStroke.CAP_ROUND,
+                    BasicStroke.JOIN_ROUND).createStrokedShape(rect);
+
+            for (int j = 0; j < 200; j++) {
+                double px = rnd.nextDouble() * 120 - 10;
+                double py = rnd.nextDouble() * 120 - 10;
+                // Skip points too close to the border to tell.
+                double d = Geometry.pointSegmentDist(px, py, x0, y0, x1, y1);
+                if (Math.abs(d - r) > 0.05) {
+                    assertEquals(stroked.contains(px, py), capsule.contains(px, py));
+                    assertEquals(d < r, Geometry.capsuleContains(x0, y0, x1, y1, r, px, py));
+                }
+                if (!strokedFrame.intersects(px - 0.05, py - 0.05, 0.1, 0.1)
+                        || strokedFrame.contains(px - 0.05, py - 0.05, 0.1, 0.1)) {
+                    assertEquals(strokedFrame.contains(px, py), frame.contains(px, py));
+                }
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import pcbEditor.BomWriter;
 import pcbPart.Part;
 
 /**
@@ -74,61 +76,13 @@ public class BomSaver extends javax.swing.JFrame {
     public void createBom(ArrayList<Part> parts, String projName) {
         saved = false;
         StringWriter sw = new StringWriter();
-        ArrayList<ArrayList<Part>> sort = new ArrayList<>();
-        String delimiter = "***************************************************";
-        String delimiter2 = "---------------------------------------------------";
-        String delimiter3 = "--                                               --";
-        int w = delimiter.length();
-        
-        for(Part part : parts) {
-            boolean added = false;
-            for(ArrayList<Part> pl : sort) {
-                if(part.getId().equals(pl.get(0).getId())) {
-                    pl.add(part);
-                    added = true;
-                    break;
-                }
-            }
-            
-            if(!added) {
-                ArrayList<Part> tmp = new ArrayList<>();
-                tmp.add(part);
-                sort.add(tmp);
-            }
-        }
-        
-        
-        sw.write(delimiter + "\n");
-        sw.write(ws((w - projName.length())/2 - 1) + "~" + projName + "~\n");
-        sw.write("Date: " + new Date() + "\n");
-        sw.write("Total number of parts: " + parts.size() + "\n");
-        sw.write(delimiter + "\n");
-        sw.write(String.format("%-40s %10s\n", "Part ID", "Qty"));
-        sw.write(delimiter2 + "\n");
-        
-        for(ArrayList<Part> l : sort) {
-            sw.write(String.format("%-40s %10s\n", l.get(0).getId(), 
-                    Integer.toString(l.size())));
-            sw.write(delimiter3 + "\n");
+        try {
+            new BomWriter(BomWriter.Format.TEXT, false).write(parts, projName, new Date(), sw);
+        } catch (IOException ex) {
+            Logger.getLogger(BomSaver.class.getName()).log(Level.SEVERE, null, ex);
         }
-        
-        sw.write(delimiter);
-        
         textPane.setText(sw.toString());
     }
-
-    /**
-     * Creates a string of whitespace.
-     * @param amount the number of "space" characters in the whitespace string
-     * @return a string of whitespace.
-     */
-    private String ws(int amount) {
-        String str = "";
-        for(int i=0; i<amount; i++) {
-            str += ' ';
-        }
-        return str;
-    }
     
     /**
      * This method is called from within the constructor to initialize the form.
@@ -0,0 +1,173 @@
+package ui;
+
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.table.AbstractTableModel;
+import pcbEditor.DesignArea;
+import pcbEditor.Grid;
+import pcbEditor.Violation;
+
+/**
+ * Shows the progress of a design rule check and lists the violations found
+ * once it is done. Selecting a violation highlights it on the design area.
+ *
+ * @author Albin Hjalmas.
+ */
+public class DrcResults extends javax.swing.JFrame {
+
+    private final DesignArea da; // The checked design area.
+    private final ViolationModel model;
+
+    /**
+     * Table model with one row per violation.
+     */
+    private static class ViolationModel extends AbstractTableModel {
+
+        private static final String[] COLUMNS = {"Kind", "First", "Second", "Clearance [mm]"};
+        private List<Violation> violations = new ArrayList<>();
+
+        @Override
+        public int getRowCount() {
+            return violations.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 3 ? Double.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Violation v = violations.get(row);
+            switch (column) {
+                case 0:
+                    return Violation.kind(v.getA()) + " - " + Violation.kind(v.getB());
+                case 1:
+                    return v.getA().toString();
+                case 2:
+                    return v.getB().toString();
+                default:
+                    return v.getClearance() / Grid.UNITS_PER_MM;
+            }
+        }
+    }
+
+    /**
+     * Creates new form DrcResults
+     *
+     * @param da the design area being checked.
+     */
+    public DrcResults(DesignArea da) {
+        initComponents();
+        this.da = da;
+        model = new ViolationModel();
+        violationTable.setModel(model);
+        violationTable.setAutoCreateRowSorter(true);
+        violationTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        // Avoid this window to close the whole application
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                DrcResults.this.da.showViolation(null);
+                setVisible(false);
+            }
+        });
+
+        violationTable.getSelectionModel().addListSelectionListener((ListSelectionEvent e) -> {
+            if (e.getValueIsAdjusting()) {
+                return;
+            }
+
+            int row = violationTable.getSelectedRow();
+            if (row < 0) {
+                DrcResults.this.da.showViolation(null);
+            } else {
+                DrcResults.this.da.showViolation(
+                        model.violations.get(violationTable.convertRowIndexToModel(row)));
+            }
+        });
+    }
+
+    /**
+     * Updates the progress of the running check.
+     *
+     * @param percent the progress in percent.
+     */
+    public void setProgress(int percent) {
+        progressBar.setValue(percent);
+        statusLabel.setText("Checking... " + percent + " %");
+    }
+
+    /**
+     * Shows the result of a finished check.
+     *
+     * @param violations the violations found.
+     */
+    public void setViolations(List<Violation> violations) {
+        model.violations = violations;
+        model.fireTableDataChanged();
+        progressBar.setValue(100);
+        if (violations.isEmpty()) {
+            statusLabel.setText("No design rule violations found!!");
+        } else {
+            statusLabel.setText(violations.size() + " design rule violations found");
+        }
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        jPanel1 = new javax.swing.JPanel();
+        statusLabel = new javax.swing.JLabel();
+        progressBar = new javax.swing.JProgressBar();
+        jScrollPane1 = new javax.swing.JScrollPane();
+        violationTable = new javax.swing.JTable();
+
+        setDefaultCloseOperation(javax.swing.WindowConstants.DO_NOTHING_ON_CLOSE);
+        setTitle("DRC Check");
+
+        jPanel1.setLayout(new java.awt.BorderLayout());
+
+        statusLabel.setText("Checking...");
+        jPanel1.add(statusLabel, java.awt.BorderLayout.NORTH);
+        jPanel1.add(progressBar, java.awt.BorderLayout.CENTER);
+
+        getContentPane().add(jPanel1, java.awt.BorderLayout.NORTH);
+
+        jScrollPane1.setPreferredSize(new java.awt.Dimension(600, 300));
+        jScrollPane1.setViewportView(violationTable);
+
+        getContentPane().add(jScrollPane1, java.awt.BorderLayout.CENTER);
+
+        pack();
+    }// </editor-fold>//GEN-END:initComponents
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JPanel jPanel1;
+    private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JProgressBar progressBar;
+    private javax.swing.JLabel statusLabel;
+    private javax.swing.JTable violationTable;
+    // End of variables declaration//GEN-END:variables
+}
@@ -3,22 +3,14 @@ package ui;
 import graphPrimitives.Component;
 import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
-import java.awt.event.MouseMotionAdapter;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
-import javax.swing.SwingUtilities;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -26,6 +18,10 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import pcbEditor.CoordinateListener;
 import pcbEditor.DesignArea;
+import pcbEditor.EditJournal;
+import pcbEditor.Grid;
+import pcbEditor.ProjectLoader;
+import pcbEditor.ProjectSaver;
 import pcbPart.Footprint;
 import pcbPart.Part;
 import pcbPrimitives.ThPad;
@@ -43,6 +39,15 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     // The design area
     private DesignArea da;
 
+    // Writes saved projects in the background.
+    private final ProjectSaver saver = new ProjectSaver();
+
+    // Records the edits of the open project, null until it is saved.
+    private EditJournal journal;
+
+    // World units per millimetre, used for the footprints of the parts tree.
+    private static final double MM = Grid.UNITS_PER_MM;
+
     /**
      * @param args the command line arguments
      */
@@ -87,18 +92,18 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
                 "resistor length 12.7mm, hole 0.8mm",
                 "resistor length 12.7mm, hole 0.8mm",
                 new Footprint(new Point2D.Double(0,0),
-                        new ThPad(new Point2D.Double(0,-6.35 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true), 
-                        new ThPad(new Point2D.Double(0,6.35 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true)),
-                2.5 * 50, 14.4 * 50
+                        new ThPad(new Point2D.Double(0,-6.35 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true), 
+                        new ThPad(new Point2D.Double(0,6.35 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true)),
+                2.5 * MM, 14.4 * MM
         ), false);
         category.add(part);
         part = new DefaultMutableTreeNode(new Part(
                 "resistor length 7.62mm, hole 0.6mm",
                 "resistor length 7.62mm, hole 0.6mm",
                 new Footprint(new Point2D.Double(0,0),
-                        new ThPad(new Point2D.Double(0,-3.81 * 50), 1.3 * 50, 0.6 * 50, Color.gray, true), 
-                        new ThPad(new Point2D.Double(0,3.81 * 50), 1.3 * 50, 0.6 * 50, Color.gray, true)),
-                2 * 50, 9.12 * 50
+                        new ThPad(new Point2D.Double(0,-3.81 * MM), 1.3 * MM, 0.6 * MM, Color.gray, true), 
+                        new ThPad(new Point2D.Double(0,3.81 * MM), 1.3 * MM, 0.6 * MM, Color.gray, true)),
+                2 * MM, 9.12 * MM
         ));
         category.add(part);
         
@@ -106,18 +111,18 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
                 "capacitor leg spacing 12.7mm, hole 0.8mm",
                 "capacitor leg spacing 12.7mm, hole 0.8mm",
                 new Footprint(new Point2D.Double(0,0),
-                        new ThPad(new Point2D.Double(0,-6.35 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true), 
-                        new ThPad(new Point2D.Double(0,6.35 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true)),
-                14.4 * 50, 14.4 * 50
+                        new ThPad(new Point2D.Double(0,-6.35 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true), 
+                        new ThPad(new Point2D.Double(0,6.35 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true)),
+                14.4 * MM, 14.4 * MM
         ), false);
         category.add(part);
         part = new DefaultMutableTreeNode(new Part(
                 "capacitor leg spacing 7.62mm, hole 0.6mm",
                 "capacitor leg spacing 7.62mm, hole 0.6mm",
                 new Footprint(new Point2D.Double(0,0),
-                        new ThPad(new Point2D.Double(0,-3.81 * 50), 1.3 * 50, 0.6 * 50, Color.gray, true), 
-                        new ThPad(new Point2D.Double(0,3.81 * 50), 1.3 * 50, 0.6 * 50, Color.gray, true)),
-                9.12 * 50, 9.12 * 50
+                        new ThPad(new Point2D.Double(0,-3.81 * MM), 1.3 * MM, 0.6 * MM, Color.gray, true), 
+                        new ThPad(new Point2D.Double(0,3.81 * MM), 1.3 * MM, 0.6 * MM, Color.gray, true)),
+                9.12 * MM, 9.12 * MM
         ), false);
         category.add(part);
         
@@ -128,15 +133,15 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
                 "8 legged op-amp, 0.8mm holes",
                 "8 legged op-amp, 0.8mm holes",
                 new Footprint(new Point2D.Double(0,0),
-                        new ThPad(new Point2D.Double(-3.81 * 50, 3.81 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true), 
-                        new ThPad(new Point2D.Double(-3.81 * 50, 1.27 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true),
-                        new ThPad(new Point2D.Double(-3.81 * 50, -1.27 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true),
-                        new ThPad(new Point2D.Double(-3.81 * 50, -3.81 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true),
-                        new ThPad(new Point2D.Double(3.81 * 50, -3.81 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true), 
-                        new ThPad(new Point2D.Double(3.81 * 50, -1.27 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true),
-                        new ThPad(new Point2D.Double(3.81 * 50, 1.27 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true),
-                        new ThPad(new Point2D.Double(3.81 * 50, 3.81 * 50), 1.5 * 50, 0.8 * 50, Color.gray, true)),
-                9.32 * 50, 10.36 * 50
+                        new ThPad(new Point2D.Double(-3.81 * MM, 3.81 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true), 
+                        new ThPad(new Point2D.Double(-3.81 * MM, 1.27 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true),
+                        new ThPad(new Point2D.Double(-3.81 * MM, -1.27 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true),
+                        new ThPad(new Point2D.Double(-3.81 * MM, -3.81 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true),
+                        new ThPad(new Point2D.Double(3.81 * MM, -3.81 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true), 
+                        new ThPad(new Point2D.Double(3.81 * MM, -1.27 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true),
+                        new ThPad(new Point2D.Double(3.81 * MM, 1.27 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true),
+                        new ThPad(new Point2D.Double(3.81 * MM, 3.81 * MM), 1.5 * MM, 0.8 * MM, Color.gray, true)),
+                9.32 * MM, 10.36 * MM
         ), false);
         category.add(part);
     }
@@ -219,10 +224,15 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
         defaultSettingsMenuItem = new javax.swing.JMenuItem();
         selectedSettingsMenuItem = new javax.swing.JMenuItem();
         netManagerMenuItem = new javax.swing.JMenuItem();
+        viewMenu = new javax.swing.JMenu();
+        zoomInMenuItem = new javax.swing.JMenuItem();
+        zoomOutMenuItem = new javax.swing.JMenuItem();
+        actualSizeMenuItem = new javax.swing.JMenuItem();
         helpMenu = new javax.swing.JMenu();
         aboutMenuItem = new javax.swing.JMenuItem();
         jMenu1 = new javax.swing.JMenu();
         bomMenuItem = new javax.swing.JMenuItem();
+        liveDrcMenuItem = new javax.swing.JCheckBoxMenuItem();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
         setTitle("PCB Editor");
@@ -413,6 +423,34 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
 
         menuBar.add(editMenu);
 
+        viewMenu.setText("View");
+
+        zoomInMenuItem.setText("Zoom In");
+        zoomInMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                zoomInMenuItemActionPerformed(evt);
+            }
+        });
+        viewMenu.add(zoomInMenuItem);
+
+        zoomOutMenuItem.setText("Zoom Out");
+        zoomOutMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                zoomOutMenuItemActionPerformed(evt);
+            }
+        });
+        viewMenu.add(zoomOutMenuItem);
+
+        actualSizeMenuItem.setText("Actual Size");
+        actualSizeMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                actualSizeMenuItemActionPerformed(evt);
+            }
+        });
+        viewMenu.add(actualSizeMenuItem);
+
+        menuBar.add(viewMenu);
+
         helpMenu.setText("Help");
 
         aboutMenuItem.setText("About");
@@ -435,6 +473,14 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
         });
         jMenu1.add(bomMenuItem);
 
+        liveDrcMenuItem.setText("Live DRC");
+        liveDrcMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                liveDrcMenuItemActionPerformed(evt);
+            }
+        });
+        jMenu1.add(liveDrcMenuItem);
+
         menuBar.add(jMenu1);
 
         setJMenuBar(menuBar);
@@ -484,46 +530,49 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
             }
 
             openProject = fs.getSelectedFile();
-            ObjectInputStream is = new ObjectInputStream(new FileInputStream(openProject));
-            da = (DesignArea) is.readObject();
-            is.close();
-            da.addCoordinateListener(this);
-
-            // Add mouse listeners.
-            da.addMouseListener(new MouseAdapter() {
-                @Override
-                public void mousePressed(MouseEvent e) {
-                    da.mousePressedImpl(e);
-                }
-
-                @Override
-                public void mouseReleased(MouseEvent e) {
-                    da.mouseReleasedImpl(e);
-                }
-            });
-            da.addMouseMotionListener(new MouseMotionAdapter() {
+            // The board in view is shown while the rest is read.
+            da = ProjectLoader.load(openProject, new Rectangle2D.Double(0, 0,
+                    centerPanel.getWidth(), centerPanel.getHeight()),
+                    new ProjectLoader.LoadListener() {
                 @Override
-                public void mouseDragged(MouseEvent e) {
-                    da.mouseDraggedImpl(e);
+                public void loaded(DesignArea area) {
+                    if (area != da) {
+                        return; // The project was closed.
+                    }
+                    try {
+                        // Edits that were not saved before a crash are replayed.
+                        journal = EditJournal.open(area, openProject, saver);
+                    } catch (IOException ex) {
+                        Logger.getLogger(Editor.class.getName()).log(Level.SEVERE, null, ex);
+                    }
                 }
 
                 @Override
-                public void mouseMoved(MouseEvent e) {
-                    da.mouseMovedImpl(e);
+                public void failed(File file, IOException ex) {
+                    if (!file.equals(openProject)) {
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(Editor.this, "Unable to open project!\n"
+                            + ex.getMessage(),
+                            "Open Error", JOptionPane.ERROR_MESSAGE);
+                    centerPanel.remove(da);
+                    Editor.this.removeKeyListener(da);
+                    da = null;
+                    openProject = null;
+                    revalidate();
+                    repaint();
                 }
             });
+            da.addCoordinateListener(this);
+            da.setLiveDrc(liveDrcMenuItem.isSelected());
             this.addKeyListener(da);
             centerPanel.add(da, BorderLayout.CENTER);
             cursorBtn.setSelected(true);
 
             revalidate();
             this.requestFocus();
-        } catch (FileNotFoundException ex) {
-            Logger.getLogger(Editor.class.getName()).log(Level.SEVERE, null, ex);
         } catch (IOException ex) {
             Logger.getLogger(Editor.class.getName()).log(Level.SEVERE, null, ex);
-        } catch (ClassNotFoundException ex) {
-            Logger.getLogger(Editor.class.getName()).log(Level.SEVERE, null, ex);
         }
     }//GEN-LAST:event_openProjectMenuItemActionPerformed
 
@@ -545,9 +594,10 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
 
         // Create new DesignArea.
         openProject = np.getProjectFile();
-        da = new DesignArea(np.getProjectName(), (int) (np.getBoardWidth() * 50.0),
-                (int) (np.getBoardHeight() * 50.0));
+        da = new DesignArea(np.getProjectName(), (int) (np.getBoardWidth() * Grid.UNITS_PER_MM),
+                (int) (np.getBoardHeight() * Grid.UNITS_PER_MM));
         da.addCoordinateListener(this);
+        da.setLiveDrc(liveDrcMenuItem.isSelected());
         this.addKeyListener(da);
         centerPanel.add(da, BorderLayout.CENTER);
         cursorBtn.setSelected(true);
@@ -560,7 +610,7 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
         if (openProject == null) {
             JOptionPane.showMessageDialog(this, "No project is open!",
                     "Error", JOptionPane.ERROR_MESSAGE);
-        } else {
+        } else if (!da.isLoading()) {
             saveMenuItemActionPerformed(evt); // Save current project first
             JFileChooser fc = new JFileChooser(openProject);
             FileFilter filter = new FileNameExtensionFilter("PCB Project", "pcb");
@@ -577,6 +627,10 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
             if(!openProject.getAbsolutePath().matches(".+.pcb")) {
                 openProject = new File(openProject.getAbsolutePath() + ".pcb");
             }
+            if (journal != null) { // The new file gets its own journal.
+                journal.close();
+                journal = null;
+            }
             da.setProjectName(openProject.getName().replace(".pcb", ""));
             saveMenuItemActionPerformed(evt); // Save the designarea into the new file
             this.requestFocus();
@@ -585,31 +639,29 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     }//GEN-LAST:event_saveAsMenuItemActionPerformed
 
     private void saveMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_saveMenuItemActionPerformed
-        try {
-            FileOutputStream fos = new FileOutputStream(openProject);
-            ObjectOutputStream os = new ObjectOutputStream(fos);
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    os.writeObject(da);
-                    os.flush();
-                    os.close();
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(null, "Unable to save project!\n"
-                            + ex.getMessage(),
-                            "Save Error", JOptionPane.ERROR_MESSAGE);
-                }
-            });
+        if (openProject == null || da.isLoading()) {
+            return; // Nothing has been edited yet.
+        }
 
-            this.requestFocus();
-        } catch (FileNotFoundException ex) {
-            JOptionPane.showMessageDialog(this, "Unable to save project!\n"
-                    + ex.getMessage(),
-                    "Save Error", JOptionPane.ERROR_MESSAGE);
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(null, "Unable to save project!\n"
-                    + ex.getMessage(),
-                    "Save Error", JOptionPane.ERROR_MESSAGE);
+        // Editing goes on while the snapshot of the project is written.
+        if (journal == null) {
+            journal = EditJournal.create(da, openProject, saver);
         }
+        journal.checkpoint(new ProjectSaver.SaveListener() {
+            @Override
+            public void saved(File file) {
+                Logger.getLogger(Editor.class.getName()).log(Level.INFO,
+                        "Saved {0}", file);
+            }
+
+            @Override
+            public void failed(File file, IOException ex) {
+                JOptionPane.showMessageDialog(Editor.this, "Unable to save project!\n"
+                        + ex.getMessage(),
+                        "Save Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        this.requestFocus();
     }//GEN-LAST:event_saveMenuItemActionPerformed
 
     private void closeMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_closeMenuItemActionPerformed
@@ -622,7 +674,15 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
                     return;
                 case JOptionPane.OK_OPTION:
                     saveMenuItemActionPerformed(null);
+                    if (journal != null) {
+                        journal.close();
+                        journal = null;
+                    }
                 case JOptionPane.NO_OPTION:
+                    if (journal != null) { // Forget the unsaved edits.
+                        journal.discard();
+                        journal = null;
+                    }
                     centerPanel.remove(da);
                     this.removeKeyListener(da);
                     da = null;
@@ -635,7 +695,7 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     }//GEN-LAST:event_closeMenuItemActionPerformed
 
     private void defaultSettingsMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_defaultSettingsMenuItemActionPerformed
-        if(openProject == null) return;
+        if(openProject == null || da.isLoading()) return;
         da.showDefaultSettingsDialog();
         this.requestFocus();
     }//GEN-LAST:event_defaultSettingsMenuItemActionPerformed
@@ -687,7 +747,7 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     }//GEN-LAST:event_netManagerMenuItemActionPerformed
 
     private void runDrcBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_runDrcBtnActionPerformed
-        if(openProject == null) {
+        if(openProject == null || da.isLoading()) {
             return;
         }
         
@@ -695,16 +755,49 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     }//GEN-LAST:event_runDrcBtnActionPerformed
 
     private void bomMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_bomMenuItemActionPerformed
-        if(openProject == null) {
+        if(openProject == null || da.isLoading()) {
             return;
         }
         
         da.saveBOM();
     }//GEN-LAST:event_bomMenuItemActionPerformed
 
+    private void liveDrcMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_liveDrcMenuItemActionPerformed
+        if(openProject == null) {
+            return;
+        }
+        
+        da.setLiveDrc(liveDrcMenuItem.isSelected());
+    }//GEN-LAST:event_liveDrcMenuItemActionPerformed
+
+    private void zoomInMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_zoomInMenuItemActionPerformed
+        if(openProject == null) {
+            return;
+        }
+        
+        da.zoomIn();
+    }//GEN-LAST:event_zoomInMenuItemActionPerformed
+
+    private void zoomOutMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_zoomOutMenuItemActionPerformed
+        if(openProject == null) {
+            return;
+        }
+        
+        da.zoomOut();
+    }//GEN-LAST:event_zoomOutMenuItemActionPerformed
+
+    private void actualSizeMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_actualSizeMenuItemActionPerformed
+        if(openProject == null) {
+            return;
+        }
+        
+        da.setZoom(1);
+    }//GEN-LAST:event_actualSizeMenuItemActionPerformed
+
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JMenuItem aboutMenuItem;
+    private javax.swing.JMenuItem actualSizeMenuItem;
     private javax.swing.JMenuItem bomMenuItem;
     private javax.swing.JPanel centerPanel;
     private javax.swing.JScrollPane centerScrollPane;
@@ -718,6 +811,7 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     private javax.swing.JPanel jPanel1;
     private javax.swing.JPanel jPanel2;
     private javax.swing.JPanel jPanel4;
+    private javax.swing.JCheckBoxMenuItem liveDrcMenuItem;
     private javax.swing.JPopupMenu.Separator jSeparator1;
     private javax.swing.JPopupMenu.Separator jSeparator2;
     private javax.swing.JSplitPane jSplitPane1;
@@ -737,9 +831,12 @@ public class Editor extends javax.swing.JFrame implements CoordinateListener {
     private javax.swing.ButtonGroup toolBarBtnGroup;
     private javax.swing.JTree tree;
     private javax.swing.JScrollPane treeView;
+    private javax.swing.JMenu viewMenu;
     private javax.swing.JLabel xCoordLbl;
     private javax.swing.JLabel xLbl;
     private javax.swing.JLabel yCoordLbl;
     private javax.swing.JLabel yLbl;
+    private javax.swing.JMenuItem zoomInMenuItem;
+    private javax.swing.JMenuItem zoomOutMenuItem;
     // End of variables declaration//GEN-END:variables
 }
@@ -14,6 +14,7 @@ import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import pcbEditor.DesignArea;
 import pcbEditor.Net;
 import pcbPart.Part;
 import pcbPrimitives.Pad;
@@ -24,7 +25,8 @@ import pcbPrimitives.Pad;
  */
 public class NetManager extends javax.swing.JFrame {
 
-    // The connection nets
+    // The design area owning the nets
+    private DesignArea da;
     private ArrayList<Net> nets;
     private ArrayList<Part> parts;
     private Pad selPad; // Currently selected pad.
@@ -36,13 +38,13 @@ public class NetManager extends javax.swing.JFrame {
     /**
      * Creates new form NetManager
      *
-     * @param parts the parts to connect.
-     * @param nets the nets that define the connections between parts.
+     * @param da the design area whose parts and nets to manage.
      */
-    public NetManager(ArrayList<Part> parts, ArrayList<Net> nets) {
+    public NetManager(DesignArea da) {
         initComponents();
-        this.nets = nets;
-        this.parts = parts;
+        this.da = da;
+        this.nets = da.getNets();
+        this.parts = da.getParts();
 
         rebuild();
 
@@ -263,7 +265,7 @@ public class NetManager extends javax.swing.JFrame {
             }
         }
         Net newNet = new Net(name);
-        nets.add(newNet);
+        da.addNet(newNet);
         netTop.add(new DefaultMutableTreeNode(newNet));
         netTree.setModel(new DefaultTreeModel(netTop));
         revalidate();
@@ -302,7 +304,7 @@ public class NetManager extends javax.swing.JFrame {
             selNet.removePad(pad);
         }
 
-        nets.remove(selNet);
+        da.removeNet(selNet);
         rebuild();
     }//GEN-LAST:event_removeNetBtnActionPerformed
 